@@ -29,8 +29,8 @@ public class AssignmentNode extends StatementNode {
      */
     @Override
     public String generateTAC(TACContext context) {
-        String exprPlace = expression.generateTAC(context);
-        context.emit(variable.name + " = " + exprPlace);
+        long exprPlace = expression.generateOperand(context);
+        context.emit(TACCode.Opcode.COPY, TACCode.variable(variable.symbol), exprPlace);
         return null;
     }
 
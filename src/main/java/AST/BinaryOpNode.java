@@ -26,20 +26,22 @@ public class BinaryOpNode extends ExpressionNode {
 
     /**
      * 生成二元运算的三地址码。
-     * 1. 递归生成左右操作数的三地址码，并获取它们结果的 "place"。
+     * 1. 递归生成左右操作数的三地址码，并获取它们结果的操作数。
      * 2. 创建一个新的临时变量来存储本次二元运算的结果。
      * 3. 发出一条形如 "result = leftPlace operator rightPlace" 的三地址指令。
      *
      * @param context TAC 生成的上下文环境。
-     * @return 存储该二元运算结果的新临时变量的名称 (place)。
+     * @return 存储该二元运算结果的新临时变量。
      */
     @Override
-    public String generateTAC(TACContext context) {
-        String leftPlace = left.generateTAC(context);
-        String rightPlace = right.generateTAC(context);
-        this.resultPlace = context.newTemp();
-        context.emit(this.resultPlace + " = " + leftPlace + " " + operatorTokenValue + " " + rightPlace);
-        return this.resultPlace;
+    public long generateOperand(TACContext context) {
+        long leftOperand = left.generateOperand(context);
+        long rightOperand = right.generateOperand(context);
+        int temp = context.newTempNumber();
+        this.resultPlace = "_t" + temp;
+        long result = TACCode.temp(temp);
+        context.emit(TACCode.Opcode.binary(operatorTokenValue), result, leftOperand, rightOperand);
+        return result;
     }
 
     public String getType() { return type; }
@@ -1,11 +1,14 @@
 package AST;
 
+import Lexer.IdentifierPool;
+
 /**
  * DeclarationNode 代表一个变量声明语句，例如 int x; 或 int x = 10;。
  * 它继承自 StatementNode。
  */
 public class DeclarationNode extends StatementNode {
     public String varName;
+    public int varSymbol; // 变量名在 IdentifierPool 中的符号编号
     public ExpressionNode initializer;
 
     /**
@@ -15,7 +18,18 @@ public class DeclarationNode extends StatementNode {
      * @param initializer 初始化表达式；如果无初始化，则为 null。
      */
     public DeclarationNode(String varName, ExpressionNode initializer) {
-        this.varName = varName;
+        this(IdentifierPool.intern(varName), initializer);
+    }
+
+    /**
+     * 以词法分析器给出的符号编号构造声明节点。
+     *
+     * @param varSymbol   被声明变量的符号编号。
+     * @param initializer 初始化表达式；如果无初始化，则为 null。
+     */
+    public DeclarationNode(int varSymbol, ExpressionNode initializer) {
+        this.varSymbol = varSymbol;
+        this.varName = IdentifierPool.name(varSymbol);
         this.initializer = initializer;
     }
 
@@ -30,10 +44,11 @@ public class DeclarationNode extends StatementNode {
      */
     @Override
     public String generateTAC(TACContext context) {
-        context.emit("DECLARE " + varName);
+        long variable = TACCode.variable(varSymbol);
+        context.emit(TACCode.Opcode.DECLARE, variable);
         if (initializer != null) {
-            String initPlace = initializer.generateTAC(context);
-            context.emit(varName + " = " + initPlace);
+            long initPlace = initializer.generateOperand(context);
+            context.emit(TACCode.Opcode.COPY, variable, initPlace);
         }
         return null;
     }
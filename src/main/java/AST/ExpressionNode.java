@@ -12,6 +12,27 @@ public abstract class ExpressionNode implements ASTNode {
      */
     public String resultPlace;
 
+    /**
+     * 生成表达式的三地址码，并返回结果所在位置的操作数编码 (见 {@link TACCode})。
+     * 父节点应当使用这里返回的操作数：被共享的节点 (见 {@link NodeFactory}) 的 resultPlace 可能在之后被改写。
+     *
+     * @param context TAC 生成的上下文环境。
+     * @return 结果操作数。
+     */
+    public abstract long generateOperand(TACContext context);
+
+    /**
+     * 生成表达式的三地址码。
+     *
+     * @param context TAC 生成的上下文环境。
+     * @return 结果所在位置的文本形式，即 resultPlace。
+     */
+    @Override
+    public String generateTAC(TACContext context) {
+        generateOperand(context);
+        return resultPlace;
+    }
+
     /**
      * 默认的 printTree 实现，适用于大多数简单的表达式节点。
      * 它打印节点名称，如果 resultPlace 不为空且与节点名不同，则附带打印 resultPlace。
@@ -0,0 +1,811 @@
+package AST;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FlatAST 类是抽象语法树的紧凑表示：所有节点保存在一组平行的基本类型数组 (arena) 中，用下标代替对象引用。
+ * <p>
+ * 节点 i 的种类为 kind[i]，各种类的字段含义如下 (-1 表示没有该子节点)：
+ * <pre>
+ * PROGRAM      a = 代码块
+ * BLOCK        a = 第一条语句, b = 语句数量, c = 最后一条语句 (语句之间通过 next 链接)
+ * DECLARATION  a = 变量的符号编号, b = 初始化表达式
+ * ASSIGNMENT   a = 被赋值变量 (IDENTIFIER 节点), b = 表达式
+ * IF           a = 条件, b = 条件成立的代码块, c = else 代码块
+ * WHILE        a = 条件, b = 循环体
+ * RETURN       a = 表达式
+ * PRINTF       a = 格式字符串表达式, b = 参数表达式
+ * BINARY_OP    a = 左操作数, b = 右操作数, c = 操作符在常量池中的下标
+ * IDENTIFIER   a = 符号编号 (IdentifierPool)
+ * NUMBER       a = 数值
+ * STRING       a = 带引号的字面量在常量池中的下标
+ * </pre>
+ * 语法分析器通过 {@link Builder} 直接生成 FlatAST ({@link RecursiveDescentASTParser#parseFlatProgram})，不经过对象形式的 AST；
+ * 此时节点按分析的顺序排列，子树基本连续存放。由对象形式转换 ({@link #of}) 时节点按先序排列。
+ * 与 {@link NodeFactory} 一样，同一个标识符或数字只有一个叶子节点，由所有引用它的父节点共享；
+ * 标识符只保存符号编号，字符串与操作符文本保存在去重的常量池中。
+ * <p>
+ * 语义分析、三地址码生成与树形打印不另写一份数组版本，而是通过节点视图 ({@link #view}) 运行对象形式的代码：
+ * 视图是对应 AST 节点类的子类，在被访问时才从数组中读出子节点，访问结束后立即释放它们，
+ * 因此任意时刻只有从根到当前节点的一条路径以对象形式存在。
+ * 三地址码生成时分配的临时变量记录在数组中，之后的树形打印与对象形式的 AST 显示相同的结果位置。
+ */
+public final class FlatAST {
+    public static final byte PROGRAM = 0;
+    public static final byte BLOCK = 1;
+    public static final byte DECLARATION = 2;
+    public static final byte ASSIGNMENT = 3;
+    public static final byte IF = 4;
+    public static final byte WHILE = 5;
+    public static final byte RETURN = 6;
+    public static final byte PRINTF = 7;
+    public static final byte BINARY_OP = 8;
+    public static final byte IDENTIFIER = 9;
+    public static final byte NUMBER = 10;
+    public static final byte STRING = 11;
+
+    private byte[] kind;
+    private int[] a;
+    private int[] b;
+    private int[] c;
+    private int[] next;   // 同一代码块中下一条语句，-1 表示没有
+    private int[] temp;   // 二元运算结果所在临时变量的编号，-1 表示尚未生成；第一次生成三地址码时才分配
+    private int size;
+    private int root = -1;
+
+    private final List<String> constants = new ArrayList<>();
+    private final Map<String, Integer> constantIndex = new HashMap<>();
+
+    private FlatAST(int capacity) {
+        kind = new byte[capacity];
+        a = new int[capacity];
+        b = new int[capacity];
+        c = new int[capacity];
+        next = new int[capacity];
+    }
+
+    /**
+     * 把对象形式的 AST 压缩为 FlatAST。转换完成后原来的对象树可以丢弃。
+     *
+     * @param program 对象形式的 AST 根节点。
+     * @return 压缩后的 AST。
+     */
+    public static FlatAST of(ProgramNode program) {
+        Builder builder = new Builder();
+        return builder.finish(builder.program(program.block == null ? null : copyBlock(program.block, builder)));
+    }
+
+    /**
+     * @return 节点数量。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 根节点 (PROGRAM) 的下标。
+     */
+    public int root() {
+        return root;
+    }
+
+    /**
+     * @return 节点的种类。
+     */
+    public byte kind(int node) {
+        return kind[node];
+    }
+
+    /**
+     * @return 节点的第一个字段 (含义见类注释)。
+     */
+    public int a(int node) {
+        return a[node];
+    }
+
+    /**
+     * @return 节点的第二个字段。
+     */
+    public int b(int node) {
+        return b[node];
+    }
+
+    /**
+     * @return 节点的第三个字段。
+     */
+    public int c(int node) {
+        return c[node];
+    }
+
+    /**
+     * @return 同一代码块中的下一条语句，-1 表示没有。
+     */
+    public int next(int node) {
+        return next[node];
+    }
+
+    /**
+     * @return 常量池中的字符串 (字符串字面量或操作符文本)。
+     */
+    public String constant(int index) {
+        return constants.get(index);
+    }
+
+    /**
+     * @return 二元运算结果所在临时变量的编号，尚未生成三地址码时为 -1。
+     */
+    public int temp(int node) {
+        return temp == null ? -1 : temp[node];
+    }
+
+    // ---------------------------------------------------------------- 构建
+
+    /**
+     * Builder 把语法分析器 (或 {@link #of} 的转换) 产生的节点追加到数组中，节点以下标表示。
+     * 标识符与数字的叶子节点在构建期间驻留，驻留表在 {@link #finish} 之后随 Builder 一起释放。
+     */
+    static final class Builder implements NodeSink<Integer> {
+        private final FlatAST ast = new FlatAST(64);
+        private int[] identifierNodes = new int[64];                     // 符号编号 -> IDENTIFIER 节点下标 + 1，0 表示尚未创建
+        private final Map<Integer, Integer> numberNodes = new HashMap<>(); // 数值 -> NUMBER 节点下标
+
+        /**
+         * 设置根节点并释放数组中未使用的容量。
+         *
+         * @return 构建完成的 FlatAST。
+         */
+        FlatAST finish(Integer program) {
+            ast.root = program;
+            ast.trim();
+            return ast;
+        }
+
+        @Override
+        public Integer number(int value) {
+            Integer node = numberNodes.get(value);
+            if (node == null) {
+                node = ast.add(NUMBER, value, 0, 0);
+                numberNodes.put(value, node);
+            }
+            return node;
+        }
+
+        @Override
+        public Integer identifier(int symbol) {
+            if (symbol >= identifierNodes.length) {
+                identifierNodes = Arrays.copyOf(identifierNodes, Math.max(identifierNodes.length * 2, symbol + 1));
+            }
+            if (identifierNodes[symbol] == 0) {
+                identifierNodes[symbol] = ast.add(IDENTIFIER, symbol, 0, 0) + 1;
+            }
+            return identifierNodes[symbol] - 1;
+        }
+
+        @Override
+        public Integer string(String valueWithQuotes) {
+            return ast.add(STRING, ast.constantOf(valueWithQuotes), 0, 0);
+        }
+
+        @Override
+        public Integer binary(Integer left, String operator, Integer right) {
+            return ast.add(BINARY_OP, left, right, ast.constantOf(operator));
+        }
+
+        @Override
+        public Integer declaration(int varSymbol, Integer initializer) {
+            return ast.add(DECLARATION, varSymbol, index(initializer), 0);
+        }
+
+        @Override
+        public Integer assignment(Integer variable, Integer expression) {
+            return ast.add(ASSIGNMENT, variable, expression, 0);
+        }
+
+        @Override
+        public Integer whileStatement(Integer condition, Integer body) {
+            return ast.add(WHILE, condition, body, 0);
+        }
+
+        @Override
+        public Integer ifStatement(Integer condition, Integer trueBlock, Integer falseBlock) {
+            return ast.add(IF, condition, trueBlock, index(falseBlock));
+        }
+
+        @Override
+        public Integer printf(Integer format, Integer argument) {
+            return ast.add(PRINTF, format, index(argument), 0);
+        }
+
+        @Override
+        public Integer returnStatement(Integer expression) {
+            return ast.add(RETURN, expression, 0, 0);
+        }
+
+        @Override
+        public Integer openBlock() {
+            return ast.add(BLOCK, -1, 0, -1);
+        }
+
+        @Override
+        public void addStatement(Integer block, Integer statement) {
+            if (ast.c[block] < 0) {
+                ast.a[block] = statement;
+            } else {
+                ast.next[ast.c[block]] = statement;
+            }
+            ast.b[block]++;
+            ast.c[block] = statement;
+        }
+
+        @Override
+        public Integer program(Integer block) {
+            return ast.add(PROGRAM, index(block), 0, 0);
+        }
+
+        @Override
+        public boolean isString(Integer node) {
+            return ast.kind[node] == STRING;
+        }
+
+        @Override
+        public String nodeName(Integer node) {
+            switch (ast.kind[node]) {
+                case BINARY_OP:
+                    return "BinaryOpNode";
+                case IDENTIFIER:
+                    return "IdentifierNode";
+                case NUMBER:
+                    return "NumberNode";
+                case STRING:
+                    return "StringLiteralNode";
+                default:
+                    return "ASTNode";
+            }
+        }
+
+        private static int index(Integer node) {
+            return node == null ? -1 : node;
+        }
+    }
+
+    /**
+     * 追加一个节点。
+     *
+     * @return 新节点的下标。
+     */
+    private int add(byte nodeKind, int first, int second, int third) {
+        if (size == kind.length) {
+            int capacity = size * 2;
+            kind = Arrays.copyOf(kind, capacity);
+            a = Arrays.copyOf(a, capacity);
+            b = Arrays.copyOf(b, capacity);
+            c = Arrays.copyOf(c, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        kind[size] = nodeKind;
+        a[size] = first;
+        b[size] = second;
+        c[size] = third;
+        next[size] = -1;
+        return size++;
+    }
+
+    private void trim() {
+        kind = Arrays.copyOf(kind, size);
+        a = Arrays.copyOf(a, size);
+        b = Arrays.copyOf(b, size);
+        c = Arrays.copyOf(c, size);
+        next = Arrays.copyOf(next, size);
+    }
+
+    private int constantOf(String value) {
+        Integer index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(value, index);
+        }
+        return index;
+    }
+
+    private static Integer copyBlock(BlockNode block, Builder builder) {
+        Integer node = builder.openBlock();
+        if (block.statements != null) {
+            for (StatementNode statement : block.statements) {
+                builder.addStatement(node, copyStatement(statement, builder));
+            }
+        }
+        return node;
+    }
+
+    private static Integer copyStatement(StatementNode statement, Builder builder) {
+        if (statement instanceof DeclarationNode decl) {
+            return builder.declaration(decl.varSymbol, copyExpression(decl.initializer, builder));
+        } else if (statement instanceof AssignmentNode assign) {
+            return builder.assignment(copyExpression(assign.variable, builder), copyExpression(assign.expression, builder));
+        } else if (statement instanceof IfNode ifNode) {
+            Integer condition = copyExpression(ifNode.condition, builder);
+            Integer trueBlock = ifNode.trueBlock == null ? null : copyBlock(ifNode.trueBlock, builder);
+            return builder.ifStatement(condition, trueBlock, ifNode.falseBlock == null ? null : copyBlock(ifNode.falseBlock, builder));
+        } else if (statement instanceof WhileNode whileNode) {
+            Integer condition = copyExpression(whileNode.condition, builder);
+            return builder.whileStatement(condition, whileNode.body == null ? null : copyBlock(whileNode.body, builder));
+        } else if (statement instanceof ReturnNode returnNode) {
+            return builder.returnStatement(copyExpression(returnNode.expression, builder));
+        } else if (statement instanceof PrintfNode printf) {
+            return builder.printf(copyExpression(printf.formatStringExpr, builder), copyExpression(printf.argument, builder));
+        }
+        throw new IllegalArgumentException("Unsupported statement node: " + statement.getClass().getSimpleName());
+    }
+
+    private static Integer copyExpression(ExpressionNode expression, Builder builder) {
+        if (expression == null) {
+            return null;
+        } else if (expression instanceof BinaryOpNode binary) {
+            Integer left = copyExpression(binary.left, builder);
+            return builder.binary(left, binary.operatorTokenValue, copyExpression(binary.right, builder));
+        } else if (expression instanceof IdentifierNode identifier) {
+            return builder.identifier(identifier.symbol);
+        } else if (expression instanceof NumberNode number) {
+            return builder.number(number.value);
+        } else if (expression instanceof StringLiteralNode string) {
+            return builder.string(string.valueWithQuotes);
+        }
+        throw new IllegalArgumentException("Unsupported expression node: " + expression.getClass().getSimpleName());
+    }
+
+    // ---------------------------------------------------------------- 节点视图
+
+    /**
+     * 用访问者遍历整棵树，例如 Analysis.SemanticAnalyzer。访问者看到的是节点视图 (见类注释)。
+     *
+     * @param visitor 访问者。
+     * @param <T>     访问者的返回类型。
+     * @return 访问者处理根节点的结果。
+     */
+    public <T> T accept(ASTVisitor<T> visitor) {
+        return view(root).accept(visitor);
+    }
+
+    /**
+     * 生成整个程序的三地址码，结果与对象形式的 {@link ProgramNode#generateTAC} 相同。
+     *
+     * @param context TAC 生成的上下文环境。
+     */
+    public void generateTAC(TACContext context) {
+        view(root).generateTAC(context);
+    }
+
+    /**
+     * 生成与对象形式的 {@code printTree("", true)} 相同的树形结构字符串 (包括三地址码生成后记录的结果位置)。
+     *
+     * @return 树形结构字符串。
+     */
+    public String printTree() {
+        return view(root).printTree("", true);
+    }
+
+    /**
+     * 返回节点的视图。语句、代码块与二元运算的视图只在 accept、generateTAC 与 printTree 期间持有子节点；
+     * 标识符、数字与字符串没有子节点，直接以普通的 AST 节点表示。
+     *
+     * @param node 节点下标。
+     * @return 对应类型的 AST 节点，node 为 -1 时返回 null。
+     */
+    public ASTNode view(int node) {
+        if (node < 0) {
+            return null;
+        }
+        switch (kind[node]) {
+            case PROGRAM:
+                return new ProgramView(node);
+            case BLOCK:
+                return new BlockView(node);
+            case DECLARATION:
+                return new DeclarationView(node);
+            case ASSIGNMENT:
+                return new AssignmentView(node);
+            case IF:
+                return new IfView(node);
+            case WHILE:
+                return new WhileView(node);
+            case RETURN:
+                return new ReturnView(node);
+            case PRINTF:
+                return new PrintfView(node);
+            case BINARY_OP:
+                return new BinaryOpView(node);
+            case IDENTIFIER:
+                return new IdentifierNode(a[node]);
+            case NUMBER:
+                return new NumberNode(a[node]);
+            case STRING:
+                return new StringLiteralNode(constants.get(a[node]));
+            default:
+                throw new IllegalStateException("Unknown node kind " + kind[node]);
+        }
+    }
+
+    private ExpressionNode expression(int node) {
+        return (ExpressionNode) view(node);
+    }
+
+    private BlockNode block(int node) {
+        return (BlockNode) view(node);
+    }
+
+    // 每个视图在 accept / generateTAC / printTree 开始时 expand (读出子节点)，结束时 collapse (释放子节点)
+
+    private final class ProgramView extends ProgramNode {
+        private final int node;
+
+        ProgramView(int node) {
+            super(null);
+            this.node = node;
+        }
+
+        private void expand() {
+            block = block(a[node]);
+        }
+
+        @Override
+        public String generateTAC(TACContext context) {
+            expand();
+            super.generateTAC(context);
+            block = null;
+            return null;
+        }
+
+        @Override
+        public String printTree(String indent, boolean isLast) {
+            expand();
+            String tree = super.printTree(indent, isLast);
+            block = null;
+            return tree;
+        }
+
+        @Override
+        public <T> T accept(ASTVisitor<T> visitor) {
+            expand();
+            T result = super.accept(visitor);
+            block = null;
+            return result;
+        }
+    }
+
+    private final class BlockView extends BlockNode {
+        private final int node;
+
+        BlockView(int node) {
+            super(null);
+            this.node = node;
+        }
+
+        private void expand() {
+            statements = new ArrayList<>(b[node]);
+            for (int s = a[node]; s >= 0; s = next[s]) {
+                statements.add((StatementNode) view(s));
+            }
+        }
+
+        @Override
+        public String generateTAC(TACContext context) {
+            expand();
+            super.generateTAC(context);
+            statements = null;
+            return null;
+        }
+
+        @Override
+        public String printTree(String indent, boolean isLast) {
+            expand();
+            String tree = super.printTree(indent, isLast);
+            statements = null;
+            return tree;
+        }
+
+        @Override
+        public <T> T accept(ASTVisitor<T> visitor) {
+            expand();
+            T result = super.accept(visitor);
+            statements = null;
+            return result;
+        }
+    }
+
+    private final class DeclarationView extends DeclarationNode {
+        private final int node;
+
+        DeclarationView(int node) {
+            super(a[node], null);
+            this.node = node;
+        }
+
+        @Override
+        public String generateTAC(TACContext context) {
+            initializer = expression(b[node]);
+            super.generateTAC(context);
+            initializer = null;
+            return null;
+        }
+
+        @Override
+        public String printTree(String indent, boolean isLast) {
+            initializer = expression(b[node]);
+            String tree = super.printTree(indent, isLast);
+            initializer = null;
+            return tree;
+        }
+
+        @Override
+        public <T> T accept(ASTVisitor<T> visitor) {
+            initializer = expression(b[node]);
+            T result = super.accept(visitor);
+            initializer = null;
+            return result;
+        }
+    }
+
+    private final class AssignmentView extends AssignmentNode {
+        private final int node;
+
+        AssignmentView(int node) {
+            super(null, null);
+            this.node = node;
+        }
+
+        private void expand() {
+            variable = (IdentifierNode) view(a[node]);
+            expression = expression(b[node]);
+        }
+
+        private void collapse() {
+            variable = null;
+            expression = null;
+        }
+
+        @Override
+        public String generateTAC(TACContext context) {
+            expand();
+            super.generateTAC(context);
+            collapse();
+            return null;
+        }
+
+        @Override
+        public String printTree(String indent, boolean isLast) {
+            expand();
+            String tree = super.printTree(indent, isLast);
+            collapse();
+            return tree;
+        }
+
+        @Override
+        public <T> T accept(ASTVisitor<T> visitor) {
+            expand();
+            T result = super.accept(visitor);
+            collapse();
+            return result;
+        }
+    }
+
+    private final class IfView extends IfNode {
+        private final int node;
+
+        IfView(int node) {
+            super(null, null, null);
+            this.node = node;
+        }
+
+        private void expand() {
+            condition = expression(a[node]);
+            trueBlock = block(b[node]);
+            falseBlock = block(c[node]);
+        }
+
+        private void collapse() {
+            condition = null;
+            trueBlock = null;
+            falseBlock = null;
+        }
+
+        @Override
+        public String generateTAC(TACContext context) {
+            expand();
+            super.generateTAC(context);
+            collapse();
+            return null;
+        }
+
+        @Override
+        public String printTree(String indent, boolean isLast) {
+            expand();
+            String tree = super.printTree(indent, isLast);
+            collapse();
+            return tree;
+        }
+
+        @Override
+        public <T> T accept(ASTVisitor<T> visitor) {
+            expand();
+            T result = super.accept(visitor);
+            collapse();
+            return result;
+        }
+    }
+
+    private final class WhileView extends WhileNode {
+        private final int node;
+
+        WhileView(int node) {
+            super(null, null);
+            this.node = node;
+        }
+
+        private void expand() {
+            condition = expression(a[node]);
+            body = block(b[node]);
+        }
+
+        private void collapse() {
+            condition = null;
+            body = null;
+        }
+
+        @Override
+        public String generateTAC(TACContext context) {
+            expand();
+            super.generateTAC(context);
+            collapse();
+            return null;
+        }
+
+        @Override
+        public String printTree(String indent, boolean isLast) {
+            expand();
+            String tree = super.printTree(indent, isLast);
+            collapse();
+            return tree;
+        }
+
+        @Override
+        public <T> T accept(ASTVisitor<T> visitor) {
+            expand();
+            T result = super.accept(visitor);
+            collapse();
+            return result;
+        }
+    }
+
+    private final class ReturnView extends ReturnNode {
+        private final int node;
+
+        ReturnView(int node) {
+            super(null);
+            this.node = node;
+        }
+
+        @Override
+        public String generateTAC(TACContext context) {
+            expression = expression(a[node]);
+            super.generateTAC(context);
+            expression = null;
+            return null;
+        }
+
+        @Override
+        public String printTree(String indent, boolean isLast) {
+            expression = expression(a[node]);
+            String tree = super.printTree(indent, isLast);
+            expression = null;
+            return tree;
+        }
+
+        @Override
+        public <T> T accept(ASTVisitor<T> visitor) {
+            expression = expression(a[node]);
+            T result = super.accept(visitor);
+            expression = null;
+            return result;
+        }
+    }
+
+    private final class PrintfView extends PrintfNode {
+        private final int node;
+
+        PrintfView(int node) {
+            super(null, null);
+            this.node = node;
+        }
+
+        private void expand() {
+            formatStringExpr = expression(a[node]);
+            argument = expression(b[node]);
+        }
+
+        private void collapse() {
+            formatStringExpr = null;
+            argument = null;
+        }
+
+        @Override
+        public String generateTAC(TACContext context) {
+            expand();
+            super.generateTAC(context);
+            collapse();
+            return null;
+        }
+
+        @Override
+        public String printTree(String indent, boolean isLast) {
+            expand();
+            String tree = super.printTree(indent, isLast);
+            collapse();
+            return tree;
+        }
+
+        @Override
+        public <T> T accept(ASTVisitor<T> visitor) {
+            expand();
+            T result = super.accept(visitor);
+            collapse();
+            return result;
+        }
+    }
+
+    /**
+     * 二元运算的视图。生成三地址码后把临时变量的编号写回 temp 数组，展开时由它恢复 resultPlace。
+     */
+    private final class BinaryOpView extends BinaryOpNode {
+        private final int node;
+
+        BinaryOpView(int node) {
+            super(null, constants.get(c[node]), null);
+            this.node = node;
+        }
+
+        private void expand() {
+            left = expression(a[node]);
+            right = expression(b[node]);
+            resultPlace = temp(node) >= 0 ? "_t" + temp[node] : null;
+        }
+
+        private void collapse() {
+            left = null;
+            right = null;
+        }
+
+        @Override
+        public long generateOperand(TACContext context) {
+            expand();
+            long result = super.generateOperand(context);
+            if (temp == null) {
+                temp = new int[size];
+                Arrays.fill(temp, -1);
+            }
+            temp[node] = TACCode.value(result);
+            collapse();
+            return result;
+        }
+
+        @Override
+        public String printTree(String indent, boolean isLast) {
+            expand();
+            String tree = super.printTree(indent, isLast);
+            collapse();
+            return tree;
+        }
+
+        @Override
+        public <T> T accept(ASTVisitor<T> visitor) {
+            expand();
+            T result = super.accept(visitor);
+            collapse();
+            return result;
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package AST;
 
+import Lexer.IdentifierPool;
+
 /**
  * IdentifierNode 代表源代码中的一个标识符，通常是一个变量名。
  * 它是一种表达式节点。
  */
 public class IdentifierNode extends ExpressionNode {
     public String name;
+    public final int symbol; // 名称在 IdentifierPool 中的符号编号
 
     /**
      * IdentifierNode 的构造函数。
@@ -13,20 +16,30 @@ public class IdentifierNode extends ExpressionNode {
      * @param name 标识符的名称字符串。
      */
     public IdentifierNode(String name) {
-        this.name = name;
+        this(IdentifierPool.intern(name));
+    }
+
+    /**
+     * 以词法分析器给出的符号编号构造标识符节点，名称直接取自驻留池。
+     *
+     * @param symbol 标识符的符号编号。
+     */
+    public IdentifierNode(int symbol) {
+        this.symbol = symbol;
+        this.name = IdentifierPool.name(symbol);
         this.resultPlace = name;
     }
 
     /**
      * 生成标识符节点的三地址码。
-     * 对于标识符，其值已经存储在其名称代表的位置，所以直接返回其名称作为 "place"。
+     * 对于标识符，其值已经存储在其名称代表的位置，所以不需要生成指令，直接作为变量操作数。
      *
      * @param context TAC 生成的上下文环境 (此处未使用，但接口要求)。
-     * @return 标识符的名称，即其值的存储位置。
+     * @return 变量操作数。
      */
     @Override
-    public String generateTAC(TACContext context) {
-        return this.resultPlace;
+    public long generateOperand(TACContext context) {
+        return TACCode.variable(symbol);
     }
 
     /**
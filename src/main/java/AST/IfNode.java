@@ -46,20 +46,20 @@ public class IfNode extends StatementNode {
      */
     @Override
     public String generateTAC(TACContext context) {
-        String elseLabel = context.newLabel();
-        String endIfLabel = (falseBlock != null) ? context.newLabel() : elseLabel;
-        String condPlace = condition.generateTAC(context);
-        context.emit("IF_FALSE " + condPlace + " GOTO " + elseLabel);
+        long elseLabel = TACCode.label(context.newLabelNumber());
+        long endIfLabel = (falseBlock != null) ? TACCode.label(context.newLabelNumber()) : elseLabel;
+        long condPlace = condition.generateOperand(context);
+        context.emit(TACCode.Opcode.IF_FALSE, condPlace, elseLabel);
         if (trueBlock != null) {
             trueBlock.generateTAC(context);
         }
         if (falseBlock != null) {
-            context.emit("GOTO " + endIfLabel);
-            context.emit(elseLabel + ":");
+            context.emit(TACCode.Opcode.GOTO, endIfLabel);
+            context.emit(TACCode.Opcode.LABEL, elseLabel);
             falseBlock.generateTAC(context);
-            context.emit(endIfLabel + ":");
+            context.emit(TACCode.Opcode.LABEL, endIfLabel);
         } else {
-            context.emit(elseLabel + ":");
+            context.emit(TACCode.Opcode.LABEL, elseLabel);
         }
         return null;
     }
@@ -0,0 +1,233 @@
+package AST;
+
+import Lexer.Token;
+import Lexer.TokenKind;
+import Lexer.TokenSource;
+import Lexer.TokenStream;
+import Parser.GrammarRule;
+import Parser.LALRTable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LALRASTParser 类是由文法生成的表驱动 LALR(1) 语法分析器，在一次线性扫描中完成语法检查并构造 AST。
+ * <p>
+ * 文法与 {@link RecursiveDescentASTParser} 接受的语言相同，每条规则附带一个语义动作，
+ * 规约时由右部各符号的语义值构造对应的 AST 节点。表达式使用二义文法 Expr -> Expr op Expr，
+ * 由运算符优先级 (关系运算 &lt; 加减 &lt; 乘除取模，均为左结合) 消解冲突。
+ * <p>
+ * 分析表在类加载时由 {@link LALRTable} 生成一次，之后所有实例共享。
+ * 分析器只需要 1 个 Token 的向前查看，因此也可以直接分析 {@link Lexer.StreamingLexer} 边读边扫描出的 Token。
+ * 与递归下降分析器不同，程序结束后剩余的 Token 会作为语法错误报告。
+ */
+public class LALRASTParser {
+
+    /**
+     * 规约时执行的语义动作。
+     */
+    @FunctionalInterface
+    private interface SemanticAction {
+        /**
+         * @param values 语义值栈。
+         * @param base   右部第一个符号的语义值在栈中的位置，第 k 个符号的语义值为 values[base + k]。
+         * @return 左部非终结符的语义值。
+         */
+        Object reduce(Object[] values, int base);
+    }
+
+    private static final List<GrammarRule> RULES = new ArrayList<>();
+    private static final List<SemanticAction> ACTIONS = new ArrayList<>();
+
+    static {
+        rule((v, i) -> new ProgramNode((BlockNode) v[i + 4]), "Program", "KW_INT", "KW_MAIN", "LPAREN", "RPAREN", "Block");
+        rule((v, i) -> new BlockNode(statements(v[i + 1])), "Block", "LBRACE", "StmtList", "RBRACE");
+        rule((v, i) -> new BlockNode(new ArrayList<>()), "Block", "LBRACE", "RBRACE");
+        rule((v, i) -> {
+            statements(v[i]).add((StatementNode) v[i + 1]);
+            return v[i];
+        }, "StmtList", "StmtList", "Stmt");
+        rule((v, i) -> {
+            List<StatementNode> statements = new ArrayList<>();
+            statements.add((StatementNode) v[i]);
+            return statements;
+        }, "StmtList", "Stmt");
+
+        rule((v, i) -> new DeclarationNode(((IdentifierNode) v[i + 1]).symbol, (ExpressionNode) v[i + 3]),
+                "Stmt", "KW_INT", "ID", "OP_ASSIGN", "Expr", "SEMICOLON");
+        rule((v, i) -> new DeclarationNode(((IdentifierNode) v[i + 1]).symbol, null),
+                "Stmt", "KW_INT", "ID", "SEMICOLON");
+        rule((v, i) -> new AssignmentNode((IdentifierNode) v[i], (ExpressionNode) v[i + 2]),
+                "Stmt", "ID", "OP_ASSIGN", "Expr", "SEMICOLON");
+        rule((v, i) -> new WhileNode((ExpressionNode) v[i + 2], (BlockNode) v[i + 4]),
+                "Stmt", "KW_WHILE", "LPAREN", "Expr", "RPAREN", "Block");
+        rule((v, i) -> new IfNode((ExpressionNode) v[i + 2], (BlockNode) v[i + 4], (BlockNode) v[i + 6]),
+                "Stmt", "KW_IF", "LPAREN", "Expr", "RPAREN", "Block", "KW_ELSE", "Block");
+        rule((v, i) -> new IfNode((ExpressionNode) v[i + 2], (BlockNode) v[i + 4], null),
+                "Stmt", "KW_IF", "LPAREN", "Expr", "RPAREN", "Block");
+        rule((v, i) -> new PrintfNode((ExpressionNode) v[i + 2], null),
+                "Stmt", "IO_PRINTF", "LPAREN", "STR", "RPAREN", "SEMICOLON");
+        rule((v, i) -> new PrintfNode((ExpressionNode) v[i + 2], (ExpressionNode) v[i + 4]),
+                "Stmt", "IO_PRINTF", "LPAREN", "STR", "COMMA", "Expr", "RPAREN", "SEMICOLON");
+        rule((v, i) -> new PrintfNode((ExpressionNode) v[i + 1], null),
+                "Stmt", "IO_PRINTF", "STR", "SEMICOLON");
+        rule((v, i) -> new ReturnNode((ExpressionNode) v[i + 1]),
+                "Stmt", "KW_RETURN", "Expr", "SEMICOLON");
+
+        for (TokenKind op : new TokenKind[]{TokenKind.OP_GT, TokenKind.OP_LE, TokenKind.OP_EQ, TokenKind.OP_ADD,
+                TokenKind.OP_SUB, TokenKind.OP_MUL, TokenKind.OP_DIV, TokenKind.OP_MOD}) {
+            rule((v, i) -> new BinaryOpNode((ExpressionNode) v[i], (String) v[i + 1], (ExpressionNode) v[i + 2]),
+                    "Expr", "Expr", op.name(), "Expr");
+        }
+        rule((v, i) -> v[i + 1], "Expr", "LPAREN", "Expr", "RPAREN");
+        rule((v, i) -> v[i], "Expr", "ID");
+        rule((v, i) -> v[i], "Expr", "NUM");
+        rule((v, i) -> v[i], "Expr", "STR");
+    }
+
+    /** 运算符优先级，下标为 TokenKind.ordinal()，-1 表示不是二元运算符。与递归下降分析器一致。 */
+    private static final int[] OPERATOR_LEVELS = new int[TokenKind.COUNT];
+    static {
+        Arrays.fill(OPERATOR_LEVELS, -1);
+        OPERATOR_LEVELS[TokenKind.OP_GT.ordinal()] = 0;
+        OPERATOR_LEVELS[TokenKind.OP_LE.ordinal()] = 0;
+        OPERATOR_LEVELS[TokenKind.OP_EQ.ordinal()] = 0;
+        OPERATOR_LEVELS[TokenKind.OP_ADD.ordinal()] = 1;
+        OPERATOR_LEVELS[TokenKind.OP_SUB.ordinal()] = 1;
+        OPERATOR_LEVELS[TokenKind.OP_MUL.ordinal()] = 2;
+        OPERATOR_LEVELS[TokenKind.OP_DIV.ordinal()] = 2;
+        OPERATOR_LEVELS[TokenKind.OP_MOD.ordinal()] = 2;
+    }
+
+    // 分析表只依赖文法，生成一次后共享
+    private static final LALRTable TABLE =
+            LALRTable.generate(RULES, GrammarRule.symbolId("Program"), OPERATOR_LEVELS);
+    private static final SemanticAction[] ACTION_ARRAY = ACTIONS.toArray(new SemanticAction[0]);
+
+    static {
+        if (!TABLE.conflicts().isEmpty()) {
+            throw new IllegalStateException("LALR(1) grammar has unresolved conflicts: " + TABLE.conflicts());
+        }
+    }
+
+    private final TokenSource tokens;
+
+    /**
+     * LALRASTParser 的构造函数。
+     *
+     * @param tokens 从词法分析器获得的 Token 列表。
+     * @throws IllegalArgumentException 如果 Token 列表为 null 或为空。
+     */
+    public LALRASTParser(List<Token> tokens) {
+        this(tokens == null ? null : TokenStream.of(tokens));
+    }
+
+    /**
+     * 以紧凑的 TokenStream 作为输入构造分析器。
+     *
+     * @param tokens 词法分析器生成的 TokenStream。
+     * @throws IllegalArgumentException 如果 TokenStream 为 null 或为空。
+     */
+    public LALRASTParser(TokenStream tokens) {
+        if (tokens == null || tokens.size() == 0) {
+            throw new IllegalArgumentException("Token list cannot be null or empty for parser.");
+        }
+        this.tokens = tokens.cursor();
+    }
+
+    /**
+     * 以按需拉取的 Token 来源构造分析器，例如 {@link Lexer.StreamingLexer}。
+     *
+     * @param tokens Token 来源。
+     * @throws IllegalArgumentException 如果 tokens 为 null。
+     */
+    public LALRASTParser(TokenSource tokens) {
+        if (tokens == null) {
+            throw new IllegalArgumentException("Token source cannot be null for parser.");
+        }
+        this.tokens = tokens;
+    }
+
+    /**
+     * @return 分析表中的状态数量。
+     */
+    public static int stateCount() {
+        return TABLE.stateCount();
+    }
+
+    /**
+     * 分析整个程序并构造 AST。
+     *
+     * @return AST 根节点。
+     * @throws RuntimeException 如果输入不符合文法。
+     */
+    public ProgramNode parseProgram() {
+        int[] states = new int[64];
+        Object[] values = new Object[64];
+        int top = 0; // states[0] 为初始状态 0
+
+        while (true) {
+            TokenKind kind = tokens.peekKind(0);
+            int action = TABLE.action(states[top], kind.ordinal());
+            if (LALRTable.isShift(action)) {
+                if (++top == states.length) {
+                    states = Arrays.copyOf(states, top * 2);
+                    values = Arrays.copyOf(values, top * 2);
+                }
+                states[top] = LALRTable.shiftTarget(action);
+                values[top] = shiftValue(kind);
+                tokens.advance();
+            } else if (LALRTable.isReduce(action)) {
+                int rule = LALRTable.reducedRule(action);
+                int base = top - TABLE.ruleLength(rule) + 1;
+                Object value = ACTION_ARRAY[rule].reduce(values, base);
+                for (int i = base + 1; i <= top; i++) {
+                    values[i] = null;
+                }
+                top = base;
+                states[top] = TABLE.gotoAfterReduce(states[top - 1], rule);
+                values[top] = value;
+            } else if (action == LALRTable.ACCEPT) {
+                return (ProgramNode) values[top];
+            } else {
+                throw new RuntimeException("Parser Error: Unexpected token " + kind + " ('" + tokens.peekValue(0) +
+                        "') at approx. index " + tokens.index() + ", expected one of " + TABLE.expected(states[top]));
+            }
+        }
+    }
+
+    /**
+     * 移进 Token 时压入的语义值：操作数为叶子节点，运算符为其文本，其余 Token 不需要语义值。
+     */
+    private Object shiftValue(TokenKind kind) {
+        switch (kind) {
+            case ID:
+                return new IdentifierNode(tokens.peekInt(0));
+            case NUM:
+                return new NumberNode(tokens.peekInt(0));
+            case STR:
+                return new StringLiteralNode(tokens.peekValue(0));
+            case OP_GT:
+            case OP_LE:
+            case OP_EQ:
+            case OP_ADD:
+            case OP_SUB:
+            case OP_MUL:
+            case OP_DIV:
+            case OP_MOD:
+                return tokens.peekValue(0);
+            default:
+                return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<StatementNode> statements(Object value) {
+        return (List<StatementNode>) value;
+    }
+
+    private static void rule(SemanticAction action, String left, String... right) {
+        RULES.add(new GrammarRule(left, right));
+        ACTIONS.add(action);
+    }
+}
@@ -0,0 +1,152 @@
+package AST;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * NodeFactory 类负责创建表达式节点，并对不可变的叶子节点做驻留 (interning)：
+ * 同一个工厂内，每个不同的标识符、数字与字符串字面量只有一个节点实例。
+ * 标识符按 IdentifierPool 的符号编号直接索引，数字与字符串使用哈希表。
+ * <p>
+ * 叶子节点的 resultPlace 在构造时确定、之后不再改变，语义分析也不会修改它们，
+ * 因此共享叶子节点不影响三地址码、语义分析与树形打印的结果。
+ * 标识符节点只记录名称，不记录它绑定到哪个作用域的声明 (绑定由语义分析的符号表在遍历时查找)，
+ * 所以一个工厂就是一个驻留作用域，通常每次语法分析使用一个新的工厂。
+ * <p>
+ * 可选地对二元运算子树做哈希合并 (hash-consing)：左右子节点已经是驻留过的节点，
+ * 以 (左子节点引用, 操作符, 右子节点引用) 作为键即可在 O(1) 时间内找到结构相同的子树。
+ * 开启后，同一个工厂创建的两个表达式结构相同当且仅当它们是同一个对象，可以直接用 == 比较。
+ * 本语言的表达式都没有副作用，合并是安全的；但 BinaryOpNode 在生成三地址码时会写入 resultPlace，
+ * 被共享的节点在树形打印中只显示最后一次出现时分配的临时变量 (生成的指令本身不变)，因此默认关闭。
+ */
+public final class NodeFactory {
+    private final boolean internLeaves;
+    private final boolean hashConsExpressions;
+
+    private IdentifierNode[] identifiers = new IdentifierNode[64]; // 下标为符号编号
+    private final Map<Integer, NumberNode> numbers = new HashMap<>();
+    private final Map<String, StringLiteralNode> strings = new HashMap<>();
+    private final Map<BinaryKey, BinaryOpNode> expressions = new HashMap<>();
+    private int created;  // 实际创建的节点数
+    private int requested; // 请求创建的节点数
+
+    /**
+     * 二元运算子树的键。子节点都已驻留，record 的 equals 对它们比较的是对象引用。
+     */
+    private record BinaryKey(ExpressionNode left, String operator, ExpressionNode right) {
+    }
+
+    /**
+     * 创建只驻留叶子节点的工厂。
+     */
+    public NodeFactory() {
+        this(true, false);
+    }
+
+    /**
+     * 创建工厂。
+     *
+     * @param internLeaves        是否驻留标识符、数字与字符串字面量节点；为 false 时每次都创建新节点。
+     * @param hashConsExpressions 是否合并结构相同的二元运算子树，仅在 internLeaves 为 true 时有效。
+     */
+    public NodeFactory(boolean internLeaves, boolean hashConsExpressions) {
+        this.internLeaves = internLeaves;
+        this.hashConsExpressions = internLeaves && hashConsExpressions;
+    }
+
+    /**
+     * @param symbol 标识符在 IdentifierPool 中的符号编号。
+     * @return 对应的标识符节点。
+     */
+    public IdentifierNode identifier(int symbol) {
+        requested++;
+        if (!internLeaves) {
+            created++;
+            return new IdentifierNode(symbol);
+        }
+        if (symbol >= identifiers.length) {
+            identifiers = Arrays.copyOf(identifiers, Math.max(identifiers.length * 2, symbol + 1));
+        }
+        IdentifierNode node = identifiers[symbol];
+        if (node == null) {
+            created++;
+            node = identifiers[symbol] = new IdentifierNode(symbol);
+        }
+        return node;
+    }
+
+    /**
+     * @param value 数字字面量的值。
+     * @return 对应的数字节点。
+     */
+    public NumberNode number(int value) {
+        requested++;
+        if (!internLeaves) {
+            created++;
+            return new NumberNode(value);
+        }
+        NumberNode node = numbers.get(value);
+        if (node == null) {
+            created++;
+            node = new NumberNode(value);
+            numbers.put(value, node);
+        }
+        return node;
+    }
+
+    /**
+     * @param valueWithQuotes 包含引号的字符串字面量。
+     * @return 对应的字符串字面量节点。
+     */
+    public StringLiteralNode string(String valueWithQuotes) {
+        requested++;
+        if (!internLeaves) {
+            created++;
+            return new StringLiteralNode(valueWithQuotes);
+        }
+        StringLiteralNode node = strings.get(valueWithQuotes);
+        if (node == null) {
+            created++;
+            node = new StringLiteralNode(valueWithQuotes);
+            strings.put(valueWithQuotes, node);
+        }
+        return node;
+    }
+
+    /**
+     * @param left     左操作数，应当由同一个工厂创建。
+     * @param operator 操作符文本。
+     * @param right    右操作数，应当由同一个工厂创建。
+     * @return 对应的二元运算节点；开启哈希合并时，结构相同的子树返回同一个节点。
+     */
+    public BinaryOpNode binary(ExpressionNode left, String operator, ExpressionNode right) {
+        requested++;
+        if (!hashConsExpressions) {
+            created++;
+            return new BinaryOpNode(left, operator, right);
+        }
+        BinaryKey key = new BinaryKey(left, operator, right);
+        BinaryOpNode node = expressions.get(key);
+        if (node == null) {
+            created++;
+            node = new BinaryOpNode(left, operator, right);
+            expressions.put(key, node);
+        }
+        return node;
+    }
+
+    /**
+     * @return 实际创建的表达式节点数。
+     */
+    public int createdNodes() {
+        return created;
+    }
+
+    /**
+     * @return 请求创建的表达式节点数，即不做驻留时会创建的节点数。
+     */
+    public int requestedNodes() {
+        return requested;
+    }
+}
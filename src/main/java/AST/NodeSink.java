@@ -0,0 +1,113 @@
+package AST;
+
+/**
+ * NodeSink 接口接收 {@link RecursiveDescentASTParser} 识别出的语法结构，并构建对应的节点。
+ * 语法分析器只有一份文法，由不同的 NodeSink 决定 AST 的表示：
+ * {@link TreeSink} 构建对象形式的 AST，{@link FlatAST.Builder} 把节点直接写入 {@link FlatAST} 的数组。
+ * <p>
+ * 子节点总是先于父节点创建 (代码块除外：代码块先打开，再逐条加入语句)。
+ * 可以省略的子节点 (例如没有初始化表达式的声明、没有 else 的 if 语句) 以 null 表示。
+ *
+ * @param <N> 节点的表示，例如 AST 节点对象或 FlatAST 中的节点下标。
+ */
+interface NodeSink<N> {
+
+    /**
+     * @param value 数字字面量的值。
+     * @return 数字节点。
+     */
+    N number(int value);
+
+    /**
+     * @param symbol 标识符在 IdentifierPool 中的符号编号。
+     * @return 标识符节点。
+     */
+    N identifier(int symbol);
+
+    /**
+     * @param valueWithQuotes 包含引号的字符串字面量。
+     * @return 字符串字面量节点。
+     */
+    N string(String valueWithQuotes);
+
+    /**
+     * @param left     左操作数。
+     * @param operator 操作符文本。
+     * @param right    右操作数。
+     * @return 二元运算节点。
+     */
+    N binary(N left, String operator, N right);
+
+    /**
+     * @param varSymbol   被声明变量的符号编号。
+     * @param initializer 初始化表达式，可为 null。
+     * @return 声明语句节点。
+     */
+    N declaration(int varSymbol, N initializer);
+
+    /**
+     * @param variable   被赋值的变量 (标识符节点)。
+     * @param expression 右侧的表达式。
+     * @return 赋值语句节点。
+     */
+    N assignment(N variable, N expression);
+
+    /**
+     * @param condition 循环条件。
+     * @param body      循环体代码块。
+     * @return while 语句节点。
+     */
+    N whileStatement(N condition, N body);
+
+    /**
+     * @param condition  条件表达式。
+     * @param trueBlock  条件成立时执行的代码块。
+     * @param falseBlock else 代码块，可为 null。
+     * @return if 语句节点。
+     */
+    N ifStatement(N condition, N trueBlock, N falseBlock);
+
+    /**
+     * @param format   格式字符串 (字符串字面量节点)。
+     * @param argument 参数表达式，可为 null。
+     * @return printf 语句节点。
+     */
+    N printf(N format, N argument);
+
+    /**
+     * @param expression 返回值表达式。
+     * @return return 语句节点。
+     */
+    N returnStatement(N expression);
+
+    /**
+     * 打开一个新的代码块，之后通过 {@link #addStatement} 按顺序加入它的语句。
+     *
+     * @return 代码块节点。
+     */
+    N openBlock();
+
+    /**
+     * 在代码块的末尾加入一条语句。
+     *
+     * @param block     由 {@link #openBlock()} 打开的代码块。
+     * @param statement 语句节点。
+     */
+    void addStatement(N block, N statement);
+
+    /**
+     * @param block 程序的主代码块。
+     * @return 程序根节点。
+     */
+    N program(N block);
+
+    /**
+     * @return 节点是否为字符串字面量，用于检查 printf 的格式字符串。
+     */
+    boolean isString(N node);
+
+    /**
+     * @return 节点对应的 AST 节点类名，用于错误信息。
+     */
+    String nodeName(N node);
+}
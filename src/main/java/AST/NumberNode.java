@@ -5,7 +5,7 @@ package AST;
  * 它是一种表达式节点。
  */
 public class NumberNode extends ExpressionNode {
-    int value;
+    final int value;
 
     /**
      * NumberNode 的构造函数。
@@ -19,14 +19,14 @@ public class NumberNode extends ExpressionNode {
 
     /**
      * 生成数字节点的三地址码。
-     * 数字字面量的值是已知的，直接返回其字符串表示作为 "place"。
+     * 数字字面量的值是已知的，不需要生成指令，直接作为立即数操作数。
      *
      * @param context TAC 生成的上下文环境 (此处未使用，但接口要求)。
-     * @return 数字值的字符串表示，即其值的存储位置 (通常直接作为立即数使用)。
+     * @return 立即数操作数。
      */
     @Override
-    public String generateTAC(TACContext context) {
-        return this.resultPlace;
+    public long generateOperand(TACContext context) {
+        return TACCode.immediate(value);
     }
 
     /**
@@ -32,49 +32,40 @@ public class PrintfNode extends StatementNode {
      */
     @Override
     public String generateTAC(TACContext context) {
-        String formatStringValue = "";
-        String formatStringActualContent = "";
-
-        if (formatStringExpr instanceof StringLiteralNode) {
-            formatStringValue = ((StringLiteralNode) formatStringExpr).valueWithQuotes;
-            if (formatStringValue.length() >= 2 && formatStringValue.startsWith("\"") && formatStringValue.endsWith("\"")) {
-                formatStringActualContent = formatStringValue.substring(1, formatStringValue.length() - 1);
-            } else {
-                formatStringActualContent = formatStringValue;
-            }
+        // 两个语法分析器都只接受字符串字面量作为格式字符串，语义分析也要求它的类型为 STRING
+        if (!(formatStringExpr instanceof StringLiteralNode)) {
+            throw new IllegalStateException("Printf format must be a string literal, but found "
+                    + (formatStringExpr == null ? "null" : formatStringExpr.getClass().getSimpleName()));
+        }
+        String formatStringValue = ((StringLiteralNode) formatStringExpr).valueWithQuotes;
+        String formatStringActualContent;
+        if (formatStringValue.length() >= 2 && formatStringValue.startsWith("\"") && formatStringValue.endsWith("\"")) {
+            formatStringActualContent = formatStringValue.substring(1, formatStringValue.length() - 1);
         } else {
-            System.err.println("警告：Printf 的格式化字符串不是一个直接的字符串字面量 AST 节点。");
-            if (formatStringExpr != null) {
-                formatStringExpr.generateTAC(context);
-                formatStringActualContent = formatStringExpr.resultPlace;
-            } else {
-                System.err.println("错误：Printf 的 formatStringExpr 为 null。");
-                context.emit("; ERROR_PRINTF_NULL_FORMAT_STRING_EXPR");
-                return null;
-            }
+            formatStringActualContent = formatStringValue;
         }
 
         if (formatStringActualContent.equals("%d") && argument != null) {
-            String argPlace = argument.generateTAC(context);
-            context.emit("PRINT " + argPlace);
+            long argPlace = argument.generateOperand(context);
+            context.emit(TACCode.Opcode.PRINT, argPlace);
         }
         else if (argument == null && !formatStringActualContent.isEmpty()) {
             if (formatStringActualContent.contains("\\n")) {
                 String[] parts = formatStringActualContent.split("\\\\n", -1);
                 for (int i = 0; i < parts.length; i++) {
                     if (!parts[i].isEmpty()) {
-                        context.emit("PRINT_STR \"" + parts[i] + "\"");
+                        context.emit(TACCode.Opcode.PRINT_STR, context.string(parts[i]));
                     }
                     if (i < parts.length - 1 || formatStringActualContent.endsWith("\\n")) {
                         if (i < parts.length - 1 || (i == parts.length -1 && formatStringActualContent.endsWith("\\n")))
-                            context.emit("PRINT_NEWLINE");
+                            context.emit(TACCode.Opcode.PRINT_NEWLINE);
                     }
                 }
             } else {
-                context.emit("PRINT_STR \"" + formatStringActualContent + "\"");
+                context.emit(TACCode.Opcode.PRINT_STR, context.string(formatStringActualContent));
             }
         } else {
-            context.emit("; COMPLEX_PRINTF Format=" + formatStringActualContent + (argument != null ? " Arg=" + (argument.resultPlace != null ? argument.resultPlace : "pending_arg") : ""));
+            context.emit(TACCode.Opcode.COMMENT, context.string("COMPLEX_PRINTF Format=" + formatStringActualContent + (argument != null ? " Arg=" + (argument.resultPlace != null ? argument.resultPlace : "pending_arg") : "")));
             if (argument != null) {
                 argument.generateTAC(context);
             }
@@ -25,11 +25,11 @@ public class ProgramNode implements ASTNode {
      */
     @Override
     public String generateTAC(TACContext context) {
-        context.emit("START_PROGRAM");
+        context.emit(TACCode.Opcode.START_PROGRAM);
         if (block != null) {
             block.generateTAC(context);
         }
-        context.emit("END_PROGRAM");
+        context.emit(TACCode.Opcode.END_PROGRAM);
         return null;
     }
 
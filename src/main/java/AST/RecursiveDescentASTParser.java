@@ -1,42 +1,61 @@
 package AST;
 
 import Lexer.Token;
+import Lexer.TokenKind;
+import Lexer.TokenSource;
+import Lexer.TokenStream;
+import java.io.PrintStream;
 import java.util.*;
 
 /**
  * RecursiveDescentASTParser 类实现了一个递归下降的语法分析器。
- * 它将词法分析器生成的 Token 列表转换为抽象语法树 (AST)。
+ * 它将词法分析器生成的 Token 序列转换为抽象语法树 (AST)。
+ * Token 通过 {@link TokenSource} 按需拉取，只使用 1 个 Token 的向前查看，
+ * 因此既可以分析预先生成的 TokenStream，也可以直接分析 StreamingLexer 边读边扫描出的 Token。
  * 该解析器主要采用递归下降方法来解析语句和程序结构，
- * 并结合了简单（算符）优先解析 (Operator-Precedence Parsing) 的思想来处理复杂的表达式。
+ * 表达式则采用优先级爬升 (Precedence Climbing / Pratt) 的方法，按稠密的优先级表处理操作符的优先级与左结合性。
+ * 文法只有一份：识别出的语法结构交给 {@link NodeSink}，由它构建对象形式的 AST ({@link #parseProgram}) 或 {@link FlatAST} ({@link #parseFlatProgram})。
  */
 public class RecursiveDescentASTParser {
-    private List<Token> tokens;
-    private int currentTokenIndex;
-    private Token currentToken;
-
-    // 为算符优先表达式解析器定义一个静态的优先级映射表
-    private static final Map<String, Integer> PRECEDENCE = new HashMap<>();
+    private final TokenSource tokens;
+    private TokenKind currentType; // 当前 Token 的类型，越过末尾后为 EOF
+    private boolean explicitStack;  // 是否使用显式栈解析嵌套结构 (见 useExplicitStack)
+    private NodeFactory nodes = new NodeFactory(); // 表达式节点的工厂，默认驻留叶子节点
+    private PrintStream warnings = System.err;     // 警告的输出位置，为 null 时不输出
+
+    // 显式栈模式下表达式解析使用的操作数栈与操作符栈，在各个表达式之间复用
+    private Object[] operands = new Object[16];  // 元素为 NodeSink 构建的表达式节点
+    private int[] operators = new int[16]; // 元素为操作符的 TokenKind.ordinal()，或表示左括号的 OPEN_PAREN
+    private static final int OPEN_PAREN = -1;
+
+    // 表达式解析使用的静态优先级表，下标为 TokenKind.ordinal()，-1 表示不是二元操作符
+    private static final int[] PRECEDENCE = new int[TokenKind.COUNT];
     static {
+        Arrays.fill(PRECEDENCE, -1);
         // 关系运算符的优先级最低 (0)
-        PRECEDENCE.put("OP_GT", 0);  // 大于
-        PRECEDENCE.put("OP_LE", 0);  // 小于等于
-        PRECEDENCE.put("OP_EQ", 0);  // 等于
+        PRECEDENCE[TokenKind.OP_GT.ordinal()] = 0;  // 大于
+        PRECEDENCE[TokenKind.OP_LE.ordinal()] = 0;  // 小于等于
+        PRECEDENCE[TokenKind.OP_EQ.ordinal()] = 0;  // 等于
         // 加减法的优先级中等 (1)
-        PRECEDENCE.put("OP_ADD", 1);
-        PRECEDENCE.put("OP_SUB", 1);
+        PRECEDENCE[TokenKind.OP_ADD.ordinal()] = 1;
+        PRECEDENCE[TokenKind.OP_SUB.ordinal()] = 1;
         // 乘、除、取模的优先级最高 (2)
-        PRECEDENCE.put("OP_MUL", 2);
-        PRECEDENCE.put("OP_DIV", 2);
-        PRECEDENCE.put("OP_MOD", 2);
+        PRECEDENCE[TokenKind.OP_MUL.ordinal()] = 2;
+        PRECEDENCE[TokenKind.OP_DIV.ordinal()] = 2;
+        PRECEDENCE[TokenKind.OP_MOD.ordinal()] = 2;
     }
 
-    /**
-     * 获取给定操作符的优先级。
-     * @param operatorType 操作符的 Token 类型。
-     * @return 返回操作符的优先级数值。如果操作符未定义，返回 -1。
-     */
-    private int getPrecedence(String operatorType) {
-        return PRECEDENCE.getOrDefault(operatorType, -1);
+    // 二元操作符的文本，下标为 TokenKind.ordinal()，构造 BinaryOpNode 时直接使用，不必从源代码中截取
+    private static final String[] OPERATOR_TEXT = new String[TokenKind.COUNT];
+    static {
+        OPERATOR_TEXT[TokenKind.OP_GT.ordinal()] = ">";
+        OPERATOR_TEXT[TokenKind.OP_LE.ordinal()] = "<=";
+        OPERATOR_TEXT[TokenKind.OP_EQ.ordinal()] = "==";
+        OPERATOR_TEXT[TokenKind.OP_ADD.ordinal()] = "+";
+        OPERATOR_TEXT[TokenKind.OP_SUB.ordinal()] = "-";
+        OPERATOR_TEXT[TokenKind.OP_MUL.ordinal()] = "*";
+        OPERATOR_TEXT[TokenKind.OP_DIV.ordinal()] = "/";
+        OPERATOR_TEXT[TokenKind.OP_MOD.ordinal()] = "%";
     }
 
     /**
@@ -46,33 +65,106 @@ public class RecursiveDescentASTParser {
      * @throws IllegalArgumentException 如果 Token 列表为 null 或为空。
      */
     public RecursiveDescentASTParser(List<Token> tokens) {
-        if (tokens == null || tokens.isEmpty()) {
+        this(tokens == null ? null : TokenStream.of(tokens));
+    }
+
+    /**
+     * 直接以紧凑的 TokenStream 作为输入构造解析器，无需物化 Token 对象。
+     *
+     * @param tokens 词法分析器生成的 TokenStream。
+     * @throws IllegalArgumentException 如果 TokenStream 为 null 或为空。
+     */
+    public RecursiveDescentASTParser(TokenStream tokens) {
+        if (tokens == null || tokens.size() == 0) {
             throw new IllegalArgumentException("Token list cannot be null or empty for parser.");
         }
+        this.tokens = tokens.cursor();
+        this.currentType = this.tokens.peekKind(0);
+    }
+
+    /**
+     * 以按需拉取的 Token 来源构造解析器，例如 {@link Lexer.StreamingLexer}。
+     * 解析器每次只查看当前 Token，不会预先读取整个输入。
+     *
+     * @param tokens Token 来源。
+     * @throws IllegalArgumentException 如果 tokens 为 null。
+     */
+    public RecursiveDescentASTParser(TokenSource tokens) {
+        if (tokens == null) {
+            throw new IllegalArgumentException("Token source cannot be null for parser.");
+        }
         this.tokens = tokens;
-        this.currentTokenIndex = 0;
-        this.currentToken = tokens.get(0);
+        this.currentType = tokens.peekKind(0);
+    }
+
+    /**
+     * 切换到显式栈模式：代码块、while / if 语句与括号表达式的嵌套不再使用 Java 调用栈，
+     * 而是保存在堆上的栈中，嵌套深度只受堆内存限制，适合分析机器生成的深层嵌套代码。
+     * 两种模式构建的 AST 与报告的错误相同。
+     *
+     * @param enabled 为 true 时使用显式栈，为 false 时使用递归下降 (默认)。
+     * @return this，便于链式调用。
+     */
+    public RecursiveDescentASTParser useExplicitStack(boolean enabled) {
+        this.explicitStack = enabled;
+        return this;
+    }
+
+    /**
+     * 指定创建表达式节点的工厂，例如开启二元运算子树哈希合并的工厂，或不做任何驻留的工厂。
+     * 默认使用只驻留叶子节点的 {@link NodeFactory}。
+     *
+     * @param factory 表达式节点的工厂。
+     * @return this，便于链式调用。
+     */
+    public RecursiveDescentASTParser useNodeFactory(NodeFactory factory) {
+        if (factory == null) {
+            throw new IllegalArgumentException("Node factory cannot be null.");
+        }
+        this.nodes = factory;
+        return this;
+    }
+
+    /**
+     * 指定警告 (例如程序结束后剩余的 Token) 的输出位置，默认为标准错误输出。
+     *
+     * @param out 警告的输出位置，为 null 时不输出任何警告 (错误仍以异常报告)。
+     * @return this，便于链式调用。
+     */
+    public RecursiveDescentASTParser reportWarningsTo(PrintStream out) {
+        this.warnings = out;
+        return this;
+    }
+
+    /**
+     * @return 当前 Token 的文本值 (仅在需要时从源代码中截取)。
+     */
+    private String currentValue() {
+        return tokens.peekValue(0);
+    }
+
+    /**
+     * @return 当前 Token 的对象形式，仅用于错误信息。
+     */
+    private Token currentToken() {
+        return tokens.peek(0);
     }
 
     /**
      * 消耗 (consume) 当前 Token，并前进到下一个 Token。
      * 如果当前 Token 的类型与期望的类型不匹配，则抛出运行时异常。
      *
-     * @param expectedType 期望的当前 Token 的类型字符串。
+     * @param expectedType 期望的当前 Token 的类型。
      * @throws RuntimeException 如果 Token 类型不匹配。
      */
-    private void consume(String expectedType) {
-        if (currentToken.type.equals(expectedType)) {
-            currentTokenIndex++;
-            if (currentTokenIndex < tokens.size()) {
-                currentToken = tokens.get(currentTokenIndex);
-            } else {
-                currentToken = new Token("EOF_INTERNAL", "$");
-            }
+    private void consume(TokenKind expectedType) {
+        if (currentType == expectedType) {
+            tokens.advance();
+            currentType = tokens.peekKind(0);
         } else {
             throw new RuntimeException("Parser Error: Expected token type " + expectedType +
-                    " but found " + currentToken.type + " ('" + currentToken.value +
-                    "') at approx. index " + currentTokenIndex);
+                    " but found " + currentType + " ('" + currentValue() +
+                    "') at approx. index " + tokens.index());
         }
     }
 
@@ -83,16 +175,66 @@ public class RecursiveDescentASTParser {
      * @return 构建的 ProgramNode AST 根节点。
      */
     public ProgramNode parseProgram() {
+        return parseProgram(false);
+    }
+
+    /**
+     * 解析整个程序，并指定如何处理程序结束后剩余的 Token。
+     *
+     * @param requireEnd 为 true 时剩余的 Token 作为语法错误抛出；为 false 时只输出警告 (见 {@link #reportWarningsTo})。
+     * @return 构建的 ProgramNode AST 根节点。
+     * @throws RuntimeException 如果 requireEnd 为 true 且程序结束后还有 Token。
+     */
+    public ProgramNode parseProgram(boolean requireEnd) {
+        return (ProgramNode) parse(new TreeSink(nodes), requireEnd);
+    }
+
+    /**
+     * 解析整个程序，把节点直接写入 {@link FlatAST} 的数组，不创建对象形式的 AST 节点，
+     * 因此分析期间的堆占用就是最终 FlatAST 的大小。文法、错误与警告都与 {@link #parseProgram(boolean)} 相同
+     * (两者是同一个分析过程，只是节点交给不同的 {@link NodeSink})，同样遵循 {@link #useExplicitStack} 的设置；
+     * {@link #useNodeFactory} 只影响对象形式的 AST。
+     *
+     * @param requireEnd 为 true 时剩余的 Token 作为语法错误抛出；为 false 时只输出警告 (见 {@link #reportWarningsTo})。
+     * @return 构建的 FlatAST。
+     * @throws RuntimeException 如果遇到语法错误。
+     */
+    public FlatAST parseFlatProgram(boolean requireEnd) {
+        FlatAST.Builder builder = new FlatAST.Builder();
+        return builder.finish(parse(builder, requireEnd));
+    }
+
+    /**
+     * 按当前模式解析整个程序，节点交给 sink 构建。
+     *
+     * @return 程序根节点。
+     */
+    private <N> N parse(NodeSink<N> sink, boolean requireEnd) {
         //文法: Program -> KW_INT KW_MAIN LPAREN RPAREN Block
-        consume("KW_INT");
-        consume("KW_MAIN");
-        consume("LPAREN");
-        consume("RPAREN");
-        BlockNode block = parseBlock();
-        if (!currentToken.type.equals("EOF") && !currentToken.type.equals("EOF_INTERNAL") && !currentToken.type.equals("$")) {
-            System.err.println("Warning: Parser finished, but unconsumed tokens remain, starting with: " + currentToken);
+        consume(TokenKind.KW_INT);
+        consume(TokenKind.KW_MAIN);
+        consume(TokenKind.LPAREN);
+        consume(TokenKind.RPAREN);
+        N block = explicitStack ? parseBlockWithExplicitStack(sink) : parseBlock(sink);
+        checkEnd(requireEnd);
+        return sink.program(block);
+    }
+
+    /**
+     * 处理程序结束后剩余的 Token。
+     *
+     * @param requireEnd 为 true 时作为语法错误抛出；为 false 时只输出警告。
+     */
+    private void checkEnd(boolean requireEnd) {
+        if (currentType != TokenKind.EOF) {
+            if (requireEnd) {
+                throw new RuntimeException("Parser Error: Unexpected token after end of program: " + currentToken() +
+                        " at approx. index " + tokens.index());
+            }
+            if (warnings != null) {
+                warnings.println("Warning: Parser finished, but unconsumed tokens remain, starting with: " + currentToken());
+            }
         }
-        return new ProgramNode(block);
     }
 
     /**
@@ -100,17 +242,103 @@ public class RecursiveDescentASTParser {
      * 文法规则 (示例): Block -> LBRACE StmtList RBRACE | LBRACE RBRACE
      * StmtList (语句列表) 在此通过循环处理，直到遇到右花括号。
      *
-     * @return 构建的 BlockNode AST 节点。
+     * @return 构建的代码块节点。
      */
-    private BlockNode parseBlock() {
+    private <N> N parseBlock(NodeSink<N> sink) {
         //文法: Block -> LBRACE StmtList RBRACE | LBRACE RBRACE
-        consume("LBRACE");
-        List<StatementNode> statements = new ArrayList<>();
-        while (!currentToken.type.equals("RBRACE") && !currentToken.type.equals("EOF") && !currentToken.type.equals("EOF_INTERNAL")) {
-            statements.add(parseStatement());
+        consume(TokenKind.LBRACE);
+        N block = sink.openBlock();
+        while (currentType != TokenKind.RBRACE && currentType != TokenKind.EOF) {
+            sink.addStatement(block, parseStatement(sink));
+        }
+        consume(TokenKind.RBRACE);
+        return block;
+    }
+
+    /**
+     * 显式栈模式下尚未完成的代码块或复合语句。
+     */
+    private static final class Frame<N> {
+        static final int BLOCK = 0;      // 正在收集语句的代码块
+        static final int WHILE_BODY = 1; // 等待循环体的 while 语句
+        static final int IF_TRUE = 2;    // 等待条件成立分支的 if 语句
+        static final int IF_FALSE = 3;   // 等待 else 分支的 if 语句
+
+        int kind;
+        N block;
+        N condition;
+        N trueBlock;
+
+        Frame(int kind) {
+            this.kind = kind;
         }
-        consume("RBRACE");
-        return new BlockNode(statements);
+    }
+
+    /**
+     * 以显式栈解析一个代码块，与 {@link #parseBlock} 接受相同的文法、以相同的顺序创建节点。
+     * 遇到 while / if 语句时把语句压栈并打开它的代码块，代码块结束时弹栈并把完成的代码块交给栈中的外层语句，
+     * 因此代码块的嵌套深度不受 Java 调用栈的限制。
+     *
+     * @return 构建的代码块节点。
+     */
+    private <N> N parseBlockWithExplicitStack(NodeSink<N> sink) {
+        ArrayDeque<Frame<N>> stack = new ArrayDeque<>();
+        openBlock(stack, sink);
+        while (true) {
+            Frame<N> block = stack.peek();
+            if (currentType == TokenKind.KW_WHILE || currentType == TokenKind.KW_IF) {
+                Frame<N> statement = new Frame<>(currentType == TokenKind.KW_WHILE ? Frame.WHILE_BODY : Frame.IF_TRUE);
+                consume(currentType);
+                consume(TokenKind.LPAREN);
+                statement.condition = expression(sink);
+                consume(TokenKind.RPAREN);
+                stack.push(statement);
+                openBlock(stack, sink);
+                continue;
+            }
+            if (currentType != TokenKind.RBRACE && currentType != TokenKind.EOF) {
+                sink.addStatement(block.block, parseStatement(sink));
+                continue;
+            }
+
+            // 代码块结束：逐层交给外层语句，直到回到一个仍在收集语句的代码块
+            consume(TokenKind.RBRACE);
+            stack.pop();
+            N finished = block.block;
+            while (true) {
+                Frame<N> outer = stack.peek();
+                if (outer == null) {
+                    return finished;
+                }
+                N statement;
+                if (outer.kind == Frame.WHILE_BODY) {
+                    statement = sink.whileStatement(outer.condition, finished);
+                } else if (outer.kind == Frame.IF_TRUE && currentType == TokenKind.KW_ELSE) {
+                    consume(TokenKind.KW_ELSE);
+                    outer.kind = Frame.IF_FALSE;
+                    outer.trueBlock = finished;
+                    openBlock(stack, sink);
+                    break;
+                } else if (outer.kind == Frame.IF_TRUE) {
+                    statement = sink.ifStatement(outer.condition, finished, null);
+                } else {
+                    statement = sink.ifStatement(outer.condition, outer.trueBlock, finished);
+                }
+                stack.pop();
+                sink.addStatement(stack.peek().block, statement);
+                break;
+            }
+        }
+    }
+
+    /**
+     * 消耗左花括号，并把一个新的代码块压入显式栈。
+     */
+    private <N> void openBlock(ArrayDeque<Frame<N>> stack, NodeSink<N> sink) {
+        consume(TokenKind.LBRACE);
+        Frame<N> block = new Frame<>(Frame.BLOCK);
+        block.block = sink.openBlock();
+        stack.push(block);
     }
 
     /**
@@ -119,26 +347,26 @@ public class RecursiveDescentASTParser {
      * 文法规则 (示例): Stmt -> DeclStmt | AssignStmt | WhileStmt | IfStmt | PrintStmt | ReturnStmt
      * (注意: ElseIfStmt 通常不是一个独立的顶层语句，而是 IfStmt 的一部分)
      *
-     * @return 构建的 StatementNode AST 子类节点。
+     * @return 构建的语句节点。
      * @throws RuntimeException 如果遇到无法开始一个语句的未知 Token。
      */
-    private StatementNode parseStatement() {
+    private <N> N parseStatement(NodeSink<N> sink) {
         //文法: Stmt -> DeclStmt | AssignStmt | WhileStmt | IfStmt | ElseIfStmt | PrintStmt | ReturnStmt
-        switch (currentToken.type) {
-            case "KW_INT":
-                return parseDeclarationStatement();
-            case "ID":
-                return parseAssignmentStatement();
-            case "KW_WHILE":
-                return parseWhileStatement();
-            case "KW_IF":
-                return parseIfStatement();
-            case "IO_PRINTF":
-                return parsePrintfStatement();
-            case "KW_RETURN":
-                return parseReturnStatement();
+        switch (currentType) {
+            case KW_INT:
+                return parseDeclarationStatement(sink);
+            case ID:
+                return parseAssignmentStatement(sink);
+            case KW_WHILE:
+                return parseWhileStatement(sink);
+            case KW_IF:
+                return parseIfStatement(sink);
+            case IO_PRINTF:
+                return parsePrintfStatement(sink);
+            case KW_RETURN:
+                return parseReturnStatement(sink);
             default:
-                throw new RuntimeException("Parser Error: Unexpected token to start a statement: " + currentToken);
+                throw new RuntimeException("Parser Error: Unexpected token to start a statement: " + currentToken());
         }
     }
 
@@ -147,20 +375,20 @@ public class RecursiveDescentASTParser {
      * 文法规则 (示例): DeclStmt -> KW_INT ID (OP_ASSIGN Expr)? SEMICOLON
      * (原注释中 "Expr" 指代 ID，这里更正为 ID)
      *
-     * @return 构建的 DeclarationNode AST 节点。
+     * @return 构建的声明语句节点。
      */
-    private DeclarationNode parseDeclarationStatement() {
+    private <N> N parseDeclarationStatement(NodeSink<N> sink) {
         //文法: DeclStmt -> KW_INT Expr OP_ASSIGN Expr SEMICOLON | KW_INT Expr SEMICOLON
-        consume("KW_INT");
-        Token idToken = currentToken;
-        consume("ID");
-        ExpressionNode initializer = null;
-        if (currentToken.type.equals("OP_ASSIGN")) {
-            consume("OP_ASSIGN");
-            initializer = parseExpression();
+        consume(TokenKind.KW_INT);
+        int varSymbol = tokens.peekInt(0);
+        consume(TokenKind.ID);
+        N initializer = null;
+        if (currentType == TokenKind.OP_ASSIGN) {
+            consume(TokenKind.OP_ASSIGN);
+            initializer = expression(sink);
         }
-        consume("SEMICOLON");
-        return new DeclarationNode(idToken.value, initializer);
+        consume(TokenKind.SEMICOLON);
+        return sink.declaration(varSymbol, initializer);
     }
 
     /**
@@ -168,18 +396,18 @@ public class RecursiveDescentASTParser {
      * 文法规则 (示例): AssignStmt -> ID OP_ASSIGN Expr SEMICOLON
      * (原注释中 LHS Expr 指代 ID)
      *
-     * @return 构建的 AssignmentNode AST 节点。
+     * @return 构建的赋值语句节点。
      */
-    private AssignmentNode parseAssignmentStatement() {
+    private <N> N parseAssignmentStatement(NodeSink<N> sink) {
         //文法: AssignStmt -> Expr OP_ASSIGN Expr SEMICOLON
-        Token idToken = currentToken;
-        consume("ID");
-        IdentifierNode varNode = new IdentifierNode(idToken.value);
-
-        consume("OP_ASSIGN");
-        ExpressionNode expr = parseExpression();
-        consume("SEMICOLON");
-        return new AssignmentNode(varNode, expr);
+        int varSymbol = tokens.peekInt(0);
+        consume(TokenKind.ID);
+        N varNode = sink.identifier(varSymbol);
+
+        consume(TokenKind.OP_ASSIGN);
+        N expr = expression(sink);
+        consume(TokenKind.SEMICOLON);
+        return sink.assignment(varNode, expr);
     }
 
     /**
@@ -187,16 +415,16 @@ public class RecursiveDescentASTParser {
      * 文法规则 (示例): WhileStmt -> KW_WHILE LPAREN Expr RPAREN Block
      * (假设条件表达式被括号包围)
      *
-     * @return 构建的 WhileNode AST 节点。
+     * @return 构建的 while 语句节点。
      */
-    private WhileNode parseWhileStatement() {
+    private <N> N parseWhileStatement(NodeSink<N> sink) {
         //文法: WhileStmt -> KW_WHILE Expr Block
-        consume("KW_WHILE");
-        consume("LPAREN");
-        ExpressionNode condition = parseExpression();
-        consume("RPAREN");
-        BlockNode body = parseBlock();
-        return new WhileNode(condition, body);
+        consume(TokenKind.KW_WHILE);
+        consume(TokenKind.LPAREN);
+        N condition = expression(sink);
+        consume(TokenKind.RPAREN);
+        N body = parseBlock(sink);
+        return sink.whileStatement(condition, body);
     }
 
     /**
@@ -204,21 +432,21 @@ public class RecursiveDescentASTParser {
      * 文法规则 (示例): IfStmt -> KW_IF LPAREN Expr RPAREN Block (KW_ELSE Block)?
      * (假设条件表达式被括号包围)
      *
-     * @return 构建的 IfNode AST 节点。
+     * @return 构建的 if 语句节点。
      */
-    private IfNode parseIfStatement() {
+    private <N> N parseIfStatement(NodeSink<N> sink) {
         //文法: IfStmt -> KW_IF Expr Block KW_ELSE Block | KW_IF Expr Block
-        consume("KW_IF");
-        consume("LPAREN");
-        ExpressionNode condition = parseExpression();
-        consume("RPAREN");
-        BlockNode trueBlock = parseBlock();
-        BlockNode falseBlock = null;
-        if (currentToken.type.equals("KW_ELSE")) {
-            consume("KW_ELSE");
-            falseBlock = parseBlock();
+        consume(TokenKind.KW_IF);
+        consume(TokenKind.LPAREN);
+        N condition = expression(sink);
+        consume(TokenKind.RPAREN);
+        N trueBlock = parseBlock(sink);
+        N falseBlock = null;
+        if (currentType == TokenKind.KW_ELSE) {
+            consume(TokenKind.KW_ELSE);
+            falseBlock = parseBlock(sink);
         }
-        return new IfNode(condition, trueBlock, falseBlock);
+        return sink.ifStatement(condition, trueBlock, falseBlock);
     }
 
     /**
@@ -228,156 +456,217 @@ public class RecursiveDescentASTParser {
      * 2. printf(StringLiteral)
      * 3. printf StringLiteral (简化模式，不带括号，如果文法支持)
      *
-     * @return 构建的 PrintfNode AST 节点。
+     * @return 构建的 printf 语句节点。
      * @throws RuntimeException 如果格式字符串不是预期的字符串字面量。
      */
-    private PrintfNode parsePrintfStatement() {
+    private <N> N parsePrintfStatement(NodeSink<N> sink) {
         //文法: PrintStmt -> IO_PRINTF LPAREN Expr RPAREN SEMICOLON (Expr is STR)
         //      PrintStmt -> IO_PRINTF LPAREN Expr COMMA Expr RPAREN SEMICOLON (Expr1 is STR, Expr2 is arg)
         //      PrintStmt -> IO_PRINTF Expr SEMICOLON (Expr is STR)
-        consume("IO_PRINTF");
-        ExpressionNode formatStringExpr;
-        ExpressionNode argument = null;
-
-        if (currentToken.type.equals("LPAREN")) {
-            consume("LPAREN");
-            formatStringExpr = parsePrimaryExpression();
-            if (!(formatStringExpr instanceof StringLiteralNode)) {
-                throw new RuntimeException("Parser Error: Expected string literal for printf format, but found " + formatStringExpr.getClass().getSimpleName());
+        consume(TokenKind.IO_PRINTF);
+        N formatStringExpr;
+        N argument = null;
+
+        if (currentType == TokenKind.LPAREN) {
+            consume(TokenKind.LPAREN);
+            formatStringExpr = primaryExpression(sink);
+            if (!sink.isString(formatStringExpr)) {
+                throw new RuntimeException("Parser Error: Expected string literal for printf format, but found " + sink.nodeName(formatStringExpr));
             }
-            if (currentToken.type.equals("COMMA")) {
-                consume("COMMA");
-                argument = parseExpression();
+            if (currentType == TokenKind.COMMA) {
+                consume(TokenKind.COMMA);
+                argument = expression(sink);
             }
-            consume("RPAREN");
+            consume(TokenKind.RPAREN);
 
         } else {
-            formatStringExpr = parsePrimaryExpression();
-            if (!(formatStringExpr instanceof StringLiteralNode)) {
-                throw new RuntimeException("Parser Error: Expected string literal for printf format (simplified mode), but found " + formatStringExpr.getClass().getSimpleName());
+            formatStringExpr = primaryExpression(sink);
+            if (!sink.isString(formatStringExpr)) {
+                throw new RuntimeException("Parser Error: Expected string literal for printf format (simplified mode), but found " + sink.nodeName(formatStringExpr));
             }
         }
-        consume("SEMICOLON");
-        return new PrintfNode(formatStringExpr, argument);
+        consume(TokenKind.SEMICOLON);
+        return sink.printf(formatStringExpr, argument);
     }
 
     /**
      * 解析 return 返回语句。
      * 文法规则 (示例): ReturnStmt -> KW_RETURN Expr SEMICOLON
      *
-     * @return 构建的 ReturnNode AST 节点。
+     * @return 构建的 return 语句节点。
      */
-    private ReturnNode parseReturnStatement() {
+    private <N> N parseReturnStatement(NodeSink<N> sink) {
         //文法: ReturnStmt -> KW_RETURN Expr SEMICOLON
-        consume("KW_RETURN");
-        ExpressionNode expr = parseExpression();
-        consume("SEMICOLON");
-        return new ReturnNode(expr);
+        consume(TokenKind.KW_RETURN);
+        N expr = expression(sink);
+        consume(TokenKind.SEMICOLON);
+        return sink.returnStatement(expr);
     }
 
     /**
-     * 解析表达式的统一入口。
-     * 这是一个经典的算符优先解析算法的实现 (使用两个栈)。
-     * 它能正确处理操作符的优先级和左结合性。
-     *
-     * @return 构建的 ExpressionNode AST 节点，代表整个表达式树的根。
+     * 按当前模式解析一个完整的表达式。
      */
-    private ExpressionNode parseExpression() {
-        Stack<ExpressionNode> operandStack = new Stack<>();
-        Stack<Token> operatorStack = new Stack<>();
-
-        operandStack.push(parsePrimaryExpression());
+    private <N> N expression(NodeSink<N> sink) {
+        return explicitStack ? parseExpressionWithExplicitStack(sink, false) : parseExpression(sink, 0);
+    }
 
-        while (isBinaryOperator(currentToken)) {
-            Token currentOp = currentToken; // 当前要处理的操作符
+    /**
+     * 按当前模式解析一个基础表达式。
+     */
+    private <N> N primaryExpression(NodeSink<N> sink) {
+        return explicitStack ? parseExpressionWithExplicitStack(sink, true) : parsePrimaryExpression(sink);
+    }
 
-            while (!operatorStack.isEmpty() &&
-                    !operatorStack.peek().type.equals("LPAREN") &&
-                    getPrecedence(operatorStack.peek().type) >= getPrecedence(currentOp.type)) {
-                applyOperator(operandStack, operatorStack);
+    /**
+     * 以显式的操作数栈与操作符栈 (调度场算法) 解析表达式，括号的嵌套深度不受 Java 调用栈的限制。
+     * 同级操作符先规约，保持左结合，构建的表达式与 {@link #parseExpression} 相同。
+     * 两个栈是在表达式之间复用的数组，除表达式节点外不创建对象。
+     *
+     * @param primaryOnly 为 true 时只解析一个基础表达式 (标识符、数字、字符串或一对括号括起的表达式)，
+     *                    对应 {@link #parsePrimaryExpression}。
+     * @return 构建的表达式节点。
+     */
+    @SuppressWarnings("unchecked")
+    private <N> N parseExpressionWithExplicitStack(NodeSink<N> sink, boolean primaryOnly) {
+        int operandCount = 0;
+        int operatorCount = 0;
+        int openParens = 0;
+        while (true) {
+            // 期待一个操作数：先压入任意多个左括号，再读入一个叶子节点
+            while (currentType == TokenKind.LPAREN) {
+                consume(TokenKind.LPAREN);
+                operators = ensureCapacity(operators, operatorCount);
+                operators[operatorCount++] = OPEN_PAREN;
+                openParens++;
             }
-
-            operatorStack.push(currentOp);
-            consume(currentOp.type);
-
-            operandStack.push(parsePrimaryExpression());
-        }
-
-        while (!operatorStack.isEmpty()) {
-            if (operatorStack.peek().type.equals("LPAREN")) {
-                throw new RuntimeException("Parser Error: Mismatched parentheses, unclosed '('.");
+            TokenKind type = currentType;
+            N operand;
+            if (type == TokenKind.NUM) {
+                operand = sink.number(tokens.peekInt(0));
+            } else if (type == TokenKind.ID) {
+                operand = sink.identifier(tokens.peekInt(0));
+            } else if (type == TokenKind.STR) {
+                operand = sink.string(currentValue());
+            } else {
+                throw new RuntimeException("Parser Error: Unexpected token for a primary expression: " + currentToken());
+            }
+            consume(type);
+            if (operandCount == operands.length) {
+                operands = Arrays.copyOf(operands, operandCount * 2);
+            }
+            operands[operandCount++] = operand;
+
+            // 操作数之后：闭合括号，或者读入下一个二元操作符
+            while (true) {
+                int precedence = PRECEDENCE[currentType.ordinal()];
+                if (precedence >= 0 && !(primaryOnly && openParens == 0)) {
+                    while (operatorCount > 0 && operators[operatorCount - 1] != OPEN_PAREN
+                            && PRECEDENCE[operators[operatorCount - 1]] >= precedence) {
+                        operandCount = applyOperator(sink, operandCount, operators[--operatorCount]);
+                    }
+                    operators = ensureCapacity(operators, operatorCount);
+                    operators[operatorCount++] = currentType.ordinal();
+                    consume(currentType);
+                    break;
+                }
+                if (openParens == 0) {
+                    while (operatorCount > 0) {
+                        operandCount = applyOperator(sink, operandCount, operators[--operatorCount]);
+                    }
+                    N result = (N) operands[0];
+                    operands[0] = null;
+                    return result;
+                }
+                consume(TokenKind.RPAREN); // 括号未闭合时在这里报告与递归模式相同的错误
+                while (operators[operatorCount - 1] != OPEN_PAREN) {
+                    operandCount = applyOperator(sink, operandCount, operators[--operatorCount]);
+                }
+                operatorCount--;
+                openParens--;
             }
-            applyOperator(operandStack, operatorStack);
-
-        }
-
-        if (operandStack.size() != 1) {
-            throw new RuntimeException("Parser Error: Invalid expression structure. Operand stack size is " + operandStack.size() + ", expected 1.");
         }
-        return operandStack.pop(); // 返回表达式树的根节点
     }
 
     /**
-     * 从操作数栈和操作符栈中弹出元素，构建一个二元操作节点，并将新节点压回操作数栈。
+     * 用操作数栈顶的两个操作数与给定的操作符构建二元运算节点，并压回操作数栈。
      *
-     * @param operandStack 操作数栈。
-     * @param operatorStack 操作符栈。
-     */
-    private void applyOperator(Stack<ExpressionNode> operandStack, Stack<Token> operatorStack) {
-        if (operatorStack.isEmpty()) return;
-        Token opToken = operatorStack.pop();
-        if (operandStack.size() < 2) {
-            throw new RuntimeException("Parser Error: Syntax error, missing operands for operator " + opToken.value);
-        }
+     * @return 新的操作数数量。
+     */
+    @SuppressWarnings("unchecked")
+    private <N> int applyOperator(NodeSink<N> sink, int operandCount, int operator) {
+        N right = (N) operands[--operandCount];
+        N left = (N) operands[operandCount - 1];
+        operands[operandCount] = null;
+        operands[operandCount - 1] = sink.binary(left, OPERATOR_TEXT[operator], right);
+        return operandCount;
+    }
 
-        ExpressionNode right = operandStack.pop();
-        ExpressionNode left = operandStack.pop();
-        operandStack.push(new BinaryOpNode(left, opToken.value, right));
+    private static int[] ensureCapacity(int[] array, int size) {
+        return size < array.length ? array : Arrays.copyOf(array, array.length * 2);
     }
 
     /**
-     * 检查给定的 Token 是否是一个已定义的二元操作符。
+     * 以优先级爬升 (Pratt) 的方式解析表达式：先解析一个基础表达式作为左操作数，
+     * 然后只要当前 Token 是优先级不低于 minPrecedence 的二元操作符，就以更高一级的优先级解析右操作数并组合成二元运算节点。
+     * 右操作数只接受优先级更高的操作符，因此同级操作符总是左结合。
+     * 优先级与操作符文本都从以 TokenKind.ordinal() 为下标的数组中查得，除 AST 节点外不创建任何对象；
+     * 递归深度只与优先级的级数和括号的嵌套层数有关，与表达式的长度无关。
      *
-     * @param token 要检查的 Token。
-     * @return 如果是二元操作符则返回 true，否则返回 false。
+     * @param minPrecedence 本层接受的最低操作符优先级。
+     * @return 构建的表达式节点。
      */
-    private boolean isBinaryOperator(Token token) {
-        return PRECEDENCE.containsKey(token.type);
+    private <N> N parseExpression(NodeSink<N> sink, int minPrecedence) {
+        N left = parsePrimaryExpression(sink);
+        int precedence;
+        while ((precedence = PRECEDENCE[currentType.ordinal()]) >= minPrecedence) {
+            String operator = OPERATOR_TEXT[currentType.ordinal()];
+            tokens.advance();
+            currentType = tokens.peekKind(0);
+            N right = parseExpression(sink, precedence + 1);
+            left = sink.binary(left, operator, right);
+        }
+        return left;
     }
 
     /**
-     * 检查给定的 Token 是否是一个操作数类型（ID, NUM, STR）。
+     * 检查给定的 Token 类型是否是一个操作数类型（ID, NUM, STR）。
      *
-     * @param token 要检查的 Token。
+     * @param type 要检查的 Token 类型。
      * @return 如果是操作数则返回 true，否则返回 false。
      */
-    private boolean isOperand(Token token) {
-        return token.type.equals("ID") || token.type.equals("NUM") || token.type.equals("STR");
+    private boolean isOperand(TokenKind type) {
+        return type == TokenKind.ID || type == TokenKind.NUM || type == TokenKind.STR;
     }
 
     /**
      * 解析基础表达式 (Primary Expression)。
      * 这是表达式解析的原子单位，包括标识符、数字、字符串或括号括起来的子表达式。
      *
-     * @return 构建的 ExpressionNode AST 节点。
+     * @return 构建的表达式节点。
      * @throws RuntimeException 如果遇到非预期的 Token。
      */
-    private ExpressionNode parsePrimaryExpression() {
-        Token t = currentToken;
-        if (isOperand(t)) {
-            consume(t.type);
-            if (t.type.equals("ID")) return new IdentifierNode(t.value);
-            if (t.type.equals("NUM")) return new NumberNode(Integer.parseInt(t.value));
-            if (t.type.equals("STR")) return new StringLiteralNode(t.value);
+    private <N> N parsePrimaryExpression(NodeSink<N> sink) {
+        TokenKind type = currentType;
+        if (isOperand(type)) {
+            N operand;
+            if (type == TokenKind.NUM) {
+                operand = sink.number(tokens.peekInt(0));
+            } else if (type == TokenKind.ID) {
+                operand = sink.identifier(tokens.peekInt(0));
+            } else {
+                operand = sink.string(currentValue());
+            }
+            consume(type);
+            return operand;
         }
-        else if (t.type.equals("LPAREN")) {
-            consume("LPAREN");
+        else if (type == TokenKind.LPAREN) {
+            consume(TokenKind.LPAREN);
 
-            ExpressionNode expr = parseExpression();
-            consume("RPAREN");
+            N expr = parseExpression(sink, 0);
+            consume(TokenKind.RPAREN);
             return expr;
         }
 
-        throw new RuntimeException("Parser Error: Unexpected token for a primary expression: " + t);
+        throw new RuntimeException("Parser Error: Unexpected token for a primary expression: " + currentToken());
     }
-}
\ No newline at end of file
+}
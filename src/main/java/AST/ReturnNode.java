@@ -26,8 +26,8 @@ public class ReturnNode extends StatementNode {
      */
     @Override
     public String generateTAC(TACContext context) {
-        String exprPlace = expression.generateTAC(context);
-        context.emit("RETURN " + exprPlace);
+        long exprPlace = expression.generateOperand(context);
+        context.emit(TACCode.Opcode.RETURN, exprPlace);
         return null;
     }
 
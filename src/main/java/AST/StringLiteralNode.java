@@ -5,7 +5,7 @@ package AST;
  * 它是一种表达式节点。
  */
 public class StringLiteralNode extends ExpressionNode {
-    String valueWithQuotes;
+    final String valueWithQuotes;
 
     /**
      * StringLiteralNode 的构造函数。
@@ -19,15 +19,15 @@ public class StringLiteralNode extends ExpressionNode {
 
     /**
      * 生成字符串字面量节点的三地址码。
-     * 字符串字面量的值是已知的，直接返回其包含引号的值作为 "place"。
+     * 字符串字面量的值是已知的，把包含引号的值放入常量池作为操作数。
      * 实际的 TAC 指令 (如 PRINT_STR) 会根据需要处理这个值。
      *
-     * @param context TAC 生成的上下文环境 (此处未使用)。
-     * @return 包含引号的字符串值。
+     * @param context TAC 生成的上下文环境。
+     * @return 字符串操作数。
      */
     @Override
-    public String generateTAC(TACContext context) {
-        return this.resultPlace;
+    public long generateOperand(TACContext context) {
+        return context.string(valueWithQuotes);
     }
 
     /**
@@ -0,0 +1,490 @@
+package AST;
+
+import Lexer.IdentifierPool;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * TACCode 类以结构化的形式保存三地址码：每条指令是一个操作码与最多三个操作数，
+ * 分别存放在紧凑的 byte[] 与 long[] 数组中，不为每条指令创建字符串或对象。
+ * <p>
+ * 操作数编码为一个 long：高 32 位是操作数类型 ({@link OperandKind} 的序号)，低 32 位是编号或值——
+ * 临时变量与标签为其编号，变量为 IdentifierPool 的符号编号，立即数为其值，字符串为常量池下标。
+ * 各操作码的操作数位置：
+ * <ul>
+ *     <li>二元运算 (ADD ... NE)：目标、左操作数、右操作数；</li>
+ *     <li>COPY：目标、源；IF_FALSE：条件、标签；</li>
+ *     <li>DECLARE、GOTO、LABEL、PRINT、PRINT_STR、RETURN、COMMENT、UNKNOWN：一个操作数；</li>
+ *     <li>START_PROGRAM、END_PROGRAM、PRINT_NEWLINE：没有操作数。</li>
+ * </ul>
+ * 文本形式的三地址码 (供 GUI 显示与调试) 由 {@link #text(int)} 与 {@link #toText()} 打印，格式与以前直接拼接的字符串相同；
+ * 反过来，{@link #parse(List)} 把文本形式的三地址码解码为结构化形式。
+ */
+public final class TACCode {
+
+    /**
+     * 三地址码的操作码。二元运算的操作码带有其运算符文本。
+     */
+    public enum Opcode {
+        START_PROGRAM,
+        END_PROGRAM,
+        DECLARE,
+        ADD("+"),
+        SUB("-"),
+        MUL("*"),
+        DIV("/"),
+        MOD("%"),
+        GT(">"),
+        LE("<="),
+        EQ("=="),
+        LT("<"),
+        GE(">="),
+        NE("!="),
+        COPY,
+        IF_FALSE,
+        GOTO,
+        LABEL,
+        PRINT,
+        PRINT_STR,
+        PRINT_NEWLINE,
+        RETURN,
+        COMMENT,
+        /** 无法识别的文本指令 (仅由 {@link #parse(List)} 产生)，操作数是原始文本。 */
+        UNKNOWN;
+
+        /** 二元运算的运算符文本，其他操作码为 null。 */
+        public final String symbol;
+
+        Opcode() {
+            this(null);
+        }
+
+        Opcode(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * @return 是否为二元运算。
+         */
+        public boolean isBinary() {
+            return symbol != null;
+        }
+
+        /**
+         * @return 是否为比较运算 (结果只用于条件跳转)。
+         */
+        public boolean isComparison() {
+            return this == GT || this == LE || this == EQ || this == LT || this == GE || this == NE;
+        }
+
+        /**
+         * 查找运算符文本对应的二元运算操作码。
+         *
+         * @param symbol 运算符文本，例如 "+" 或 "&lt;="。
+         * @return 对应的操作码。
+         * @throws IllegalArgumentException 如果不是已知的二元运算符。
+         */
+        public static Opcode binary(String symbol) {
+            switch (symbol) {
+                case "+": return ADD;
+                case "-": return SUB;
+                case "*": return MUL;
+                case "/": return DIV;
+                case "%": return MOD;
+                case ">": return GT;
+                case "<=": return LE;
+                case "==": return EQ;
+                case "<": return LT;
+                case ">=": return GE;
+                case "!=": return NE;
+                default:
+                    throw new IllegalArgumentException("Unknown binary operator: " + symbol);
+            }
+        }
+    }
+
+    /**
+     * 操作数的类型。
+     */
+    public enum OperandKind {
+        NONE,
+        TEMP,
+        VARIABLE,
+        IMMEDIATE,
+        LABEL,
+        STRING
+    }
+
+    /** 表示没有操作数。 */
+    public static final long NONE = 0L;
+
+    private static final Opcode[] OPCODES = Opcode.values();
+    private static final OperandKind[] KINDS = OperandKind.values();
+
+    // 文本形式三地址码的各类指令，按 parse 中尝试的顺序排列
+    private static final Pattern DECLARE_PATTERN = Pattern.compile("DECLARE\\s+(\\S+)");
+    private static final Pattern ASSIGN_BINARY_OP_PATTERN = Pattern.compile("(\\S+)\\s*=\\s*(\\S+)\\s*([+\\-*/%]|<=|==|<|>|>=|!=)\\s*(\\S+)");
+    private static final Pattern ASSIGN_COPY_PATTERN = Pattern.compile("(\\S+)\\s*=\\s*(\\S+)");
+    private static final Pattern IF_FALSE_GOTO_PATTERN = Pattern.compile("IF_FALSE\\s+(\\S+)\\s+GOTO\\s+L(\\d+)");
+    private static final Pattern GOTO_PATTERN = Pattern.compile("GOTO\\s+L(\\d+)");
+    private static final Pattern LABEL_PATTERN = Pattern.compile("L(\\d+):");
+    private static final Pattern PRINT_VAR_PATTERN = Pattern.compile("PRINT\\s+(\\S+)");
+    private static final Pattern PRINT_STR_PATTERN = Pattern.compile("PRINT_STR\\s+\"([^\"]*)\"");
+    private static final Pattern RETURN_PATTERN = Pattern.compile("RETURN\\s+(\\S+)");
+
+    private byte[] opcodes = new byte[64];
+    private long[] operands = new long[64 * 3]; // 第 i 条指令的操作数位于 [3i, 3i + 3)
+    private int size;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+
+    // ---------------------------------------------------------------- 操作数编码
+
+    private static long operand(OperandKind kind, int value) {
+        return ((long) kind.ordinal() << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param number 临时变量编号 (名称为 "_t" + 编号)。
+     * @return 临时变量操作数。
+     */
+    public static long temp(int number) {
+        return operand(OperandKind.TEMP, number);
+    }
+
+    /**
+     * @param symbol 变量在 IdentifierPool 中的符号编号。
+     * @return 变量操作数。
+     */
+    public static long variable(int symbol) {
+        return operand(OperandKind.VARIABLE, symbol);
+    }
+
+    /**
+     * @param value 立即数的值。
+     * @return 立即数操作数。
+     */
+    public static long immediate(int value) {
+        return operand(OperandKind.IMMEDIATE, value);
+    }
+
+    /**
+     * @param number 标签编号 (名称为 "L" + 编号)。
+     * @return 标签操作数。
+     */
+    public static long label(int number) {
+        return operand(OperandKind.LABEL, number);
+    }
+
+    /**
+     * 把字符串放入常量池 (相同的字符串只保存一次)。
+     *
+     * @param value 字符串，字符串字面量包含引号，PRINT_STR 与 COMMENT 的内容不包含。
+     * @return 字符串操作数。
+     */
+    public long string(String value) {
+        Integer index = stringIndex.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            stringIndex.put(value, index);
+        }
+        return operand(OperandKind.STRING, index);
+    }
+
+    /**
+     * @return 常量池中的字符串数量。
+     */
+    public int stringCount() {
+        return strings.size();
+    }
+
+    /**
+     * @param index 常量池下标，即字符串操作数的值。
+     * @return 常量池中的字符串。
+     */
+    public String string(int index) {
+        return strings.get(index);
+    }
+
+    /**
+     * @return 操作数的类型。
+     */
+    public static OperandKind kind(long operand) {
+        return KINDS[(int) (operand >>> 32)];
+    }
+
+    /**
+     * @return 操作数的编号或值。
+     */
+    public static int value(long operand) {
+        return (int) operand;
+    }
+
+    // ---------------------------------------------------------------- 指令
+
+    /**
+     * 追加一条指令，不用的操作数传入 {@link #NONE}。
+     */
+    public void add(Opcode opcode, long first, long second, long third) {
+        if (size == opcodes.length) {
+            opcodes = Arrays.copyOf(opcodes, size * 2);
+            operands = Arrays.copyOf(operands, size * 2 * 3);
+        }
+        opcodes[size] = (byte) opcode.ordinal();
+        operands[size * 3] = first;
+        operands[size * 3 + 1] = second;
+        operands[size * 3 + 2] = third;
+        size++;
+    }
+
+    /**
+     * 替换第 index 条指令 (供优化遍在原地改写指令)，不用的操作数传入 {@link #NONE}。
+     */
+    public void set(int index, Opcode opcode, long first, long second, long third) {
+        opcodes[index] = (byte) opcode.ordinal();
+        operands[index * 3] = first;
+        operands[index * 3 + 1] = second;
+        operands[index * 3 + 2] = third;
+    }
+
+    /**
+     * 删除 removed 中标记的指令，其余指令保持原来的顺序。
+     *
+     * @param removed 要删除的指令下标。
+     * @return 删除的指令条数。
+     */
+    public int remove(BitSet removed) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed.get(i)) {
+                opcodes[kept] = opcodes[i];
+                System.arraycopy(operands, i * 3, operands, kept * 3, 3);
+                kept++;
+            }
+        }
+        int count = size - kept;
+        size = kept;
+        return count;
+    }
+
+    /**
+     * @return 指令条数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 第 index 条指令的操作码。
+     */
+    public Opcode opcode(int index) {
+        return OPCODES[opcodes[index]];
+    }
+
+    /**
+     * @param index 指令下标。
+     * @param slot  操作数位置 (0、1 或 2)。
+     * @return 操作数编码。
+     */
+    public long operand(int index, int slot) {
+        return operands[index * 3 + slot];
+    }
+
+    // ---------------------------------------------------------------- 文本打印
+
+    /**
+     * @return 操作数的文本形式：临时变量 "_tN"、变量名、十进制立即数、标签 "LN" 或常量池中的字符串。
+     */
+    public String operandText(long operand) {
+        int value = value(operand);
+        switch (kind(operand)) {
+            case TEMP:
+                return "_t" + value;
+            case VARIABLE:
+                return IdentifierPool.name(value);
+            case IMMEDIATE:
+                return String.valueOf(value);
+            case LABEL:
+                return "L" + value;
+            case STRING:
+                return strings.get(value);
+            default:
+                return "null";
+        }
+    }
+
+    /**
+     * @return 第 index 条指令的文本形式。
+     */
+    public String text(int index) {
+        Opcode opcode = opcode(index);
+        String first = operandText(operand(index, 0));
+        switch (opcode) {
+            case START_PROGRAM:
+            case END_PROGRAM:
+            case PRINT_NEWLINE:
+                return opcode.name();
+            case DECLARE:
+                return "DECLARE " + first;
+            case COPY:
+                return first + " = " + operandText(operand(index, 1));
+            case IF_FALSE:
+                return "IF_FALSE " + first + " GOTO " + operandText(operand(index, 1));
+            case GOTO:
+                return "GOTO " + first;
+            case LABEL:
+                return first + ":";
+            case PRINT:
+                return "PRINT " + first;
+            case PRINT_STR:
+                return "PRINT_STR \"" + first + "\"";
+            case RETURN:
+                return "RETURN " + first;
+            case COMMENT:
+                return "; " + first;
+            case UNKNOWN:
+                return first;
+            default:
+                return first + " = " + operandText(operand(index, 1)) + " " + opcode.symbol + " "
+                        + operandText(operand(index, 2));
+        }
+    }
+
+    /**
+     * @return 全部指令的文本形式。
+     */
+    public List<String> toText() {
+        List<String> lines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            lines.add(text(i));
+        }
+        return lines;
+    }
+
+    // ---------------------------------------------------------------- 文本解码
+
+    /**
+     * 把文本形式的三地址码解码为结构化形式，每行一条指令，得到的指令条数与行数相同。
+     * 依次尝试 START_PROGRAM / END_PROGRAM、DECLARE、二元运算、拷贝、IF_FALSE、GOTO、标签、PRINT、PRINT_STR、
+     * PRINT_NEWLINE、RETURN 与注释；都不匹配的行保存为 {@link Opcode#UNKNOWN}。
+     * 操作数按文本分类：整数为立即数，带引号的为字符串，"_t" 加数字为临时变量 (除非此前以这个名称声明过变量)，其余为变量。
+     *
+     * @param lines 文本形式的三地址码。
+     * @return 结构化的三地址码。
+     */
+    public static TACCode parse(List<String> lines) {
+        TACCode code = new TACCode();
+        Set<String> declared = new HashSet<>();
+        for (String line : lines) {
+            if (line.equals("START_PROGRAM") || line.equals("END_PROGRAM") || line.equals("PRINT_NEWLINE")) {
+                code.add(Opcode.valueOf(line), NONE, NONE, NONE);
+                continue;
+            }
+            Matcher m = DECLARE_PATTERN.matcher(line);
+            if (m.matches()) {
+                declared.add(m.group(1));
+                code.add(Opcode.DECLARE, variable(IdentifierPool.intern(m.group(1))), NONE, NONE);
+                continue;
+            }
+            m = ASSIGN_BINARY_OP_PATTERN.matcher(line);
+            if (m.matches() && isOperand(m.group(2)) && isOperand(m.group(4))) {
+                code.add(Opcode.binary(m.group(3)), code.parseOperand(m.group(1), declared),
+                        code.parseOperand(m.group(2), declared), code.parseOperand(m.group(4), declared));
+                continue;
+            }
+            m = ASSIGN_COPY_PATTERN.matcher(line);
+            if (m.matches() && isOperand(m.group(2))) {
+                code.add(Opcode.COPY, code.parseOperand(m.group(1), declared), code.parseOperand(m.group(2), declared), NONE);
+                continue;
+            }
+            m = IF_FALSE_GOTO_PATTERN.matcher(line);
+            if (m.matches() && isOperand(m.group(1)) && isInt(m.group(2))) {
+                code.add(Opcode.IF_FALSE, code.parseOperand(m.group(1), declared), label(Integer.parseInt(m.group(2))), NONE);
+                continue;
+            }
+            m = GOTO_PATTERN.matcher(line);
+            if (m.matches() && isInt(m.group(1))) {
+                code.add(Opcode.GOTO, label(Integer.parseInt(m.group(1))), NONE, NONE);
+                continue;
+            }
+            m = LABEL_PATTERN.matcher(line);
+            if (m.matches() && isInt(m.group(1))) {
+                code.add(Opcode.LABEL, label(Integer.parseInt(m.group(1))), NONE, NONE);
+                continue;
+            }
+            m = PRINT_VAR_PATTERN.matcher(line);
+            if (m.matches() && isOperand(m.group(1))) {
+                code.add(Opcode.PRINT, code.parseOperand(m.group(1), declared), NONE, NONE);
+                continue;
+            }
+            m = PRINT_STR_PATTERN.matcher(line);
+            if (m.matches()) {
+                code.add(Opcode.PRINT_STR, code.string(m.group(1)), NONE, NONE);
+                continue;
+            }
+            m = RETURN_PATTERN.matcher(line);
+            if (m.matches() && isOperand(m.group(1))) {
+                code.add(Opcode.RETURN, code.parseOperand(m.group(1), declared), NONE, NONE);
+                continue;
+            }
+            if (line.startsWith("; ")) {
+                code.add(Opcode.COMMENT, code.string(line.substring(2)), NONE, NONE);
+                continue;
+            }
+            code.add(Opcode.UNKNOWN, code.string(line), NONE, NONE);
+        }
+        return code;
+    }
+
+    /**
+     * @return 文本能否表示为操作数：整数必须在 int 范围内。
+     */
+    private static boolean isOperand(String text) {
+        return !looksLikeInteger(text) || isInt(text);
+    }
+
+    private static boolean looksLikeInteger(String text) {
+        int start = text.startsWith("-") ? 1 : 0;
+        if (start == text.length()) {
+            return false;
+        }
+        for (int i = start; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isInt(String text) {
+        try {
+            Integer.parseInt(text);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private long parseOperand(String text, Set<String> declared) {
+        if (looksLikeInteger(text)) {
+            return immediate(Integer.parseInt(text));
+        }
+        if (text.startsWith("\"")) {
+            return string(text);
+        }
+        if (text.length() > 2 && text.startsWith("_t") && looksLikeInteger(text.substring(2))
+                && text.charAt(2) != '-' && isInt(text.substring(2)) && !declared.contains(text)) {
+            return temp(Integer.parseInt(text.substring(2)));
+        }
+        return variable(IdentifierPool.intern(text));
+    }
+}
@@ -1,16 +1,16 @@
 package AST;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * TACContext 类用于在生成三地址码 (Three-Address Code, TAC) 的过程中提供上下文环境。
  * 它负责管理临时变量的生成、标签的生成以及存储生成的 TAC 指令。
+ * 指令以结构化的形式保存在 {@link TACCode} 中，需要文本时再由 {@link #instructions()} 打印。
  */
 public class TACContext {
     private int tempCounter = 0;
     private int labelCounter = 0;
-    public List<String> instructions = new ArrayList<>();
+    public final TACCode code = new TACCode();
 
     /**
      * 生成一个新的、唯一的临时变量名。
@@ -19,7 +19,16 @@ public class TACContext {
      * @return 新的临时变量名 (例如, "_t0", "_t1", ...)。
      */
     public String newTemp() {
-        return "_t" + (tempCounter++);
+        return "_t" + newTempNumber();
+    }
+
+    /**
+     * 分配一个新的临时变量，只返回其编号 (名称为 "_t" + 编号)，供不需要立即构造名称字符串的调用者使用。
+     *
+     * @return 新临时变量的编号。
+     */
+    public int newTempNumber() {
+        return tempCounter++;
     }
 
     /**
@@ -29,16 +38,66 @@ public class TACContext {
      * @return 新的标签名 (例如, "L0", "L1", ...)。
      */
     public String newLabel() {
-        return "L" + (labelCounter++);
+        return "L" + newLabelNumber();
+    }
+
+    /**
+     * 分配一个新的标签，只返回其编号 (名称为 "L" + 编号)。
+     *
+     * @return 新标签的编号。
+     */
+    public int newLabelNumber() {
+        return labelCounter++;
     }
 
     /**
-     * 将一条生成的三地址码指令添加到指令列表中。
+     * 把字符串放入指令的常量池。
      *
-     * @param instruction 要添加的 TAC 指令字符串。
+     * @param value 字符串。
+     * @return 字符串操作数 (见 {@link TACCode#string})。
+     */
+    public long string(String value) {
+        return code.string(value);
+    }
+
+    /**
+     * 添加一条没有操作数的指令。
+     */
+    public void emit(TACCode.Opcode opcode) {
+        code.add(opcode, TACCode.NONE, TACCode.NONE, TACCode.NONE);
+    }
+
+    /**
+     * 添加一条有一个操作数的指令。
+     */
+    public void emit(TACCode.Opcode opcode, long operand) {
+        code.add(opcode, operand, TACCode.NONE, TACCode.NONE);
+    }
+
+    /**
+     * 添加一条有两个操作数的指令 (COPY 或 IF_FALSE)。
+     */
+    public void emit(TACCode.Opcode opcode, long first, long second) {
+        code.add(opcode, first, second, TACCode.NONE);
+    }
+
+    /**
+     * 添加一条二元运算指令。
+     *
+     * @param opcode 二元运算的操作码。
+     * @param dest   结果操作数。
+     * @param left   左操作数。
+     * @param right  右操作数。
+     */
+    public void emit(TACCode.Opcode opcode, long dest, long left, long right) {
+        code.add(opcode, dest, left, right);
+    }
+
+    /**
+     * @return 已生成指令的文本形式，每条指令一个字符串。
      */
-    public void emit(String instruction) {
-        this.instructions.add(instruction);
+    public List<String> instructions() {
+        return code.toText();
     }
 }
 
@@ -0,0 +1,90 @@
+package AST;
+
+import java.util.ArrayList;
+
+/**
+ * TreeSink 构建对象形式的 AST。表达式节点由 {@link NodeFactory} 创建 (因此遵循它的驻留与哈希合并设置)，
+ * 语句与代码块节点直接创建。
+ */
+final class TreeSink implements NodeSink<ASTNode> {
+    private final NodeFactory nodes;
+
+    TreeSink(NodeFactory nodes) {
+        this.nodes = nodes;
+    }
+
+    @Override
+    public ASTNode number(int value) {
+        return nodes.number(value);
+    }
+
+    @Override
+    public ASTNode identifier(int symbol) {
+        return nodes.identifier(symbol);
+    }
+
+    @Override
+    public ASTNode string(String valueWithQuotes) {
+        return nodes.string(valueWithQuotes);
+    }
+
+    @Override
+    public ASTNode binary(ASTNode left, String operator, ASTNode right) {
+        return nodes.binary((ExpressionNode) left, operator, (ExpressionNode) right);
+    }
+
+    @Override
+    public ASTNode declaration(int varSymbol, ASTNode initializer) {
+        return new DeclarationNode(varSymbol, (ExpressionNode) initializer);
+    }
+
+    @Override
+    public ASTNode assignment(ASTNode variable, ASTNode expression) {
+        return new AssignmentNode((IdentifierNode) variable, (ExpressionNode) expression);
+    }
+
+    @Override
+    public ASTNode whileStatement(ASTNode condition, ASTNode body) {
+        return new WhileNode((ExpressionNode) condition, (BlockNode) body);
+    }
+
+    @Override
+    public ASTNode ifStatement(ASTNode condition, ASTNode trueBlock, ASTNode falseBlock) {
+        return new IfNode((ExpressionNode) condition, (BlockNode) trueBlock, (BlockNode) falseBlock);
+    }
+
+    @Override
+    public ASTNode printf(ASTNode format, ASTNode argument) {
+        return new PrintfNode((ExpressionNode) format, (ExpressionNode) argument);
+    }
+
+    @Override
+    public ASTNode returnStatement(ASTNode expression) {
+        return new ReturnNode((ExpressionNode) expression);
+    }
+
+    @Override
+    public ASTNode openBlock() {
+        return new BlockNode(new ArrayList<>());
+    }
+
+    @Override
+    public void addStatement(ASTNode block, ASTNode statement) {
+        ((BlockNode) block).statements.add((StatementNode) statement);
+    }
+
+    @Override
+    public ASTNode program(ASTNode block) {
+        return new ProgramNode((BlockNode) block);
+    }
+
+    @Override
+    public boolean isString(ASTNode node) {
+        return node instanceof StringLiteralNode;
+    }
+
+    @Override
+    public String nodeName(ASTNode node) {
+        return node.getClass().getSimpleName();
+    }
+}
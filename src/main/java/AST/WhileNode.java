@@ -36,16 +36,16 @@ public class WhileNode extends StatementNode {
      */
     @Override
     public String generateTAC(TACContext context) {
-        String startLabel = context.newLabel();
-        String endLabel = context.newLabel();
-        context.emit(startLabel + ":");
-        String condPlace = condition.generateTAC(context);
-        context.emit("IF_FALSE " + condPlace + " GOTO " + endLabel);
+        long startLabel = TACCode.label(context.newLabelNumber());
+        long endLabel = TACCode.label(context.newLabelNumber());
+        context.emit(TACCode.Opcode.LABEL, startLabel);
+        long condPlace = condition.generateOperand(context);
+        context.emit(TACCode.Opcode.IF_FALSE, condPlace, endLabel);
         if (body != null) {
             body.generateTAC(context);
         }
-        context.emit("GOTO " + startLabel);
-        context.emit(endLabel + ":");
+        context.emit(TACCode.Opcode.GOTO, startLabel);
+        context.emit(TACCode.Opcode.LABEL, endLabel);
         return null;
     }
 
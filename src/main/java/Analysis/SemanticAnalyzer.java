@@ -1,22 +1,35 @@
 package Analysis;
 
 import AST.*;
+import java.io.PrintStream;
 import java.util.Objects;
 
 /**
  * SemanticAnalyzer 类实现了 ASTVisitor 接口，用于对抽象语法树 (AST) 进行语义分析。
  * 它通过遍历 AST 来检查程序的语义正确性，例如类型匹配、变量声明等。
  * 这个过程采用了访问者设计模式。
+ * 对象形式的 AST 与 {@link FlatAST} 都用同一个访问者分析：后者通过 {@link FlatAST#accept} 以节点视图的形式被访问。
  */
 public class SemanticAnalyzer implements ASTVisitor<String> {
     private final SymbolTable symbolTable;
+    private final PrintStream log; // 符号查找日志的输出位置，为 null 时不输出
 
     /**
      * SemanticAnalyzer 的构造函数。
-     * 初始化一个新的符号表。
+     * 初始化一个新的符号表，符号查找日志输出到控制台。
      */
     public SemanticAnalyzer() {
+        this(System.out);
+    }
+
+    /**
+     * 指定符号查找日志输出位置的构造函数。
+     *
+     * @param log 日志输出位置，为 null 时不输出任何日志 (错误仍以 SemanticException 报告)。
+     */
+    public SemanticAnalyzer(PrintStream log) {
         this.symbolTable = new SymbolTable();
+        this.log = log;
     }
 
     /**
@@ -76,7 +89,7 @@ public class SemanticAnalyzer implements ASTVisitor<String> {
         if (node.initializer != null) {
             expectType(varType, initType, "在变量 '" + node.varName + "' 的声明中");
         }
-        symbolTable.declare(new Symbol(node.varName, varType));
+        symbolTable.declare(new Symbol(node.varSymbol, node.varName, varType));
         return null;
     }
 
@@ -103,13 +116,19 @@ public class SemanticAnalyzer implements ASTVisitor<String> {
      */
     @Override
     public String visit(IdentifierNode node) {
-        System.out.println("    [LOOKUP] Looking for symbol '" + node.name + "'.");
-        Symbol symbol = symbolTable.lookup(node.name);
+        if (log != null) {
+            log.println("    [LOOKUP] Looking for symbol '" + node.name + "'.");
+        }
+        Symbol symbol = symbolTable.lookup(node.symbol);
         if (symbol == null) {
-            System.err.println("    [FAILED] Symbol '" + node.name + "' NOT FOUND!"); // 错误日志
+            if (log != null) {
+                log.println("    [FAILED] Symbol '" + node.name + "' NOT FOUND!"); // 错误日志
+            }
             throw new SemanticException("语义错误: 变量 '" + node.name + "' 未声明。");
         }
-        System.out.println("    [FOUND] Symbol '" + node.name + "' found with type " + symbol.type());
+        if (log != null) {
+            log.println("    [FOUND] Symbol '" + node.name + "' found with type " + symbol.type());
+        }
         return symbol.type();
     }
 
@@ -215,4 +234,4 @@ public class SemanticAnalyzer implements ASTVisitor<String> {
     public String visit(StringLiteralNode node) {
         return "STRING";
     }
-}
\ No newline at end of file
+}
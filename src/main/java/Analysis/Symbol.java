@@ -1,13 +1,25 @@
 package Analysis;
 
+import Lexer.IdentifierPool;
+
 /**
  * Symbol 是一个记录 (record) 类，用于表示符号表中的一个条目。
- * 它封装了一个符号的名称和类型。
+ * 它封装了一个符号的编号、名称和类型。
  * 使用 record 类可以自动生成构造函数、getter、equals、hashCode 和 toString 方法。
+ * @param id   符号在 IdentifierPool 中的编号，符号表以它为下标。
  * @param name 符号的名称（例如，变量名 "x"）。
  * @param type 符号的类型（例如，"INT", "STRING"）。
  */
-public record Symbol(String name, String type) {
+public record Symbol(int id, String name, String type) {
+
+    /**
+     * 按名称创建符号，编号从 IdentifierPool 中获取。
+     * @param name 符号的名称。
+     * @param type 符号的类型。
+     */
+    public Symbol(String name, String type) {
+        this(IdentifierPool.intern(name), name, type);
+    }
 
     /**
      * 覆盖默认的 toString 方法，提供一个更具可读性的字符串表示形式。
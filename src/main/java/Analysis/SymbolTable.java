@@ -1,22 +1,33 @@
 package Analysis;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Stack;
+import Lexer.IdentifierPool;
+
+import java.util.Arrays;
 
 /**
  * SymbolTable 类实现了一个支持嵌套作用域的符号表。
- * 它使用一个栈来管理作用域，每个作用域都是一个从符号名到符号对象的映射。
+ * 符号以 {@link IdentifierPool} 中的符号编号为下标直接存放在数组中：bindings[id] 是该名称当前可见的
+ * (即最内层的) 绑定，depths[id] 是该绑定所在的作用域深度。声明时被遮蔽的外层绑定记录在撤销日志中，
+ * 退出作用域时按日志恢复，因此声明、查找与退出作用域都不需要计算哈希，也不需要逐层搜索作用域。
  */
 public class SymbolTable {
-    private final Stack<Map<String, Symbol>> scopeStack;
+    private Symbol[] bindings = new Symbol[64];  // 符号编号 -> 当前可见的绑定, null 表示未声明
+    private int[] depths = new int[64];          // 符号编号 -> 当前绑定所在的作用域深度
+
+    // 撤销日志: 每次声明记录一条 (符号编号, 被遮蔽的绑定, 被遮蔽绑定的深度)
+    private int[] undoIds = new int[64];
+    private Symbol[] undoSymbols = new Symbol[64];
+    private int[] undoDepths = new int[64];
+    private int undoSize;
+
+    private int[] scopeMarks = new int[16];      // 每个作用域开始时的撤销日志长度
+    private int depth;                           // 当前活动的作用域数量
 
     /**
      * SymbolTable 的构造函数。
-     * 初始化作用域栈，并自动进入全局作用域。
+     * 自动进入全局作用域。
      */
     public SymbolTable() {
-        this.scopeStack = new Stack<>();
         enterScope();
     }
 
@@ -25,16 +36,27 @@ public class SymbolTable {
      * 在访问一个新的代码块 (BlockNode) 时调用。
      */
     public void enterScope() {
-        scopeStack.push(new HashMap<>());
+        if (depth == scopeMarks.length) {
+            scopeMarks = Arrays.copyOf(scopeMarks, depth * 2);
+        }
+        scopeMarks[depth++] = undoSize;
     }
 
     /**
      * 退出当前作用域。
-     * 在离开一个代码块 (BlockNode) 时调用。
+     * 在离开一个代码块 (BlockNode) 时调用。该作用域中的声明被撤销，被它们遮蔽的外层绑定重新可见。
      */
     public void exitScope() {
-        if (!scopeStack.isEmpty()) {
-            scopeStack.pop();
+        if (depth == 0) {
+            return;
+        }
+        int mark = scopeMarks[--depth];
+        while (undoSize > mark) {
+            undoSize--;
+            int id = undoIds[undoSize];
+            bindings[id] = undoSymbols[undoSize];
+            depths[id] = undoDepths[undoSize];
+            undoSymbols[undoSize] = null;
         }
     }
 
@@ -45,36 +67,46 @@ public class SymbolTable {
      * @throws IllegalStateException 如果当前没有活动的作用域。
      */
     public void declare(Symbol symbol) {
-        if (scopeStack.isEmpty()) {
+        if (depth == 0) {
             throw new IllegalStateException("Cannot declare symbol, no scope is active.");
         }
-        Map<String, Symbol> currentScope = scopeStack.peek();
-
-        if (currentScope.containsKey(symbol.name())) {
+        int id = symbol.id();
+        if (id >= bindings.length) {
+            int capacity = Math.max(bindings.length * 2, id + 1);
+            bindings = Arrays.copyOf(bindings, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+        }
+        if (bindings[id] != null && depths[id] == depth) {
             throw new SemanticException("语义错误: 变量 '" + symbol.name() + "' 已在此作用域中声明。");
         }
-        currentScope.put(symbol.name(), symbol);
+        if (undoSize == undoIds.length) {
+            undoIds = Arrays.copyOf(undoIds, undoSize * 2);
+            undoSymbols = Arrays.copyOf(undoSymbols, undoSize * 2);
+            undoDepths = Arrays.copyOf(undoDepths, undoSize * 2);
+        }
+        undoIds[undoSize] = id;
+        undoSymbols[undoSize] = bindings[id];
+        undoDepths[undoSize] = depths[id];
+        undoSize++;
+        bindings[id] = symbol;
+        depths[id] = depth;
+    }
+
+    /**
+     * 按符号编号查找当前可见的 (最内层的) 符号。
+     * @param id 符号在 IdentifierPool 中的编号。
+     * @return 如果找到，返回对应的 Symbol 对象；如果所有作用域中都未找到，则返回 null。
+     */
+    public Symbol lookup(int id) {
+        return id >= 0 && id < bindings.length ? bindings[id] : null;
     }
 
     /**
-     * 从内到外查找一个符号。
-     * 它会从当前作用域（栈顶）开始，逐层向外（全局作用域）查找。
+     * 按名称查找当前可见的 (最内层的) 符号。
      * @param name 要查找的符号名称。
      * @return 如果找到，返回对应的 Symbol 对象；如果所有作用域中都未找到，则返回 null。
      */
     public Symbol lookup(String name) {
-        if (scopeStack.isEmpty()) {
-            return null;
-        }
-
-        for (int i = scopeStack.size() - 1; i >= 0; i--) {
-            Map<String, Symbol> scope = scopeStack.get(i);
-            if (scope.containsKey(name)) {
-
-                return scope.get(name);
-            }
-        }
-
-        return null;
+        return lookup(IdentifierPool.find(name));
     }
-}
\ No newline at end of file
+}
@@ -1,108 +1,231 @@
 package AssemblyGenerator;
 
+import AST.TACCode;
+
+import java.io.PrintStream;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * AssemblyGenerator 类负责将三地址码 (TAC) 指令列表转换为汇编代码。
  * 它主要针对一种简化的类 8086 汇编语言。
+ * <p>
+ * 指令选择直接基于结构化的 {@link TACCode}：每条指令按操作码分派一次，操作数按类型 (临时变量、变量、立即数 ...)
+ * 预先分好类，变量的栈偏移与比较来源都以编号为下标存放在数组中，生成时间与指令条数成线性关系。
+ * 文本形式的三地址码先由 {@link TACCode#parse(List)} 解码 (只有这一步使用正则表达式)，再走同一条路径。
  */
 public class AssemblyGenerator {
 
+    private static final TACCode.Opcode[] NO_COMPARISONS = new TACCode.Opcode[0];
+
     private List<String> assemblyCode;
-    private Map<String, Integer> variableOffsets;
+    private int[] variableOffsets; // 变量的符号编号 -> 相对 BP 的栈偏移量, 0 表示尚未分配
     private int currentOffset;
 
-    // 用于追踪哪个临时变量是由哪个比较操作产生的 (符号, 例如 "<=", ">")
-    private Map<String, String> tempVarComparisonOrigin = new HashMap<>();
-
-    // 定义用于匹配不同类型三地址码指令的正则表达式模式
-    private static final Pattern ASSIGN_BINARY_OP_PATTERN = Pattern.compile("(\\S+)\\s*=\\s*(\\S+)\\s*([+\\-*/%]|<=|==|<|>|>=|!=)\\s*(\\S+)");
-    private static final Pattern ASSIGN_COPY_PATTERN = Pattern.compile("(\\S+)\\s*=\\s*(\\S+)");
-    private static final Pattern IF_FALSE_GOTO_PATTERN = Pattern.compile("IF_FALSE\\s+(\\S+)\\s+GOTO\\s+(L\\d+)");
-    private static final Pattern GOTO_PATTERN = Pattern.compile("GOTO\\s+(L\\d+)");
-    private static final Pattern LABEL_PATTERN = Pattern.compile("(L\\d+):");
-    private static final Pattern DECLARE_PATTERN = Pattern.compile("DECLARE\\s+(\\S+)");
-    private static final Pattern PRINT_VAR_PATTERN = Pattern.compile("PRINT\\s+(\\S+)");
-    private static final Pattern PRINT_STR_PATTERN = Pattern.compile("PRINT_STR\\s+\"([^\"]*)\"");
-    private static final Pattern PRINT_NEWLINE_PATTERN = Pattern.compile("PRINT_NEWLINE");
-    private static final Pattern RETURN_PATTERN = Pattern.compile("RETURN\\s+(\\S+)");
+    // 用于追踪哪个临时变量 (或变量) 是由哪个比较操作产生的，下标为临时变量编号 (或变量的符号编号)
+    private TACCode.Opcode[] tempComparisonOrigin = NO_COMPARISONS;
+    private TACCode.Opcode[] variableComparisonOrigin = NO_COMPARISONS;
+
+    private TACCode code;     // 正在翻译的三地址码
+    private String[] messageLabels; // 常量池下标 -> PRINT_STR 字符串的消息标签
+    private final PrintStream diagnostics; // 警告与错误信息的输出位置，为 null 时不输出
 
     /**
      * AssemblyGenerator 的构造函数。
-     * 初始化汇编代码列表、变量偏移量映射和当前偏移量。
+     * 初始化汇编代码列表、变量偏移量映射和当前偏移量，警告与错误信息输出到标准错误输出。
      */
     public AssemblyGenerator() {
+        this(System.err);
+    }
+
+    /**
+     * 指定警告与错误信息输出位置的构造函数。
+     *
+     * @param diagnostics 输出位置，为 null 时不输出 (生成的汇编代码中仍保留错误注释)。
+     */
+    public AssemblyGenerator(PrintStream diagnostics) {
+        this.diagnostics = diagnostics;
         this.assemblyCode = new ArrayList<>();
-        this.variableOffsets = new HashMap<>();
+        this.variableOffsets = new int[64];
         this.currentOffset = -2;
     }
 
+    /**
+     * 获取操作数的栈偏移量。只有已声明的变量有栈空间，变量的符号编号直接作为数组下标。
+     *
+     * @return 相对 BP 的偏移量 (总是负数)；如果操作数不是已分配空间的变量，则返回 0。
+     */
+    private int offsetOf(long operand) {
+        if (TACCode.kind(operand) != TACCode.OperandKind.VARIABLE) {
+            return 0;
+        }
+        int id = TACCode.value(operand);
+        return id < variableOffsets.length ? variableOffsets[id] : 0;
+    }
+
+    /**
+     * 为变量分配栈空间并记录偏移量。
+     *
+     * @return 如果变量此前尚未分配空间则返回 true。
+     */
+    private boolean allocate(int id) {
+        if (id >= variableOffsets.length) {
+            variableOffsets = Arrays.copyOf(variableOffsets, Math.max(variableOffsets.length * 2, id + 1));
+        }
+        if (variableOffsets[id] != 0) {
+            return false;
+        }
+        variableOffsets[id] = currentOffset;
+        return true;
+    }
+
     /**
      * 获取变量、临时变量或字面量在汇编代码中的表示形式。
      *
-     * @param varOrTempOrLiteral 变量名、临时变量名 (如 _t1) 或数字字面量。
+     * @param operand 变量、临时变量 (如 _t1) 或数字字面量操作数。
      * @return 其在汇编中的表示，例如 "WORD PTR [BP-2]", "123", 或 "AX" (假设临时变量在 AX)。
      */
-    private String getVarAssemblyPlace(String varOrTempOrLiteral) {
-        if (variableOffsets.containsKey(varOrTempOrLiteral)) {
-            return "WORD PTR [BP" + (variableOffsets.get(varOrTempOrLiteral)) + "]";
-        } else if (varOrTempOrLiteral.matches("-?\\d+")) {
-            return varOrTempOrLiteral;
-        } else if (varOrTempOrLiteral.startsWith("_t")) {
-            return "AX";
+    private String getVarAssemblyPlace(long operand) {
+        int offset = offsetOf(operand);
+        if (offset != 0) {
+            return "WORD PTR [BP" + offset + "]";
+        }
+        switch (TACCode.kind(operand)) {
+            case IMMEDIATE:
+                return String.valueOf(TACCode.value(operand));
+            case TEMP:
+                return "AX";
+            default:
+                String name = code.operandText(operand);
+                if (diagnostics != null) {
+                    diagnostics.println("汇编警告: 未找到变量/临时变量 '" + name + "' 的存储位置，将直接使用其名。");
+                }
+                return name;
         }
-        System.err.println("汇编警告: 未找到变量/临时变量 '" + varOrTempOrLiteral + "' 的存储位置，将直接使用其名。");
-        return varOrTempOrLiteral;
     }
 
     /**
      * 将操作数加载到指定的寄存器。
      *
-     * @param operand  要加载的操作数 (变量名、临时变量名或字面量)。
+     * @param operand  要加载的操作数 (变量、临时变量或字面量)。
      * @param register 目标寄存器名 (例如, "AX", "BX")。
      */
-    private void loadOperandToRegister(String operand, String register) {
-        if (operand.matches("-?\\d+")) {
-            assemblyCode.add("    MOV " + register + ", " + operand);
-        } else if (variableOffsets.containsKey(operand)) {
+    private void loadOperandToRegister(long operand, String register) {
+        TACCode.OperandKind kind = TACCode.kind(operand);
+        if (kind == TACCode.OperandKind.IMMEDIATE) {
+            assemblyCode.add("    MOV " + register + ", " + TACCode.value(operand));
+        } else if (offsetOf(operand) != 0) {
             assemblyCode.add("    MOV " + register + ", " + getVarAssemblyPlace(operand));
-        } else if (operand.startsWith("_t")) {
+        } else if (kind == TACCode.OperandKind.TEMP) {
             if (!register.equals("AX")) {
-                assemblyCode.add("    MOV " + register + ", AX ; 从 AX (假设存有 " + operand + ") 复制到 " + register);
+                assemblyCode.add("    MOV " + register + ", AX ; 从 AX (假设存有 _t" + TACCode.value(operand) + ") 复制到 " + register);
             }
         } else {
-            System.err.println("汇编错误: 无法加载未知操作数 '" + operand + "' 到寄存器 " + register);
-            assemblyCode.add("    ; 错误: 无法加载操作数 " + operand);
+            String name = code.operandText(operand);
+            if (diagnostics != null) {
+                diagnostics.println("汇编错误: 无法加载未知操作数 '" + name + "' 到寄存器 " + register);
+            }
+            assemblyCode.add("    ; 错误: 无法加载操作数 " + name);
         }
     }
 
     /**
-     * 主生成方法，将三地址码指令列表转换为汇编代码列表。
+     * 主生成方法，将结构化的三地址码转换为汇编代码列表。
+     * 每条指令按操作码直接分派，不需要用正则表达式从文本中恢复操作码与操作数。
+     *
+     * @param code 输入的三地址码。
+     * @return 生成的汇编代码行列表。
+     */
+    public List<String> generate(TACCode code) {
+        return generate(code, null);
+    }
+
+    /**
+     * 将文本形式的三地址码指令列表转换为汇编代码。
+     * 指令先解码为 {@link TACCode}，汇编中的 "; TAC:" 注释保留原始文本。
      *
      * @param tacInstructions 输入的三地址码指令列表。
      * @return 生成的汇编代码行列表。
      */
     public List<String> generate(List<String> tacInstructions) {
+        return generate(TACCode.parse(tacInstructions), tacInstructions);
+    }
+
+    /**
+     * @param text 每条指令的原始文本，为 null 时由 TACCode 打印。
+     */
+    private List<String> generate(TACCode code, List<String> text) {
+        begin(code);
+        for (int i = 0; i < code.size(); i++) {
+            String tac = text != null ? text.get(i) : code.text(i);
+            assemblyCode.add("    ; TAC: " + tac);
+            TACCode.Opcode opcode = code.opcode(i);
+            long first = code.operand(i, 0);
+            switch (opcode) {
+                case START_PROGRAM:
+                case END_PROGRAM:
+                    break;
+                case DECLARE:
+                    translateDeclare(first);
+                    break;
+                case COPY:
+                    translateCopy(first, code.operand(i, 1));
+                    break;
+                case IF_FALSE:
+                    translateIfFalse(first, code.operand(i, 1));
+                    break;
+                case GOTO:
+                    assemblyCode.add("    JMP L" + TACCode.value(first));
+                    break;
+                case LABEL:
+                    assemblyCode.add("L" + TACCode.value(first) + ":");
+                    break;
+                case PRINT:
+                    translatePrint(first);
+                    break;
+                case PRINT_STR:
+                    translatePrintString(first);
+                    break;
+                case PRINT_NEWLINE:
+                    assemblyCode.add("    CALL PRINT_NEWLINE");
+                    break;
+                case RETURN:
+                    translateReturn(first);
+                    break;
+                case COMMENT:
+                case UNKNOWN:
+                    assemblyCode.add("    ; 未能翻译的TAC: " + tac);
+                    break;
+                default:
+                    translateBinary(opcode, first, code.operand(i, 1), code.operand(i, 2));
+                    break;
+            }
+        }
+        return end();
+    }
+
+    /**
+     * 重置生成器状态，输出数据段 (每个不同的 PRINT_STR 字符串一个消息标签) 与主过程的开头。
+     */
+    private void begin(TACCode code) {
+        this.code = code;
         assemblyCode.clear();
-        variableOffsets.clear();
-        tempVarComparisonOrigin.clear();
+        Arrays.fill(variableOffsets, 0);
+        Arrays.fill(tempComparisonOrigin, null);
+        Arrays.fill(variableComparisonOrigin, null);
         currentOffset = -2;
 
         assemblyCode.add(".MODEL SMALL");
         assemblyCode.add(".STACK 100H");
         assemblyCode.add(".DATA");
         int stringCounter = 0;
-        Map<String, String> stringLabelMap = new HashMap<>();
-        for (String tac : tacInstructions) {
-            Matcher m = PRINT_STR_PATTERN.matcher(tac);
-            if (m.matches()) {
-                String strContent = m.group(1);
-                if (!stringLabelMap.containsKey(strContent)) {
+        messageLabels = new String[code.stringCount()];
+        for (int i = 0; i < code.size(); i++) {
+            if (code.opcode(i) == TACCode.Opcode.PRINT_STR) {
+                int index = TACCode.value(code.operand(i, 0));
+                if (messageLabels[index] == null) {
                     String label = "msg" + stringCounter++;
-                    assemblyCode.add(label + " DB '" + strContent + "', '$'");
-                    stringLabelMap.put(strContent, label);
+                    assemblyCode.add(label + " DB '" + code.string(index) + "', '$'");
+                    messageLabels[index] = label;
                 }
             }
         }
@@ -117,187 +240,189 @@ public class AssemblyGenerator {
         assemblyCode.add("    PUSH BP");
         assemblyCode.add("    MOV BP, SP");
         assemblyCode.add("");
+    }
 
-        for (String tac : tacInstructions) {
-            assemblyCode.add("    ; TAC: " + tac);
-            Matcher m;
-
-            if (tac.equals("START_PROGRAM") || tac.equals("END_PROGRAM")) {
-                continue;
-            }
+    /**
+     * 添加主过程的结束部分、输出子过程和程序结束标记。
+     *
+     * @return 完整的汇编代码行列表。
+     */
+    private List<String> end() {
+        assemblyCode.add("");
+        assemblyCode.add("    POP BP");
+        assemblyCode.add("    RET");
+        assemblyCode.add("MAIN ENDP");
+        assemblyCode.add("");
+        addPrintNumProcedure();
+        addPrintNewlineProcedure();
+        assemblyCode.add("END MAIN");
 
-            // 处理 DECLARE 指令 (变量声明)
-            m = DECLARE_PATTERN.matcher(tac);
-            if (m.matches()) {
-                String varName = m.group(1);
-                if (!variableOffsets.containsKey(varName)) {
-                    assemblyCode.add("    SUB SP, 2       ; 为 " + varName + " 在栈上分配空间 [BP" + currentOffset + "]");
-                    variableOffsets.put(varName, currentOffset);
-                    currentOffset -= 2;
-                }
-                continue;
-            }
+        code = null;
+        return assemblyCode;
+    }
 
-            // 处理赋值带二元运算的指令 (例如, dest = op1 + op2)
-            m = ASSIGN_BINARY_OP_PATTERN.matcher(tac);
-            if (m.matches()) {
-                String dest = m.group(1);
-                String op1 = m.group(2);
-                String symbol = m.group(3);
-                String op2 = m.group(4);
-
-                loadOperandToRegister(op1, "AX");
-                loadOperandToRegister(op2, "BX");
-
-                switch (symbol) {
-                    case "+":
-                        assemblyCode.add("    ADD AX, BX");
-                        break;
-                    case "*":
-                        assemblyCode.add("    IMUL BX         ; AX = AX * BX");
-                        break;
-                    case "%":
-                        assemblyCode.add("    CWD             ; 符号扩展 AX 到 DX:AX (为 IDIV)");
-                        assemblyCode.add("    IDIV BX         ; AX = 商, DX = 余数");
-                        assemblyCode.add("    MOV AX, DX      ; 余数到 AX");
-                        break;
-                    case "<=":
-                    case "==":
-                    case ">":
-                    case "<":
-                    case ">=":
-                    case "!=":
-                        assemblyCode.add("    CMP AX, BX");
-                        tempVarComparisonOrigin.put(dest, symbol);
-                        break;
-                    default:
-                        assemblyCode.add("    ; 未知或未处理的二元操作符: " + symbol);
-                }
+    /**
+     * 翻译 DECLARE 指令：第一次声明变量时在栈上为其分配空间。
+     */
+    private void translateDeclare(long variable) {
+        if (allocate(TACCode.value(variable))) {
+            assemblyCode.add("    SUB SP, 2       ; 为 " + code.operandText(variable) + " 在栈上分配空间 [BP" + currentOffset + "]");
+            currentOffset -= 2;
+        }
+    }
 
-                if (variableOffsets.containsKey(dest) && !symbol.matches("<=|==|>|<|>=|!=")) {
-                    assemblyCode.add("    MOV " + getVarAssemblyPlace(dest) + ", AX");
-                }
-                continue;
+    /**
+     * 翻译二元运算指令 dest = op1 symbol op2。比较运算只设置标志位，并记录 dest 由哪种比较产生。
+     * 优化后的三地址码中会出现 x = x + 常量 (结果直接写入变量)，它翻译为一条对内存操作数的 ADD。
+     */
+    private void translateBinary(TACCode.Opcode opcode, long dest, long op1, long op2) {
+        if (opcode == TACCode.Opcode.ADD && offsetOf(dest) != 0) {
+            long addend = op1 == dest ? op2 : op2 == dest ? op1 : TACCode.NONE;
+            if (TACCode.kind(addend) == TACCode.OperandKind.IMMEDIATE) {
+                assemblyCode.add("    ADD " + getVarAssemblyPlace(dest) + ", " + TACCode.value(addend) + " ; 直接在内存中累加");
+                return;
             }
+        }
+        loadOperandToRegister(op1, "AX");
+        loadOperandToRegister(op2, "BX");
+
+        switch (opcode) {
+            case ADD:
+                assemblyCode.add("    ADD AX, BX");
+                break;
+            case MUL:
+                assemblyCode.add("    IMUL BX         ; AX = AX * BX");
+                break;
+            case MOD:
+                assemblyCode.add("    CWD             ; 符号扩展 AX 到 DX:AX (为 IDIV)");
+                assemblyCode.add("    IDIV BX         ; AX = 商, DX = 余数");
+                assemblyCode.add("    MOV AX, DX      ; 余数到 AX");
+                break;
+            case LE:
+            case EQ:
+            case GT:
+            case LT:
+            case GE:
+            case NE:
+                assemblyCode.add("    CMP AX, BX");
+                setComparisonOrigin(dest, opcode);
+                break;
+            default:
+                assemblyCode.add("    ; 未知或未处理的二元操作符: " + opcode.symbol);
+        }
 
-            // 处理简单赋值/拷贝指令 (例如, dest = source)
-            m = ASSIGN_COPY_PATTERN.matcher(tac);
-            if (m.matches()) {
-                String dest = m.group(1);
-                String source = m.group(2);
-                loadOperandToRegister(source, "AX");
-                assemblyCode.add("    MOV " + getVarAssemblyPlace(dest) + ", AX");
-                continue;
-            }
+        if (offsetOf(dest) != 0 && !opcode.isComparison()) {
+            assemblyCode.add("    MOV " + getVarAssemblyPlace(dest) + ", AX");
+        }
+    }
 
-            // 处理 IF_FALSE GOTO 指令 (条件跳转)
-            m = IF_FALSE_GOTO_PATTERN.matcher(tac);
-            if (m.matches()) {
-                String condVar = m.group(1);
-                String label = m.group(2);
-                String originalComparison = tempVarComparisonOrigin.get(condVar);
-
-                if (originalComparison != null) {
-                    switch (originalComparison) {
-                        case "<=": assemblyCode.add("    JG " + label + "  ; !(A <= B) => (A > B)"); break;
-                        case "==": assemblyCode.add("    JNE " + label + " ; !(A == B) => (A != B)"); break;
-                        case ">":  assemblyCode.add("    JLE " + label + " ; !(A > B)  => (A <= B)"); break;
-                        case "<":  assemblyCode.add("    JGE " + label + " ; !(A < B)  => (A >= B)"); break;
-                        case ">=": assemblyCode.add("    JL " + label + "  ; !(A >= B) => (A < B)"); break;
-                        case "!=": assemblyCode.add("    JE " + label + "  ; !(A != B) => (A == B)"); break;
-                        default:
-                            assemblyCode.add("    ; IF_FALSE " + condVar + " (源比较 '" + originalComparison + "' 未处理) GOTO " + label);
-                            loadOperandToRegister(condVar, "AX");
-                            assemblyCode.add("    CMP AX, 0");
-                            assemblyCode.add("    JE " + label);
-                            break;
-                    }
-                } else {
-                    assemblyCode.add("    ; IF_FALSE " + condVar + " (无源比较信息) GOTO " + label);
-                    loadOperandToRegister(condVar, "AX");
-                    assemblyCode.add("    CMP AX, 0          ; 假设 0 为 false");
-                    assemblyCode.add("    JE " + label + "       ; 如果 AX == 0 (false) 则跳转");
+    /**
+     * 记录 dest 由哪种比较产生，供之后的 IF_FALSE 选择条件跳转指令。
+     */
+    private void setComparisonOrigin(long dest, TACCode.Opcode comparison) {
+        int id = TACCode.value(dest);
+        switch (TACCode.kind(dest)) {
+            case TEMP:
+                if (id >= tempComparisonOrigin.length) {
+                    tempComparisonOrigin = Arrays.copyOf(tempComparisonOrigin, Math.max(tempComparisonOrigin.length * 2, id + 64));
                 }
-                continue;
-            }
+                tempComparisonOrigin[id] = comparison;
+                break;
+            case VARIABLE:
+                if (id >= variableComparisonOrigin.length) {
+                    variableComparisonOrigin = Arrays.copyOf(variableComparisonOrigin, Math.max(variableComparisonOrigin.length * 2, id + 64));
+                }
+                variableComparisonOrigin[id] = comparison;
+                break;
+            default:
+                break;
+        }
+    }
 
-            // 处理 GOTO 指令 (无条件跳转)
-            m = GOTO_PATTERN.matcher(tac);
-            if (m.matches()) {
-                assemblyCode.add("    JMP " + m.group(1));
-                continue;
-            }
+    /**
+     * @return 产生 operand 的比较操作码；不是由比较产生时返回 null。
+     */
+    private TACCode.Opcode comparisonOrigin(long operand) {
+        int id = TACCode.value(operand);
+        switch (TACCode.kind(operand)) {
+            case TEMP:
+                return id < tempComparisonOrigin.length ? tempComparisonOrigin[id] : null;
+            case VARIABLE:
+                return id < variableComparisonOrigin.length ? variableComparisonOrigin[id] : null;
+            default:
+                return null;
+        }
+    }
 
-            // 处理标签定义
-            m = LABEL_PATTERN.matcher(tac);
-            if (m.matches()) {
-                assemblyCode.add(m.group(1) + ":");
-                continue;
-            }
+    /**
+     * 翻译拷贝指令 dest = source。
+     */
+    private void translateCopy(long dest, long source) {
+        loadOperandToRegister(source, "AX");
+        assemblyCode.add("    MOV " + getVarAssemblyPlace(dest) + ", AX");
+    }
 
-            // 处理 PRINT (打印变量) 指令
-            m = PRINT_VAR_PATTERN.matcher(tac);
-            if (m.matches()) {
-                String varToPrint = m.group(1);
-                loadOperandToRegister(varToPrint, "AX");
-                assemblyCode.add("    CALL PRINT_NUM");
-                assemblyCode.add("    CALL PRINT_NEWLINE  ; <<< 所有输出后自动换行");
-                continue;
+    /**
+     * 翻译 IF_FALSE 条件跳转：条件由比较运算产生时直接使用相反的条件跳转，否则与 0 比较。
+     */
+    private void translateIfFalse(long condVar, long target) {
+        String label = "L" + TACCode.value(target);
+        TACCode.Opcode originalComparison = comparisonOrigin(condVar);
+
+        if (originalComparison != null) {
+            switch (originalComparison) {
+                case LE: assemblyCode.add("    JG " + label + "  ; !(A <= B) => (A > B)"); break;
+                case EQ: assemblyCode.add("    JNE " + label + " ; !(A == B) => (A != B)"); break;
+                case GT: assemblyCode.add("    JLE " + label + " ; !(A > B)  => (A <= B)"); break;
+                case LT: assemblyCode.add("    JGE " + label + " ; !(A < B)  => (A >= B)"); break;
+                case GE: assemblyCode.add("    JL " + label + "  ; !(A >= B) => (A < B)"); break;
+                default: assemblyCode.add("    JE " + label + "  ; !(A != B) => (A == B)"); break;
             }
+        } else {
+            assemblyCode.add("    ; IF_FALSE " + code.operandText(condVar) + " (无源比较信息) GOTO " + label);
+            loadOperandToRegister(condVar, "AX");
+            assemblyCode.add("    CMP AX, 0          ; 假设 0 为 false");
+            assemblyCode.add("    JE " + label + "       ; 如果 AX == 0 (false) 则跳转");
+        }
+    }
 
-            // 处理 PRINT_STR (打印字符串) 指令
-            m = PRINT_STR_PATTERN.matcher(tac);
-            if (m.matches()) {
-                String strContent = m.group(1);
-                String msgLabel = stringLabelMap.get(strContent);
-                if (msgLabel != null) {
-                    assemblyCode.add("    LEA DX, " + msgLabel);
-                    assemblyCode.add("    MOV AH, 09H");
-                    assemblyCode.add("    INT 21H");
-                    assemblyCode.add("    CALL PRINT_NEWLINE  ; <<< 所有输出后自动换行");
-                } else {
-                    assemblyCode.add("    ; 错误: 找不到字符串 '" + strContent + "' 对应的消息标签");
-                }
-                continue;
-            }
+    /**
+     * 翻译 PRINT 指令：打印一个整数后换行。
+     */
+    private void translatePrint(long varToPrint) {
+        loadOperandToRegister(varToPrint, "AX");
+        assemblyCode.add("    CALL PRINT_NUM");
+        assemblyCode.add("    CALL PRINT_NEWLINE  ; <<< 所有输出后自动换行");
+    }
 
-            // 处理 PRINT_NEWLINE (打印换行) 指令
-            m = PRINT_NEWLINE_PATTERN.matcher(tac);
-            if (m.matches()) {
-                assemblyCode.add("    CALL PRINT_NEWLINE");
-                continue;
-            }
+    /**
+     * 翻译 PRINT_STR 指令：打印数据段中的字符串后换行。
+     */
+    private void translatePrintString(long string) {
+        String msgLabel = messageLabels[TACCode.value(string)];
+        assemblyCode.add("    LEA DX, " + msgLabel);
+        assemblyCode.add("    MOV AH, 09H");
+        assemblyCode.add("    INT 21H");
+        assemblyCode.add("    CALL PRINT_NEWLINE  ; <<< 所有输出后自动换行");
+    }
 
-            // 处理 RETURN 指令
-            m = RETURN_PATTERN.matcher(tac);
-            if (m.matches()) {
-                String retVal = m.group(1);
-                if (retVal.equals("0")) {
-                    assemblyCode.add("    MOV AL, 0           ; 直接将返回码 0 放入 AL");
-                } else if (retVal.matches("-?\\d+")) {
-                    assemblyCode.add("    MOV AL, " + retVal + "      ; 设置返回码");
-                } else {
-                    loadOperandToRegister(retVal, "AX");
-                    assemblyCode.add("    MOV AL, AL          ; AL 是 AX 的低字节, 作为返回码");
-                }
-                assemblyCode.add("    MOV AH, 4CH         ; DOS 终止程序功能号");
-                assemblyCode.add("    INT 21H");
-                continue;
+    /**
+     * 翻译 RETURN 指令：把返回值放入 AL 后通过 DOS 功能终止程序。
+     */
+    private void translateReturn(long retVal) {
+        if (TACCode.kind(retVal) == TACCode.OperandKind.IMMEDIATE) {
+            int value = TACCode.value(retVal);
+            if (value == 0) {
+                assemblyCode.add("    MOV AL, 0           ; 直接将返回码 0 放入 AL");
+            } else {
+                assemblyCode.add("    MOV AL, " + value + "      ; 设置返回码");
             }
-            assemblyCode.add("    ; 未能翻译的TAC: " + tac);
+        } else {
+            loadOperandToRegister(retVal, "AX");
+            assemblyCode.add("    MOV AL, AL          ; AL 是 AX 的低字节, 作为返回码");
         }
-
-        // 添加主过程的结束部分和程序结束标记
-        assemblyCode.add("");
-        assemblyCode.add("    POP BP");
-        assemblyCode.add("    RET");
-        assemblyCode.add("MAIN ENDP");
-        assemblyCode.add("");
-        addPrintNumProcedure();
-        addPrintNewlineProcedure();
-        assemblyCode.add("END MAIN");
-
-        return assemblyCode;
+        assemblyCode.add("    MOV AH, 4CH         ; DOS 终止程序功能号");
+        assemblyCode.add("    INT 21H");
     }
 
     /**
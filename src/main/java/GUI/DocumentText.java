@@ -0,0 +1,74 @@
+package GUI;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * DocumentText 把 Swing 的 Document 包装为 CharSequence，供增量词法分析器直接读取编辑器中的文本。
+ * 字符按窗口从文档中取出并缓存，扫描编辑点附近的少量字符时不需要复制整个文档。
+ * 文档被修改后必须调用 {@link #invalidate()} 丢弃缓存的窗口。
+ */
+final class DocumentText implements CharSequence {
+    private static final int WINDOW = 4096;
+
+    private final Document document;
+    private final Segment segment = new Segment();
+    private int windowStart;
+    private int windowEnd;     // 缓存窗口 [windowStart, windowEnd)，为空表示没有缓存
+
+    DocumentText(Document document) {
+        this.document = document;
+    }
+
+    /**
+     * 丢弃缓存的字符窗口。
+     */
+    void invalidate() {
+        windowStart = 0;
+        windowEnd = 0;
+    }
+
+    @Override
+    public int length() {
+        return document.getLength();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < windowStart || index >= windowEnd) {
+            fill(index);
+        }
+        return segment.array[segment.offset + index - windowStart];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        try {
+            return document.getText(start, end - start);
+        } catch (BadLocationException e) {
+            throw new IndexOutOfBoundsException(e.getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+
+    private void fill(int index) {
+        int length = document.getLength();
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        int start = Math.max(0, index - 64);
+        int end = Math.min(length, start + WINDOW);
+        try {
+            document.getText(start, end - start, segment);
+        } catch (BadLocationException e) {
+            throw new IndexOutOfBoundsException(e.getMessage());
+        }
+        windowStart = start;
+        windowEnd = end;
+    }
+}
@@ -2,13 +2,19 @@ package GUI;
 
 import AST.ProgramNode;
 import AST.RecursiveDescentASTParser;
+import AST.TACCode;
 import AST.TACContext;
 import Analysis.*;
 import AssemblyGenerator.AssemblyGenerator;
-import Lexer.Lexer;
+import Lexer.IncrementalLexer;
+import Lexer.SourceFile;
 import Lexer.Token;
+import Lexer.TokenKind;
+import Parser.ParseTrace;
 import Parser.SimplePrecedenceParser;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -18,7 +24,6 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
@@ -40,8 +45,10 @@ public class MainGUI extends JFrame {
     // 用于在编译的各个阶段之间传递数据
     private List<Token> currentTokens = null;            // 当前的词法单元列表
     private ProgramNode currentAstRoot = null;           // 当前的 AST 根节点
-    private List<String> currentTac = null;              // 当前生成的三地址码指令列表
+    private TACCode currentTac = null;                   // 当前生成的三地址码
     private SimplePrecedenceParser simpleParserInstance; // 简单优先分析器的实例
+    private DocumentText sourceText;                     // inputArea 文档的 CharSequence 视图
+    private IncrementalLexer incrementalLexer = null;    // 第一次词法分析后随编辑增量更新的 Token 序列
 
 
     /**
@@ -68,6 +75,23 @@ public class MainGUI extends JFrame {
         inputPanel.setBorder(BorderFactory.createTitledBorder("源代码输入："));
         inputArea = new JTextArea();
         inputArea.setFont(new Font("Monospaced", Font.PLAIN, 14));
+        sourceText = new DocumentText(inputArea.getDocument());
+        inputArea.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                onSourceEdited(e.getOffset(), 0, e.getLength());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                onSourceEdited(e.getOffset(), e.getLength(), 0);
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // 纯文本区域没有属性变化
+            }
+        });
         JScrollPane inputScroll = new JScrollPane(inputArea);
         inputScroll.setPreferredSize(new Dimension(0, 200));
         inputPanel.add(inputScroll, BorderLayout.CENTER);
@@ -120,15 +144,14 @@ public class MainGUI extends JFrame {
 
     /**
      * 从指定文件路径读取内容到字符串 (与 Main.java 中的方法类似，但 GUI 中未使用此版本)。
-     * GUI 版本中直接使用 Files.readAllBytes。
+     * 文件通过 SourceFile 以内存映射的方式加载，只在转换为 String 时复制一次。
      *
      * @param filePath 文件路径。
      * @return 文件内容字符串。
      * @throws IOException 如果读取文件发生错误。
      */
     private String readFileToString(String filePath) throws IOException {
-        String content = new String(Files.readAllBytes(Paths.get(filePath)));
-        return content.replaceAll("\\\\s*", "").trim();
+        return SourceFile.read(Paths.get(filePath));
     }
 
     /**
@@ -147,6 +170,7 @@ public class MainGUI extends JFrame {
             File selectedFile = fileChooser.getSelectedFile();
             try {
                 String sourceCode = readFileToString(selectedFile.getAbsolutePath());
+                incrementalLexer = null; // 整个文档被替换，下次词法分析时重新完整扫描
                 inputArea.setText(sourceCode);
                 outputArea.setText("文件已加载: " + selectedFile.getName() + "\n路径: " + selectedFile.getAbsolutePath() + "\n");
                 resetCompilationState(true);
@@ -177,9 +201,52 @@ public class MainGUI extends JFrame {
         asmButton.setEnabled(false);
     }
 
+    /**
+     * 源代码被编辑后调用。增量词法分析器只重新扫描受影响的区域，Token 序列因此始终与编辑器内容一致；
+     * 依赖旧 Token 的语法分析、AST 与 TAC 结果则全部作废。
+     * 重新扫描时遇到非法字符不在此处报告 (用户可能还在输入)，而是在下次点击词法分析按钮时完整扫描并显示错误。
+     *
+     * @param offset   编辑的起始位置。
+     * @param removed  被删除的字符数。
+     * @param inserted 被插入的字符数。
+     */
+    private void onSourceEdited(int offset, int removed, int inserted) {
+        sourceText.invalidate();
+        if (incrementalLexer == null) {
+            return;
+        }
+        try {
+            incrementalLexer.edit(sourceText, offset, removed, inserted);
+        } catch (RuntimeException ex) {
+            // incrementalLexer 已进入无效状态，等待下次词法分析时重新扫描
+        }
+        boolean tokensReady = incrementalLexer.isValid();
+        currentTokens = null;
+        currentAstRoot = null;
+        currentTac = null;
+        simpleParserInstance = null;
+        simpleParseButton.setEnabled(tokensReady);
+        astParseButton.setEnabled(tokensReady);
+        tacButton.setEnabled(false);
+        asmButton.setEnabled(false);
+    }
+
+    /**
+     * 获取当前的 Token 列表。编辑之后第一次调用时从增量词法分析器的结果中重新生成。
+     *
+     * @return Token 列表；如果尚未进行词法分析或 Token 序列已失效，则返回 null。
+     */
+    private List<Token> currentTokens() {
+        if (currentTokens == null && incrementalLexer != null && incrementalLexer.isValid()) {
+            currentTokens = incrementalLexer.snapshot().toTokenList();
+        }
+        return currentTokens;
+    }
+
     /**
      * 执行词法分析。
-     * 从输入区域获取源代码，调用 Lexer 进行分析，并在输出区域显示结果。
+     * 第一次执行时完整扫描输入区域的源代码，之后的编辑由增量词法分析器随时更新；
+     * 如果增量扫描曾经出错，则重新完整扫描以报告错误。结果显示在输出区域。
      *
      * @param e 按钮点击事件 (未使用)。
      */
@@ -190,7 +257,12 @@ public class MainGUI extends JFrame {
             return;
         }
         try {
-            currentTokens = Lexer.lex(source);
+            if (incrementalLexer == null) {
+                incrementalLexer = new IncrementalLexer(source);
+            } else if (!incrementalLexer.isValid()) {
+                incrementalLexer.reset(source);
+            }
+            currentTokens = incrementalLexer.snapshot().toTokenList();
             StringBuilder sb = new StringBuilder("=== 词法分析结果 ===\n");
             for (Token token : currentTokens) {
                 sb.append(token.toString()).append("\n");
@@ -216,19 +288,18 @@ public class MainGUI extends JFrame {
 
     /**
      * 执行简单优先语法分析。
-     * 需要先完成词法分析。将 Token 列表转换为字符串格式，调用 SimplePrecedenceParser。
+     * 需要先完成词法分析。将 Token 列表直接交给 SimplePrecedenceParser。
      *
      * @param e 按钮点击事件 (未使用)。
      */
     private void performSimplePrecedenceParse(ActionEvent e) {
-        if (currentTokens == null) {
+        if (currentTokens() == null) {
             JOptionPane.showMessageDialog(this, "请先执行词法分析！", "错误", JOptionPane.ERROR_MESSAGE);
             return;
         }
         try {
-            simpleParserInstance = new SimplePrecedenceParser();
-            String tokenString = convertTokensToString(currentTokens);
-            boolean success = simpleParserInstance.parse(tokenString);
+            simpleParserInstance = new SimplePrecedenceParser(ParseTrace.Level.FULL);
+            boolean success = simpleParserInstance.parse(currentTokens);
 
             StringBuilder sb = new StringBuilder("=== 简单优先语法分析过程 ===\n");
             List<String> parseSteps = simpleParserInstance.getParseSteps();
@@ -237,7 +308,7 @@ public class MainGUI extends JFrame {
                     sb.append(step).append("\n");
                 }
             } else {
-                sb.append("（详细分析步骤请查看控制台，或确保 SimplePrecedenceParser.getParseSteps() 可用且返回了步骤）\n");
+                sb.append("（没有记录分析步骤）\n");
             }
             sb.append("\n语法分析最终状态: ").append(success ? "成功" : "失败").append("\n");
             outputArea.setText(sb.toString());
@@ -264,7 +335,7 @@ public class MainGUI extends JFrame {
      * @param e 按钮点击事件 (未使用)。
      */
     private void performASTConstruction(ActionEvent e) {
-        if (currentTokens == null) {
+        if (currentTokens() == null) {
             JOptionPane.showMessageDialog(this, "请先执行词法分析！", "错误", JOptionPane.ERROR_MESSAGE);
             return;
         }
@@ -276,12 +347,12 @@ public class MainGUI extends JFrame {
             boolean hasEOF = false;
             if (!tokensForAstParser.isEmpty()) {
                 Token lastToken = tokensForAstParser.get(tokensForAstParser.size() - 1);
-                if (lastToken.type.equals("EOF") || lastToken.type.equals("$")) {
+                if (lastToken.type == TokenKind.EOF) {
                     hasEOF = true;
                 }
             }
             if (!hasEOF) {
-                tokensForAstParser.add(new Token("EOF", "$"));
+                tokensForAstParser.add(new Token(TokenKind.EOF, "$"));
             }
 
             RecursiveDescentASTParser astParser = new RecursiveDescentASTParser(tokensForAstParser);
@@ -329,10 +400,10 @@ public class MainGUI extends JFrame {
         try {
             TACContext tacContext = new TACContext();
             currentAstRoot.generateTAC(tacContext);
-            currentTac = tacContext.instructions;
+            currentTac = tacContext.code;
 
             StringBuilder sb = new StringBuilder("=== 生成的三地址码 ===\n");
-            for (String instruction : currentTac) {
+            for (String instruction : currentTac.toText()) {
                 sb.append(instruction).append("\n");
             }
             outputArea.setText(sb.toString());
@@ -354,7 +425,7 @@ public class MainGUI extends JFrame {
      * @param e 按钮点击事件 (未使用)。
      */
     private void performAssemblyGeneration(ActionEvent e) {
-        if (currentTac == null || currentTac.isEmpty()) {
+        if (currentTac == null || currentTac.size() == 0) {
             JOptionPane.showMessageDialog(this, "请先成功生成三地址码！", "错误", JOptionPane.ERROR_MESSAGE);
             return;
         }
@@ -393,27 +464,6 @@ public class MainGUI extends JFrame {
         }
     }
 
-    /**
-     * 将 Token 列表转换为 SimplePrecedenceParser 期望的特定格式的字符串。
-     * 过滤掉 "EOF" 或 "$" 类型的 Token，因为简单优先分析器通常不直接处理它们。
-     *
-     * @param tokens Token 列表。
-     * @return 格式化后的 Token 字符串。
-     */
-    private static String convertTokensToString(List<Token> tokens) {
-        StringBuilder sb = new StringBuilder();
-        for (Token token : tokens) {
-            if (token.type.equals("EOF") || token.type.equals("$")){
-                continue;
-            }
-            sb.append("(").append(token.type).append(", ").append(token.value).append(") ");
-        }
-        if (sb.length() > 0 && sb.charAt(sb.length() - 1) == ' ') {
-            sb.setLength(sb.length() - 1);
-        }
-        return sb.toString();
-    }
-
     /**
      * 将异常的堆栈跟踪信息转换为字符串，用于在输出区域显示。
      *
@@ -0,0 +1,154 @@
+package Lexer;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * ByteScanner 接口负责在纯 ASCII 源文件的字节上批量查找三类最常见的字符连续段的结尾：
+ * 空白、标识符字符 [a-zA-Z0-9_] 以及数字。词法分析器遇到这些段时直接跳到结尾，而不必逐字符驱动 DFA。
+ * <p>
+ * 有两种实现：逐字节的标量实现 ({@link #scalar()})，以及基于 jdk.incubator.vector 的 SIMD 实现
+ * ({@link #vector(int)})，后者每次比较 16 或 32 个字节。SIMD 实现只有在运行时启用了
+ * {@code --add-modules jdk.incubator.vector} 时才可用，{@link #best()} 会据此自动选择。
+ * 可以通过系统属性 {@code lexer.simd} (off / 16 / 32) 覆盖默认选择。
+ * <p>
+ * 所有方法的位置参数都是 segment 内的绝对偏移，返回值为第一个不属于该段的位置 (最多为 limit)。
+ */
+public interface ByteScanner {
+
+    /**
+     * @return 从 pos 开始第一个不是 ' ', '\t', '\n', '\r' 的位置。
+     */
+    int skipWhitespace(MemorySegment bytes, int pos, int limit);
+
+    /**
+     * @return 从 pos 开始第一个不是 [a-zA-Z0-9_] 的位置。
+     */
+    int wordEnd(MemorySegment bytes, int pos, int limit);
+
+    /**
+     * @return 从 pos 开始第一个不是 [0-9] 的位置。
+     */
+    int digitEnd(MemorySegment bytes, int pos, int limit);
+
+    /**
+     * @return 实现的名称，用于日志与基准测试输出。
+     */
+    String name();
+
+    /**
+     * @return 逐字节扫描的标量实现。
+     */
+    static ByteScanner scalar() {
+        return Scalar.INSTANCE;
+    }
+
+    /**
+     * 创建基于 Vector API 的实现。
+     *
+     * @param lanes 每次比较的字节数，16 (128 位) 或 32 (256 位)。
+     * @return SIMD 实现。
+     * @throws UnsupportedOperationException 如果运行时没有启用 jdk.incubator.vector 模块。
+     * @throws IllegalArgumentException 如果 lanes 不是 16 或 32。
+     */
+    static ByteScanner vector(int lanes) {
+        if (lanes != 16 && lanes != 32) {
+            throw new IllegalArgumentException("Unsupported lane count: " + lanes);
+        }
+        if (!vectorAvailable()) {
+            throw new UnsupportedOperationException("jdk.incubator.vector is not enabled (run with --add-modules jdk.incubator.vector)");
+        }
+        try {
+            // 通过反射加载，避免在模块缺失时链接 Vector API 的类型
+            return (ByteScanner) Class.forName("Lexer.VectorByteScanner")
+                    .getMethod("create", int.class).invoke(null, lanes);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new UnsupportedOperationException("Vector scanner unavailable: " + e, e);
+        }
+    }
+
+    /**
+     * @return 运行时是否启用了 jdk.incubator.vector 模块。
+     */
+    static boolean vectorAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    /**
+     * 选择当前环境下最合适的实现：系统属性 lexer.simd 指定时以其为准，否则在模块可用时使用
+     * 硬件首选宽度 (最多 32 字节) 的 SIMD 实现，不可用时退回标量实现。
+     *
+     * @return 选中的实现。
+     */
+    static ByteScanner best() {
+        String setting = System.getProperty("lexer.simd", "auto");
+        if (setting.equals("off") || !vectorAvailable()) {
+            return scalar();
+        }
+        try {
+            if (setting.equals("auto")) {
+                return (ByteScanner) Class.forName("Lexer.VectorByteScanner")
+                        .getMethod("preferred").invoke(null);
+            }
+            return vector(Integer.parseInt(setting));
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return scalar();
+        }
+    }
+
+    /**
+     * 逐字节扫描的标量实现，也是 SIMD 实现处理末尾不足一个向量的剩余字节时使用的逻辑。
+     */
+    final class Scalar implements ByteScanner {
+        static final Scalar INSTANCE = new Scalar();
+
+        private Scalar() {
+        }
+
+        @Override
+        public int skipWhitespace(MemorySegment bytes, int pos, int limit) {
+            while (pos < limit && isWhitespace(bytes.get(ValueLayout.JAVA_BYTE, pos))) {
+                pos++;
+            }
+            return pos;
+        }
+
+        @Override
+        public int wordEnd(MemorySegment bytes, int pos, int limit) {
+            while (pos < limit && isWordChar(bytes.get(ValueLayout.JAVA_BYTE, pos))) {
+                pos++;
+            }
+            return pos;
+        }
+
+        @Override
+        public int digitEnd(MemorySegment bytes, int pos, int limit) {
+            while (pos < limit && isDigit(bytes.get(ValueLayout.JAVA_BYTE, pos))) {
+                pos++;
+            }
+            return pos;
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+
+        static boolean isWhitespace(int b) {
+            return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+        }
+
+        static boolean isDigit(int b) {
+            return b >= '0' && b <= '9';
+        }
+
+        static boolean isWordStart(int b) {
+            int lower = b | 0x20;
+            return (lower >= 'a' && lower <= 'z') || b == '_';
+        }
+
+        static boolean isWordChar(int b) {
+            return isWordStart(b) || isDigit(b);
+        }
+    }
+}
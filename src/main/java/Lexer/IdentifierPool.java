@@ -0,0 +1,215 @@
+package Lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * IdentifierPool 类是全局的标识符驻留池 (intern pool)。
+ * 每个不同的标识符名称在池中只保存一份 String，并对应一个从 0 开始的整数符号编号。
+ * 词法分析器在扫描 ID 时直接从源代码的字符 (或字节) 区间查找编号，不为每次出现创建新的 String；
+ * 之后的语义分析、三地址码生成与汇编生成都以符号编号作为表的下标，不再对名称重复计算哈希。
+ * <p>
+ * 查找是无锁的：已插入的名称通过不可变的 String 安全发布，只有插入新名称时才加锁，
+ * 因此可以被并行词法分析的多个线程同时使用。
+ */
+public final class IdentifierPool {
+    /** 表示名称不在池中的编号。 */
+    public static final int NONE = -1;
+
+    private static final Object LOCK = new Object();
+
+    private static volatile int[] slots = new int[1024]; // 开放寻址哈希表: 槽位 -> 符号编号 + 1, 0 表示空
+    private static volatile String[] names = new String[512]; // 符号编号 -> 名称
+    private static int count;                                 // 已分配的符号数量 (持有 LOCK 时访问)
+
+    private IdentifierPool() {
+    }
+
+    /**
+     * 获取 input[start, end) 对应的符号编号，不存在时分配一个新的编号。
+     *
+     * @return 符号编号。
+     */
+    public static int intern(CharSequence input, int start, int end) {
+        int hash = hash(input, start, end);
+        int id = find(input, start, end, hash);
+        if (id != NONE) {
+            return id;
+        }
+        synchronized (LOCK) {
+            id = find(input, start, end, hash);
+            if (id == NONE) {
+                id = insert(input.subSequence(start, end).toString(), hash);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * 与 {@link #intern(CharSequence, int, int)} 相同，但名称来自纯 ASCII 字节。
+     *
+     * @return 符号编号。
+     */
+    public static int intern(ByteBuffer input, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + input.get(i);
+        }
+        int[] table = slots;
+        String[] known = names;
+        int mask = table.length - 1;
+        for (int i = spread(hash) & mask; table[i] != 0; i = (i + 1) & mask) {
+            String name = nameAt(known, table[i] - 1);
+            if (name != null && name.hashCode() == hash && equalsAscii(name, input, start, end)) {
+                return table[i] - 1;
+            }
+        }
+        byte[] copy = new byte[end - start];
+        input.get(start, copy);
+        return intern(new String(copy, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 获取名称对应的符号编号，不存在时分配一个新的编号。
+     *
+     * @param name 标识符名称。
+     * @return 符号编号。
+     */
+    public static int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * 查找名称对应的符号编号，不会分配新编号。
+     *
+     * @param name 标识符名称。
+     * @return 符号编号；名称从未出现过时返回 {@link #NONE}。
+     */
+    public static int find(CharSequence name) {
+        return find(name, 0, name.length(), hash(name, 0, name.length()));
+    }
+
+    /**
+     * 获取符号编号对应的名称 (池中唯一的 String 实例)。
+     *
+     * @param id 符号编号。
+     * @return 名称。
+     * @throws IndexOutOfBoundsException 如果编号不存在。
+     */
+    public static String name(int id) {
+        String name = nameAt(names, id);
+        if (name == null) {
+            synchronized (LOCK) {
+                if (id < 0 || id >= count) {
+                    throw new IndexOutOfBoundsException("Unknown symbol id " + id);
+                }
+                name = names[id];
+            }
+        }
+        return name;
+    }
+
+    /**
+     * @return 目前已分配的符号数量，所有符号编号都小于该值。
+     */
+    public static int size() {
+        synchronized (LOCK) {
+            return count;
+        }
+    }
+
+    private static int find(CharSequence input, int start, int end, int hash) {
+        int[] table = slots;
+        String[] known = names;
+        int mask = table.length - 1;
+        for (int i = spread(hash) & mask; table[i] != 0; i = (i + 1) & mask) {
+            String name = nameAt(known, table[i] - 1);
+            if (name != null && name.hashCode() == hash && equalsRange(name, input, start, end)) {
+                return table[i] - 1;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 插入一个新名称 (调用者持有 LOCK 且已确认名称不存在)。
+     */
+    private static int insert(String name, int hash) {
+        int id = count;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+        }
+        names[id] = name;
+        count++;
+
+        int[] table = slots;
+        if (count * 2 > table.length) {
+            table = rehash(table.length * 2);
+        }
+        int mask = table.length - 1;
+        int i = spread(hash) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = id + 1;
+        slots = table;
+        return id;
+    }
+
+    private static int[] rehash(int capacity) {
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < count - 1; id++) {
+            int i = spread(names[id].hashCode()) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = id + 1;
+        }
+        return table;
+    }
+
+    private static String nameAt(String[] known, int id) {
+        return id >= 0 && id < known.length ? known[id] : null;
+    }
+
+    /**
+     * 与 String.hashCode() 相同的哈希，这样可以直接与池中名称缓存的哈希值比较。
+     */
+    private static int hash(CharSequence input, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + input.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equalsRange(String name, CharSequence input, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != input.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsAscii(String name, ByteBuffer input, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != input.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
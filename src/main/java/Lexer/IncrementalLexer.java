@@ -0,0 +1,333 @@
+package Lexer;
+
+import java.util.Arrays;
+
+/**
+ * IncrementalLexer 类在源代码被编辑时增量地维护 Token 序列，主要供 GUI 的编辑器使用。
+ * 每次编辑只重新扫描受影响的区域，而不是整个文件。
+ * <p>
+ * 词法分析在 Token 之间没有状态：从任意一个 Token 边界开始扫描，得到的后续 Token 只取决于该位置之后的文本。
+ * 因此编辑后从编辑点之前最后一个 Token 的结尾 (一个已知的边界) 开始重新扫描；一旦新扫描出的某个 Token
+ * 越过了编辑区域，并且它的结尾恰好 (平移编辑长度后) 也是旧序列中某个 Token 的结尾，
+ * 之后的结果就必然与旧序列相同，此时把重新扫描的 Token 替换进旧序列即可。
+ * 编辑可能把后面的大段文本变成注释或字符串，所以重新扫描的窗口不够时会按倍数扩大，直到重新同步或到达文件末尾。
+ * <p>
+ * Token 保存在一个间隙缓冲区 (gap buffer) 中：间隙之前的 Token 保存绝对偏移，间隙之后的 Token 保存相对于
+ * 文本末尾的偏移。替换只需把间隙移动到编辑位置，插入或删除文本时间隙之后的 Token 不需要逐个平移。
+ * 连续的编辑通常发生在相邻位置，间隙每次只移动很短的距离。
+ * <p>
+ * 上述做法假设 Token 只依赖于它结尾处的一个字符。少数 Token 的最长匹配会查看得更远，例如未闭合的 "/*"
+ * (DFA 一直查看到文件末尾寻找注释结尾，最后退回为 '/' 和 '*' 两个 Token)，或以 \" 结尾的字符串
+ * (转义引号之后还可能有更长的字符串)，文件后面的编辑都可能改变它们。这类 Token 在扫描时被标记出来，
+ * 序列中存在这类 Token 时，编辑会退化为整体重新扫描。
+ * <p>
+ * 编辑过程中的标识符常常只输入了一半 (输入 "counter" 时依次出现 "c"、"co"、"cou" ...)，
+ * 而 IdentifierPool 是全局且只增不减的，所以这里扫描时不驻留标识符，ID 的符号编号在 {@link #snapshot()} 时才分配。
+ */
+public final class IncrementalLexer {
+    private static final int RESYNC_WINDOW = 256; // 第一次重新扫描时越过编辑区域的字符数
+    private static final int LOOKS_AHEAD = 0x80;  // kinds 中的标记位: 该 Token 的匹配查看了结尾之后的多个字符
+    private static final int KIND_MASK = 0x7F;
+
+    private CharSequence text;
+    private int length;                // 当前文本的长度
+    private boolean valid;             // Token 序列是否与当前文本一致 (扫描出错后为 false)
+
+    // 间隙缓冲区: [0, gapStart) 与 [gapEnd, capacity) 保存 Token
+    private byte[] kinds;              // TokenKind.ordinal()，可能带有 LOOKS_AHEAD 标记位
+    private int[] starts;              // 间隙之前为绝对偏移，之后为 (绝对偏移 - length)
+    private int[] ends;
+    private int[] numbers;             // NUM 的整数值，其他类型 (包括 ID) 为 0
+    private int gapStart;
+    private int gapEnd;
+    private int lookingAhead;          // 带有 LOOKS_AHEAD 标记的 Token 数量
+
+    /**
+     * 创建增量词法分析器并完整地扫描一次文本。
+     *
+     * @param text 源代码。之后每次编辑时传入的文本可以是同一个可变对象 (例如编辑器文档的视图)。
+     * @throws RuntimeException 如果在输入中遇到无法识别的非法字符。
+     */
+    public IncrementalLexer(CharSequence text) {
+        reset(text);
+    }
+
+    /**
+     * 丢弃已有的 Token，重新完整地扫描文本。
+     *
+     * @param text 源代码。
+     * @throws RuntimeException 如果在输入中遇到无法识别的非法字符。
+     */
+    public void reset(CharSequence text) {
+        this.text = text;
+        this.length = text.length();
+        this.valid = false;
+        TokenStream.Builder builder = new TokenStream.Builder(text, length / 4, false);
+        Lexer.lexRange(text, 0, length, builder);
+
+        int n = builder.size();
+        int capacity = Math.max(64, n + (n >> 2));
+        kinds = new byte[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        numbers = new int[capacity];
+        lookingAhead = 0;
+        for (int i = 0; i < n; i++) {
+            kinds[i] = flaggedKind(text, builder, i);
+            starts[i] = builder.start(i);
+            ends[i] = builder.end(i);
+            numbers[i] = builder.number(i);
+        }
+        gapStart = n;
+        gapEnd = capacity;
+        valid = true;
+    }
+
+    /**
+     * 根据一次编辑更新 Token 序列。text 中 [offset, offset + inserted) 的内容替换了原文本中
+     * [offset, offset + removed) 的内容。
+     * <p>
+     * 如果重新扫描时遇到非法字符，异常会被抛出，分析器进入无效状态 ({@link #isValid()} 返回 false)，
+     * 此后的编辑都被忽略，直到调用 {@link #reset(CharSequence)}。
+     *
+     * @param text     编辑后的源代码。
+     * @param offset   编辑的起始位置。
+     * @param removed  被删除的字符数。
+     * @param inserted 被插入的字符数。
+     * @throws RuntimeException 如果在重新扫描的区域中遇到无法识别的非法字符。
+     */
+    public void edit(CharSequence text, int offset, int removed, int inserted) {
+        if (!valid) {
+            return;
+        }
+        if (lookingAhead > 0) {
+            reset(text);
+            return;
+        }
+        valid = false;
+        int delta = inserted - removed;
+        int editEnd = offset + inserted; // 编辑区域在新文本中的结尾
+
+        // 从编辑点之前最后一个 Token 的结尾开始重新扫描 (两者之间只有空白和注释)
+        int first = firstEndingAtOrAfter(offset);
+        int from = first > 0 ? end(first - 1) : 0;
+
+        TokenStream.Builder builder = new TokenStream.Builder(text, 16, false);
+        int pos = from;
+        int checked = 0;
+        int stop = editEnd + RESYNC_WINDOW;
+        int newLength = text.length();
+        while (true) {
+            pos = Lexer.lexRange(text, pos, Math.min(stop, newLength), builder);
+            // 寻找第一个越过编辑区域、且结尾与旧序列中某个 Token 的结尾重合的新 Token
+            for (; checked < builder.size(); checked++) {
+                int newEnd = builder.end(checked);
+                if (newEnd < editEnd) {
+                    continue;
+                }
+                int last = indexOfEnd(newEnd - delta, first);
+                if (last >= 0) {
+                    splice(first, last + 1, builder, checked + 1, text);
+                    this.text = text;
+                    valid = true;
+                    return;
+                }
+            }
+            if (pos >= newLength) {
+                // 一直扫描到了文件末尾: 替换旧序列中从 first 开始的全部 Token
+                splice(first, size(), builder, builder.size(), text);
+                this.text = text;
+                valid = true;
+                return;
+            }
+            stop = editEnd + (stop - editEnd) * 2;
+        }
+    }
+
+    /**
+     * @return Token 序列是否与最近一次传入的文本一致。
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return Token 的数量。
+     */
+    public int size() {
+        return gapStart + (kinds.length - gapEnd);
+    }
+
+    /**
+     * @return 第 i 个 Token 的类型。
+     */
+    public TokenKind kind(int i) {
+        return TokenKind.of(kinds[physical(i)] & KIND_MASK);
+    }
+
+    /**
+     * @return 第 i 个 Token 在当前文本中的起始偏移 (含)。
+     */
+    public int start(int i) {
+        return i < gapStart ? starts[i] : starts[i + gapEnd - gapStart] + length;
+    }
+
+    /**
+     * @return 第 i 个 Token 在当前文本中的结束偏移 (不含)。
+     */
+    public int end(int i) {
+        return i < gapStart ? ends[i] : ends[i + gapEnd - gapStart] + length;
+    }
+
+    /**
+     * @return 第 i 个 Token 的整数值：NUM 为解析出的整数值，其他类型为 0。
+     * ID 还没有驻留，符号编号要从 {@link #snapshot()} 得到。
+     */
+    public int intValue(int i) {
+        return numbers[physical(i)];
+    }
+
+    /**
+     * 将当前的 Token 序列复制为一个独立的 TokenStream。文本在此时被复制一次，
+     * 因此之后的编辑不会影响返回的 TokenStream。ID 在这里才驻留为符号编号。
+     *
+     * @return 与对当前文本调用 {@link Lexer#tokenize(CharSequence)} 相同的结果。
+     * @throws IllegalStateException 如果 Token 序列已经无效。
+     */
+    public TokenStream snapshot() {
+        if (!valid) {
+            throw new IllegalStateException("Lexer Error: token stream is out of date, call reset() first");
+        }
+        int n = size();
+        TokenStream.Builder builder = new TokenStream.Builder(text.toString(), n);
+        for (int i = 0; i < n; i++) {
+            int p = physical(i);
+            TokenKind kind = TokenKind.of(kinds[p] & KIND_MASK);
+            if (kind == TokenKind.ID) {
+                builder.add(kind, start(i), end(i));
+            } else {
+                builder.add(kind, start(i), end(i), numbers[p]);
+            }
+        }
+        return builder.build();
+    }
+
+    private int physical(int i) {
+        return i < gapStart ? i : i + gapEnd - gapStart;
+    }
+
+    /**
+     * @return 第一个结束偏移不小于 offset 的 Token 的下标；不存在时返回 size()。
+     */
+    private int firstEndingAtOrAfter(int offset) {
+        int lo = 0;
+        int hi = size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (end(mid) < offset) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return 下标不小于 from、结束偏移 (旧文本中) 恰好为 end 的 Token 的下标；不存在时返回 -1。
+     */
+    private int indexOfEnd(int end, int from) {
+        int i = firstEndingAtOrAfter(end);
+        return i >= from && i < size() && end(i) == end ? i : -1;
+    }
+
+    /**
+     * 用 builder 中的前 count 个 Token 替换旧序列中 [from, to) 的 Token，并把文本更新为编辑后的 text。
+     */
+    private void splice(int from, int to, TokenStream.Builder builder, int count, CharSequence text) {
+        moveGap(from);
+        for (int p = gapEnd; p < gapEnd + to - from; p++) {
+            if ((kinds[p] & LOOKS_AHEAD) != 0) {
+                lookingAhead--;
+            }
+        }
+        gapEnd += to - from;
+        if (gapEnd - gapStart < count) {
+            grow(count);
+        }
+        for (int i = 0; i < count; i++) {
+            kinds[gapStart] = flaggedKind(text, builder, i);
+            starts[gapStart] = builder.start(i);
+            ends[gapStart] = builder.end(i);
+            numbers[gapStart] = builder.number(i);
+            gapStart++;
+        }
+        length = text.length();
+    }
+
+    /**
+     * @return builder 中第 i 个 Token 的类型编号；如果它的匹配查看了结尾之后的多个字符，则加上 LOOKS_AHEAD 标记并计数。
+     */
+    private byte flaggedKind(CharSequence text, TokenStream.Builder builder, int i) {
+        int kind = builder.kind(i);
+        if (Lexer.AUTOMATON.scanEnd(text, builder.start(i), text.length()) > builder.end(i)) {
+            kind |= LOOKS_AHEAD;
+            lookingAhead++;
+        }
+        return (byte) kind;
+    }
+
+    /**
+     * 把间隙移动到下标 index 处 (index 之前的 Token 都位于间隙之前)，并转换被移动的 Token 的偏移。
+     */
+    private void moveGap(int index) {
+        if (index < gapStart) {
+            int n = gapStart - index;
+            int to = gapEnd - n;
+            System.arraycopy(kinds, index, kinds, to, n);
+            System.arraycopy(numbers, index, numbers, to, n);
+            for (int i = n - 1; i >= 0; i--) { // 源区域与目标区域可能重叠，从后向前复制
+                starts[to + i] = starts[index + i] - length;
+                ends[to + i] = ends[index + i] - length;
+            }
+            gapStart = index;
+            gapEnd = to;
+        } else if (index > gapStart) {
+            int n = index - gapStart;
+            System.arraycopy(kinds, gapEnd, kinds, gapStart, n);
+            System.arraycopy(numbers, gapEnd, numbers, gapStart, n);
+            for (int i = 0; i < n; i++) {
+                starts[gapStart + i] = starts[gapEnd + i] + length;
+                ends[gapStart + i] = ends[gapEnd + i] + length;
+            }
+            gapStart = index;
+            gapEnd += n;
+        }
+    }
+
+    /**
+     * 扩大缓冲区，使间隙至少能容纳 needed 个 Token。
+     */
+    private void grow(int needed) {
+        int tail = kinds.length - gapEnd;
+        int capacity = Math.max(kinds.length * 3 / 2, gapStart + tail + needed + 64);
+        int newGapEnd = capacity - tail;
+        kinds = regap(kinds, new byte[capacity], newGapEnd);
+        numbers = regap(numbers, newGapEnd);
+        starts = regap(starts, newGapEnd);
+        ends = regap(ends, newGapEnd);
+        gapEnd = newGapEnd;
+    }
+
+    private byte[] regap(byte[] old, byte[] larger, int newGapEnd) {
+        System.arraycopy(old, 0, larger, 0, gapStart);
+        System.arraycopy(old, gapEnd, larger, newGapEnd, old.length - gapEnd);
+        return larger;
+    }
+
+    private int[] regap(int[] old, int newGapEnd) {
+        int[] larger = Arrays.copyOf(old, newGapEnd + (old.length - gapEnd));
+        System.arraycopy(old, gapEnd, larger, newGapEnd, old.length - gapEnd);
+        return larger;
+    }
+}
@@ -0,0 +1,127 @@
+package Lexer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keywords 类用一张完美哈希表识别关键字。
+ * 词法分析器先把 [a-zA-Z_][a-zA-Z0-9_]* 整体匹配为一个单词，再用本类判断它是关键字还是普通标识符 (ID)，
+ * 不再为每个关键字各写一条 \bint\b 形式的规则。
+ * <p>
+ * 哈希函数只看单词的长度、首字符和末字符：(len + first * A + last * B) & (TABLE_SIZE - 1)。
+ * 乘数 A、B 在类加载时搜索得到，保证所有关键字落在互不相同的槽位上，
+ * 因此一次查找只需计算哈希并与该槽位上唯一的候选逐字符比较一次。
+ */
+final class Keywords {
+    private static final String[] WORDS = {
+            "int", "main", "while", "if", "else", "return", "scanf", "printf"
+    };
+    private static final TokenKind[] KINDS = {
+            TokenKind.KW_INT, TokenKind.KW_MAIN, TokenKind.KW_WHILE, TokenKind.KW_IF,
+            TokenKind.KW_ELSE, TokenKind.KW_RETURN, TokenKind.IO_SCANF, TokenKind.IO_PRINTF
+    };
+
+    private static final int TABLE_SIZE = 16;
+    private static final int MIN_LENGTH;
+    private static final int MAX_LENGTH;
+
+    private static final char[][] TABLE_WORDS = new char[TABLE_SIZE][]; // 槽位 -> 关键字, null 表示空槽
+    private static final TokenKind[] TABLE_KINDS = new TokenKind[TABLE_SIZE];
+    private static final int MUL_FIRST;
+    private static final int MUL_LAST;
+
+    static {
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (String word : WORDS) {
+            min = Math.min(min, word.length());
+            max = Math.max(max, word.length());
+        }
+        MIN_LENGTH = min;
+        MAX_LENGTH = max;
+
+        int[] found = searchMultipliers();
+        MUL_FIRST = found[0];
+        MUL_LAST = found[1];
+        for (int i = 0; i < WORDS.length; i++) {
+            String word = WORDS[i];
+            int slot = hash(word.length(), word.charAt(0), word.charAt(word.length() - 1));
+            TABLE_WORDS[slot] = word.toCharArray();
+            TABLE_KINDS[slot] = KINDS[i];
+        }
+    }
+
+    private Keywords() {
+    }
+
+    /**
+     * 寻找使所有关键字的哈希值互不相同的一对乘数。
+     */
+    private static int[] searchMultipliers() {
+        for (int a = 1; a < 64; a++) {
+            for (int b = 1; b < 64; b++) {
+                int used = 0;
+                boolean perfect = true;
+                for (String word : WORDS) {
+                    int slot = (word.length() + word.charAt(0) * a + word.charAt(word.length() - 1) * b) & (TABLE_SIZE - 1);
+                    if ((used & (1 << slot)) != 0) {
+                        perfect = false;
+                        break;
+                    }
+                    used |= 1 << slot;
+                }
+                if (perfect) {
+                    return new int[]{a, b};
+                }
+            }
+        }
+        throw new IllegalStateException("No perfect hash found for keywords");
+    }
+
+    private static int hash(int length, int first, int last) {
+        return (length + first * MUL_FIRST + last * MUL_LAST) & (TABLE_SIZE - 1);
+    }
+
+    /**
+     * 判断 input[start, end) 中的单词是否为关键字。
+     *
+     * @return 关键字对应的 TokenKind；不是关键字时返回 ID。
+     */
+    static TokenKind lookup(CharSequence input, int start, int end) {
+        int length = end - start;
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return TokenKind.ID;
+        }
+        int slot = hash(length, input.charAt(start), input.charAt(end - 1));
+        char[] word = TABLE_WORDS[slot];
+        if (word == null || word.length != length) {
+            return TokenKind.ID;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(start + i) != word[i]) {
+                return TokenKind.ID;
+            }
+        }
+        return TABLE_KINDS[slot];
+    }
+
+    /**
+     * 与 {@link #lookup(CharSequence, int, int)} 相同，但直接读取纯 ASCII 字节。
+     */
+    static TokenKind lookup(ByteBuffer input, int start, int end) {
+        int length = end - start;
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return TokenKind.ID;
+        }
+        int slot = hash(length, input.get(start), input.get(end - 1));
+        char[] word = TABLE_WORDS[slot];
+        if (word == null || word.length != length) {
+            return TokenKind.ID;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.get(start + i) != word[i]) {
+                return TokenKind.ID;
+            }
+        }
+        return TABLE_KINDS[slot];
+    }
+}
@@ -2,12 +2,16 @@ package Lexer;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 /**
  * Lexer 类（词法分析器）负责将输入的字符串（源代码）分解为一系列的词法单元（Token）。
  * 每个词法单元代表语言中的一个有意义的单元，例如关键字、标识符、运算符或字面量。
+ * 所有规则在类加载时被编译为一个 DFA ({@link LexerAutomaton})，扫描时对输入只做一次线性遍历。
  */
 public class Lexer {
     // 定义 Token 规则列表，每个规则包含一个正则表达式和对应的 Token 类型。
@@ -15,51 +19,77 @@ public class Lexer {
 
     // 静态初始化块，在类加载时执行，用于填充 TOKEN_RULES 列表。
     static {
-        // 关键字: 语言中具有特殊含义的保留字。
-        addTokenRule("\\bint\\b", "KW_INT");         // 匹配关键字 "int"
-        addTokenRule("\\bmain\\b", "KW_MAIN");       // 匹配关键字 "main"
-        addTokenRule("\\bwhile\\b", "KW_WHILE");     // 匹配关键字 "while"
-        addTokenRule("\\bif\\b", "KW_IF");           // 匹配关键字 "if"
-        addTokenRule("\\belse\\b", "KW_ELSE");       // 匹配关键字 "else"
-        addTokenRule("\\breturn\\b", "KW_RETURN");   // 匹配关键字 "return"
-        addTokenRule("\\bscanf\\b", "IO_SCANF");     // 匹配关键字 "scanf" (用于输入)
-        addTokenRule("\\bprintf\\b", "IO_PRINTF");   // 匹配关键字 "printf" (用于输出)
-
         // 标识符: 用于标识变量、函数等的名称。
         // 必须以字母或下划线开头，后跟字母、数字或下划线。
-        addTokenRule("[a-zA-Z_][a-zA-Z0-9_]*", "ID");
+        // 关键字 (int, main, while, if, else, return, scanf, printf) 先作为整个单词被本规则匹配，
+        // 再由 Keywords 的完美哈希表识别出对应的关键字类型。
+        addTokenRule("[a-zA-Z_][a-zA-Z0-9_]*", TokenKind.ID);
 
         // 数字: 整数字面量。
-        addTokenRule("\\d+", "NUM");                // 匹配一个或多个数字
+        addTokenRule("\\d+", TokenKind.NUM);                // 匹配一个或多个数字
 
         // 运算符: 对操作数执行操作的符号。
-        addTokenRule("\\+", "OP_ADD");            // 加法运算符
-        addTokenRule("-", "OP_SUB");              // 减法运算符
-        addTokenRule("\\*", "OP_MUL");            // 乘法运算符
-        addTokenRule("/", "OP_DIV");              // 除法运算符
-        addTokenRule("%", "OP_MOD");              // 模运算符
-        addTokenRule("==", "OP_EQ");              // 等于运算符
-        addTokenRule("=", "OP_ASSIGN");           // 赋值运算符
-        addTokenRule("<=", "OP_LE");              // 小于等于运算符
-        addTokenRule(">", "OP_GT");               // 大于运算符
+        addTokenRule("\\+", TokenKind.OP_ADD);            // 加法运算符
+        addTokenRule("-", TokenKind.OP_SUB);              // 减法运算符
+        addTokenRule("\\*", TokenKind.OP_MUL);            // 乘法运算符
+        addTokenRule("/", TokenKind.OP_DIV);              // 除法运算符
+        addTokenRule("%", TokenKind.OP_MOD);              // 模运算符
+        addTokenRule("==", TokenKind.OP_EQ);              // 等于运算符
+        addTokenRule("=", TokenKind.OP_ASSIGN);           // 赋值运算符
+        addTokenRule("<=", TokenKind.OP_LE);              // 小于等于运算符
+        addTokenRule(">", TokenKind.OP_GT);               // 大于运算符
 
         // 界符: 用于分隔代码结构或表示特殊含义的符号。
-        addTokenRule(Pattern.quote("("), "LPAREN");    // 左圆括号，使用 Pattern.quote 转义特殊字符
-        addTokenRule(Pattern.quote(")"), "RPAREN");    // 右圆括号
-        addTokenRule("\\{", "LBRACE");              // 左花括号
-        addTokenRule("\\}", "RBRACE");              // 右花括号
-        addTokenRule(";", "SEMICOLON");             // 分号
-        addTokenRule(",", "COMMA");                 // 逗号
-        addTokenRule("&", "AMPERSAND");             // & 符号 (例如用于取地址)
+        addTokenRule(Pattern.quote("("), TokenKind.LPAREN);    // 左圆括号，使用 Pattern.quote 转义特殊字符
+        addTokenRule(Pattern.quote(")"), TokenKind.RPAREN);    // 右圆括号
+        addTokenRule("\\{", TokenKind.LBRACE);              // 左花括号
+        addTokenRule("\\}", TokenKind.RBRACE);              // 右花括号
+        addTokenRule(";", TokenKind.SEMICOLON);             // 分号
+        addTokenRule(",", TokenKind.COMMA);                 // 逗号
+        addTokenRule("&", TokenKind.AMPERSAND);             // & 符号 (例如用于取地址)
 
         // 字符串: 主要用于 printf 等函数的格式字符串。
         // 匹配双引号括起来的字符串，允许包含转义的双引号 \"。
-        addTokenRule("\"(\\\\\"|[^\"])*\"", "STR");
+        addTokenRule("\"(\\\\\"|[^\"])*\"", TokenKind.STR);
 
         // 注释: 在词法分析阶段通常被忽略。
         // 如果规则的类型为 null，则匹配到的内容将被忽略。
         addTokenRule("//.*", null);                  // 匹配单行注释 (从 // 到行尾)
-        addTokenRule("/\\*[\\s\\S]*?\\*/", null);    // 匹配多行注释 (从 /* 到 */，包括换行符，非贪婪匹配)
+        // 匹配多行注释 (从 /* 到第一个 */，包括换行符)。
+        // 写成不含 "*/" 的等价形式，这样最长匹配就不会越过注释的结束符。
+        addTokenRule("/\\*[^*]*\\*+([^*/][^*]*\\*+)*/", null);
+    }
+
+    // 空白字符 (空格、制表符、换行符、回车符)，在扫描时被跳过。
+    private static final String WHITESPACE = "[ \t\n\r]+";
+
+    // 由全部词法规则编译得到的 DFA (StreamingLexer 共享同一个自动机)。
+    static final LexerAutomaton AUTOMATON = compileAutomaton();
+
+    // 扫描纯 ASCII 字节时用于批量跳过空白、标识符与数字的实现 (有 Vector API 时为 SIMD 版本)。
+    private static final ByteScanner SCANNER = ByteScanner.best();
+
+    // 规则序号 -> Token 类型，被忽略的规则 (空白、注释) 为 null。
+    static final TokenKind[] RULE_KINDS = new TokenKind[TOKEN_RULES.size() + 1];
+
+    static {
+        for (int rule = 0; rule < TOKEN_RULES.size(); rule++) {
+            RULE_KINDS[rule] = TOKEN_RULES.get(rule).type;
+        }
+    }
+
+    /**
+     * 将 TOKEN_RULES 与空白规则编译为一个 DFA。规则在列表中的顺序即其优先级。
+     *
+     * @return 编译好的词法自动机。
+     */
+    private static LexerAutomaton compileAutomaton() {
+        List<String> regexes = new ArrayList<>();
+        for (TokenRule rule : TOKEN_RULES) {
+            regexes.add(rule.regex);
+        }
+        regexes.add(WHITESPACE);
+        return new LexerAutomaton(regexes);
     }
 
     /**
@@ -68,18 +98,18 @@ public class Lexer {
      * @param regex 正则表达式字符串，用于匹配词法单元。
      * @param type  词法单元的类型。如果为 null，则匹配到的内容将被忽略（例如注释）。
      */
-    private static void addTokenRule(String regex, String type) {
-        TOKEN_RULES.add(new TokenRule(Pattern.compile(regex), type));
+    private static void addTokenRule(String regex, TokenKind type) {
+        TOKEN_RULES.add(new TokenRule(regex, type));
     }
 
     /**
      * 一个记录 (record) 类，用于封装单个词法规则。
-     * 包含一个已编译的正则表达式模式 (Pattern) 和对应的词法单元类型 (String)。
+     * 包含一个正则表达式和对应的词法单元类型 (TokenKind)。
      *
-     * @param pattern 已编译的正则表达式。
-     * @param type    词法单元的类型。
+     * @param regex 正则表达式 (由 LexerAutomaton 编译)。
+     * @param type  词法单元的类型。
      */
-    private record TokenRule(Pattern pattern, String type) {}
+    private record TokenRule(String regex, TokenKind type) {}
 
     /**
      * 对输入的字符串执行词法分析，将其转换为 Token 列表。
@@ -89,39 +119,227 @@ public class Lexer {
      * @throws RuntimeException 如果在输入中遇到无法识别的非法字符。
      */
     public static List<Token> lex(String input) {
-        List<Token> tokens = new ArrayList<>();
-        int pos = 0;
+        return tokenize(input).toTokenList();
+    }
+
+    /**
+     * 对输入执行词法分析，生成紧凑的 TokenStream。
+     * 每个位置上由 DFA 执行一次最长匹配，长度相同时取优先级较高（先定义）的规则。
+     * 生成的 Token 只记录类型编号与源代码中的偏移，不复制文本。
+     *
+     * @param input 要进行词法分析的源代码。
+     * @return 包含从输入中解析出的 Token 的 TokenStream。
+     * @throws RuntimeException 如果在输入中遇到无法识别的非法字符。
+     */
+    public static TokenStream tokenize(CharSequence input) {
+        return tokenize(input, SCANNER);
+    }
+
+    /**
+     * 使用指定的 ByteScanner 进行词法分析 (主要用于比较标量与不同宽度 SIMD 实现的基准测试)。
+     * ByteScanner 只在输入为纯 ASCII 源文件 ({@link SourceFile#map}) 时使用。
+     *
+     * @param input   要进行词法分析的源代码。
+     * @param scanner 批量扫描实现。
+     * @return 包含从输入中解析出的 Token 的 TokenStream。
+     * @throws RuntimeException 如果在输入中遇到无法识别的非法字符。
+     */
+    public static TokenStream tokenize(CharSequence input, ByteScanner scanner) {
         int len = input.length();
+        TokenStream.Builder builder = new TokenStream.Builder(input, len / 4);
+        lexRange(input, 0, len, builder, scanner);
+        return builder.build();
+    }
 
-        while (pos < len) {
-            // 1. 跳过空白字符 (空格、制表符、换行符、回车符)
-            Matcher whitespace = Pattern.compile("[ \t\n\r]+").matcher(input.substring(pos));
-            if (whitespace.lookingAt()) {
-                pos += whitespace.end();
-                continue;
+    /**
+     * 使用公共 ForkJoinPool 并行地进行词法分析，结果与 {@link #tokenize} 完全相同。
+     *
+     * @param input 要进行词法分析的源代码。
+     * @return 包含从输入中解析出的 Token 的 TokenStream。
+     * @throws RuntimeException 如果在输入中遇到无法识别的非法字符。
+     */
+    public static TokenStream tokenizeParallel(CharSequence input) {
+        return tokenizeParallel(input, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 并行词法分析。输入在换行符之后被切分为若干块，各块在 pool 中同时扫描，最后按顺序拼接。
+     * <p>
+     * 切分点是投机性的：换行符可能位于跨行的注释或字符串内部，此时从切分点开始的扫描结果是错误的。
+     * 拼接时逐块验证——前一块扫描到的最后一个 Token 结束于位置 p，只有当本块恰好也在 p 处开始一个 Token
+     * (通常 p 就是切分点，或者是切分点后空白的结尾) 时，本块从 p 开始的结果才与顺序扫描一致；
+     * 否则从 p 开始按顺序重新扫描本块。因此输出总是与顺序扫描逐字节相同，包括错误信息。
+     * 输入较短或线程池只有一个工作线程时直接退化为顺序扫描。
+     *
+     * @param input 要进行词法分析的源代码。
+     * @param pool  执行扫描任务的线程池。
+     * @return 包含从输入中解析出的 Token 的 TokenStream。
+     * @throws RuntimeException 如果在输入中遇到无法识别的非法字符。
+     */
+    public static TokenStream tokenizeParallel(CharSequence input, ForkJoinPool pool) {
+        int len = input.length();
+        int chunkCount = Math.min(pool.getParallelism() * 4, len / MIN_PARALLEL_CHUNK);
+        if (pool.getParallelism() < 2 || chunkCount < 2) {
+            return tokenize(input);
+        }
+
+        // 1. 在每个目标位置之后的第一个换行符处切分
+        int[] bounds = new int[chunkCount + 1];
+        int n = 0;
+        for (int k = 1; k < chunkCount; k++) {
+            int split = nextLineStart(input, (int) ((long) len * k / chunkCount));
+            if (split > bounds[n] && split < len) {
+                bounds[++n] = split;
             }
+        }
+        bounds[++n] = len;
 
-            // 2. 尝试匹配 Token
-            boolean matched = false;
-            for (TokenRule rule : TOKEN_RULES) {
-                Matcher matcher = rule.pattern.matcher(input.substring(pos));
-                if (matcher.lookingAt()) {
-                    String value = matcher.group();
-                    if (rule.type != null) {
-                        tokens.add(new Token(rule.type, value));
-                    }
-                    pos += matcher.end();
-                    matched = true;
-                    break;
-                }
+        // 2. 并行扫描各块，每块从其起点扫描到第一个不小于终点的 Token 边界
+        List<Callable<Chunk>> tasks = new ArrayList<>(n);
+        for (int c = 0; c < n; c++) {
+            int from = bounds[c];
+            int stop = bounds[c + 1];
+            tasks.add(() -> lexChunk(input, from, stop));
+        }
+        List<Future<Chunk>> futures = pool.invokeAll(tasks);
+
+        // 3. 按顺序验证并拼接
+        TokenStream.Builder result = new TokenStream.Builder(input, len / 4);
+        int pos = 0;
+        for (int c = 0; c < n; c++) {
+            int stop = bounds[c + 1];
+            if (pos >= stop) {
+                continue; // 整块都落在前一块的最后一个 Token (例如长注释) 之内
+            }
+            Chunk chunk = join(futures.get(c));
+            int from = -1;
+            if (chunk.builder != null) {
+                from = pos == bounds[c] ? 0 : chunk.builder.indexOfStart(pos);
+            }
+            if (from >= 0) {
+                result.addAll(chunk.builder, from);
+                pos = chunk.end;
+            } else {
+                // 投机失败 (块起点位于注释或字符串内部，或扫描出错)：从真实的 Token 边界重新扫描
+                pos = lexRange(input, pos, stop, result, SCANNER);
             }
+        }
+        return result.build();
+    }
+
+    // 并行扫描时每块的最小长度，较短的输入不值得拆分
+    private static final int MIN_PARALLEL_CHUNK = 1 << 15;
+
+    /**
+     * 一个块的投机扫描结果。扫描出错时 builder 为 null，由拼接阶段重新扫描。
+     *
+     * @param builder 块内的 Token。
+     * @param end     扫描停止的位置 (不小于块的终点)。
+     */
+    private record Chunk(TokenStream.Builder builder, int end) {}
+
+    private static Chunk lexChunk(CharSequence input, int from, int stop) {
+        try {
+            TokenStream.Builder builder = new TokenStream.Builder(input, (stop - from) / 4);
+            int end = lexRange(input, from, stop, builder, SCANNER);
+            return new Chunk(builder, end);
+        } catch (RuntimeException e) {
+            return new Chunk(null, stop);
+        }
+    }
+
+    private static Chunk join(Future<Chunk> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Lexer Error: parallel lexing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Lexer Error: parallel lexing failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return pos 之后第一个换行符的下一个位置；没有换行符时返回输入长度。
+     */
+    private static int nextLineStart(CharSequence input, int pos) {
+        int len = input.length();
+        while (pos < len && input.charAt(pos) != '\n') {
+            pos++;
+        }
+        return Math.min(pos + 1, len);
+    }
 
-            // 3. 如果没有匹配到任何 Token 规则
-            if (!matched) {
+    /**
+     * 使用默认的 ByteScanner 扫描一段输入，供增量词法分析器重新扫描受编辑影响的区域。
+     *
+     * @return 扫描停止的位置。
+     * @throws RuntimeException 如果遇到无法识别的非法字符。
+     */
+    static int lexRange(CharSequence input, int pos, int stop, TokenStream.Builder builder) {
+        return lexRange(input, pos, stop, builder, SCANNER);
+    }
+
+    /**
+     * 从 pos 开始扫描 Token 并追加到 builder，直到到达不小于 stop 的 Token 边界。
+     * 最后一个 Token 可以越过 stop，但不会越过输入末尾。
+     * 纯 ASCII 源文件 (通常是内存映射的文件) 的 DFA 直接读取字节，不经过字符解码；
+     * 其中空白、数字和单词这三种最常见的连续段由 scanner 批量找到结尾：
+     * 以这些字符开头的规则的最长匹配恰好就是整段，因此跳到段尾的结果与 DFA 逐字符扫描相同。
+     * 匹配为 ID 的单词再经 {@link Keywords} 区分关键字。
+     *
+     * @return 扫描停止的位置。
+     * @throws RuntimeException 如果遇到无法识别的非法字符。
+     */
+    private static int lexRange(CharSequence input, int pos, int stop, TokenStream.Builder builder, ByteScanner scanner) {
+        int len = input.length();
+        SourceFile.AsciiSource ascii = input instanceof SourceFile.AsciiSource a ? a : null;
+
+        while (pos < stop) {
+            long match;
+            int end;
+            if (ascii != null) {
+                int base = ascii.offset;
+                byte b = ascii.bytes.get(base + pos);
+                if (ByteScanner.Scalar.isWhitespace(b)) {
+                    pos = scanner.skipWhitespace(ascii.segment, base + pos, base + len) - base;
+                    continue;
+                }
+                if (ByteScanner.Scalar.isDigit(b)) {
+                    end = scanner.digitEnd(ascii.segment, base + pos, base + len) - base;
+                    builder.add(TokenKind.NUM, pos, end);
+                    pos = end;
+                    continue;
+                }
+                if (ByteScanner.Scalar.isWordStart(b)) {
+                    // 单词的结尾由 scanner 找到，关键字由完美哈希识别，标识符直接从字节驻留为符号编号
+                    int wordEnd = scanner.wordEnd(ascii.segment, base + pos, base + len);
+                    TokenKind kind = Keywords.lookup(ascii.bytes, base + pos, wordEnd);
+                    int symbol = kind == TokenKind.ID && builder.internsIdentifiers()
+                            ? IdentifierPool.intern(ascii.bytes, base + pos, wordEnd) : 0;
+                    end = wordEnd - base;
+                    builder.add(kind, pos, end, symbol);
+                    pos = end;
+                    continue;
+                }
+                match = AUTOMATON.matchAscii(ascii.bytes, base + pos, base + len);
+                end = (int) match - base;
+            } else {
+                match = AUTOMATON.match(input, pos, len);
+                end = (int) match;
+            }
+            if (match == LexerAutomaton.NO_MATCH) {
                 throw new RuntimeException("Lexer Error: 非法字符 '" + input.charAt(pos) + "' at position " + pos);
             }
+            TokenKind kind = RULE_KINDS[(int) (match >>> 32)];
+            if (kind == TokenKind.ID) {
+                kind = Keywords.lookup(input, pos, end);
+            }
+            if (kind != null) {
+                builder.add(kind, pos, end);
+            }
+            pos = end;
         }
-
-        return tokens;
+        return pos;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,559 @@
+package Lexer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * LexerAutomaton 类把一组按优先级排列的词法规则（正则表达式）编译为一个确定有限自动机 (DFA)。
+ * 编译过程为：正则表达式 -> Thompson NFA -> 子集构造 DFA，字符集按规则中出现的区间划分为若干字符类，
+ * 转移表是一个以 "状态 * 字符类数 + 字符类" 为下标的 int 数组。
+ * 扫描时从给定位置出发，一次线性遍历即可得到"最长匹配"，长度相同时以规则序号较小（优先级较高）者为准。
+ * <p>
+ * 支持的正则子集：字面字符、转义 (\d \s \S \w \t \n \r 及 \Q...\E 引用)、字符类 [...] / [^...]、
+ * 任意字符 '.'、分组 (...)、选择 '|'、量词 * + ?。
+ * 零宽断言 \b 按空串处理：在最长匹配 + 规则优先级的语义下，关键字后紧跟单词字符时 ID 规则总能匹配得更长，
+ * 因此与原先逐条正则匹配的结果一致。非贪婪量词无法用 DFA 表达，遇到时直接报错。
+ */
+final class LexerAutomaton {
+    /** match 方法在无法匹配任何规则时的返回值。 */
+    static final long NO_MATCH = -1L;
+
+    /** matchPartial 方法在扫描到 limit 时自动机仍未进入死状态（更多输入可能得到更长匹配）时的返回值。 */
+    static final long NEED_INPUT = -2L;
+
+    private static final int DEAD = 0;   // 死状态：所有转移都回到自身
+    private static final int START = 1;  // 初始状态
+
+    private final int classCount;        // 字符类的数量
+    private final byte[] asciiClass;     // ASCII 字符 -> 字符类 的快速查找表
+    private final int[] boundaries;      // 非 ASCII 字符按区间起点二分查找字符类
+    private final int[] transitions;     // 转移表: state * classCount + class -> state
+    private final int[] acceptRule;      // 状态 -> 接受的规则序号, -1 表示非接受状态
+
+    /**
+     * 将规则列表编译为 DFA。
+     *
+     * @param regexes 各规则的正则表达式，下标即为规则的优先级（越小越优先）。
+     * @throws IllegalArgumentException 如果正则表达式使用了不受支持的构造。
+     */
+    LexerAutomaton(List<String> regexes) {
+        // 1. 构造合并的 NFA：一个公共起点，epsilon 连接到每条规则的子自动机
+        Nfa nfa = new Nfa();
+        int nfaStart = nfa.newState();
+        for (int rule = 0; rule < regexes.size(); rule++) {
+            Fragment f = new RegexCompiler(regexes.get(rule), nfa).compile();
+            nfa.epsilon(nfaStart, f.start);
+            nfa.accept.put(f.end, rule);
+        }
+
+        // 2. 按所有字符集的区间端点划分字符类
+        TreeSet<Integer> points = new TreeSet<>();
+        points.add(0);
+        points.add(Character.MAX_VALUE + 1);
+        for (CharSet set : nfa.edgeSets) {
+            for (int i = 0; i < set.ranges.length; i += 2) {
+                points.add(set.ranges[i]);
+                points.add(set.ranges[i + 1] + 1);
+            }
+        }
+        this.boundaries = points.stream().mapToInt(Integer::intValue).limit(points.size() - 1).toArray();
+        this.classCount = boundaries.length;
+        this.asciiClass = new byte[128];
+        for (int c = 0; c < 128; c++) {
+            asciiClass[c] = (byte) classOfSlow(c);
+        }
+
+        // 3. 子集构造
+        List<BitSet> dfaStates = new ArrayList<>();
+        Map<BitSet, Integer> index = new HashMap<>();
+        dfaStates.add(new BitSet());                     // DEAD
+        index.put(dfaStates.get(DEAD), DEAD);
+        BitSet startSet = nfa.closure(bitOf(nfaStart));
+        dfaStates.add(startSet);                         // START
+        index.put(startSet, START);
+
+        List<int[]> rows = new ArrayList<>();
+        rows.add(new int[classCount]);                   // DEAD 的转移全部为 DEAD
+        for (int s = START; s < dfaStates.size(); s++) {
+            BitSet current = dfaStates.get(s);
+            int[] row = new int[classCount];
+            for (int cls = 0; cls < classCount; cls++) {
+                int representative = boundaries[cls];
+                BitSet next = new BitSet();
+                for (int q = current.nextSetBit(0); q >= 0; q = current.nextSetBit(q + 1)) {
+                    for (Edge e : nfa.edges.get(q)) {
+                        if (e.set != null && e.set.contains(representative)) {
+                            next.set(e.target);
+                        }
+                    }
+                }
+                if (next.isEmpty()) {
+                    row[cls] = DEAD;
+                    continue;
+                }
+                next = nfa.closure(next);
+                Integer target = index.get(next);
+                if (target == null) {
+                    target = dfaStates.size();
+                    dfaStates.add(next);
+                    index.put(next, target);
+                }
+                row[cls] = target;
+            }
+            rows.add(row);
+        }
+
+        this.transitions = new int[rows.size() * classCount];
+        this.acceptRule = new int[rows.size()];
+        for (int s = 0; s < rows.size(); s++) {
+            System.arraycopy(rows.get(s), 0, transitions, s * classCount, classCount);
+            int best = -1;
+            BitSet set = dfaStates.get(s);
+            for (int q = set.nextSetBit(0); q >= 0; q = set.nextSetBit(q + 1)) {
+                Integer rule = nfa.accept.get(q);
+                if (rule != null && (best < 0 || rule < best)) {
+                    best = rule;
+                }
+            }
+            acceptRule[s] = best;
+        }
+    }
+
+    /**
+     * 从 pos 开始在 [pos, limit) 范围内执行一次最长匹配。
+     *
+     * @param input 输入字符序列。
+     * @param pos   匹配的起始位置。
+     * @param limit 匹配不能越过的结束位置（不含）。
+     * @return 匹配成功时返回 (规则序号 << 32) | 匹配结束位置；否则返回 {@link #NO_MATCH}。
+     */
+    long match(CharSequence input, int pos, int limit) {
+        int state = START;
+        int lastRule = -1;
+        int lastEnd = -1;
+        for (int i = pos; i < limit; i++) {
+            state = transitions[state * classCount + classOf(input.charAt(i))];
+            if (state == DEAD) {
+                break;
+            }
+            int rule = acceptRule[state];
+            if (rule >= 0) {
+                lastRule = rule;
+                lastEnd = i + 1;
+            }
+        }
+        return lastRule < 0 ? NO_MATCH : ((long) lastRule << 32) | lastEnd;
+    }
+
+    /**
+     * 从 pos 开始运行 DFA，返回使其进入死状态的字符的位置，即最长匹配实际查看过的最后一个字符。
+     * 大多数 Token 在结尾的下一个字符处就进入死状态；返回值大于匹配结尾时，说明该 Token 的结果依赖于它后面的文本
+     * (例如未闭合的 "/*" 会一直查看到输入末尾)。增量词法分析器据此判断编辑是否会影响前面的 Token。
+     *
+     * @return 进入死状态的位置；扫描到 limit 仍未进入死状态时返回 limit。
+     */
+    int scanEnd(CharSequence input, int pos, int limit) {
+        int state = START;
+        for (int i = pos; i < limit; i++) {
+            state = transitions[state * classCount + classOf(input.charAt(i))];
+            if (state == DEAD) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * 与 {@link #match} 相同，但直接扫描纯 ASCII 字节，每个字节即一个字符，省去 CharSequence 的间接调用。
+     *
+     * @param input 输入字节，调用者保证 [pos, limit) 内的字节均小于 128。
+     * @param pos   匹配的起始位置。
+     * @param limit 匹配不能越过的结束位置（不含）。
+     * @return 与 match 相同的编码。
+     */
+    long matchAscii(ByteBuffer input, int pos, int limit) {
+        int state = START;
+        int lastRule = -1;
+        int lastEnd = -1;
+        for (int i = pos; i < limit; i++) {
+            state = transitions[state * classCount + asciiClass[input.get(i)]];
+            if (state == DEAD) {
+                break;
+            }
+            int rule = acceptRule[state];
+            if (rule >= 0) {
+                lastRule = rule;
+                lastEnd = i + 1;
+            }
+        }
+        return lastRule < 0 ? NO_MATCH : ((long) lastRule << 32) | lastEnd;
+    }
+
+    /**
+     * 与 {@link #match} 相同，但用于 [pos, limit) 只是输入的一部分（例如流式读取的缓冲区）的情形：
+     * 如果扫描到 limit 时自动机仍处于活动状态，则当前结果不一定是最长匹配，返回 {@link #NEED_INPUT}，
+     * 调用者应读入更多字符后重试。
+     *
+     * @param input 输入字符序列。
+     * @param pos   匹配的起始位置。
+     * @param limit 当前已知输入的结束位置（不含）。
+     * @return 与 match 相同的编码，或 {@link #NEED_INPUT}。
+     */
+    long matchPartial(CharSequence input, int pos, int limit) {
+        int state = START;
+        int lastRule = -1;
+        int lastEnd = -1;
+        for (int i = pos; i < limit; i++) {
+            state = transitions[state * classCount + classOf(input.charAt(i))];
+            if (state == DEAD) {
+                return lastRule < 0 ? NO_MATCH : ((long) lastRule << 32) | lastEnd;
+            }
+            int rule = acceptRule[state];
+            if (rule >= 0) {
+                lastRule = rule;
+                lastEnd = i + 1;
+            }
+        }
+        return NEED_INPUT;
+    }
+
+    /**
+     * 计算字符所属的字符类。
+     */
+    private int classOf(char c) {
+        return c < 128 ? asciiClass[c] : classOfSlow(c);
+    }
+
+    private int classOfSlow(int c) {
+        int i = Arrays.binarySearch(boundaries, c);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    private static BitSet bitOf(int i) {
+        BitSet b = new BitSet();
+        b.set(i);
+        return b;
+    }
+
+    // ------------------------------------------------------------------
+    // NFA 与正则子集编译器
+    // ------------------------------------------------------------------
+
+    /**
+     * 字符集，以有序且不重叠的闭区间 [lo, hi] 对存储。
+     */
+    private static final class CharSet {
+        final int[] ranges;
+
+        CharSet(int[] ranges) {
+            this.ranges = ranges;
+        }
+
+        static CharSet of(int lo, int hi) {
+            return new CharSet(new int[]{lo, hi});
+        }
+
+        boolean contains(int c) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (c >= ranges[i] && c <= ranges[i + 1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** 合并多个字符集并规范化区间。 */
+        static CharSet union(List<CharSet> sets) {
+            List<int[]> all = new ArrayList<>();
+            for (CharSet s : sets) {
+                for (int i = 0; i < s.ranges.length; i += 2) {
+                    all.add(new int[]{s.ranges[i], s.ranges[i + 1]});
+                }
+            }
+            all.sort((a, b) -> Integer.compare(a[0], b[0]));
+            List<Integer> merged = new ArrayList<>();
+            for (int[] r : all) {
+                int n = merged.size();
+                if (n > 0 && r[0] <= merged.get(n - 1) + 1) {
+                    merged.set(n - 1, Math.max(merged.get(n - 1), r[1]));
+                } else {
+                    merged.add(r[0]);
+                    merged.add(r[1]);
+                }
+            }
+            return new CharSet(merged.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        /** 求补集（相对于整个 char 取值范围）。 */
+        CharSet complement() {
+            List<Integer> out = new ArrayList<>();
+            int next = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (ranges[i] > next) {
+                    out.add(next);
+                    out.add(ranges[i] - 1);
+                }
+                next = ranges[i + 1] + 1;
+            }
+            if (next <= Character.MAX_VALUE) {
+                out.add(next);
+                out.add((int) Character.MAX_VALUE);
+            }
+            return new CharSet(out.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    private record Edge(CharSet set, int target) {}   // set == null 表示 epsilon 边
+
+    private record Fragment(int start, int end) {}
+
+    private static final class Nfa {
+        final List<List<Edge>> edges = new ArrayList<>();
+        final List<CharSet> edgeSets = new ArrayList<>();
+        final Map<Integer, Integer> accept = new HashMap<>();
+
+        int newState() {
+            edges.add(new ArrayList<>());
+            return edges.size() - 1;
+        }
+
+        void epsilon(int from, int to) {
+            edges.get(from).add(new Edge(null, to));
+        }
+
+        void edge(int from, CharSet set, int to) {
+            edges.get(from).add(new Edge(set, to));
+            edgeSets.add(set);
+        }
+
+        BitSet closure(BitSet states) {
+            BitSet result = (BitSet) states.clone();
+            int[] work = new int[edges.size()];
+            int top = 0;
+            for (int q = states.nextSetBit(0); q >= 0; q = states.nextSetBit(q + 1)) {
+                work[top++] = q;
+            }
+            while (top > 0) {
+                int q = work[--top];
+                for (Edge e : edges.get(q)) {
+                    if (e.set == null && !result.get(e.target)) {
+                        result.set(e.target);
+                        work[top++] = e.target;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 递归下降的正则子集编译器，直接生成 Thompson NFA 片段。
+     */
+    private static final class RegexCompiler {
+        private static final CharSet DIGIT = CharSet.of('0', '9');
+        private static final CharSet SPACE = CharSet.union(List.of(
+                CharSet.of('\t', '\r'), CharSet.of(' ', ' ')));
+        private static final CharSet WORD = CharSet.union(List.of(
+                CharSet.of('0', '9'), CharSet.of('A', 'Z'), CharSet.of('_', '_'), CharSet.of('a', 'z')));
+        private static final CharSet LINE_TERMINATORS = CharSet.union(List.of(
+                CharSet.of('\n', '\n'), CharSet.of('\r', '\r'), CharSet.of(0x85, 0x85), CharSet.of(0x2028, 0x2029)));
+
+        private final String regex;
+        private final Nfa nfa;
+        private int pos;
+
+        RegexCompiler(String regex, Nfa nfa) {
+            this.regex = regex;
+            this.nfa = nfa;
+        }
+
+        Fragment compile() {
+            Fragment f = alternation();
+            if (pos != regex.length()) {
+                throw error("多余的字符");
+            }
+            return f;
+        }
+
+        private Fragment alternation() {
+            Fragment first = concatenation();
+            if (!peek('|')) {
+                return first;
+            }
+            int start = nfa.newState();
+            int end = nfa.newState();
+            nfa.epsilon(start, first.start);
+            nfa.epsilon(first.end, end);
+            while (peek('|')) {
+                pos++;
+                Fragment next = concatenation();
+                nfa.epsilon(start, next.start);
+                nfa.epsilon(next.end, end);
+            }
+            return new Fragment(start, end);
+        }
+
+        private Fragment concatenation() {
+            int start = nfa.newState();
+            int end = start;
+            while (pos < regex.length() && !peek('|') && !peek(')')) {
+                Fragment f = repetition();
+                nfa.epsilon(end, f.start);
+                end = f.end;
+            }
+            return new Fragment(start, end);
+        }
+
+        private Fragment repetition() {
+            Fragment atom = atom();
+            while (pos < regex.length()) {
+                char q = regex.charAt(pos);
+                if (q != '*' && q != '+' && q != '?') {
+                    break;
+                }
+                pos++;
+                if (peek('?') || peek('+')) {
+                    throw error("DFA 不支持非贪婪或占有量词");
+                }
+                int start = nfa.newState();
+                int end = nfa.newState();
+                nfa.epsilon(start, atom.start);
+                nfa.epsilon(atom.end, end);
+                if (q != '+') {
+                    nfa.epsilon(start, end);     // 可以出现零次
+                }
+                if (q != '?') {
+                    nfa.epsilon(atom.end, atom.start); // 可以重复
+                }
+                atom = new Fragment(start, end);
+            }
+            return atom;
+        }
+
+        private Fragment atom() {
+            char c = regex.charAt(pos++);
+            switch (c) {
+                case '(':
+                    if (regex.startsWith("?:", pos)) {
+                        pos += 2;
+                    }
+                    Fragment inner = alternation();
+                    expect(')');
+                    return inner;
+                case '[':
+                    return single(charClass());
+                case '.':
+                    return single(LINE_TERMINATORS.complement());
+                case '\\':
+                    return escape();
+                default:
+                    return single(CharSet.of(c, c));
+            }
+        }
+
+        private Fragment escape() {
+            char e = regex.charAt(pos++);
+            if (e == 'b') {
+                // 零宽单词边界：在最长匹配语义下等价于空串，见类注释
+                int s = nfa.newState();
+                return new Fragment(s, s);
+            }
+            if (e == 'Q') {
+                int end = regex.indexOf("\\E", pos);
+                String quoted = regex.substring(pos, end < 0 ? regex.length() : end);
+                pos = end < 0 ? regex.length() : end + 2;
+                int start = nfa.newState();
+                int last = start;
+                for (int i = 0; i < quoted.length(); i++) {
+                    int next = nfa.newState();
+                    nfa.edge(last, CharSet.of(quoted.charAt(i), quoted.charAt(i)), next);
+                    last = next;
+                }
+                return new Fragment(start, last);
+            }
+            return single(escapeSet(e));
+        }
+
+        private CharSet escapeSet(char e) {
+            switch (e) {
+                case 'd': return DIGIT;
+                case 'D': return DIGIT.complement();
+                case 's': return SPACE;
+                case 'S': return SPACE.complement();
+                case 'w': return WORD;
+                case 'W': return WORD.complement();
+                case 't': return CharSet.of('\t', '\t');
+                case 'n': return CharSet.of('\n', '\n');
+                case 'r': return CharSet.of('\r', '\r');
+                case 'f': return CharSet.of('\f', '\f');
+                default:
+                    if (Character.isLetterOrDigit(e)) {
+                        throw error("不支持的转义 \\" + e);
+                    }
+                    return CharSet.of(e, e);
+            }
+        }
+
+        private CharSet charClass() {
+            boolean negated = peek('^');
+            if (negated) {
+                pos++;
+            }
+            List<CharSet> parts = new ArrayList<>();
+            boolean first = true;
+            while (pos < regex.length() && (first || !peek(']'))) {
+                first = false;
+                char c = regex.charAt(pos++);
+                int lo;
+                if (c == '\\') {
+                    CharSet escaped = escapeSet(regex.charAt(pos++));
+                    if (escaped.ranges.length != 2 || escaped.ranges[0] != escaped.ranges[1]) {
+                        parts.add(escaped);
+                        continue;
+                    }
+                    lo = escaped.ranges[0];
+                } else {
+                    lo = c;
+                }
+                int hi = lo;
+                if (peek('-') && pos + 1 < regex.length() && regex.charAt(pos + 1) != ']') {
+                    pos++;
+                    char h = regex.charAt(pos++);
+                    hi = h == '\\' ? escapeSet(regex.charAt(pos++)).ranges[0] : h;
+                }
+                parts.add(CharSet.of(lo, hi));
+            }
+            expect(']');
+            CharSet set = CharSet.union(parts);
+            return negated ? set.complement() : set;
+        }
+
+        private Fragment single(CharSet set) {
+            int start = nfa.newState();
+            int end = nfa.newState();
+            nfa.edge(start, set, end);
+            return new Fragment(start, end);
+        }
+
+        private boolean peek(char c) {
+            return pos < regex.length() && regex.charAt(pos) == c;
+        }
+
+        private void expect(char c) {
+            if (!peek(c)) {
+                throw error("缺少 '" + c + "'");
+            }
+            pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("词法规则编译错误: " + message + " (规则 " + regex + ", 位置 " + pos + ")");
+        }
+    }
+}
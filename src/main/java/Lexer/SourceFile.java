@@ -0,0 +1,153 @@
+package Lexer;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SourceFile 类负责把源文件加载为词法分析器可以直接扫描的 CharSequence。
+ * 文件通过 {@link FileChannel#map} 映射到内存，不经过 readAllBytes + 解码 + 正则替换的多次复制：
+ * <ul>
+ *   <li>纯 ASCII 文件：直接返回映射缓冲区上的 {@link AsciiSource} 视图，不做任何解码，
+ *       词法分析器会识别这种视图并直接按字节扫描。</li>
+ *   <li>包含非 ASCII 字节的文件：按平台默认字符集（与原先的 new String(bytes) 相同）解码一次。</li>
+ * </ul>
+ * 与原先的 trim() 一样，首尾的空白和控制字符 (<= ' ') 不包含在返回的视图中，但这里只调整边界，不复制内容。
+ */
+public final class SourceFile {
+
+    private SourceFile() {
+    }
+
+    /**
+     * 以内存映射的方式加载源文件。
+     *
+     * @param path 文件路径。
+     * @return 文件内容的 CharSequence 视图。
+     * @throws IOException 如果读取文件发生错误，或文件超过 2GB。
+     */
+    public static CharSequence map(Path path) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Source file too large to map: " + path + " (" + size + " bytes)");
+            }
+            // 映射在通道关闭后仍然有效
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (isAscii(bytes)) {
+            int start = 0;
+            int end = bytes.limit();
+            while (start < end && bytes.get(start) <= ' ') {
+                start++;
+            }
+            while (end > start && bytes.get(end - 1) <= ' ') {
+                end--;
+            }
+            return new AsciiSource(bytes, start, end);
+        }
+
+        CharSequence text = Charset.defaultCharset().decode(bytes);
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return text.subSequence(start, end);
+    }
+
+    /**
+     * 读取源文件并转换为 String，供需要 String 的场合（例如 GUI 文本框）使用。
+     * 内容总要复制进 String，内存映射没有好处；而映射在被垃圾回收之前一直打开，
+     * 在 Windows 上会使编辑器无法截断或覆盖这个文件，因此这里直接读取。解码与首尾裁剪与 {@link #map} 相同。
+     *
+     * @param path 文件路径。
+     * @return 文件内容字符串。
+     * @throws IOException 如果读取文件发生错误。
+     */
+    public static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), Charset.defaultCharset()).trim();
+    }
+
+    /**
+     * 判断缓冲区中的字节是否全部为 ASCII (最高位为 0)。每次检查 8 个字节。
+     */
+    private static boolean isAscii(ByteBuffer bytes) {
+        ByteBuffer buffer = bytes.duplicate().order(ByteOrder.nativeOrder());
+        int limit = buffer.limit();
+        int i = 0;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            if ((buffer.getLong(i) & 0x8080808080808080L) != 0) {
+                return false;
+            }
+        }
+        for (; i < limit; i++) {
+            if (buffer.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 纯 ASCII 字节缓冲区上的 CharSequence 视图：每个字节就是一个字符，charAt 直接读取字节，
+     * 只有 toString / subSequence().toString() 时才会复制出 String。
+     */
+    public static final class AsciiSource implements CharSequence {
+        final ByteBuffer bytes;       // 底层字节 (通常是内存映射缓冲区)
+        final MemorySegment segment;  // 同一块内存的 MemorySegment 视图，供 ByteScanner 批量扫描
+        final int offset;             // 视图在 bytes 中的起始位置
+        private final int length;
+
+        AsciiSource(ByteBuffer bytes, int start, int end) {
+            this(bytes, MemorySegment.ofBuffer(bytes), start, end);
+        }
+
+        private AsciiSource(ByteBuffer bytes, MemorySegment segment, int start, int end) {
+            this.bytes = bytes;
+            this.segment = segment;
+            this.offset = start;
+            this.length = end - start;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            }
+            return (char) bytes.get(offset + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new AsciiSource(bytes, segment, offset + start, offset + end);
+        }
+
+        @Override
+        public String toString() {
+            byte[] copy = new byte[length];
+            bytes.get(offset, copy);
+            return new String(copy, StandardCharsets.US_ASCII);
+        }
+    }
+}
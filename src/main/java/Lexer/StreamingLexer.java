@@ -0,0 +1,211 @@
+package Lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * StreamingLexer 类是一个拉取式 (pull-based) 的流式词法分析器。
+ * 它不会先读入整个文件、再生成完整的 Token 列表，而是在语法分析器调用 {@link #peekKind(int)} /
+ * {@link #advance()} 时才从 Reader 中读取字符并扫描出下一个 Token。
+ * <p>
+ * 内存占用与文件大小无关：字符缓冲区只需容纳当前正在扫描的 Token（只有遇到超长的单个 Token，
+ * 例如很长的注释或字符串时才会扩容），已扫描出的 Token 保存在一个固定大小的向前查看窗口中。
+ * 扫描使用与 {@link Lexer} 相同的 DFA，因此产生的 Token 序列与 Lexer.tokenize 完全一致。
+ */
+public final class StreamingLexer implements TokenSource {
+    /** 默认的向前查看窗口大小。递归下降分析器只需要 1 个 Token 的向前查看。 */
+    public static final int DEFAULT_LOOKAHEAD = 4;
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private char[] buffer;
+    private CharBuffer view;       // buffer 的 CharSequence 视图，供 DFA 扫描
+    private int pos;               // 下一个待扫描字符在 buffer 中的位置
+    private int limit;             // buffer 中有效字符的结束位置 (不含)
+    private long offset;           // buffer[0] 在整个输入中的偏移，用于错误信息
+    private boolean endOfInput;    // Reader 是否已读完
+
+    // 向前查看窗口：一个环形队列，保存已扫描但尚未消费的 Token
+    private final TokenKind[] kinds;
+    private final String[] values;
+    private final int[] numbers;
+    private int head;              // 当前 Token 在环形队列中的位置
+    private int count;             // 环形队列中的 Token 数量
+    private boolean exhausted;     // 是否已扫描到输入末尾 (此后不再产生新的 Token)
+    private int index;             // 已经消费的 Token 数量
+
+    /**
+     * 以默认的向前查看窗口创建流式词法分析器。
+     *
+     * @param reader 源代码的字符来源。
+     */
+    public StreamingLexer(Reader reader) {
+        this(reader, DEFAULT_LOOKAHEAD);
+    }
+
+    /**
+     * 创建流式词法分析器。
+     *
+     * @param reader    源代码的字符来源。
+     * @param lookahead 向前查看窗口的大小，即 peek 系列方法允许的最大 k + 1。
+     * @throws IllegalArgumentException 如果 lookahead 小于 1。
+     */
+    public StreamingLexer(Reader reader, int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("Lookahead window must be at least 1, got " + lookahead);
+        }
+        this.reader = reader;
+        this.buffer = new char[INITIAL_BUFFER_SIZE];
+        this.view = CharBuffer.wrap(buffer);
+        this.kinds = new TokenKind[lookahead];
+        this.values = new String[lookahead];
+        this.numbers = new int[lookahead];
+    }
+
+    /**
+     * 从 NIO 通道创建流式词法分析器，字节按给定字符集逐块解码。
+     *
+     * @param channel 源代码的字节来源。
+     * @param charset 源代码的字符集。
+     */
+    public StreamingLexer(ReadableByteChannel channel, Charset charset) {
+        this(Channels.newReader(channel, charset.newDecoder(), -1), DEFAULT_LOOKAHEAD);
+    }
+
+    @Override
+    public TokenKind peekKind(int k) {
+        return fill(k) ? kinds[slot(k)] : TokenKind.EOF;
+    }
+
+    @Override
+    public String peekValue(int k) {
+        return fill(k) ? values[slot(k)] : "$";
+    }
+
+    @Override
+    public int peekInt(int k) {
+        return fill(k) ? numbers[slot(k)] : 0;
+    }
+
+    @Override
+    public void advance() {
+        if (fill(0)) {
+            values[head] = null;
+            head = slot(1);
+            count--;
+            index++;
+        }
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    private int slot(int k) {
+        return (head + k) % kinds.length;
+    }
+
+    /**
+     * 确保向前查看窗口中至少有 k + 1 个 Token。
+     *
+     * @return 如果第 k 个 Token 存在则返回 true；如果输入在此之前已经结束则返回 false。
+     */
+    private boolean fill(int k) {
+        if (k < 0 || k >= kinds.length) {
+            throw new IllegalArgumentException("Lookahead " + k + " exceeds the window size " + kinds.length);
+        }
+        while (count <= k) {
+            if (exhausted || !scanToken()) {
+                exhausted = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 扫描下一个非空白、非注释的 Token 并放入窗口末尾。
+     *
+     * @return 如果扫描到 Token 则返回 true；输入结束时返回 false。
+     * @throws RuntimeException 如果遇到无法识别的非法字符。
+     */
+    private boolean scanToken() {
+        while (true) {
+            if (pos == limit) {
+                if (endOfInput || !readMore()) {
+                    return false;
+                }
+                continue;
+            }
+            long match = endOfInput
+                    ? Lexer.AUTOMATON.match(view, pos, limit)
+                    : Lexer.AUTOMATON.matchPartial(view, pos, limit);
+            if (match == LexerAutomaton.NEED_INPUT) {
+                // 当前 Token 可能延续到尚未读入的字符中，读入更多后重新扫描
+                readMore();
+                continue;
+            }
+            if (match == LexerAutomaton.NO_MATCH) {
+                throw new RuntimeException("Lexer Error: 非法字符 '" + buffer[pos] + "' at position " + (offset + pos));
+            }
+            int start = pos;
+            int end = (int) match;
+            pos = end;
+            TokenKind kind = Lexer.RULE_KINDS[(int) (match >>> 32)];
+            if (kind == TokenKind.ID) {
+                kind = Keywords.lookup(view, start, end);
+            }
+            if (kind != null) {
+                int tail = slot(count);
+                kinds[tail] = kind;
+                if (kind == TokenKind.ID) {
+                    numbers[tail] = IdentifierPool.intern(view, start, end);
+                    values[tail] = IdentifierPool.name(numbers[tail]);
+                } else {
+                    numbers[tail] = kind == TokenKind.NUM ? Integer.parseInt(view, start, end, 10) : 0;
+                    values[tail] = new String(buffer, start, end - start);
+                }
+                count++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 从 Reader 中读入更多字符。已扫描的字符会先被移出缓冲区；只有当未扫描的字符占满缓冲区时才扩容。
+     *
+     * @return 如果读到了新字符则返回 true；Reader 已结束时返回 false。
+     */
+    private boolean readMore() {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            offset += pos;
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buffer.length) {
+            char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+            view = CharBuffer.wrap(buffer);
+        }
+        try {
+            int n = reader.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                endOfInput = true;
+                return false;
+            }
+            limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lexer Error: failed to read source", e);
+        }
+    }
+}
@@ -4,7 +4,7 @@ package Lexer;
  * Token 类代表词法分析过程中从源代码中识别出的一个独立的词法单元。
  */
 public class Token {
-    public String type;
+    public TokenKind type;
     public String value;
 
     /**
@@ -13,7 +13,7 @@ public class Token {
      * @param type  词法单元的类型。
      * @param value 词法单元的值（在源代码中的文本）。
      */
-    public Token(String type, String value) {
+    public Token(TokenKind type, String value) {
         this.type = type;   // 初始化类型
         this.value = value; // 初始化值
     }
@@ -0,0 +1,36 @@
+package Lexer;
+
+/**
+ * TokenKind 枚举定义了词法分析器能够产生的全部词法单元类型。
+ * 词法分析器、两个语法分析器以及 GrammarRule 共享这一组类型，
+ * 因此类型比较可以使用 == 或 switch，优先级等查找表可以直接用 ordinal() 作为数组下标。
+ */
+public enum TokenKind {
+    // 关键字
+    KW_INT, KW_MAIN, KW_WHILE, KW_IF, KW_ELSE, KW_RETURN, IO_SCANF, IO_PRINTF,
+    // 标识符与数字
+    ID, NUM,
+    // 运算符
+    OP_ADD, OP_SUB, OP_MUL, OP_DIV, OP_MOD, OP_EQ, OP_ASSIGN, OP_LE, OP_GT,
+    // 界符
+    LPAREN, RPAREN, LBRACE, RBRACE, SEMICOLON, COMMA, AMPERSAND,
+    // 字符串
+    STR,
+    // 输入结束标记 (语法分析中写作 "$")
+    EOF;
+
+    private static final TokenKind[] VALUES = values();
+
+    /** 类型的总数，可作为按 ordinal() 索引的数组长度。 */
+    public static final int COUNT = VALUES.length;
+
+    /**
+     * 根据序号获取类型，不会像 values() 那样每次复制数组。
+     *
+     * @param ordinal 类型的 ordinal() 值。
+     * @return 对应的 TokenKind。
+     */
+    public static TokenKind of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,67 @@
+package Lexer;
+
+/**
+ * TokenSource 接口表示一个按顺序消费的 Token 来源，只能向前移动，并提供有限的向前查看 (lookahead)。
+ * 语法分析器通过它按需拉取 Token，而不关心 Token 是预先生成好的 ({@link TokenStream#cursor()})
+ * 还是在读取源代码的同时逐个扫描出来的 ({@link StreamingLexer})。
+ * <p>
+ * 超出输入末尾的查看结果与 TokenStream 一致：类型为 EOF，值为 "$"。
+ */
+public interface TokenSource {
+
+    /**
+     * 查看当前位置之后第 k 个 Token 的类型 (k = 0 为当前 Token)，不移动位置。
+     *
+     * @param k 向前查看的距离。
+     * @return Token 类型；超出输入末尾时返回 EOF。
+     * @throws IllegalArgumentException 如果 k 超出了该来源支持的查看窗口。
+     */
+    TokenKind peekKind(int k);
+
+    /**
+     * 查看当前位置之后第 k 个 Token 的文本值。
+     *
+     * @param k 向前查看的距离。
+     * @return Token 的文本；超出输入末尾时返回 "$"。
+     */
+    String peekValue(int k);
+
+    /**
+     * 查看当前位置之后第 k 个 Token 的整数值：NUM 为解析出的整数值，ID 为 {@link IdentifierPool} 中的符号编号。
+     *
+     * @param k 向前查看的距离。
+     * @return 整数值或符号编号；对于其他类型的 Token 返回 0。
+     */
+    int peekInt(int k);
+
+    /**
+     * 前进到下一个 Token。已经位于输入末尾时保持不动。
+     */
+    void advance();
+
+    /**
+     * @return 当前 Token 在整个 Token 序列中的下标 (即已经消费的 Token 数量)。
+     */
+    int index();
+
+    /**
+     * 查看当前位置之后第 k 个 Token，并物化为 Token 对象。
+     *
+     * @param k 向前查看的距离。
+     * @return 新的 Token 对象。
+     */
+    default Token peek(int k) {
+        return new Token(peekKind(k), peekValue(k));
+    }
+
+    /**
+     * 返回当前 Token 并前进到下一个 Token。
+     *
+     * @return 当前 Token 的对象形式。
+     */
+    default Token next() {
+        Token token = peek(0);
+        advance();
+        return token;
+    }
+}
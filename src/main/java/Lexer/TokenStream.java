@@ -0,0 +1,310 @@
+package Lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TokenStream 类是 Token 序列的紧凑表示（"数组结构体" 布局）。
+ * 它不为每个 Token 创建对象，而是把类型编号、起始偏移、结束偏移分别存放在基本类型 int 数组中，
+ * 偏移量均指向原始源代码；Token 的文本值只有在使用者请求时才从源代码中截取。
+ * NUM 类型的 Token 在词法分析时就已解析出整数值，ID 类型的 Token 在词法分析时就已驻留为
+ * {@link IdentifierPool} 中的符号编号，解析器可以直接读取。
+ * <p>
+ * 下标超出 Token 数量时，视为输入结束，类型为 TokenKind.EOF，值为 "$"。
+ */
+public final class TokenStream {
+    private final CharSequence source; // Token 偏移量所指向的源代码
+    private final int[] kinds;         // 每个 Token 的类型 (TokenKind.ordinal())
+    private final int[] starts;        // 每个 Token 在源代码中的起始偏移 (含)
+    private final int[] ends;          // 每个 Token 在源代码中的结束偏移 (不含)
+    private final int[] numbers;       // NUM Token 的整数值，ID Token 的符号编号，其他类型为 0
+    private final int size;
+
+    private TokenStream(CharSequence source, int[] kinds, int[] starts, int[] ends, int[] numbers, int size) {
+        this.source = source;
+        this.kinds = kinds;
+        this.starts = starts;
+        this.ends = ends;
+        this.numbers = numbers;
+        this.size = size;
+    }
+
+    /**
+     * 将 Token 对象列表转换为 TokenStream。
+     * 由于 Token 对象不携带源代码位置，这里把各 Token 的值以空格连接成一个合成的源字符串。
+     *
+     * @param tokens Token 列表。
+     * @return 等价的 TokenStream。
+     */
+    public static TokenStream of(List<Token> tokens) {
+        StringBuilder text = new StringBuilder();
+        Builder builder = new Builder(text, tokens.size());
+        for (Token token : tokens) {
+            int start = text.length();
+            text.append(token.value).append(' ');
+            builder.add(token.type, start, start + token.value.length());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return Token 的数量 (不含隐含的结束标记)。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Token 偏移量所指向的源代码。
+     */
+    public CharSequence source() {
+        return source;
+    }
+
+    /**
+     * 获取第 i 个 Token 的类型。
+     *
+     * @param i Token 下标。
+     * @return Token 类型；下标越界时返回 EOF。
+     */
+    public TokenKind kind(int i) {
+        return i < size ? TokenKind.of(kinds[i]) : TokenKind.EOF;
+    }
+
+    /**
+     * @param i Token 下标。
+     * @return 第 i 个 Token 在源代码中的起始偏移 (含)。
+     */
+    public int start(int i) {
+        return starts[i];
+    }
+
+    /**
+     * @param i Token 下标。
+     * @return 第 i 个 Token 在源代码中的结束偏移 (不含)。
+     */
+    public int end(int i) {
+        return ends[i];
+    }
+
+    /**
+     * 获取第 i 个 Token 的文本值。ID 直接返回驻留池中的名称，其他类型的文本在此时才从源代码中截取。
+     *
+     * @param i Token 下标。
+     * @return Token 的文本；下标越界时返回 "$"。
+     */
+    public String value(int i) {
+        if (i >= size) {
+            return "$";
+        }
+        if (kinds[i] == TokenKind.ID.ordinal()) {
+            return IdentifierPool.name(numbers[i]);
+        }
+        return source.subSequence(starts[i], ends[i]).toString();
+    }
+
+    /**
+     * 获取 NUM 类型 Token 在词法分析时解析出的整数值，或 ID 类型 Token 的符号编号。
+     *
+     * @param i Token 下标。
+     * @return 整数值或符号编号；对于其他类型的 Token 返回 0。
+     */
+    public int intValue(int i) {
+        return i < size ? numbers[i] : 0;
+    }
+
+    /**
+     * 将第 i 个 Token 物化为一个 Token 对象 (用于显示、调试或兼容旧接口)。
+     *
+     * @param i Token 下标。
+     * @return 新的 Token 对象。
+     */
+    public Token token(int i) {
+        return new Token(kind(i), value(i));
+    }
+
+    /**
+     * 将整个流物化为 Token 对象列表。
+     *
+     * @return Token 列表。
+     */
+    public List<Token> toTokenList() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tokens.add(token(i));
+        }
+        return tokens;
+    }
+
+    /**
+     * 创建一个从第一个 Token 开始的游标，供按顺序拉取 Token 的语法分析器使用。
+     * 由于整个序列已在内存中，游标的查看窗口不受限制。
+     *
+     * @return 新的 TokenSource 游标。
+     */
+    public TokenSource cursor() {
+        return new Cursor(this);
+    }
+
+    /**
+     * TokenStream 上的顺序游标，所有查看都直接转换为数组下标访问。
+     */
+    private static final class Cursor implements TokenSource {
+        private final TokenStream stream;
+        private int index;
+
+        Cursor(TokenStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public TokenKind peekKind(int k) {
+            return stream.kind(index + k);
+        }
+
+        @Override
+        public String peekValue(int k) {
+            return stream.value(index + k);
+        }
+
+        @Override
+        public int peekInt(int k) {
+            return stream.intValue(index + k);
+        }
+
+        @Override
+        public void advance() {
+            if (index < stream.size) {
+                index++;
+            }
+        }
+
+        @Override
+        public int index() {
+            return index;
+        }
+    }
+
+    /**
+     * TokenStream 的构建器，按顺序追加 Token，数组按需扩容。
+     */
+    static final class Builder {
+        private final CharSequence source;
+        private final boolean internIdentifiers;
+        private int[] kinds;
+        private int[] starts;
+        private int[] ends;
+        private int[] numbers;
+        private int size;
+
+        Builder(CharSequence source, int expectedSize) {
+            this(source, expectedSize, true);
+        }
+
+        /**
+         * @param internIdentifiers 是否把 ID 驻留为符号编号；为 false 时 ID 的整数值为 0，
+         *                          用于文本还在编辑中、标识符可能只是输入到一半的场合 (见 {@link IncrementalLexer})。
+         */
+        Builder(CharSequence source, int expectedSize, boolean internIdentifiers) {
+            int capacity = Math.max(16, expectedSize);
+            this.source = source;
+            this.internIdentifiers = internIdentifiers;
+            this.kinds = new int[capacity];
+            this.starts = new int[capacity];
+            this.ends = new int[capacity];
+            this.numbers = new int[capacity];
+        }
+
+        /**
+         * 追加一个 Token。NUM 类型的 Token 会立即解析出整数值，ID 类型的 Token 会立即驻留为符号编号 (除非构建器不驻留标识符)。
+         *
+         * @throws NumberFormatException 如果数字字面量超出 int 范围。
+         */
+        void add(TokenKind kind, int start, int end) {
+            int number = 0;
+            if (kind == TokenKind.NUM) {
+                number = Integer.parseInt(source, start, end, 10);
+            } else if (kind == TokenKind.ID && internIdentifiers) {
+                number = IdentifierPool.intern(source, start, end);
+            }
+            add(kind, start, end, number);
+        }
+
+        /**
+         * 追加一个 Token，其整数值 (NUM 的值或 ID 的符号编号) 已由调用者算出。
+         */
+        void add(TokenKind kind, int start, int end, int number) {
+            if (size == kinds.length) {
+                int capacity = size + (size >> 1);
+                kinds = Arrays.copyOf(kinds, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                numbers = Arrays.copyOf(numbers, capacity);
+            }
+            kinds[size] = kind.ordinal();
+            starts[size] = start;
+            ends[size] = end;
+            numbers[size] = number;
+            size++;
+        }
+
+        /**
+         * @return 是否把 ID 驻留为符号编号。
+         */
+        boolean internsIdentifiers() {
+            return internIdentifiers;
+        }
+
+        /**
+         * 追加 other 中从下标 from 开始的全部 Token (两者必须指向同一源代码)。
+         */
+        void addAll(Builder other, int from) {
+            int n = other.size - from;
+            if (size + n > kinds.length) {
+                int capacity = Math.max(size + n, size + (size >> 1));
+                kinds = Arrays.copyOf(kinds, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                numbers = Arrays.copyOf(numbers, capacity);
+            }
+            System.arraycopy(other.kinds, from, kinds, size, n);
+            System.arraycopy(other.starts, from, starts, size, n);
+            System.arraycopy(other.ends, from, ends, size, n);
+            System.arraycopy(other.numbers, from, numbers, size, n);
+            size += n;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int kind(int i) {
+            return kinds[i];
+        }
+
+        int start(int i) {
+            return starts[i];
+        }
+
+        int end(int i) {
+            return ends[i];
+        }
+
+        int number(int i) {
+            return numbers[i];
+        }
+
+        /**
+         * @return 起始偏移恰好为 start 的 Token 的下标；不存在时返回 -1。
+         */
+        int indexOfStart(int start) {
+            int i = Arrays.binarySearch(starts, 0, size, start);
+            return i >= 0 ? i : -1;
+        }
+
+        TokenStream build() {
+            return new TokenStream(source, kinds, starts, ends, numbers, size);
+        }
+    }
+}
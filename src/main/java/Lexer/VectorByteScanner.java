@@ -0,0 +1,152 @@
+package Lexer;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorByteScanner 类是 {@link ByteScanner} 基于 jdk.incubator.vector 的 SIMD 实现。
+ * 每次从源文件字节中载入一个 16 或 32 字节的向量，用按通道比较得到的掩码判断整段是否都属于当前字符类，
+ * 第一个不属于的位置由 firstTrue() 直接给出。不足一个向量的末尾字节交给标量实现处理。
+ * <p>
+ * 两种宽度各有一个子类，扫描循环各自独立，且向量形状都是静态常量：如果共用同一份循环或辅助方法，
+ * JIT 只会按先运行的宽度编译，另一种宽度会退化为极慢的非内联路径。
+ * <p>
+ * 该类直接引用 Vector API，只能通过 {@link ByteScanner#vector(int)} 在模块可用时以反射方式加载。
+ */
+abstract class VectorByteScanner implements ByteScanner {
+
+    /**
+     * 创建指定宽度的实现。
+     *
+     * @param lanes 16 或 32。
+     * @return SIMD 实现。
+     */
+    public static ByteScanner create(int lanes) {
+        return lanes == 32 ? new Lanes32() : new Lanes16();
+    }
+
+    /**
+     * @return 使用硬件首选宽度 (最多 32 字节) 的实例。
+     */
+    public static ByteScanner preferred() {
+        return create(Math.min(32, ByteVector.SPECIES_PREFERRED.length()));
+    }
+
+    /**
+     * 16 字节宽的实现。
+     */
+    static final class Lanes16 extends VectorByteScanner {
+        private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_128;
+
+        @Override
+        public int skipWhitespace(MemorySegment bytes, int pos, int limit) {
+            for (; pos + 16 <= limit; pos += 16) {
+                ByteVector v = ByteVector.fromMemorySegment(SPECIES, bytes, pos, ByteOrder.nativeOrder());
+                VectorMask<Byte> other = v.compare(VectorOperators.NE, (byte) ' ')
+                        .and(v.compare(VectorOperators.NE, (byte) '\n'))
+                        .and(v.compare(VectorOperators.NE, (byte) '\t'))
+                        .and(v.compare(VectorOperators.NE, (byte) '\r'));
+                if (other.anyTrue()) {
+                    return pos + other.firstTrue();
+                }
+            }
+            return Scalar.INSTANCE.skipWhitespace(bytes, pos, limit);
+        }
+
+        @Override
+        public int wordEnd(MemorySegment bytes, int pos, int limit) {
+            for (; pos + 16 <= limit; pos += 16) {
+                ByteVector v = ByteVector.fromMemorySegment(SPECIES, bytes, pos, ByteOrder.nativeOrder());
+                // 字母: (b | 0x20) 落在 'a'..'z'；ASCII 字节都是非负数，可以直接做有符号比较
+                ByteVector lower = v.or((byte) 0x20);
+                VectorMask<Byte> word = lower.compare(VectorOperators.GE, (byte) 'a')
+                        .and(lower.compare(VectorOperators.LE, (byte) 'z'))
+                        .or(v.compare(VectorOperators.GE, (byte) '0').and(v.compare(VectorOperators.LE, (byte) '9')))
+                        .or(v.compare(VectorOperators.EQ, (byte) '_'));
+                if (!word.allTrue()) {
+                    return pos + word.not().firstTrue();
+                }
+            }
+            return Scalar.INSTANCE.wordEnd(bytes, pos, limit);
+        }
+
+        @Override
+        public int digitEnd(MemorySegment bytes, int pos, int limit) {
+            for (; pos + 16 <= limit; pos += 16) {
+                ByteVector v = ByteVector.fromMemorySegment(SPECIES, bytes, pos, ByteOrder.nativeOrder());
+                VectorMask<Byte> digit = v.compare(VectorOperators.GE, (byte) '0')
+                        .and(v.compare(VectorOperators.LE, (byte) '9'));
+                if (!digit.allTrue()) {
+                    return pos + digit.not().firstTrue();
+                }
+            }
+            return Scalar.INSTANCE.digitEnd(bytes, pos, limit);
+        }
+
+        @Override
+        public String name() {
+            return "vector-16";
+        }
+    }
+
+    /**
+     * 32 字节宽的实现。
+     */
+    static final class Lanes32 extends VectorByteScanner {
+        private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_256;
+
+        @Override
+        public int skipWhitespace(MemorySegment bytes, int pos, int limit) {
+            for (; pos + 32 <= limit; pos += 32) {
+                ByteVector v = ByteVector.fromMemorySegment(SPECIES, bytes, pos, ByteOrder.nativeOrder());
+                VectorMask<Byte> other = v.compare(VectorOperators.NE, (byte) ' ')
+                        .and(v.compare(VectorOperators.NE, (byte) '\n'))
+                        .and(v.compare(VectorOperators.NE, (byte) '\t'))
+                        .and(v.compare(VectorOperators.NE, (byte) '\r'));
+                if (other.anyTrue()) {
+                    return pos + other.firstTrue();
+                }
+            }
+            return Scalar.INSTANCE.skipWhitespace(bytes, pos, limit);
+        }
+
+        @Override
+        public int wordEnd(MemorySegment bytes, int pos, int limit) {
+            for (; pos + 32 <= limit; pos += 32) {
+                ByteVector v = ByteVector.fromMemorySegment(SPECIES, bytes, pos, ByteOrder.nativeOrder());
+                // 字母: (b | 0x20) 落在 'a'..'z'；ASCII 字节都是非负数，可以直接做有符号比较
+                ByteVector lower = v.or((byte) 0x20);
+                VectorMask<Byte> word = lower.compare(VectorOperators.GE, (byte) 'a')
+                        .and(lower.compare(VectorOperators.LE, (byte) 'z'))
+                        .or(v.compare(VectorOperators.GE, (byte) '0').and(v.compare(VectorOperators.LE, (byte) '9')))
+                        .or(v.compare(VectorOperators.EQ, (byte) '_'));
+                if (!word.allTrue()) {
+                    return pos + word.not().firstTrue();
+                }
+            }
+            return Scalar.INSTANCE.wordEnd(bytes, pos, limit);
+        }
+
+        @Override
+        public int digitEnd(MemorySegment bytes, int pos, int limit) {
+            for (; pos + 32 <= limit; pos += 32) {
+                ByteVector v = ByteVector.fromMemorySegment(SPECIES, bytes, pos, ByteOrder.nativeOrder());
+                VectorMask<Byte> digit = v.compare(VectorOperators.GE, (byte) '0')
+                        .and(v.compare(VectorOperators.LE, (byte) '9'));
+                if (!digit.allTrue()) {
+                    return pos + digit.not().firstTrue();
+                }
+            }
+            return Scalar.INSTANCE.digitEnd(bytes, pos, limit);
+        }
+
+        @Override
+        public String name() {
+            return "vector-32";
+        }
+    }
+}
@@ -1,13 +1,15 @@
 import AST.ProgramNode;
-import AST.RecursiveDescentASTParser;
+import AST.LALRASTParser;
 import AST.TACContext;
 import Analysis.SemanticAnalyzer;
 import AssemblyGenerator.AssemblyGenerator;
 import Lexer.Lexer;
+import Lexer.SourceFile;
 import Lexer.Token;
-import Parser.SimplePrecedenceParser;
+import Lexer.TokenKind;
+import Optimizer.TACOptimizer;
+import Pipeline.CompilerPipeline;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
 
@@ -16,10 +18,13 @@ import java.util.List;
  * 它按顺序执行编译的各个阶段：
  * 1. 从文件读取源代码。
  * 2. 词法分析 (Lexer)。
- * 3. 语法分析 (SimplePrecedenceParser, 用于演示，实际构建AST使用RecursiveDescentASTParser)。
- * 4. 构建抽象语法树 (AST) (RecursiveDescentASTParser)。
- * 5. 从 AST 生成三地址码 (TAC)。
- * 6. 从 TAC 生成汇编代码。
+ * 3. 语法分析并构建抽象语法树 (AST) (LALRASTParser，一次扫描完成)。
+ * 4. 从 AST 生成三地址码 (TAC)。
+ * 5. 从 TAC 生成汇编代码。
+ * 简单优先分析器的逐步演示保留在 GUI 中。
+ * 使用 --fast 参数时改用 {@link CompilerPipeline} 的快速路径 (语法分析使用显式栈)，不输出任何中间结果。
+ * 程序嵌套过深、超出递归阶段可用的调用栈时，与其他编译错误一样报告，而不是让程序异常终止。
+ * 使用 -O 参数时在生成汇编代码之前优化三地址码 (常量折叠、代数化简与拷贝传播)。
  */
 public class Main {
     /**
@@ -30,26 +35,62 @@ public class Main {
      * @throws IOException 如果读取文件发生错误。
      */
     public static String readFileToString(String filePath) throws IOException {
-        String content = new String(Files.readAllBytes(Paths.get(filePath)));
-        return content.replaceAll("\\\\s*", "").trim();
+        return SourceFile.read(Paths.get(filePath));
+    }
+
+    /**
+     * 以内存映射的方式加载源文件，返回可直接交给词法分析器的视图 (纯 ASCII 文件不经过解码)。
+     *
+     * @param filePath 文件路径。
+     * @return 文件内容。
+     * @throws IOException 如果读取文件发生错误。
+     */
+    public static CharSequence loadSource(String filePath) throws IOException {
+        return SourceFile.map(Paths.get(filePath));
     }
 
     /**
      * 编译器的主入口点。
      *
-     * @param args 命令行参数 (未使用)。
+     * @param args 命令行参数：可选的源文件路径；加上 --fast 时使用不输出中间结果的快速流水线，只打印汇编代码；
+     *             加上 -O 时优化三地址码。
      */
     public static void main(String[] args) {
         String filePath = "D:\\computerPracticalTraining\\CCompiler\\trueExample_checkNumber.txt";
+        boolean fast = false;
+        boolean optimize = false;
+        for (String arg : args) {
+            if (arg.equals("--fast")) {
+                fast = true;
+            } else if (arg.equals("-O")) {
+                optimize = true;
+            } else {
+                filePath = arg;
+            }
+        }
+
+        if (fast) {
+            try {
+                CompilerPipeline.Result result = new CompilerPipeline().explicitStack(true).optimize(optimize).compile(loadSource(filePath));
+                for (String asmLine : result.assembly) {
+                    System.out.println(asmLine);
+                }
+            } catch (IOException e) {
+                System.err.println("错误: 读取文件 " + filePath + " 失败: " + e.getMessage());
+            } catch (Exception e) {
+                System.err.println("处理过程中发生错误: " + e.getMessage());
+            }
+            return;
+        }
 
         try {
-            String sourceCode = readFileToString(filePath);
+            CharSequence sourceCode = loadSource(filePath);
             System.out.println("--- 源文件内容 (来自 " + filePath + ") ---");
             System.out.println(sourceCode);
             System.out.println("-------------------------------------\n");
 
             // 1. 词法分析
-            List<Token> tokens = Lexer.lex(sourceCode);
+            List<Token> tokens = Lexer.tokenize(sourceCode).toTokenList();
             System.out.println("--- 词法单元 ---");
             for (Token token : tokens) {
                 System.out.print(token + " ");
@@ -58,27 +99,19 @@ public class Main {
             boolean hasEOF = false;
             if (!tokens.isEmpty()) {
                 Token lastToken = tokens.get(tokens.size() - 1);
-                if (lastToken.type.equals("EOF") || lastToken.type.equals("$")) {
+                if (lastToken.type == TokenKind.EOF) {
                     hasEOF = true;
                 }
             }
             if (!hasEOF) {
-                tokens.add(new Token("EOF", "$"));
+                tokens.add(new Token(TokenKind.EOF, "$"));
             }
             System.out.println("\n---------------\n");
 
-            // 2. 语法分析 (简单优先法)
-            String tokenString = convertTokensToString(tokens);
-            SimplePrecedenceParser parser = new SimplePrecedenceParser();
-            boolean success = parser.parse(tokenString);
-
-            System.out.println("\n=== 最终结果 ===");
-            System.out.println("语法分析" + (success ? "成功" : "失败"));
-
-
-            // 3. 语法制导分析并构建 AST (使用新的递归下降解析器)
-            RecursiveDescentASTParser astParser = new RecursiveDescentASTParser(tokens);
-            ProgramNode astRoot = astParser.parseProgram();
+            // 2. 语法分析并构建 AST (LALR(1) 分析器，一次扫描完成语法检查与 AST 构造)
+            ProgramNode astRoot = new LALRASTParser(tokens).parseProgram();
+            System.out.println("=== 最终结果 ===");
+            System.out.println("语法分析成功");
 
             if (astRoot != null) {
                 System.out.println("\n--- AST 结构展示 ---");
@@ -94,16 +127,20 @@ public class Main {
                 // 4. 从 AST 生成三地址码
                 TACContext tacContext = new TACContext();
                 astRoot.generateTAC(tacContext);
+                if (optimize) {
+                    int removed = TACOptimizer.optimize(tacContext.code);
+                    System.out.println("三地址码优化删除了 " + removed + " 条指令。");
+                }
 
                 System.out.println("=== 生成的三地址码 (来自文件 -> AST -> TAC) ===");
-                for (String instruction : tacContext.instructions) {
+                for (String instruction : tacContext.instructions()) {
                     System.out.println(instruction);
                 }
 
                 // 5. 从三地址码 (TAC) 生成汇编代码
                 System.out.println("\n=== 生成的汇编代码 (来自三地址码) ===");
                 AssemblyGenerator asmGenerator = new AssemblyGenerator();
-                List<String> assemblyCode = asmGenerator.generate(tacContext.instructions);
+                List<String> assemblyCode = asmGenerator.generate(tacContext.code);
                 for (String asmLine : assemblyCode) {
                     System.out.println(asmLine);
                 }
@@ -116,25 +153,9 @@ public class Main {
         } catch (Exception e) {
             System.err.println("处理过程中发生错误: " + e.getMessage());
             e.printStackTrace();
+        } catch (StackOverflowError e) {
+            System.err.println("处理过程中发生错误: 程序嵌套过深，超出了调用栈的容量 (可以用 -Xss 增大线程栈)");
         }
     }
 
-    /**
-     * 将 Token 列表转换为 SimplePrecedenceParser 所期望的特定格式的字符串。
-     * 格式: "(类型1, 值1) (类型2, 值2) ..."
-     *
-     * @param tokens Token 列表。
-     * @return 格式化后的 Token 字符串。
-     */
-    private static String convertTokensToString(List<Token> tokens) {
-        StringBuilder sb = new StringBuilder();
-        for (Token token : tokens) {
-            sb.append("(").append(token.type).append(", ").append(token.value).append(") ");
-        }
-        if (sb.length() > 0) {
-            sb.setLength(sb.length() - 1);
-        }
-        return sb.toString();
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,346 @@
+package Optimizer;
+
+import AST.TACCode;
+import AST.TACCode.Opcode;
+import AST.TACCode.OperandKind;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * ConstantFolder 是三地址码上的常量折叠与代数化简遍，在原地改写 {@link TACCode}。
+ * <p>
+ * 运算按目标机器 (8086) 的 16 位有符号整数语义求值：加、减、乘的结果截断为 16 位，
+ * 除法与取模向零舍入、余数与被除数同号 (与 IDIV 相同)；除数为 0 或 -32768 / -1 会在 IDIV 中触发异常，不做折叠。
+ * 操作数超出 16 位范围的指令保持不变。
+ * <ul>
+ *     <li>两个操作数都是常量的运算直接求值，结果写入只定义一次的临时变量时，把常量代入之后的使用处并删除这条指令；</li>
+ *     <li>代数恒等式：x + 0、x - 0、x * 1、x / 1 化简为拷贝，x * 0、x % 1、x - x 化简为 0，x == x 等比较化简为 0 或 1；</li>
+ *     <li>常量链重结合：(x + 1) + 2、(x - 1) + 2 化简为 x + 常量，(x * 2) * 3 化简为 x * 6；</li>
+ *     <li>条件为常量的 IF_FALSE 化简为 GOTO 或直接删除；</li>
+ *     <li>最后删除结果不再被使用的临时变量的定义。</li>
+ * </ul>
+ * 重结合依赖 "临时变量 = 基址 op 常量" 的记录：基址是变量时，该变量被重新赋值后记录失效；遇到标签时所有记录失效，
+ * 因为从其他位置跳转过来时变量的值可能已经不同。
+ */
+public final class ConstantFolder {
+
+    private final TACCode code;
+    private final BitSet removed = new BitSet();
+
+    private final int[] definitions;     // 临时变量编号 -> 定义次数
+    private final BitSet isConstant = new BitSet();
+    private final int[] constants;       // 临时变量编号 -> 常量值 (isConstant 中置位时有效)
+
+    // 临时变量编号 -> "基址 op 常量" 记录，op 为 ADD 或 MUL
+    private final long[] factBase;
+    private final Opcode[] factOpcode;
+    private final int[] factConstant;
+    private final int[] factVersion;     // 记录时基址变量的版本号
+    private final int[] factEpoch;       // 记录时的标签纪元，0 表示没有记录
+    private int epoch = 1;
+    private int[] versions = new int[64]; // 变量的符号编号 -> 被赋值的次数
+
+    private ConstantFolder(TACCode code) {
+        this.code = code;
+        int temps = 0;
+        for (int i = 0; i < code.size(); i++) {
+            for (int slot = 0; slot < 3; slot++) {
+                long operand = code.operand(i, slot);
+                if (TACCode.kind(operand) == OperandKind.TEMP) {
+                    temps = Math.max(temps, TACCode.value(operand) + 1);
+                }
+            }
+        }
+        definitions = new int[temps];
+        constants = new int[temps];
+        factBase = new long[temps];
+        factOpcode = new Opcode[temps];
+        factConstant = new int[temps];
+        factVersion = new int[temps];
+        factEpoch = new int[temps];
+        for (int i = 0; i < code.size(); i++) {
+            long dest = code.operand(i, 0);
+            if (defines(code.opcode(i)) && TACCode.kind(dest) == OperandKind.TEMP) {
+                definitions[TACCode.value(dest)]++;
+            }
+        }
+    }
+
+    /**
+     * 对三地址码做常量折叠与代数化简。
+     *
+     * @param code 要优化的三地址码，在原地修改。
+     * @return 删除的指令条数。
+     */
+    public static int fold(TACCode code) {
+        ConstantFolder folder = new ConstantFolder(code);
+        folder.rewrite();
+        DeadTemps.mark(code, folder.removed);
+        return code.remove(folder.removed);
+    }
+
+    /**
+     * @return 操作码是否把结果写入第一个操作数 (二元运算或拷贝)。
+     */
+    static boolean defines(Opcode opcode) {
+        return opcode.isBinary() || opcode == Opcode.COPY;
+    }
+
+    // ---------------------------------------------------------------- 前向改写
+
+    private void rewrite() {
+        for (int i = 0; i < code.size(); i++) {
+            Opcode opcode = code.opcode(i);
+            long first = code.operand(i, 0);
+            switch (opcode) {
+                case LABEL:
+                    epoch++;
+                    break;
+                case COPY: {
+                    long source = substitute(code.operand(i, 1));
+                    code.set(i, Opcode.COPY, first, source, TACCode.NONE);
+                    if (!recordConstant(i, first, source)) {
+                        assigned(first);
+                    }
+                    break;
+                }
+                case IF_FALSE: {
+                    long condition = substitute(first);
+                    if (TACCode.kind(condition) == OperandKind.IMMEDIATE) {
+                        if (TACCode.value(condition) == 0) {
+                            code.set(i, Opcode.GOTO, code.operand(i, 1), TACCode.NONE, TACCode.NONE);
+                        } else {
+                            removed.set(i);
+                        }
+                    } else {
+                        code.set(i, Opcode.IF_FALSE, condition, code.operand(i, 1), TACCode.NONE);
+                    }
+                    break;
+                }
+                case PRINT:
+                case RETURN:
+                    code.set(i, opcode, substitute(first), TACCode.NONE, TACCode.NONE);
+                    break;
+                default:
+                    if (opcode.isBinary()) {
+                        rewriteBinary(i, opcode, first, substitute(code.operand(i, 1)), substitute(code.operand(i, 2)));
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void rewriteBinary(int index, Opcode opcode, long dest, long left, long right) {
+        // 常量链重结合：(x op k) op c => x op (k op c)
+        if (isSmallImmediate(right) && hasFact(left)) {
+            int c = TACCode.value(right);
+            int t = TACCode.value(left);
+            if (factOpcode[t] == Opcode.ADD && (opcode == Opcode.ADD || opcode == Opcode.SUB)) {
+                int k = opcode == Opcode.ADD ? factConstant[t] + c : factConstant[t] - c;
+                opcode = Opcode.ADD;
+                left = factBase[t];
+                right = TACCode.immediate((short) k);
+            } else if (factOpcode[t] == Opcode.MUL && opcode == Opcode.MUL) {
+                left = factBase[t];
+                right = TACCode.immediate((short) (factConstant[t] * c));
+            }
+        } else if (isSmallImmediate(left) && hasFact(right)) {
+            int c = TACCode.value(left);
+            int t = TACCode.value(right);
+            if (factOpcode[t] == opcode && (opcode == Opcode.ADD || opcode == Opcode.MUL)) {
+                int k = opcode == Opcode.ADD ? factConstant[t] + c : factConstant[t] * c;
+                left = factBase[t];
+                right = TACCode.immediate((short) k);
+            }
+        }
+
+        long simplified = simplify(opcode, left, right);
+        if (simplified != NOT_SIMPLIFIED) {
+            code.set(index, Opcode.COPY, dest, simplified, TACCode.NONE);
+            if (!recordConstant(index, dest, simplified)) {
+                assigned(dest);
+            }
+            return;
+        }
+        code.set(index, opcode, dest, left, right);
+        assigned(dest);
+        recordFact(opcode, dest, left, right);
+    }
+
+    /** simplify 的返回值，表示无法化简。操作数编码的高 32 位不会是 -1，因此不会与真实的操作数冲突。 */
+    private static final long NOT_SIMPLIFIED = -1L;
+
+    /**
+     * 按 16 位语义求值或应用代数恒等式。
+     *
+     * @return 与 left opcode right 等价的单个操作数；无法化简时返回 {@link #NOT_SIMPLIFIED}。
+     */
+    static long simplify(Opcode opcode, long left, long right) {
+        boolean leftConstant = isSmallImmediate(left);
+        boolean rightConstant = isSmallImmediate(right);
+        int a = TACCode.value(left);
+        int b = TACCode.value(right);
+        if (leftConstant && rightConstant) {
+            switch (opcode) {
+                case ADD: return TACCode.immediate((short) (a + b));
+                case SUB: return TACCode.immediate((short) (a - b));
+                case MUL: return TACCode.immediate((short) (a * b));
+                case DIV: return b == 0 || (a == Short.MIN_VALUE && b == -1) ? NOT_SIMPLIFIED : TACCode.immediate(a / b);
+                case MOD: return b == 0 || (a == Short.MIN_VALUE && b == -1) ? NOT_SIMPLIFIED : TACCode.immediate(a % b);
+                case GT: return bool(a > b);
+                case LE: return bool(a <= b);
+                case EQ: return bool(a == b);
+                case LT: return bool(a < b);
+                case GE: return bool(a >= b);
+                case NE: return bool(a != b);
+                default: return NOT_SIMPLIFIED;
+            }
+        }
+        if (!leftConstant && !rightConstant && left == right && TACCode.kind(left) != OperandKind.STRING) {
+            switch (opcode) {
+                case SUB:
+                case NE:
+                case LT:
+                case GT:
+                    return TACCode.immediate(0);
+                case EQ:
+                case LE:
+                case GE:
+                    return TACCode.immediate(1);
+                default:
+                    return NOT_SIMPLIFIED;
+            }
+        }
+        switch (opcode) {
+            case ADD:
+                if (rightConstant && b == 0) return left;
+                if (leftConstant && a == 0) return right;
+                break;
+            case SUB:
+                if (rightConstant && b == 0) return left;
+                break;
+            case MUL:
+                if (rightConstant && b == 1) return left;
+                if (leftConstant && a == 1) return right;
+                if ((rightConstant && b == 0) || (leftConstant && a == 0)) return TACCode.immediate(0);
+                break;
+            case DIV:
+                if (rightConstant && b == 1) return left;
+                break;
+            case MOD:
+                if (rightConstant && b == 1) return TACCode.immediate(0);
+                break;
+            default:
+                break;
+        }
+        return NOT_SIMPLIFIED;
+    }
+
+    private static long bool(boolean value) {
+        return TACCode.immediate(value ? 1 : 0);
+    }
+
+    /**
+     * @return 操作数是否为 16 位范围内的立即数。
+     */
+    static boolean isSmallImmediate(long operand) {
+        if (TACCode.kind(operand) != OperandKind.IMMEDIATE) {
+            return false;
+        }
+        int value = TACCode.value(operand);
+        return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+    }
+
+    // ---------------------------------------------------------------- 临时变量的常量与记录
+
+    private boolean isSingleDefinitionTemp(long operand) {
+        return TACCode.kind(operand) == OperandKind.TEMP && definitions[TACCode.value(operand)] == 1;
+    }
+
+    /**
+     * 只定义一次的临时变量被赋予常量时，记住这个常量并删除定义，之后的使用处直接代入常量。
+     *
+     * @return 是否记录了常量。
+     */
+    private boolean recordConstant(int index, long dest, long value) {
+        if (!isSingleDefinitionTemp(dest) || !isSmallImmediate(value)) {
+            return false;
+        }
+        isConstant.set(TACCode.value(dest));
+        constants[TACCode.value(dest)] = TACCode.value(value);
+        removed.set(index);
+        return true;
+    }
+
+    /**
+     * @return 把已知为常量的临时变量替换为立即数后的操作数。
+     */
+    private long substitute(long operand) {
+        if (TACCode.kind(operand) == OperandKind.TEMP && isConstant.get(TACCode.value(operand))) {
+            return TACCode.immediate(constants[TACCode.value(operand)]);
+        }
+        return operand;
+    }
+
+    /**
+     * 记录 dest = base op 常量，减去常量记为加上其相反数。
+     */
+    private void recordFact(Opcode opcode, long dest, long left, long right) {
+        if (!isSingleDefinitionTemp(dest)) {
+            return;
+        }
+        long base;
+        int constant;
+        if (isSmallImmediate(right) && (opcode == Opcode.ADD || opcode == Opcode.SUB || opcode == Opcode.MUL)) {
+            base = left;
+            constant = opcode == Opcode.SUB ? (short) -TACCode.value(right) : TACCode.value(right);
+        } else if (isSmallImmediate(left) && (opcode == Opcode.ADD || opcode == Opcode.MUL)) {
+            base = right;
+            constant = TACCode.value(left);
+        } else {
+            return;
+        }
+        if (TACCode.kind(base) != OperandKind.VARIABLE && !isSingleDefinitionTemp(base)) {
+            return;
+        }
+        int t = TACCode.value(dest);
+        factBase[t] = base;
+        factOpcode[t] = opcode == Opcode.MUL ? Opcode.MUL : Opcode.ADD;
+        factConstant[t] = constant;
+        factVersion[t] = version(base);
+        factEpoch[t] = epoch;
+    }
+
+    /**
+     * @return operand 是否为带有有效记录的临时变量。
+     */
+    private boolean hasFact(long operand) {
+        if (TACCode.kind(operand) != OperandKind.TEMP) {
+            return false;
+        }
+        int t = TACCode.value(operand);
+        return factEpoch[t] == epoch && factVersion[t] == version(factBase[t]);
+    }
+
+    private int version(long operand) {
+        if (TACCode.kind(operand) != OperandKind.VARIABLE) {
+            return 0;
+        }
+        int id = TACCode.value(operand);
+        return id < versions.length ? versions[id] : 0;
+    }
+
+    /**
+     * 变量被赋值后，以它为基址的记录全部失效。
+     */
+    private void assigned(long dest) {
+        if (TACCode.kind(dest) != OperandKind.VARIABLE) {
+            return;
+        }
+        int id = TACCode.value(dest);
+        if (id >= versions.length) {
+            versions = Arrays.copyOf(versions, Math.max(versions.length * 2, id + 1));
+        }
+        versions[id]++;
+    }
+}
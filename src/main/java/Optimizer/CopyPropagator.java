@@ -0,0 +1,264 @@
+package Optimizer;
+
+import AST.TACCode;
+import AST.TACCode.Opcode;
+import AST.TACCode.OperandKind;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * CopyPropagator 是三地址码上的拷贝传播与临时变量合并遍，在原地改写 {@link TACCode}。
+ * <ul>
+ *     <li>合并：声明与赋值生成的 "_tN = a op b" 紧跟 "x = _tN"，而 _tN 只被这一条拷贝读取时，
+ *     直接把结果写入 x ("x = a op b") 并删除拷贝。比较运算不合并，它们的结果只用于条件跳转；</li>
+ *     <li>传播："d = s" (s 为变量或立即数) 之后，读取 d 的地方改为读取 s，直到 d 或 s 被重新赋值或遇到标签，
+ *     因此 "y = x; z = y" 这样的拷贝链会折叠为直接读取 x；</li>
+ *     <li>最后删除 "x = x" 这样的自拷贝，以及结果不再被使用的临时变量的定义。</li>
+ * </ul>
+ * 临时变量只作为合并的对象，不作为传播的来源：汇编生成器假设临时变量的值在 AX 中，
+ * 把它传播到更远的地方会读到已被覆盖的寄存器。
+ */
+public final class CopyPropagator {
+
+    private final TACCode code;
+    private final BitSet removed = new BitSet();
+
+    // 拷贝记录，分别以临时变量编号与变量的符号编号为下标：目标 = 来源
+    private final Copies tempCopies = new Copies();
+    private final Copies variableCopies = new Copies();
+    private int epoch = 1;
+    private int[] tempVersions = new int[64];     // 临时变量编号 -> 被赋值的次数
+    private int[] variableVersions = new int[64]; // 变量的符号编号 -> 被赋值的次数
+
+    /**
+     * 一组拷贝记录：来源操作数，以及记录时目标与来源的版本号和标签纪元。
+     */
+    private static final class Copies {
+        long[] source = new long[64];
+        int[] sourceVersion = new int[64];
+        int[] destVersion = new int[64];
+        int[] epoch = new int[64]; // 0 表示没有记录
+
+        void ensure(int id) {
+            if (id >= source.length) {
+                int length = Math.max(source.length * 2, id + 1);
+                source = Arrays.copyOf(source, length);
+                sourceVersion = Arrays.copyOf(sourceVersion, length);
+                destVersion = Arrays.copyOf(destVersion, length);
+                epoch = Arrays.copyOf(epoch, length);
+            }
+        }
+    }
+
+    private CopyPropagator(TACCode code) {
+        this.code = code;
+    }
+
+    /**
+     * 对三地址码做临时变量合并与拷贝传播。
+     *
+     * @param code 要优化的三地址码，在原地修改。
+     * @return 删除的指令条数。
+     */
+    public static int propagate(TACCode code) {
+        CopyPropagator propagator = new CopyPropagator(code);
+        propagator.coalesce();
+        propagator.forward();
+        for (int i = 0; i < code.size(); i++) {
+            if (code.opcode(i) == Opcode.COPY && code.operand(i, 0) == code.operand(i, 1)) {
+                propagator.removed.set(i);
+            }
+        }
+        DeadTemps.mark(code, propagator.removed);
+        return code.remove(propagator.removed);
+    }
+
+    // ---------------------------------------------------------------- 合并
+
+    /**
+     * 把 "_tN = ...; x = _tN" 合并为 "x = ..."。
+     * 条件：_tN 只定义一次、只被这条拷贝读取；两条指令之间没有标签或跳转，也不读写 x。
+     */
+    private void coalesce() {
+        int temps = 0;
+        for (int i = 0; i < code.size(); i++) {
+            for (int slot = 0; slot < 3; slot++) {
+                long operand = code.operand(i, slot);
+                if (TACCode.kind(operand) == OperandKind.TEMP) {
+                    temps = Math.max(temps, TACCode.value(operand) + 1);
+                }
+            }
+        }
+        int[] definitions = new int[temps];
+        int[] definition = new int[temps]; // 临时变量编号 -> 定义它的指令下标
+        int[] uses = new int[temps];
+        for (int i = 0; i < code.size(); i++) {
+            long dest = code.operand(i, 0);
+            if (ConstantFolder.defines(code.opcode(i)) && TACCode.kind(dest) == OperandKind.TEMP) {
+                definitions[TACCode.value(dest)]++;
+                definition[TACCode.value(dest)] = i;
+            }
+            DeadTemps.countReads(code, i, uses, 1);
+        }
+
+        for (int j = 0; j < code.size(); j++) {
+            long source = code.operand(j, 1);
+            if (code.opcode(j) != Opcode.COPY || TACCode.kind(source) != OperandKind.TEMP) {
+                continue;
+            }
+            int t = TACCode.value(source);
+            int i = definition[t];
+            long dest = code.operand(j, 0);
+            Opcode opcode = code.opcode(i);
+            if (definitions[t] != 1 || uses[t] != 1 || i >= j || opcode.isComparison() || dest == source
+                    || !independent(i, j, dest)) {
+                continue;
+            }
+            code.set(i, opcode, dest, code.operand(i, 1), code.operand(i, 2));
+            removed.set(j);
+            if (TACCode.kind(dest) == OperandKind.TEMP) {
+                definition[TACCode.value(dest)] = i; // 拷贝链 "_t2 = _t1; x = _t2" 继续合并到同一条指令
+            }
+        }
+    }
+
+    /**
+     * @return (from, to) 之间的指令是否都不是标签或跳转，并且不读写 operand。
+     */
+    private boolean independent(int from, int to, long operand) {
+        for (int k = from + 1; k < to; k++) {
+            switch (code.opcode(k)) {
+                case LABEL:
+                case GOTO:
+                case IF_FALSE:
+                case RETURN:
+                    return false;
+                default:
+                    break;
+            }
+            for (int slot = 0; slot < 3; slot++) {
+                if (code.operand(k, slot) == operand) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // ---------------------------------------------------------------- 传播
+
+    private void forward() {
+        for (int i = 0; i < code.size(); i++) {
+            if (removed.get(i)) {
+                continue;
+            }
+            Opcode opcode = code.opcode(i);
+            long first = code.operand(i, 0);
+            switch (opcode) {
+                case LABEL:
+                    epoch++;
+                    break;
+                case COPY: {
+                    long source = resolve(code.operand(i, 1));
+                    code.set(i, Opcode.COPY, first, source, TACCode.NONE);
+                    assigned(first);
+                    record(first, source);
+                    break;
+                }
+                case IF_FALSE:
+                    code.set(i, Opcode.IF_FALSE, resolve(first), code.operand(i, 1), TACCode.NONE);
+                    break;
+                case PRINT:
+                case RETURN:
+                    code.set(i, opcode, resolve(first), TACCode.NONE, TACCode.NONE);
+                    break;
+                default:
+                    if (opcode.isBinary()) {
+                        code.set(i, opcode, first, resolve(code.operand(i, 1)), resolve(code.operand(i, 2)));
+                        assigned(first);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private Copies copies(long operand) {
+        switch (TACCode.kind(operand)) {
+            case TEMP:
+                return tempCopies;
+            case VARIABLE:
+                return variableCopies;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return operand 当前等于的变量或立即数；没有有效的拷贝记录时返回 operand 本身。
+     */
+    private long resolve(long operand) {
+        Copies copies = copies(operand);
+        int id = TACCode.value(operand);
+        if (copies == null || id >= copies.source.length || copies.epoch[id] != epoch
+                || copies.destVersion[id] != version(operand)) {
+            return operand;
+        }
+        long source = copies.source[id];
+        return copies.sourceVersion[id] == version(source) ? source : operand;
+    }
+
+    /**
+     * 记录 dest = source；source 已经过 resolve，因此拷贝链总是记录到最初的来源。
+     */
+    private void record(long dest, long source) {
+        OperandKind kind = TACCode.kind(source);
+        if (kind != OperandKind.VARIABLE && kind != OperandKind.IMMEDIATE) {
+            return;
+        }
+        Copies copies = copies(dest);
+        if (copies == null || dest == source) {
+            return;
+        }
+        int id = TACCode.value(dest);
+        copies.ensure(id);
+        copies.source[id] = source;
+        copies.sourceVersion[id] = version(source);
+        copies.destVersion[id] = version(dest);
+        copies.epoch[id] = epoch;
+    }
+
+    private int version(long operand) {
+        int id = TACCode.value(operand);
+        switch (TACCode.kind(operand)) {
+            case TEMP:
+                return id < tempVersions.length ? tempVersions[id] : 0;
+            case VARIABLE:
+                return id < variableVersions.length ? variableVersions[id] : 0;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * dest 被赋值后，以它为目标或来源的拷贝记录全部失效。
+     */
+    private void assigned(long dest) {
+        int id = TACCode.value(dest);
+        switch (TACCode.kind(dest)) {
+            case TEMP:
+                if (id >= tempVersions.length) {
+                    tempVersions = Arrays.copyOf(tempVersions, Math.max(tempVersions.length * 2, id + 1));
+                }
+                tempVersions[id]++;
+                break;
+            case VARIABLE:
+                if (id >= variableVersions.length) {
+                    variableVersions = Arrays.copyOf(variableVersions, Math.max(variableVersions.length * 2, id + 1));
+                }
+                variableVersions[id]++;
+                break;
+            default:
+                break;
+        }
+    }
+}
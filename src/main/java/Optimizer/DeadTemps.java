@@ -0,0 +1,63 @@
+package Optimizer;
+
+import AST.TACCode;
+import AST.TACCode.Opcode;
+import AST.TACCode.OperandKind;
+import java.util.BitSet;
+
+/**
+ * DeadTemps 标记结果不再被使用的临时变量定义。
+ * 二元运算与拷贝没有副作用 (除数为 0 时 IDIV 的异常不视为可观察的行为)，结果没有被读取时可以整条删除；
+ * 删除后它读取的临时变量可能也不再被使用，因此从后向前扫描，一遍即可删除整条无用的计算链。
+ */
+final class DeadTemps {
+
+    private DeadTemps() {
+    }
+
+    /**
+     * @param code    三地址码。
+     * @param removed 已标记删除的指令，新发现的无用定义也标记在这里。
+     */
+    static void mark(TACCode code, BitSet removed) {
+        int temps = 0;
+        for (int i = 0; i < code.size(); i++) {
+            for (int slot = 0; slot < 3; slot++) {
+                long operand = code.operand(i, slot);
+                if (TACCode.kind(operand) == OperandKind.TEMP) {
+                    temps = Math.max(temps, TACCode.value(operand) + 1);
+                }
+            }
+        }
+        int[] uses = new int[temps];
+        for (int i = 0; i < code.size(); i++) {
+            if (!removed.get(i)) {
+                countReads(code, i, uses, 1);
+            }
+        }
+        for (int i = code.size() - 1; i >= 0; i--) {
+            if (removed.get(i) || !ConstantFolder.defines(code.opcode(i))) {
+                continue;
+            }
+            long dest = code.operand(i, 0);
+            if (TACCode.kind(dest) == OperandKind.TEMP && uses[TACCode.value(dest)] == 0) {
+                removed.set(i);
+                countReads(code, i, uses, -1);
+            }
+        }
+    }
+
+    /**
+     * 把第 index 条指令读取的每个临时变量的使用次数加上 delta。
+     */
+    static void countReads(TACCode code, int index, int[] uses, int delta) {
+        Opcode opcode = code.opcode(index);
+        int from = ConstantFolder.defines(opcode) ? 1 : 0;
+        for (int slot = from; slot < 3; slot++) {
+            long operand = code.operand(index, slot);
+            if (TACCode.kind(operand) == OperandKind.TEMP) {
+                uses[TACCode.value(operand)] += delta;
+            }
+        }
+    }
+}
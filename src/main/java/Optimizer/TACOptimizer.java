@@ -0,0 +1,25 @@
+package Optimizer;
+
+import AST.TACCode;
+
+/**
+ * TACOptimizer 按顺序运行三地址码上的各个优化遍：
+ * 常量折叠 ({@link ConstantFolder}) → 拷贝传播与临时变量合并 ({@link CopyPropagator}) → 再做一次常量折叠，
+ * 后者折叠拷贝传播代入的常量 (例如 "x = 5; y = x + 1" 中的 5 + 1)。
+ */
+public final class TACOptimizer {
+
+    private TACOptimizer() {
+    }
+
+    /**
+     * @param code 要优化的三地址码，在原地修改。
+     * @return 删除的指令条数。
+     */
+    public static int optimize(TACCode code) {
+        int removed = ConstantFolder.fold(code);
+        removed += CopyPropagator.propagate(code);
+        removed += ConstantFolder.fold(code);
+        return removed;
+    }
+}
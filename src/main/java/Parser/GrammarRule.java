@@ -1,12 +1,27 @@
 package Parser;
 
+import Lexer.TokenKind;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * GrammarRule 类用于表示语法分析器中的一条产生式规则。
  * 一条产生式规则通常形如 A -> B C D，其中 A 是左部非终结符，B C D 是右部符号序列（可以是终结符或非终结符）。
+ * <p>
+ * 除了符号名称外，每条规则还保存了符号的整数编号：终结符的编号就是 {@link TokenKind#ordinal()}，
+ * 非终结符的编号从 {@link TokenKind#COUNT} 开始依次分配。语法分析器可以直接用整数比较符号。
  */
 public class GrammarRule {
     public String left;
     public String[] right;
+    public final int leftId;     // 左部非终结符的编号
+    public final int[] rightIds; // 右部各符号的编号
+
+    // 非终结符名称 -> 编号，以及编号 -> 名称 (下标为 编号 - TokenKind.COUNT)
+    private static final Map<String, Integer> NONTERMINAL_IDS = new ConcurrentHashMap<>();
+    private static final List<String> NONTERMINAL_NAMES = new ArrayList<>();
 
     /**
      * GrammarRule 的构造函数。
@@ -17,6 +32,56 @@ public class GrammarRule {
     public GrammarRule(String left, String... right) {
         this.left = left;
         this.right = right;
+        this.leftId = symbolId(left);
+        this.rightIds = new int[right.length];
+        for (int i = 0; i < right.length; i++) {
+            rightIds[i] = symbolId(right[i]);
+        }
+    }
+
+    /**
+     * 获取文法符号的编号。名称与某个 TokenKind 相同的符号是终结符，其余为非终结符。
+     *
+     * @param name 符号名称。
+     * @return 符号编号。
+     */
+    public static int symbolId(String name) {
+        for (TokenKind kind : TokenKind.values()) {
+            if (kind.name().equals(name)) {
+                return kind.ordinal();
+            }
+        }
+        return NONTERMINAL_IDS.computeIfAbsent(name, n -> {
+            synchronized (NONTERMINAL_NAMES) {
+                NONTERMINAL_NAMES.add(n);
+                return TokenKind.COUNT + NONTERMINAL_NAMES.size() - 1;
+            }
+        });
+    }
+
+    /**
+     * 根据编号获取文法符号名称。
+     *
+     * @param id 符号编号。
+     * @return 符号名称。
+     */
+    public static String symbolName(int id) {
+        if (isTerminal(id)) {
+            return TokenKind.of(id).name();
+        }
+        synchronized (NONTERMINAL_NAMES) {
+            return NONTERMINAL_NAMES.get(id - TokenKind.COUNT);
+        }
+    }
+
+    /**
+     * 判断一个符号编号是否代表终结符。
+     *
+     * @param id 符号编号。
+     * @return 如果是终结符则返回 true。
+     */
+    public static boolean isTerminal(int id) {
+        return id < TokenKind.COUNT;
     }
 
     /**
@@ -30,4 +95,4 @@ public class GrammarRule {
     public String toString() {
         return left + " -> " + String.join(" ", right);
     }
-}
\ No newline at end of file
+}
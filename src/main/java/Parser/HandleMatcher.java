@@ -0,0 +1,97 @@
+package Parser;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * HandleMatcher 类把一组产生式规则编译为一棵后缀树 (按右部从右向左建立的 trie)，
+ * 用于在分析栈顶查找可以规约的句柄。
+ * <p>
+ * 查找时从栈顶符号开始向栈底方向沿树下行，每一步只需一次数组访问；
+ * 途经的每个结点上记录着右部恰好为该路径的规则，因此一次查找的代价与句柄长度成正比，与文法规模无关。
+ * 多条规则同时匹配时，取构造时给出的规则列表中排在最前面的一条。
+ */
+final class HandleMatcher {
+    private final GrammarRule[] rules;  // 按优先顺序排列的规则
+    private final int symbolCount;      // 树中出现的符号编号上界 (不含)
+    private final int[][] next;         // 结点 -> (符号编号 -> 子结点)，0 表示没有子结点 (根结点为 0)
+    private final int[] accept;         // 结点 -> 右部恰好为该路径的规则中最优先的一条的下标，-1 表示没有
+
+    /**
+     * 编译规则列表。
+     *
+     * @param preferenceOrder 产生式规则，排在前面的规则在多条规则同时匹配时优先。
+     */
+    HandleMatcher(List<GrammarRule> preferenceOrder) {
+        this.rules = preferenceOrder.toArray(new GrammarRule[0]);
+        int maxSymbol = 0;
+        int nodeLimit = 1;
+        for (GrammarRule rule : rules) {
+            nodeLimit += rule.rightIds.length;
+            for (int symbol : rule.rightIds) {
+                maxSymbol = Math.max(maxSymbol, symbol);
+            }
+        }
+        this.symbolCount = maxSymbol + 1;
+        int[][] children = new int[nodeLimit][];
+        int[] accepted = new int[nodeLimit];
+        Arrays.fill(accepted, -1);
+        int nodes = 1;
+        for (int r = 0; r < rules.length; r++) {
+            int[] right = rules[r].rightIds;
+            int node = 0;
+            for (int i = right.length - 1; i >= 0; i--) {
+                if (children[node] == null) {
+                    children[node] = new int[symbolCount];
+                }
+                if (children[node][right[i]] == 0) {
+                    children[node][right[i]] = nodes++;
+                }
+                node = children[node][right[i]];
+            }
+            if (accepted[node] < 0) {
+                accepted[node] = r;
+            }
+        }
+        this.next = Arrays.copyOf(children, nodes);
+        this.accept = Arrays.copyOf(accepted, nodes);
+    }
+
+    /**
+     * 查找与栈顶匹配的规则。
+     *
+     * @param stack  分析栈，栈顶在末尾。
+     * @param bottom 句柄不能包含的栈底部分的长度 (例如栈底的结束符 "$")。
+     * @return 匹配的规则中最优先的一条；没有规则匹配时返回 null。
+     */
+    GrammarRule match(ParseStack stack, int bottom) {
+        return match(stack, bottom, stack.size() - 1);
+    }
+
+    /**
+     * 查找与栈顶匹配、且起始位置落在 [bottom, latestStart] 之间的规则。
+     * 算符优先分析由优先关系确定句柄中的终结符，句柄必须覆盖这些终结符，因此起始位置有上界。
+     *
+     * @param stack       分析栈，栈顶在末尾。
+     * @param bottom      句柄起始位置的下界。
+     * @param latestStart 句柄起始位置的上界。
+     * @return 匹配的规则中最优先的一条；没有规则匹配时返回 null。
+     */
+    GrammarRule match(ParseStack stack, int bottom, int latestStart) {
+        int best = -1;
+        int node = 0;
+        for (int i = stack.size() - 1; i >= bottom; i--) {
+            int[] children = next[node];
+            int symbol = stack.get(i);
+            if (children == null || symbol >= symbolCount || children[symbol] == 0) {
+                break;
+            }
+            node = children[symbol];
+            int rule = accept[node];
+            if (rule >= 0 && i <= latestStart && (best < 0 || rule < best)) {
+                best = rule;
+            }
+        }
+        return best >= 0 ? rules[best] : null;
+    }
+}
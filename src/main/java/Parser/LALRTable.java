@@ -0,0 +1,501 @@
+package Parser;
+
+import Lexer.TokenKind;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LALRTable 类从一组 {@link GrammarRule} 生成 LALR(1) 分析表 (ACTION 表与 GOTO 表)。
+ * <p>
+ * 构造方法是在建立 LR(0) 项目集族的同时传播 LR(1) 向前看符号：
+ * 核心 (kernel 项目) 相同的状态只建立一次，新得到的向前看符号合并进已有状态，
+ * 状态的向前看符号集合发生变化时重新计算它的后继，直到不再变化。结果与合并 LR(1) 同心状态得到的 LALR(1) 表相同。
+ * <p>
+ * 冲突按 yacc 的惯例处理：
+ * <ul>
+ *     <li>移进-规约冲突：如果输入符号与规则 (取右部最后一个运算符) 都有运算符优先级，优先级高者胜出，相同时按左结合规约；
+ *     否则选择移进，并报告冲突；</li>
+ *     <li>规约-规约冲突：选择规则列表中靠前的规则，并报告冲突。</li>
+ * </ul>
+ * 分析表只依赖于文法，生成后不再修改，可以由所有分析器实例共享。
+ */
+public final class LALRTable {
+    /** ACTION 表中表示接受的取值。 */
+    public static final int ACCEPT = Integer.MAX_VALUE;
+    /** ACTION 表中表示语法错误的取值。 */
+    public static final int ERROR = 0;
+
+    private static final int END = TokenKind.EOF.ordinal();
+
+    private final int[] ruleLeft;        // 规则 -> 左部符号编号
+    private final int[] ruleLength;      // 规则 -> 右部长度
+    private final int[][] action;        // 状态 -> 终结符 -> 动作
+    private final int[][] gotoTable;     // 状态 -> 非终结符下标 -> 目标状态，-1 表示没有
+    private final int[] ruleGoto;        // 规则 -> 左部非终结符在 GOTO 表中的下标
+    private final int[] nonterminalIndex; // 符号编号 -> 非终结符下标，终结符为 -1
+    private final List<String> conflicts;
+    private final int resolvedConflicts;
+
+    private LALRTable(int[] ruleLeft, int[] ruleLength, int[][] action, int[][] gotoTable,
+                      Map<Integer, Integer> nonterminalIndex, List<String> conflicts, int resolvedConflicts) {
+        this.ruleLeft = ruleLeft;
+        this.ruleLength = ruleLength;
+        this.action = action;
+        this.gotoTable = gotoTable;
+        int symbols = 0;
+        for (int symbol : nonterminalIndex.keySet()) {
+            symbols = Math.max(symbols, symbol + 1);
+        }
+        this.nonterminalIndex = new int[symbols];
+        Arrays.fill(this.nonterminalIndex, -1);
+        nonterminalIndex.forEach((symbol, index) -> this.nonterminalIndex[symbol] = index);
+        this.ruleGoto = new int[ruleLeft.length];
+        for (int r = 0; r < ruleLeft.length; r++) {
+            ruleGoto[r] = this.nonterminalIndex[ruleLeft[r]];
+        }
+        this.conflicts = conflicts;
+        this.resolvedConflicts = resolvedConflicts;
+    }
+
+    /**
+     * @return 动作是否为移进。
+     */
+    public static boolean isShift(int action) {
+        return action > 0 && action != ACCEPT;
+    }
+
+    /**
+     * @return 移进动作的目标状态。
+     */
+    public static int shiftTarget(int action) {
+        return action - 1;
+    }
+
+    /**
+     * @return 动作是否为规约。
+     */
+    public static boolean isReduce(int action) {
+        return action < 0;
+    }
+
+    /**
+     * @return 规约动作所用规则在生成时给出的规则列表中的下标。
+     */
+    public static int reducedRule(int action) {
+        return -action - 1;
+    }
+
+    /**
+     * 查询 ACTION 表。
+     *
+     * @param state    当前状态。
+     * @param terminal 输入终结符的编号 (TokenKind.ordinal())。
+     * @return 动作：用 {@link #isShift}、{@link #isReduce} 判断种类，或等于 {@link #ACCEPT} / {@link #ERROR}。
+     */
+    public int action(int state, int terminal) {
+        return action[state][terminal];
+    }
+
+    /**
+     * 查询 GOTO 表。
+     *
+     * @param state       规约后露出的栈顶状态。
+     * @param nonterminal 规约得到的非终结符编号。
+     * @return 目标状态。
+     */
+    public int gotoState(int state, int nonterminal) {
+        return gotoTable[state][nonterminalIndex[nonterminal]];
+    }
+
+    /**
+     * 查询按 rule 规约之后的 GOTO 目标。非终结符下标在生成分析表时已按规则算好，
+     * 与 ACTION 表一样只需两次数组访问。
+     *
+     * @param state 规约后露出的栈顶状态。
+     * @param rule  规约所用的规则 ({@link #reducedRule} 的结果)。
+     * @return 目标状态。
+     */
+    public int gotoAfterReduce(int state, int rule) {
+        return gotoTable[state][ruleGoto[rule]];
+    }
+
+    /**
+     * @return 规则的右部长度。
+     */
+    public int ruleLength(int rule) {
+        return ruleLength[rule];
+    }
+
+    /**
+     * @return 规则的左部符号编号。
+     */
+    public int ruleLeft(int rule) {
+        return ruleLeft[rule];
+    }
+
+    /**
+     * @return 状态数量。
+     */
+    public int stateCount() {
+        return action.length;
+    }
+
+    /**
+     * @return 未能按运算符优先级消解的冲突的描述。
+     */
+    public List<String> conflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return 按运算符优先级消解的移进-规约冲突数量。
+     */
+    public int resolvedConflicts() {
+        return resolvedConflicts;
+    }
+
+    /**
+     * 列出在某个状态下不会报错的输入符号，用于错误信息。
+     *
+     * @param state 状态。
+     * @return 终结符列表。
+     */
+    public List<TokenKind> expected(int state) {
+        List<TokenKind> expected = new ArrayList<>();
+        for (int t = 0; t < TokenKind.COUNT; t++) {
+            if (action[state][t] != ERROR) {
+                expected.add(TokenKind.of(t));
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * 为文法生成 LALR(1) 分析表。
+     *
+     * @param rules          文法规则，规约动作用规则在该列表中的下标表示。
+     * @param start          开始符号的编号。
+     * @param operatorLevels 终结符编号 -> 运算符优先级 (数值越大越先结合，均为左结合)，-1 表示不是运算符。
+     * @return 分析表。
+     */
+    public static LALRTable generate(List<GrammarRule> rules, int start, int[] operatorLevels) {
+        return new Builder(rules, start, operatorLevels).build();
+    }
+
+    /**
+     * 生成分析表时使用的中间数据。
+     */
+    private static final class Builder {
+        private final int ruleCount;          // 包括增广规则 S' -> start (下标为 ruleCount - 1)
+        private final int[] left;
+        private final int[][] right;
+        private final int[] itemBase;         // 规则 -> 圆点在开头的项目编号，项目编号 = itemBase[规则] + 圆点位置
+        private final int[] itemRule;
+        private final int[] itemDot;
+        private final Map<Integer, Integer> nonterminalIndex = new HashMap<>();
+        private final List<List<Integer>> rulesOf = new ArrayList<>(); // 非终结符下标 -> 以它为左部的规则
+        private final BitSet[] first;         // 非终结符下标 -> FIRST 集 (终结符)
+        private final boolean[] nullable;     // 非终结符下标 -> 是否可以推导出空串
+        private final int[] operatorLevels;
+
+        // 状态: 核心项目 (有序) 与各核心项目的向前看符号
+        private final List<int[]> kernels = new ArrayList<>();
+        private final List<BitSet[]> lookaheads = new ArrayList<>();
+        private final List<Map<Integer, Integer>> transitions = new ArrayList<>();
+        private final Map<String, Integer> stateByKernel = new HashMap<>();
+
+        Builder(List<GrammarRule> rules, int start, int[] operatorLevels) {
+            this.operatorLevels = operatorLevels;
+            this.ruleCount = rules.size() + 1;
+            this.left = new int[ruleCount];
+            this.right = new int[ruleCount][];
+            for (int r = 0; r < rules.size(); r++) {
+                left[r] = rules.get(r).leftId;
+                right[r] = rules.get(r).rightIds;
+            }
+            left[ruleCount - 1] = -1;
+            right[ruleCount - 1] = new int[]{start};
+
+            for (int r = 0; r < ruleCount; r++) {
+                if (r < ruleCount - 1) {
+                    nonterminal(left[r]);
+                }
+                for (int symbol : right[r]) {
+                    if (!GrammarRule.isTerminal(symbol)) {
+                        nonterminal(symbol);
+                    }
+                }
+            }
+            for (int r = 0; r < ruleCount - 1; r++) {
+                rulesOf.get(nonterminalIndex.get(left[r])).add(r);
+            }
+
+            this.itemBase = new int[ruleCount];
+            int items = 0;
+            for (int r = 0; r < ruleCount; r++) {
+                itemBase[r] = items;
+                items += right[r].length + 1;
+            }
+            this.itemRule = new int[items];
+            this.itemDot = new int[items];
+            for (int r = 0; r < ruleCount; r++) {
+                for (int dot = 0; dot <= right[r].length; dot++) {
+                    itemRule[itemBase[r] + dot] = r;
+                    itemDot[itemBase[r] + dot] = dot;
+                }
+            }
+
+            int n = nonterminalIndex.size();
+            this.first = new BitSet[n];
+            this.nullable = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                first[i] = new BitSet(TokenKind.COUNT);
+            }
+            computeFirstSets();
+        }
+
+        private void nonterminal(int symbol) {
+            if (!nonterminalIndex.containsKey(symbol)) {
+                nonterminalIndex.put(symbol, nonterminalIndex.size());
+                rulesOf.add(new ArrayList<>());
+            }
+        }
+
+        private void computeFirstSets() {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int r = 0; r < ruleCount - 1; r++) {
+                    int a = nonterminalIndex.get(left[r]);
+                    int before = first[a].cardinality();
+                    boolean allNullable = firstOfSequence(right[r], 0, first[a]);
+                    if (allNullable && !nullable[a]) {
+                        nullable[a] = true;
+                        changed = true;
+                    }
+                    changed |= first[a].cardinality() != before;
+                }
+            }
+        }
+
+        /**
+         * 把符号串 symbols[from..] 的 FIRST 集并入 into。
+         *
+         * @return 符号串是否可以推导出空串。
+         */
+        private boolean firstOfSequence(int[] symbols, int from, BitSet into) {
+            for (int i = from; i < symbols.length; i++) {
+                int symbol = symbols[i];
+                if (GrammarRule.isTerminal(symbol)) {
+                    into.set(symbol);
+                    return false;
+                }
+                int a = nonterminalIndex.get(symbol);
+                into.or(first[a]);
+                if (!nullable[a]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        LALRTable build() {
+            BitSet endOnly = new BitSet(TokenKind.COUNT);
+            endOnly.set(END);
+            addState(new int[]{itemBase[ruleCount - 1]}, new BitSet[]{endOnly});
+
+            ArrayDeque<Integer> pending = new ArrayDeque<>();
+            boolean[] queued = new boolean[1];
+            pending.add(0);
+            queued[0] = true;
+            while (!pending.isEmpty()) {
+                int state = pending.poll();
+                queued[state] = false;
+                Map<Integer, BitSet> closure = closure(state);
+
+                // 按圆点后的符号分组，得到各后继状态的核心项目
+                Map<Integer, List<Integer>> advanced = new HashMap<>();
+                for (int item : closure.keySet()) {
+                    int r = itemRule[item];
+                    if (itemDot[item] < right[r].length) {
+                        advanced.computeIfAbsent(right[r][itemDot[item]], k -> new ArrayList<>()).add(item + 1);
+                    }
+                }
+                for (Map.Entry<Integer, List<Integer>> entry : advanced.entrySet()) {
+                    int[] kernel = entry.getValue().stream().mapToInt(Integer::intValue).sorted().toArray();
+                    BitSet[] la = new BitSet[kernel.length];
+                    for (int i = 0; i < kernel.length; i++) {
+                        la[i] = (BitSet) closure.get(kernel[i] - 1).clone();
+                    }
+                    String key = Arrays.toString(kernel);
+                    Integer target = stateByKernel.get(key);
+                    boolean changed;
+                    if (target == null) {
+                        target = addState(kernel, la);
+                        changed = true;
+                    } else {
+                        changed = false;
+                        BitSet[] existing = lookaheads.get(target);
+                        for (int i = 0; i < kernel.length; i++) {
+                            int before = existing[i].cardinality();
+                            existing[i].or(la[i]);
+                            changed |= existing[i].cardinality() != before;
+                        }
+                    }
+                    transitions.get(state).put(entry.getKey(), target);
+                    if (queued.length < kernels.size()) {
+                        queued = Arrays.copyOf(queued, kernels.size() * 2);
+                    }
+                    if (changed && !queued[target]) {
+                        pending.add(target);
+                        queued[target] = true;
+                    }
+                }
+            }
+            return fillTables();
+        }
+
+        private int addState(int[] kernel, BitSet[] la) {
+            int state = kernels.size();
+            kernels.add(kernel);
+            lookaheads.add(la);
+            transitions.add(new HashMap<>());
+            stateByKernel.put(Arrays.toString(kernel), state);
+            return state;
+        }
+
+        /**
+         * 计算状态的 LR(1) 闭包。
+         *
+         * @return 项目 -> 向前看符号集合。
+         */
+        private Map<Integer, BitSet> closure(int state) {
+            Map<Integer, BitSet> items = new HashMap<>();
+            ArrayDeque<Integer> pending = new ArrayDeque<>();
+            int[] kernel = kernels.get(state);
+            BitSet[] la = lookaheads.get(state);
+            for (int i = 0; i < kernel.length; i++) {
+                items.put(kernel[i], (BitSet) la[i].clone());
+                pending.add(kernel[i]);
+            }
+            while (!pending.isEmpty()) {
+                int item = pending.poll();
+                int r = itemRule[item];
+                int dot = itemDot[item];
+                if (dot == right[r].length || GrammarRule.isTerminal(right[r][dot])) {
+                    continue;
+                }
+                BitSet follow = new BitSet(TokenKind.COUNT);
+                if (firstOfSequence(right[r], dot + 1, follow)) {
+                    follow.or(items.get(item));
+                }
+                for (int rule : rulesOf.get(nonterminalIndex.get(right[r][dot]))) {
+                    int start = itemBase[rule];
+                    BitSet existing = items.get(start);
+                    if (existing == null) {
+                        items.put(start, (BitSet) follow.clone());
+                        pending.add(start);
+                    } else {
+                        int before = existing.cardinality();
+                        existing.or(follow);
+                        if (existing.cardinality() != before) {
+                            pending.add(start);
+                        }
+                    }
+                }
+            }
+            return items;
+        }
+
+        private LALRTable fillTables() {
+            int states = kernels.size();
+            int[][] action = new int[states][TokenKind.COUNT];
+            int[][] gotoTable = new int[states][nonterminalIndex.size()];
+            int[][] reduceBy = new int[states][TokenKind.COUNT]; // 填入规约动作的规则，用于冲突报告
+            List<String> conflicts = new ArrayList<>();
+            int resolved = 0;
+
+            for (int state = 0; state < states; state++) {
+                Arrays.fill(gotoTable[state], -1);
+                for (Map.Entry<Integer, Integer> entry : transitions.get(state).entrySet()) {
+                    int symbol = entry.getKey();
+                    if (GrammarRule.isTerminal(symbol)) {
+                        action[state][symbol] = entry.getValue() + 1;
+                    } else {
+                        gotoTable[state][nonterminalIndex.get(symbol)] = entry.getValue();
+                    }
+                }
+                for (Map.Entry<Integer, BitSet> entry : closure(state).entrySet()) {
+                    int item = entry.getKey();
+                    int r = itemRule[item];
+                    if (itemDot[item] != right[r].length) {
+                        continue;
+                    }
+                    BitSet la = entry.getValue();
+                    for (int t = la.nextSetBit(0); t >= 0; t = la.nextSetBit(t + 1)) {
+                        if (r == ruleCount - 1) {
+                            action[state][t] = ACCEPT;
+                            continue;
+                        }
+                        int existing = action[state][t];
+                        if (existing == ERROR) {
+                            action[state][t] = -(r + 1);
+                            reduceBy[state][t] = r;
+                        } else if (isShift(existing)) {
+                            int ruleLevel = ruleLevel(r);
+                            if (ruleLevel >= 0 && operatorLevels[t] >= 0) {
+                                if (ruleLevel >= operatorLevels[t]) {
+                                    action[state][t] = -(r + 1);
+                                    reduceBy[state][t] = r;
+                                }
+                                resolved++;
+                            } else {
+                                conflicts.add(String.format("状态 %d, 输入 %s: 移进-规约冲突 (规则 %s)，选择移进",
+                                        state, TokenKind.of(t), ruleString(r)));
+                            }
+                        } else if (isReduce(existing)) {
+                            int other = reduceBy[state][t];
+                            conflicts.add(String.format("状态 %d, 输入 %s: 规约-规约冲突 (%s / %s)，选择前者",
+                                    state, TokenKind.of(t), ruleString(Math.min(r, other)), ruleString(Math.max(r, other))));
+                            action[state][t] = -(Math.min(r, other) + 1);
+                            reduceBy[state][t] = Math.min(r, other);
+                        }
+                    }
+                }
+            }
+
+            int[] ruleLength = new int[ruleCount - 1];
+            for (int r = 0; r < ruleCount - 1; r++) {
+                ruleLength[r] = right[r].length;
+            }
+            return new LALRTable(Arrays.copyOf(left, ruleCount - 1), ruleLength, action, gotoTable,
+                    nonterminalIndex, conflicts, resolved);
+        }
+
+        /**
+         * @return 规则的优先级：右部最后一个带有运算符优先级的终结符的优先级，没有时为 -1。
+         */
+        private int ruleLevel(int r) {
+            for (int i = right[r].length - 1; i >= 0; i--) {
+                int symbol = right[r][i];
+                if (GrammarRule.isTerminal(symbol) && operatorLevels[symbol] >= 0) {
+                    return operatorLevels[symbol];
+                }
+            }
+            return -1;
+        }
+
+        private String ruleString(int r) {
+            StringBuilder sb = new StringBuilder(GrammarRule.symbolName(left[r])).append(" ->");
+            for (int symbol : right[r]) {
+                sb.append(' ').append(GrammarRule.symbolName(symbol));
+            }
+            return sb.toString();
+        }
+    }
+}
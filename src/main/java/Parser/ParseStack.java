@@ -0,0 +1,75 @@
+package Parser;
+
+import java.util.Arrays;
+
+/**
+ * ParseStack 类是语法分析使用的符号栈，元素为文法符号编号 (见 {@link GrammarRule#symbolId})。
+ * <p>
+ * 与 java.util.Stack 不同，它直接使用 int 数组保存符号，入栈和出栈都不分配对象、不加锁。
+ * 栈同时记录每个位置以下 (含) 最靠近栈顶的终结符的位置，使分析器查找栈顶终结符和句柄中的终结符都是 O(1) 的。
+ */
+final class ParseStack {
+    private int[] symbols = new int[64];
+    private int[] terminalBelow = new int[64]; // terminalBelow[i]: 位置 [0, i] 中最靠上的终结符的位置，-1 表示没有
+    private int size;
+
+    /**
+     * 将符号压入栈顶。
+     *
+     * @param symbol 符号编号。
+     */
+    void push(int symbol) {
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+            terminalBelow = Arrays.copyOf(terminalBelow, size * 2);
+        }
+        symbols[size] = symbol;
+        terminalBelow[size] = GrammarRule.isTerminal(symbol) ? size : (size > 0 ? terminalBelow[size - 1] : -1);
+        size++;
+    }
+
+    /**
+     * 弹出栈顶的 n 个符号。
+     *
+     * @param n 弹出的数量。
+     */
+    void pop(int n) {
+        size -= n;
+    }
+
+    /**
+     * 清空栈。
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return 栈中的符号数量。
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return 从栈底数起第 i 个符号 (0 为栈底)。
+     */
+    int get(int i) {
+        return symbols[i];
+    }
+
+    /**
+     * @return 栈中最靠近栈顶的终结符；栈中没有终结符时返回 fallback。
+     */
+    int topmostTerminal(int fallback) {
+        int index = size > 0 ? terminalBelow[size - 1] : -1;
+        return index >= 0 ? symbols[index] : fallback;
+    }
+
+    /**
+     * @return 位置 [0, index] 中最靠近栈顶的终结符的位置；没有终结符时返回 -1。
+     */
+    int terminalAtOrBelow(int index) {
+        return index >= 0 ? terminalBelow[index] : -1;
+    }
+}
@@ -0,0 +1,157 @@
+package Parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * ParseTrace 类记录语法分析过程中的步骤，供调试和 GUI 展示使用。
+ * <p>
+ * 记录是可选的，按级别控制：{@link Level#OFF} 完全不记录，{@link Level#SUMMARY} 只记录开始、结果与错误，
+ * {@link Level#FULL} 记录每一次决策、移进与规约。消息以 {@link Supplier} 的形式保存，
+ * 只有在读取步骤时才格式化为字符串；分析器在记录前先检查级别，关闭时不会构造任何消息。
+ * <p>
+ * 步骤保存在一个固定容量的环形缓冲区中，超出容量时丢弃最早的步骤，因此分析很大的输入时内存占用也是有界的。
+ */
+public final class ParseTrace {
+
+    /**
+     * 记录级别。
+     */
+    public enum Level {
+        /** 不记录任何步骤。 */
+        OFF,
+        /** 只记录分析的开始、结果与错误信息。 */
+        SUMMARY,
+        /** 记录全部步骤：决策点、移进、规约与调试信息。 */
+        FULL
+    }
+
+    /** 默认的环形缓冲区容量 (步骤数)。 */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final Level level;
+    private final Object[] entries; // 环形缓冲区，元素为 String 或尚未格式化的 Supplier<String>
+    private int head;               // 最早的步骤在缓冲区中的位置
+    private int count;              // 缓冲区中的步骤数量
+    private long dropped;           // 因超出容量而丢弃的步骤数量
+
+    /**
+     * 创建使用默认容量的记录器。
+     *
+     * @param level 记录级别。
+     */
+    public ParseTrace(Level level) {
+        this(level, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 创建记录器。
+     *
+     * @param level    记录级别。
+     * @param capacity 最多保留的步骤数。
+     * @throws IllegalArgumentException 如果 capacity 小于 1。
+     */
+    public ParseTrace(Level level, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Trace capacity must be at least 1, got " + capacity);
+        }
+        this.level = level;
+        this.entries = new Object[level == Level.OFF ? 0 : capacity];
+    }
+
+    /**
+     * @return 记录级别。
+     */
+    public Level level() {
+        return level;
+    }
+
+    /**
+     * 判断某个级别的步骤是否会被记录。调用者应在构造消息所需的数据之前先检查。
+     *
+     * @param stepLevel 步骤的级别 (SUMMARY 或 FULL)。
+     * @return 如果会被记录则返回 true。
+     */
+    public boolean isEnabled(Level stepLevel) {
+        return level != Level.OFF && stepLevel.compareTo(level) <= 0;
+    }
+
+    /**
+     * 记录一条固定文本的步骤。
+     *
+     * @param stepLevel 步骤的级别。
+     * @param message   步骤描述。
+     */
+    public void add(Level stepLevel, String message) {
+        if (isEnabled(stepLevel)) {
+            append(message);
+        }
+    }
+
+    /**
+     * 记录一条延迟格式化的步骤，message 只会在读取步骤时调用。
+     * message 捕获的数据必须是记录时的快照，不能引用之后还会变化的状态。
+     *
+     * @param stepLevel 步骤的级别。
+     * @param message   生成步骤描述的函数。
+     */
+    public void add(Level stepLevel, Supplier<String> message) {
+        if (isEnabled(stepLevel)) {
+            append(message);
+        }
+    }
+
+    private void append(Object entry) {
+        if (count == entries.length) {
+            entries[head] = entry;
+            head = (head + 1) % entries.length;
+            dropped++;
+        } else {
+            entries[(head + count) % entries.length] = entry;
+            count++;
+        }
+    }
+
+    /**
+     * 清空已记录的步骤。
+     */
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            entries[(head + i) % entries.length] = null;
+        }
+        head = 0;
+        count = 0;
+        dropped = 0;
+    }
+
+    /**
+     * @return 因超出容量而丢弃的最早步骤的数量。
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * 获取缓冲区中保留的步骤 (从早到晚)，此时才格式化各条消息。
+     * 如果有步骤因超出容量被丢弃，第一项是说明丢弃数量的提示。
+     *
+     * @return 步骤描述列表。
+     */
+    public List<String> steps() {
+        List<String> steps = new ArrayList<>(count + 1);
+        if (dropped > 0) {
+            steps.add("(只保留了最近的 " + count + " 步，之前的 " + dropped + " 步已丢弃)");
+        }
+        for (int i = 0; i < count; i++) {
+            int slot = (head + i) % entries.length;
+            Object entry = entries[slot];
+            if (entry instanceof Supplier<?> supplier) {
+                entry = String.valueOf(supplier.get());
+                entries[slot] = entry; // 缓存格式化结果，再次读取时不必重新格式化
+            }
+            steps.add((String) entry);
+        }
+        return steps;
+    }
+}
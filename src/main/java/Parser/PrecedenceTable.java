@@ -0,0 +1,316 @@
+package Parser;
+
+import Lexer.TokenKind;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * PrecedenceTable 类根据文法规则自动计算终结符之间的算符优先关系。
+ * <p>
+ * 计算过程是经典的 FIRSTVT / LASTVT 构造：
+ * <ul>
+ *     <li>FIRSTVT(A): A 推导出的句型中可能出现的第一个终结符；</li>
+ *     <li>LASTVT(A): A 推导出的句型中可能出现的最后一个终结符；</li>
+ *     <li>右部中只隔着非终结符相邻的终结符 a、b 满足 a = b；</li>
+ *     <li>终结符 a 后面的非终结符 B 满足 a &lt; FIRSTVT(B)，非终结符 B 后面的终结符 b 满足 LASTVT(B) &gt; b。</li>
+ * </ul>
+ * 本项目的文法并不是严格的算符文法 (例如 StmtList -&gt; StmtList Stmt 中两个非终结符直接相邻)，
+ * 对于相邻的非终结符 B C，认为它们之间隔着一个看不见的分隔符：LASTVT(B) &gt; FIRSTVT(C)，
+ * 且前面的终结符与这一串非终结符中的每一个都满足 &lt; 关系，后面的终结符则只与最后一个相关。
+ * <p>
+ * 同一对终结符得到多个关系时即为冲突。两个运算符之间的冲突 (来自 Expr -&gt; Expr op Expr 这类有歧义的规则)
+ * 按给定的运算符优先级和左结合消解；其余冲突保留在表中 (同时记录多个关系) 并在 {@link #conflicts} 中报告，
+ * 由分析器在运行时处理。最后尝试把没有冲突的关系压缩为优先函数 f / g。
+ */
+final class PrecedenceTable {
+    // 优先关系的编码，按位组合：一个单元格中同时出现多个位表示冲突
+    static final byte NONE = 0;      // 两个终结符之间没有关系，即语法错误
+    static final byte LESS = 1;      // '<' 移进
+    static final byte EQUAL = 2;     // '=' 同属一个句柄
+    static final byte GREATER = 4;   // '>' 规约
+
+    /** 关系矩阵，第一维为栈顶终结符，第二维为输入终结符 (均为 TokenKind.ordinal())。 */
+    final byte[][] relations;
+    /** 未能消解的冲突的描述。 */
+    final List<String> conflicts;
+    /** 按运算符优先级消解的冲突数量。 */
+    final int resolvedConflicts;
+    /** 优先函数 f (栈顶) 与 g (输入)，下标为终结符编号；关系无法压缩为函数时为 null。 */
+    final int[] f;
+    final int[] g;
+    /** 无法构造优先函数时的原因。 */
+    final String functionFailure;
+
+    private PrecedenceTable(byte[][] relations, List<String> conflicts, int resolvedConflicts,
+                            int[][] functions, String functionFailure) {
+        this.relations = relations;
+        this.conflicts = conflicts;
+        this.resolvedConflicts = resolvedConflicts;
+        this.f = functions != null ? functions[0] : null;
+        this.g = functions != null ? functions[1] : null;
+        this.functionFailure = functionFailure;
+    }
+
+    /**
+     * 为文法生成优先关系表。
+     *
+     * @param rules          文法规则。
+     * @param start          开始符号的编号，输入两端的结束符 "$" 视为包围着它。
+     * @param end            结束符 "$" 的编号。
+     * @param operatorLevels 终结符编号 -> 运算符优先级 (数值越大越先结合，均为左结合)，-1 表示不是运算符。
+     * @return 优先关系表。
+     */
+    static PrecedenceTable generate(List<GrammarRule> rules, int start, int end, int[] operatorLevels) {
+        int symbolCount = start + 1;
+        for (GrammarRule rule : rules) {
+            symbolCount = Math.max(symbolCount, rule.leftId + 1);
+            for (int symbol : rule.rightIds) {
+                symbolCount = Math.max(symbolCount, symbol + 1);
+            }
+        }
+        BitSet[] firstVT = new BitSet[symbolCount];
+        BitSet[] lastVT = new BitSet[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            firstVT[i] = new BitSet(TokenKind.COUNT);
+            lastVT[i] = new BitSet(TokenKind.COUNT);
+        }
+        computeTerminalSets(rules, firstVT, lastVT);
+
+        byte[][] relations = new byte[TokenKind.COUNT][TokenKind.COUNT];
+        for (GrammarRule rule : rules) {
+            addRelations(rule.rightIds, firstVT, lastVT, relations);
+        }
+        addRelations(new int[]{end, start, end}, firstVT, lastVT, relations);
+
+        List<String> conflicts = new ArrayList<>();
+        int resolved = 0;
+        for (int a = 0; a < TokenKind.COUNT; a++) {
+            for (int b = 0; b < TokenKind.COUNT; b++) {
+                byte relation = relations[a][b];
+                if (Integer.bitCount(relation) < 2) {
+                    continue;
+                }
+                if ((relation & EQUAL) == 0 && operatorLevels[a] >= 0 && operatorLevels[b] >= 0) {
+                    relations[a][b] = operatorLevels[a] < operatorLevels[b] ? LESS : GREATER;
+                    resolved++;
+                } else {
+                    conflicts.add(String.format("%s, %s: %s%s", TokenKind.of(a), TokenKind.of(b),
+                            relationString(relation), (relation & GREATER) != 0 ? " (移进-规约冲突)" : " (句柄边界冲突)"));
+                }
+            }
+        }
+
+        int[][] functions = null;
+        String failure = null;
+        try {
+            functions = buildFunctions(relations);
+        } catch (IllegalStateException e) {
+            failure = e.getMessage();
+        }
+        return new PrecedenceTable(relations, conflicts, resolved, functions, failure);
+    }
+
+    /**
+     * 迭代求 FIRSTVT 与 LASTVT 的不动点。
+     */
+    private static void computeTerminalSets(List<GrammarRule> rules, BitSet[] firstVT, BitSet[] lastVT) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (GrammarRule rule : rules) {
+                int[] right = rule.rightIds;
+                BitSet first = firstVT[rule.leftId];
+                int before = first.cardinality();
+                if (!GrammarRule.isTerminal(right[0])) {
+                    first.or(firstVT[right[0]]);
+                }
+                for (int symbol : right) {
+                    if (GrammarRule.isTerminal(symbol)) {
+                        first.set(symbol);
+                        break;
+                    }
+                }
+                BitSet last = lastVT[rule.leftId];
+                int beforeLast = last.cardinality();
+                if (!GrammarRule.isTerminal(right[right.length - 1])) {
+                    last.or(lastVT[right[right.length - 1]]);
+                }
+                for (int i = right.length - 1; i >= 0; i--) {
+                    if (GrammarRule.isTerminal(right[i])) {
+                        last.set(right[i]);
+                        break;
+                    }
+                }
+                changed |= first.cardinality() != before || last.cardinality() != beforeLast;
+            }
+        }
+    }
+
+    /**
+     * 从一条规则的右部推导优先关系。
+     */
+    private static void addRelations(int[] right, BitSet[] firstVT, BitSet[] lastVT, byte[][] relations) {
+        int previous = -1; // 最近的终结符
+        for (int i = 0; i < right.length; i++) {
+            int symbol = right[i];
+            // 紧挨在前面的非终结符 B: LASTVT(B) > 当前符号 (终结符本身，或非终结符的 FIRSTVT)
+            BitSet before = i > 0 && !GrammarRule.isTerminal(right[i - 1]) ? lastVT[right[i - 1]] : null;
+            if (GrammarRule.isTerminal(symbol)) {
+                if (previous >= 0) {
+                    relations[previous][symbol] |= EQUAL;
+                }
+                if (before != null) {
+                    for (int a = before.nextSetBit(0); a >= 0; a = before.nextSetBit(a + 1)) {
+                        relations[a][symbol] |= GREATER;
+                    }
+                }
+                previous = symbol;
+            } else {
+                BitSet first = firstVT[symbol];
+                for (int b = first.nextSetBit(0); b >= 0; b = first.nextSetBit(b + 1)) {
+                    if (previous >= 0) {
+                        relations[previous][b] |= LESS;
+                    }
+                    if (before != null) {
+                        for (int a = before.nextSetBit(0); a >= 0; a = before.nextSetBit(a + 1)) {
+                            relations[a][b] |= GREATER;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 把单一的优先关系压缩为优先函数：a = b 时 f(a) = g(b)，a &lt; b 时 f(a) &lt; g(b)，a &gt; b 时 f(a) &gt; g(b)。
+     * 做法是把 f_a、g_b 作为图的结点，合并 '=' 关系的结点，按 '&lt;'、'&gt;' 连出有向边，
+     * 函数值取从结点出发的最长路径长度。冲突的单元格与没有关系的单元格不参与压缩 (仍需查表)。
+     *
+     * @return {f, g}。
+     * @throws IllegalStateException 如果图中存在环 (关系无法用函数表示)。
+     */
+    private static int[][] buildFunctions(byte[][] relations) {
+        int n = TokenKind.COUNT;
+        int[] group = new int[2 * n]; // 结点 0..n-1 为 f_a，n..2n-1 为 g_b
+        for (int i = 0; i < group.length; i++) {
+            group[i] = i;
+        }
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                if (relations[a][b] == EQUAL) {
+                    group[find(group, a)] = find(group, n + b);
+                }
+            }
+        }
+        List<List<Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < group.length; i++) {
+            edges.add(new ArrayList<>());
+        }
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                if (relations[a][b] == GREATER) {
+                    edges.get(find(group, a)).add(find(group, n + b));
+                } else if (relations[a][b] == LESS) {
+                    edges.get(find(group, n + b)).add(find(group, a));
+                }
+            }
+        }
+        int[] longest = new int[group.length];
+        Arrays.fill(longest, -1);
+        byte[] state = new byte[group.length]; // 0 未访问，1 正在访问，2 已完成
+        List<Integer> path = new ArrayList<>();
+        for (int node = 0; node < group.length; node++) {
+            longestPath(find(group, node), edges, longest, state, path);
+        }
+        int[] f = new int[n];
+        int[] g = new int[n];
+        for (int a = 0; a < n; a++) {
+            f[a] = longest[find(group, a)];
+            g[a] = longest[find(group, n + a)];
+        }
+        return new int[][]{f, g};
+    }
+
+    private static int longestPath(int node, List<List<Integer>> edges, int[] longest, byte[] state, List<Integer> path) {
+        if (state[node] == 2) {
+            return longest[node];
+        }
+        if (state[node] == 1) {
+            StringJoiner cycle = new StringJoiner(" > ");
+            for (int i = path.indexOf(node); i < path.size(); i++) {
+                cycle.add(nodeName(path.get(i)));
+            }
+            cycle.add(nodeName(node));
+            throw new IllegalStateException("优先关系图中存在环，无法构造优先函数: " + cycle);
+        }
+        state[node] = 1;
+        path.add(node);
+        int length = 0;
+        for (int target : edges.get(node)) {
+            length = Math.max(length, longestPath(target, edges, longest, state, path) + 1);
+        }
+        path.remove(path.size() - 1);
+        state[node] = 2;
+        longest[node] = length;
+        return length;
+    }
+
+    private static String nodeName(int node) {
+        return node < TokenKind.COUNT ? "f(" + TokenKind.of(node) + ")" : "g(" + TokenKind.of(node - TokenKind.COUNT) + ")";
+    }
+
+    private static int find(int[] group, int node) {
+        while (group[node] != node) {
+            group[node] = group[group[node]];
+            node = group[node];
+        }
+        return node;
+    }
+
+    /**
+     * @return 关系在显示中使用的符号，冲突的多个关系以 '/' 分隔，例如 "=/>"。
+     */
+    static String relationString(byte relation) {
+        StringBuilder sb = new StringBuilder();
+        if ((relation & LESS) != 0) {
+            sb.append('<');
+        }
+        if ((relation & EQUAL) != 0) {
+            sb.append(sb.isEmpty() ? "" : "/").append('=');
+        }
+        if ((relation & GREATER) != 0) {
+            sb.append(sb.isEmpty() ? "" : "/").append('>');
+        }
+        return sb.isEmpty() ? " " : sb.toString();
+    }
+
+    /**
+     * @return 关系表的文字报告：冲突列表与优先函数。
+     */
+    String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("按运算符优先级消解的冲突: ").append(resolvedConflicts).append('\n');
+        sb.append("未消解的冲突: ").append(conflicts.size()).append('\n');
+        for (String conflict : conflicts) {
+            sb.append("  ").append(conflict).append('\n');
+        }
+        if (f == null) {
+            sb.append("优先函数: ").append(functionFailure).append('\n');
+        } else {
+            sb.append("优先函数 (冲突单元格仍需查表):\n");
+            for (int a = 0; a < f.length; a++) {
+                boolean used = false;
+                for (int b = 0; b < f.length && !used; b++) {
+                    used = relations[a][b] != NONE || relations[b][a] != NONE;
+                }
+                if (used) {
+                    sb.append(String.format("  %-12s f=%-3d g=%d%n", TokenKind.of(a), f[a], g[a]));
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
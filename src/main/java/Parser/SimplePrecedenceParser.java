@@ -1,11 +1,15 @@
 package Parser;
 
 import Lexer.Token;
+import Lexer.TokenKind;
+import Lexer.TokenStream;
 import java.util.*;
 
 /**
  * SimplePrecedenceParser 类实现了一个简单的算符优先分析器。
  * 该分析器尝试根据定义的语法规则和优先关系表来解析输入的 Token 序列。
+ * 优先关系表由 {@link PrecedenceTable} 从文法规则中用 FIRSTVT / LASTVT 自动生成，
+ * 分析过程每个输入符号只移进一次，每次规约至少弹出一个符号，因此分析时间与输入长度成线性关系。
  * 注意：这是一个简化的实现，可能无法处理所有复杂的语法结构或歧义。
  */
 public class SimplePrecedenceParser {
@@ -69,395 +73,406 @@ public class SimplePrecedenceParser {
             new GrammarRule("Expr", "STR")                       // 字符串
     );
 
-    /**
-     * 简单优先关系表 (Operator Precedence Table)
-     * 用于存储任意两个终结符之间的优先关系（<, =, >）。
-     * Key: 第一个终结符 (栈顶终结符)
-     * Value: Map<String, String> (Key: 第二个终结符 (当前输入符号), Value: 优先关系)
-     */
-    private static final Map<String, Map<String, String>> precedenceTable = new HashMap<>();
+    // 结束符 "$" 在分析中用 TokenKind.EOF 表示
+    private static final int END = TokenKind.EOF.ordinal();
 
-    // 一个包含所有非终结符的集合，用于快速判断一个符号是否为非终结符。
-    private static final Set<String> nonTerminals = new HashSet<>();
+    // 分析过程中需要特殊对待的非终结符编号
+    private static final int PROGRAM = GrammarRule.symbolId("Program");
+    private static final int PRINT_STMT = GrammarRule.symbolId("PrintStmt");
+    private static final int ELSE_IF_STMT = GrammarRule.symbolId("ElseIfStmt");
 
-    static {
-        // 静态初始化块，用于填充非终结符集合
-        for (GrammarRule rule : grammarRules) {
-            nonTerminals.add(rule.left);
-        }
-    }
+    // 在 reduce 中优先尝试的规则左部 (语句与表达式相关的非终结符)
+    private static final Set<Integer> PRIORITY_LEFTS = Set.of(
+            GrammarRule.symbolId("Expr"), GrammarRule.symbolId("Stmt"),
+            GrammarRule.symbolId("DeclStmt"), GrammarRule.symbolId("AssignStmt"),
+            GrammarRule.symbolId("ReturnStmt"), GrammarRule.symbolId("WhileStmt"),
+            GrammarRule.symbolId("IfStmt"), GrammarRule.symbolId("StmtList"));
+
+    // 由文法规则编译出的句柄匹配器，所有分析器实例共享
+    private static final HandleMatcher HANDLES = new HandleMatcher(reductionOrder());
 
-    private List<Token> tokens;             // 输入的 Token 序列
-    private int currentIndex;               // 当前处理到的 Token 索引
-    private final Stack<String> parseStack; // 分析栈，存储终结符和非终结符的名称(类型)
-    private final List<String> parseSteps;  // 记录分析过程中的每一步，用于调试或展示
+    /**
+     * 算符优先关系表，由文法规则自动生成。
+     * 关系表只依赖于文法，在类加载时构建一次，之后不再修改，由所有分析器实例共享，
+     * 因此创建分析器不需要任何初始化工作，多个线程同时创建和使用分析器也是安全的。
+     */
+    private static final PrecedenceTable PRECEDENCE =
+            PrecedenceTable.generate(grammarRules, PROGRAM, END, operatorLevels());
+
+    private TokenStream tokens;              // 输入的 Token 序列 (末尾隐含结束符 "$")
+    private int currentIndex;                // 当前处理到的 Token 索引
+    private final ParseStack parseStack;     // 分析栈，存储终结符和非终结符的编号 (见 GrammarRule.symbolId)
+    private final ParseTrace trace;          // 记录分析过程中的步骤，用于调试或展示
+    private int shiftCount;                  // 本次分析的移进次数
+    private int reduceCount;                 // 本次分析的规约次数
 
 
     /**
-     * 获取语法分析的详细步骤。
+     * 获取语法分析的步骤 (只包含环形缓冲区中保留的最近的步骤)。
      *
-     * @return 分析步骤列表的副本。
+     * @return 分析步骤列表；未开启记录时为空列表。
      */
     public List<String> getParseSteps() {
-        return new ArrayList<>(this.parseSteps);
+        return trace.steps();
     }
 
     /**
      * SimplePrecedenceParser 的构造函数。
-     * 初始化优先关系表、分析栈和分析步骤列表。
+     * 不记录分析步骤，分析过程中不进行任何字符串格式化 (优先关系表是共享的，无需构建)。
      */
     public SimplePrecedenceParser() {
-        initPrecedenceTable();
-        parseStack = new Stack<>();
-        parseSteps = new ArrayList<>();
+        this(ParseTrace.Level.OFF);
     }
 
     /**
-     * 初始化优先关系表。
-     * 这里定义了一组简化的优先关系，实际的算符优先表会更复杂和完整。
-     * '$' 通常用作输入串的开始/结束标记或栈底标记。
+     * 创建按给定级别记录分析步骤的分析器，步骤保存在默认容量的环形缓冲区中。
+     *
+     * @param traceLevel 记录级别。
      */
-    private void initPrecedenceTable() {
-        // 定义一个基础的优先级映射，数值越大优先级越高（这里用于比较）
-        Map<String, Integer> precedence = new HashMap<>();
-        precedence.put("$", 0);         // 栈底/输入结束符
-        precedence.put("KW_RETURN", 1); // return 关键字
-        precedence.put("RBRACE", 2);    // 右花括号 }
-        precedence.put("SEMICOLON", 3); // 分号 ;
-        precedence.put("KW_ELSE", 4);   // else 关键字
-        precedence.put("RPAREN", 5);    // 右圆括号 )
-        precedence.put("OP_EQ", 6);     // 等于 ==
-        precedence.put("OP_LE", 7);     // 小于等于 <=
-        precedence.put("OP_ADD", 8);    // 加法 +
-        precedence.put("OP_SUB", 8);    // 减法 -
-        precedence.put("OP_MUL", 9);    // 乘法 *
-        precedence.put("OP_DIV", 9);    // 除法 /
-        precedence.put("OP_MOD", 9);    // 取模 %
-        precedence.put("LPAREN", 10);   // 左圆括号 (
-        precedence.put("ID", 11);       // 标识符
-        precedence.put("NUM", 11);      // 数字
-        precedence.put("STR", 11);      // 字符串
-
-        for (String left : precedence.keySet()) {
-            for (String right : precedence.keySet()) {
-                int leftPrec = precedence.get(left);
-                int rightPrec = precedence.get(right);
-
-                String relation;
-                if (leftPrec < rightPrec) {
-                    relation = "<";     // 栈顶符号优先级低，移进
-                } else if (leftPrec > rightPrec) {
-                    relation = ">";     // 栈顶符号优先级高，规约
-                } else {
-                    relation = "=";     // 优先级相同
-                }
+    public SimplePrecedenceParser(ParseTrace.Level traceLevel) {
+        this(new ParseTrace(traceLevel));
+    }
 
-                precedenceTable.computeIfAbsent(left, k -> new HashMap<>()).put(right, relation);
-            }
-        }
+    /**
+     * 创建使用给定记录器的分析器。
+     *
+     * @param trace 分析步骤的记录器。
+     */
+    public SimplePrecedenceParser(ParseTrace trace) {
+        this.parseStack = new ParseStack();
+        this.trace = trace;
+    }
+
+    /**
+     * 表达式运算符的优先级，用于消解 Expr -> Expr op Expr 这类规则产生的冲突。
+     * 与递归下降分析器一致：比较运算最低，加减其次，乘除取模最高，全部左结合。
+     *
+     * @return 终结符编号 -> 优先级，-1 表示不是运算符。
+     */
+    private static int[] operatorLevels() {
+        int[] levels = new int[TokenKind.COUNT];
+        Arrays.fill(levels, -1);
+        levels[TokenKind.OP_GT.ordinal()] = 0;   // 大于
+        levels[TokenKind.OP_LE.ordinal()] = 0;   // 小于等于
+        levels[TokenKind.OP_EQ.ordinal()] = 0;   // 等于
+        levels[TokenKind.OP_ADD.ordinal()] = 1;  // 加法
+        levels[TokenKind.OP_SUB.ordinal()] = 1;  // 减法
+        levels[TokenKind.OP_MUL.ordinal()] = 2;  // 乘法
+        levels[TokenKind.OP_DIV.ordinal()] = 2;  // 除法
+        levels[TokenKind.OP_MOD.ordinal()] = 2;  // 取模
+        return levels;
+    }
 
-        // 定义一些特殊关系，这些关系可能不完全遵循上述基于数值的比较逻辑
-        precedenceTable.computeIfAbsent("LPAREN", k -> new HashMap<>()).put("RPAREN", "=");
-        precedenceTable.computeIfAbsent("LBRACE", k -> new HashMap<>()).put("RBRACE", "=");
-        precedenceTable.computeIfAbsent("$", k -> new HashMap<>()).put("$", "=");
+    /**
+     * 获取优先关系表的报告：未消解的冲突，以及优先函数 f / g (如果可以构造)。
+     *
+     * @return 报告文本。
+     */
+    public static String getPrecedenceReport() {
+        return PRECEDENCE.report();
     }
 
     /**
-     * 从分析栈顶部向下查找最近的终结符。
+     * 获取分析栈中最靠近顶部的终结符。
      * 在算符优先分析中，优先关系是定义在终结符之间的，非终结符会被忽略。
+     * 分析栈随每次入栈记录了最近终结符的位置，因此这是一次 O(1) 的查询。
      *
-     * @return 栈中最靠近顶部的终结符。如果栈中只有非终结符（和栈底'$'），则返回'$'。
+     * @return 栈中最靠近顶部的终结符编号。如果栈中只有非终结符（和栈底'$'），则返回'$'。
      */
-    private String findTopmostTerminal() {
-        for (int i = parseStack.size() - 1; i >= 0; i--) {
-            String symbol = parseStack.get(i);
-            if (!nonTerminals.contains(symbol)) {
-                return symbol;
-            }
-        }
-        return "$";
+    private int findTopmostTerminal() {
+        return parseStack.topmostTerminal(END);
     }
 
 
     /**
      * 获取两个终结符之间的优先关系。
      *
-     * @param left 栈顶的终结符（或最近的终结符）。
-     * @param right 当前输入符号。
-     * @return 表示优先关系的字符串（"<", "=", ">"）。如果未定义，默认为 "<" (倾向于移进)。
+     * @param left 栈顶的终结符（或最近的终结符）的编号。
+     * @param right 当前输入符号的编号。
+     * @return 优先关系 (LESS / EQUAL / GREATER 的组合，多于一个表示冲突)；NONE 表示语法错误。
      */
-    private String getPrecedence(String left, String right) {
-        if (precedenceTable.containsKey(left) && precedenceTable.get(left).containsKey(right)) {
-            return precedenceTable.get(left).get(right);
-        }
-        return "<";
+    private static byte getPrecedence(int left, int right) {
+        return PRECEDENCE.relations[left][right];
     }
 
     /**
-     * 主要的语法分析函数。
-     * 接收一个表示Token序列的字符串，并尝试根据语法规则进行解析。
+     * 获取符号在分析过程显示中使用的名称，结束符显示为 "$"。
+     *
+     * @param id 符号编号。
+     * @return 符号名称。
+     */
+    private static String symbolName(int id) {
+        return id == END ? "$" : GrammarRule.symbolName(id);
+    }
+
+    /**
+     * 对文本形式的 Token 序列进行语法分析，仅用于调试 (例如手工输入一段 Token 序列)。
+     * 文本按 "(类型, 值) (类型, 值)..." 的格式拆分，值中含有 ", " 或括号的 Token (如某些字符串字面量) 无法正确还原，
+     * 程序中应使用 {@link #parse(List)} 或 {@link #parse(TokenStream)}。
      *
      * @param tokenString 一个由 "(类型, 值) (类型, 值)..." 格式组成的字符串。
      * @return 如果语法分析成功，则返回 true；否则返回 false。
      */
     public boolean parse(String tokenString) {
-        tokens = parseTokenString(tokenString);
-        tokens.add(new Token("$", "$"));
-
-        currentIndex = 0;
-        parseStack.clear();
-        parseStack.push("$");
-        parseSteps.clear();
-
-        System.out.println("开始语法分析...");
+        return parse(TokenStream.of(parseTokenString(tokenString)));
+    }
 
-        int maxIterations = tokens.size() * 10;
-        int iterations = 0;
+    /**
+     * 主要的语法分析函数。
+     * 对词法分析器生成的 Token 列表进行语法分析，列表末尾的 EOF Token 可有可无。
+     *
+     * @param tokenList 输入的 Token 列表。
+     * @return 如果语法分析成功，则返回 true；否则返回 false。
+     */
+    public boolean parse(List<Token> tokenList) {
+        return parse(TokenStream.of(tokenList));
+    }
 
-        while (currentIndex < tokens.size() && iterations < maxIterations) {
-            iterations++;
-            Token currentToken = getCurrentToken();
+    /**
+     * 直接对词法分析器生成的 TokenStream 进行语法分析。
+     * 分析过程只读取各 Token 的类型，不需要物化 Token 对象。
+     *
+     * @param tokenStream 输入的 Token 序列。
+     * @return 如果语法分析成功，则返回 true；否则返回 false。
+     */
+    public boolean parse(TokenStream tokenStream) {
+        tokens = tokenStream;
 
-            String stackTopTerminal = findTopmostTerminal();
-            String relation = getPrecedence(stackTopTerminal, currentToken.type);
+        currentIndex = 0;
+        parseStack.clear();
+        parseStack.push(END);
+        trace.clear();
+        shiftCount = 0;
+        reduceCount = 0;
 
-            String decisionLog = String.format("--- 决策点: 栈顶终结符[%s] vs 输入[%s] -> 关系: %s",
-                    stackTopTerminal, currentToken.type, relation);
-            addParseStep(decisionLog);
+        trace.add(ParseTrace.Level.SUMMARY, "开始语法分析...");
 
-            if (relation.equals(">")) {
-                addParseStep("INFO: 栈顶符号优先级高，准备尝试规约。");
-            } else {
-                addParseStep("INFO: 输入符号优先级不低于栈顶符号，准备移进。");
-            }
+        while (true) {
+            int currentType = getCurrentType();
 
-            boolean reduced = false;
-            int reduceCount = 0;
-            while (tryReduce() && reduceCount < 50) {
-                reduced = true;
-                reduceCount++;
-            }
+            int stackTopTerminal = findTopmostTerminal();
+            byte relation = getPrecedence(stackTopTerminal, currentType);
 
-            if ((parseStack.size() == 2 && parseStack.get(1).equals("Program")) ||
-                    (parseStack.contains("Program") && currentToken.type.equals("$"))) {
-                System.out.println("语法分析成功完成！");
-                return true;
+            if (trace.isEnabled(ParseTrace.Level.FULL)) {
+                trace.add(ParseTrace.Level.FULL, () -> String.format("--- 决策点: 栈顶终结符[%s] vs 输入[%s] -> 关系: %s",
+                        symbolName(stackTopTerminal), symbolName(currentType), PrecedenceTable.relationString(relation)));
             }
 
-            if (currentToken.type.equals("$")) {
-                if (tryFinalReduce()) {
-                    System.out.println("通过最终规约完成语法分析！");
+            if (stackTopTerminal == END && currentType == END) {
+                if (parseStack.size() == 2 && parseStack.get(1) == PROGRAM) {
+                    traceResult("语法分析成功完成！");
                     return true;
                 }
+                trace.add(ParseTrace.Level.SUMMARY, "ERROR: 输入已结束，但栈中的符号无法规约为 Program。");
                 break;
             }
 
-            if (currentIndex < tokens.size() - 1) {
-                shift(currentToken);
-                currentIndex++;
-            } else {
+            if ((relation & PrecedenceTable.GREATER) != 0) {
+                boolean canShift = (relation & (PrecedenceTable.LESS | PrecedenceTable.EQUAL)) != 0;
+                trace.add(ParseTrace.Level.FULL, canShift
+                        ? "INFO: 优先关系冲突，先尝试规约，栈顶不构成句柄时再移进。"
+                        : "INFO: 栈顶符号优先级高，准备尝试规约。");
+                if (reduce()) {
+                    continue;
+                }
+                if (!canShift) {
+                    traceError("ERROR: 栈顶找不到可以规约的句柄。", stackTopTerminal, currentType);
+                    break;
+                }
+            } else if (relation == PrecedenceTable.NONE) {
+                traceError("ERROR: 栈顶终结符与输入符号之间没有优先关系。", stackTopTerminal, currentType);
                 break;
+            } else {
+                trace.add(ParseTrace.Level.FULL, "INFO: 输入符号优先级不低于栈顶符号，准备移进。");
             }
-        }
 
-        int finalReduceCount = 0;
-        while (tryReduce() && finalReduceCount < 20) {
-            finalReduceCount++;
+            if (currentType == END) {
+                break;
+            }
+            shift(currentIndex);
+            currentIndex++;
         }
 
-        if (parseStack.contains("Program")) {
-            System.out.println("语法分析成功完成！");
-            return true;
+        if (trace.isEnabled(ParseTrace.Level.SUMMARY)) {
+            int[] symbols = stackSnapshot(0);
+            trace.add(ParseTrace.Level.SUMMARY, () -> "语法分析失败，最终栈状态: " + symbolsToString(symbols));
         }
-
-        System.out.println("语法分析失败，最终栈状态: " + parseStack);
+        traceResult("语法分析失败。");
         return false;
     }
 
     /**
-     * 尝试最终规约。 这个方法在原代码中被注释掉了，这里的实现是一个简化版本，
-     * 在主循环结束后，如果标准接受条件未满足，可以尝试进一步规约。
-     * "最终规约"的逻辑可能暗示了对文法或优先表的不足的弥补。
-     *
-     * @return 如果通过某种启发式规则（这里简化为调用tryReduce）使得分析成功，则返回true。
+     * 记录分析结果与移进、规约的次数 (SUMMARY 级别)。
      */
-    private boolean tryFinalReduce() {
-        // 检查是否可以构成完整程序
-        List<String> stackContent = new ArrayList<>(parseStack);
-
-        // 寻找可能的程序结构
-        for (int i = 1; i < stackContent.size(); i++) {
-            if (stackContent.get(i).equals("KW_INT") &&
-                    i + 4 < stackContent.size() &&
-                    stackContent.get(i + 1).equals("KW_MAIN") &&
-                    stackContent.get(i + 2).equals("LPAREN") &&
-                    stackContent.get(i + 3).equals("RPAREN")) {
-
-                // 查找后续的Block或可以构成Block的内容
-                boolean hasBlock = false;
-                for (int j = i + 4; j < stackContent.size(); j++) {
-                    if (stackContent.get(j).equals("Block")) {
-                        hasBlock = true;
-                        break;
-                    }
-                }
-
-                if (hasBlock) {
-                    while (parseStack.size() > i + 5) {
-                        parseStack.pop();
-                    }
-                    parseStack.push("Program");
-                    addParseStep("最终规约: 构造Program");
-                    return true;
-                }
-            }
+    private void traceResult(String result) {
+        if (trace.isEnabled(ParseTrace.Level.SUMMARY)) {
+            int shifts = shiftCount;
+            int reductions = reduceCount;
+            trace.add(ParseTrace.Level.SUMMARY, () -> result + " (移进 " + shifts + " 次，规约 " + reductions + " 次)");
         }
+    }
 
-        return false;
+    /**
+     * 记录语法错误以及出错时的栈顶终结符与输入符号 (SUMMARY 级别)。
+     */
+    private void traceError(String error, int stackTopTerminal, int currentType) {
+        if (trace.isEnabled(ParseTrace.Level.SUMMARY)) {
+            int index = currentIndex;
+            trace.add(ParseTrace.Level.SUMMARY, () -> error + " 栈顶终结符[" + symbolName(stackTopTerminal)
+                    + "], 输入[" + symbolName(currentType) + "] (第 " + (index + 1) + " 个 Token)");
+        }
     }
 
     /**
      * 执行移进操作 (Shift)。
      * 将当前输入 Token 的类型压入分析栈。
      *
-     * @param token 要移进的当前 Token。
+     * @param index 要移进的当前 Token 在输入中的下标。
      */
-    private void shift(Token token) {
-        parseStack.push(token.type);
-        addParseStep("移进: " + token + " -> 栈: " + getStackSuffix());
+    private void shift(int index) {
+        parseStack.push(tokens.kind(index).ordinal());
+        shiftCount++;
+        if (trace.isEnabled(ParseTrace.Level.FULL)) {
+            String token = tokens.token(index).toString();
+            int[] suffix = stackSuffix();
+            boolean truncated = parseStack.size() > suffix.length;
+            trace.add(ParseTrace.Level.FULL, () -> "移进: " + token + " -> 栈: " + (truncated ? "..." : "") + symbolsToString(suffix));
+        }
     }
 
     /**
-     * 尝试执行规约操作 (Reduce)。
-     * 遍历语法规则，查找与分析栈顶部内容匹配的规则右部。
-     * 如果找到匹配，则将栈顶的匹配部分弹出，并将规则的左部压入栈。
+     * 执行规约操作 (Reduce)。
+     * 从栈顶的终结符开始向下，沿 '=' 关系找到句柄中最左的终结符，其下方的终结符与它是 '&lt;' 关系；
+     * 句柄必须以栈顶结束、覆盖这些终结符，并且不越过下方的终结符。
+     * 在预先编译好的后缀树 (HANDLES) 中查找满足条件的规则，代价只与句柄长度有关。
+     * 规约之后，只由非终结符组成的规则 (如 Stmt -> DeclStmt、StmtList -> StmtList Stmt)
+     * 不涉及终结符之间的优先关系，立即继续应用。
      *
-     * @return 如果成功执行了一次规约，则返回 true；否则返回 false。
+     * @return 如果成功执行了规约，则返回 true；栈顶不构成句柄时返回 false。
      */
-    private boolean tryReduce() {
-        // 特别优先处理printf语句和ElseIfStmt
-        for (GrammarRule rule : grammarRules) {
-            if ((rule.left.equals("PrintStmt") || rule.left.equals("ElseIfStmt")) && matchRule(rule)) {
-                applyRule(rule);
-                return true;
-            }
+    private boolean reduce() {
+        int first = parseStack.terminalAtOrBelow(parseStack.size() - 1);
+        int below = parseStack.terminalAtOrBelow(first - 1);
+        while (below > 0 && (getPrecedence(parseStack.get(below), parseStack.get(first)) & PrecedenceTable.EQUAL) != 0) {
+            first = below;
+            below = parseStack.terminalAtOrBelow(first - 1);
+        }
+        if (below < 0) {
+            return false;
         }
+        GrammarRule rule = HANDLES.match(parseStack, below + 1, first);
+        if (rule == null) {
+            return false;
+        }
+        do {
+            if ((rule.leftId == PRINT_STMT || rule.leftId == ELSE_IF_STMT) && trace.isEnabled(ParseTrace.Level.FULL)) {
+                GrammarRule matched = rule;
+                int[] handle = stackSnapshot(parseStack.size() - rule.rightIds.length);
+                trace.add(ParseTrace.Level.FULL, () -> "调试: 匹配到" + matched.left + "规则: " + matched);
+                trace.add(ParseTrace.Level.FULL, () -> "调试: 栈内容匹配段: " + symbolsToString(handle));
+            }
+            applyRule(rule);
+            rule = HANDLES.match(parseStack, parseStack.terminalAtOrBelow(parseStack.size() - 1) + 1);
+        } while (rule != null);
+        return true;
+    }
 
+    /**
+     * 按 reduce 尝试规则的顺序排列文法规则：
+     * 1. printf 语句与 ElseIfStmt 的规则，按文法中的顺序；
+     * 2. 左部属于 PRIORITY_LEFTS 的规则，按右部长度从长到短；
+     * 3. 其余规则，按右部长度从长到短。
+     * 多条规则同时与栈顶匹配时，取排在最前面的一条。
+     *
+     * @return 排好序的规则列表。
+     */
+    private static List<GrammarRule> reductionOrder() {
+        List<GrammarRule> specialRules = new ArrayList<>();
         List<GrammarRule> priorityRules = new ArrayList<>();
         List<GrammarRule> otherRules = new ArrayList<>();
-
         for (GrammarRule rule : grammarRules) {
-            if (rule.left.equals("Expr") || rule.left.equals("Stmt") ||
-                    rule.left.equals("DeclStmt") || rule.left.equals("AssignStmt") ||
-                    rule.left.equals("ReturnStmt") || rule.left.equals("WhileStmt") ||
-                    rule.left.equals("IfStmt") || rule.left.equals("StmtList")) {
+            if (rule.leftId == PRINT_STMT || rule.leftId == ELSE_IF_STMT) {
+                specialRules.add(rule);
+            } else if (PRIORITY_LEFTS.contains(rule.leftId)) {
                 priorityRules.add(rule);
             } else {
                 otherRules.add(rule);
             }
         }
-
         priorityRules.sort((a, b) -> Integer.compare(b.right.length, a.right.length));
         otherRules.sort((a, b) -> Integer.compare(b.right.length, a.right.length));
 
-        for (GrammarRule rule : priorityRules) {
-            if (matchRule(rule)) {
-                applyRule(rule);
-                return true;
-            }
-        }
-
-        for (GrammarRule rule : otherRules) {
-            if (matchRule(rule)) {
-                applyRule(rule);
-                return true;
-            }
-        }
-
-        return false;
+        List<GrammarRule> order = new ArrayList<>(specialRules);
+        order.addAll(priorityRules);
+        order.addAll(otherRules);
+        return order;
     }
 
     /**
-     * 检查分析栈的顶部是否匹配给定语法规则的右部。
+     * 应用给定的语法规则进行规约。
+     * 将分析栈顶部匹配规则右部的符号串弹出，然后将规则的左部非终结符压入栈。
      *
-     * @param rule 要检查的语法规则。
-     * @return 如果栈顶内容与规则右部完全匹配，则返回 true；否则返回 false。
+     * @param rule 要应用的语法规则。
      */
-    private boolean matchRule(GrammarRule rule) {
-        if (parseStack.size() < rule.right.length + 1) { // +1 for $
-            return false;
-        }
-
-        int start = parseStack.size() - rule.right.length;
-        for (int i = 0; i < rule.right.length; i++) {
-            if (!parseStack.get(start + i).equals(rule.right[i])) {
-                return false;
-            }
-        }
-
-        if (rule.left.equals("PrintStmt") || rule.left.equals("ElseIfStmt")) {
-            System.out.println("调试: 匹配到" + rule.left + "规则: " + rule);
-            System.out.println("调试: 栈内容匹配段: " + parseStack.subList(start, parseStack.size()));
+    private void applyRule(GrammarRule rule) {
+        parseStack.pop(rule.rightIds.length);
+        parseStack.push(rule.leftId);
+        reduceCount++;
+        if (trace.isEnabled(ParseTrace.Level.FULL)) {
+            int[] suffix = stackSuffix();
+            boolean truncated = parseStack.size() > suffix.length;
+            trace.add(ParseTrace.Level.FULL, () -> "规约: " + rule + " -> 栈: " + (truncated ? "..." : "") + symbolsToString(suffix));
         }
-
-        return true;
     }
 
     /**
-     * 应用给定的语法规则进行规约。
-     * 将分析栈顶部匹配规则右部的符号串弹出，然后将规则的左部非终结符压入栈。
+     * 复制分析栈顶部最多 5 个元素，用于在分析步骤中显示 (栈中元素更多时，显示时前面用 "..." 表示)。
      *
-     * @param rule 要应用的语法规则。
+     * @return 栈顶部分的快照。
      */
-    private void applyRule(GrammarRule rule) {
-        for (int i = 0; i < rule.right.length; i++) {
-            parseStack.pop();
-        }
-        parseStack.push(rule.left);
-        addParseStep("规约: " + rule + " -> 栈: " + getStackSuffix());
+    private int[] stackSuffix() {
+        return stackSnapshot(Math.max(0, parseStack.size() - 5));
     }
 
     /**
-     * 获取分析栈的后缀字符串，用于在分析步骤中显示。
-     * 最多显示栈顶的5个元素，如果栈中元素超过5个，则前面用 "..." 表示。
+     * 复制分析栈从 from 开始到栈顶的部分。记录步骤时保存的是快照，格式化推迟到读取步骤时进行。
      *
-     * @return 分析栈后缀的字符串表示。
+     * @param from 起始下标。
+     * @return 栈内容的快照。
      */
-    private String getStackSuffix() {
-        if (parseStack.size() <= 5) {
-            return parseStack.toString();
-        }
-        List<String> suffix = new ArrayList<>();
-        for (int i = Math.max(0, parseStack.size() - 5); i < parseStack.size(); i++) {
-            suffix.add(parseStack.get(i));
+    private int[] stackSnapshot(int from) {
+        int[] symbols = new int[parseStack.size() - from];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = parseStack.get(from + i);
         }
-        return "..." + suffix;
+        return symbols;
     }
 
     /**
-     * 获取当前要处理的输入 Token。
+     * 将符号编号序列格式化为 "[a, b, c]" 形式的字符串。
      *
-     * @return 当前的 Token 对象。如果已到达 Token 序列的末尾，则返回一个表示结束符 "$" 的特殊 Token。
+     * @param symbols 符号编号。
+     * @return 字符串表示。
      */
-    private Token getCurrentToken() {
-        if (currentIndex >= tokens.size()) {
-            return new Token("$", "$");
+    private static String symbolsToString(int[] symbols) {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int symbol : symbols) {
+            joiner.add(symbolName(symbol));
         }
-        return tokens.get(currentIndex);
+        return joiner.toString();
     }
 
     /**
-     * 向分析步骤列表 (parseSteps) 中添加一条记录，并打印到控制台。
+     * 获取当前要处理的输入 Token 的类型编号。
      *
-     * @param step 要记录的分析步骤描述字符串。
+     * @return 当前 Token 的类型编号。如果已到达 Token 序列的末尾，则返回结束符 "$" (EOF)。
      */
-    private void addParseStep(String step) {
-        parseSteps.add(step);
-        System.out.println(step);
+    private int getCurrentType() {
+        return tokens.kind(currentIndex).ordinal();
     }
 
     /**
-     * 将输入的 Token 字符串（例如从词法分析器获取的）解析为 Token 对象列表。
+     * 将调试用的 Token 字符串解析为 Token 对象列表。
      * 输入字符串的格式假定为 "(类型1, 值1) (类型2, 值2) ..."。
      *
      * @param tokenString 包含 Token信息的字符串。
@@ -471,7 +486,7 @@ public class SimplePrecedenceParser {
             token = token.replace("(", "").replace(")", "");
             String[] parts = token.split(", ", 2);
             if (parts.length == 2) {
-                tokenList.add(new Token(parts[0], parts[1]));
+                tokenList.add(new Token(TokenKind.valueOf(parts[0]), parts[1]));
             }
         }
 
@@ -482,9 +497,10 @@ public class SimplePrecedenceParser {
      * 打印记录的全部语法分析步骤。
      */
     public void printParseSteps() {
+        List<String> steps = trace.steps();
         System.out.println("\n=== 语法分析详细步骤 ===");
-        for (int i = 0; i < parseSteps.size(); i++) {
-            System.out.println((i + 1) + ". " + parseSteps.get(i));
+        for (int i = 0; i < steps.size(); i++) {
+            System.out.println((i + 1) + ". " + steps.get(i));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,262 @@
+package Pipeline;
+
+import AST.FlatAST;
+import AST.RecursiveDescentASTParser;
+import AST.TACCode;
+import AST.TACContext;
+import Analysis.SemanticAnalyzer;
+import AssemblyGenerator.AssemblyGenerator;
+import Lexer.Lexer;
+import Lexer.TokenStream;
+import Optimizer.TACOptimizer;
+import Parser.ParseTrace;
+import Parser.SimplePrecedenceParser;
+import java.io.PrintStream;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CompilerPipeline 类把编译的各个阶段串成一条流水线：词法分析 → 递归下降构建 AST → 语义分析 → 三地址码 → 汇编代码。
+ * 语法分析器直接生成 {@link FlatAST}，不创建对象形式的 AST；语义分析与三地址码生成通过 FlatAST 的节点视图
+ * 运行与对象形式相同的代码。
+ * <p>
+ * 有两种模式：
+ * <ul>
+ *     <li>{@link Mode#FAST}：生产用的快速路径，直接从 Token 序列构建 AST，不运行演示用的简单优先分析，
+ *     不向控制台输出任何内容；</li>
+ *     <li>{@link Mode#EDUCATIONAL}：教学用的完整流程，先以 FULL 级别记录简单优先分析的每一步，
+ *     再构建 AST，语义分析的符号查找日志写到指定的输出流。</li>
+ * </ul>
+ * 各阶段之后的检查可以单独开关 (见 {@link #validate(Phase...)})，三地址码优化默认关闭 (见 {@link #optimize(boolean)})，
+ * 每个阶段的耗时记录在 {@link Result} 中。
+ * <p>
+ * 语法分析可以改用显式栈 (见 {@link #explicitStack(boolean)})，嵌套深度不再受调用栈限制；
+ * 语义分析与三地址码生成仍然递归地遍历 AST，嵌套过深导致调用栈溢出时，以指明阶段的编译错误报告。
+ */
+public final class CompilerPipeline {
+
+    /**
+     * 流水线模式。
+     */
+    public enum Mode {
+        /** 只生成编译产物，没有演示分析和控制台输出。 */
+        FAST,
+        /** 额外运行带完整轨迹的简单优先分析，并输出语义分析日志。 */
+        EDUCATIONAL
+    }
+
+    /**
+     * 流水线的阶段。
+     */
+    public enum Phase {
+        /** 词法分析。 */
+        LEX,
+        /** 语法分析 (EDUCATIONAL 模式下包括简单优先分析) 与 AST 构建。 */
+        PARSE,
+        /** 语义分析。 */
+        SEMANTIC,
+        /** 三地址码生成。 */
+        TAC,
+        /** 三地址码优化，只在 {@link #optimize(boolean)} 开启时运行。 */
+        OPTIMIZE,
+        /** 汇编代码生成。 */
+        ASSEMBLY
+    }
+
+    /**
+     * 一次编译的产物与各阶段耗时。
+     */
+    public static final class Result {
+        public final FlatAST ast;             // 节点的对象视图见 FlatAST.view()
+        public final TACCode tac;             // 结构化的三地址码，文本形式见 TACCode.toText()
+        public final List<String> assembly;
+        public final List<String> parseSteps; // 简单优先分析的步骤，FAST 模式下为空列表
+        public final long[] phaseNanos;       // 下标为 Phase.ordinal()
+
+        Result(FlatAST ast, TACCode tac, List<String> assembly, List<String> parseSteps, long[] phaseNanos) {
+            this.ast = ast;
+            this.tac = tac;
+            this.assembly = assembly;
+            this.parseSteps = parseSteps;
+            this.phaseNanos = phaseNanos;
+        }
+
+        /**
+         * @return 各阶段耗时之和 (纳秒)。
+         */
+        public long totalNanos() {
+            long total = 0;
+            for (long nanos : phaseNanos) {
+                total += nanos;
+            }
+            return total;
+        }
+    }
+
+    private final Mode mode;
+    private final PrintStream log;
+    private final PrintStream diagnostics; // 语法分析与汇编生成的警告，FAST 模式下为 null
+    private final EnumSet<Phase> validated = EnumSet.of(Phase.PARSE, Phase.SEMANTIC);
+    private boolean optimize;
+    private boolean explicitStack;
+
+    /**
+     * 创建 FAST 模式的流水线。
+     */
+    public CompilerPipeline() {
+        this(Mode.FAST, null);
+    }
+
+    /**
+     * 创建流水线。
+     *
+     * @param mode 流水线模式。
+     * @param log  EDUCATIONAL 模式下语义分析日志的输出位置，为 null 时不输出；FAST 模式下忽略。
+     *             语法分析与汇编生成的警告在 EDUCATIONAL 模式下输出到标准错误输出，FAST 模式下不输出。
+     */
+    public CompilerPipeline(Mode mode, PrintStream log) {
+        this.mode = mode;
+        this.log = mode == Mode.FAST ? null : log;
+        this.diagnostics = mode == Mode.FAST ? null : System.err;
+    }
+
+    /**
+     * 指定需要检查的阶段，替换默认设置 (PARSE 与 SEMANTIC)。
+     * <ul>
+     *     <li>PARSE：程序结束后不能有剩余的 Token；</li>
+     *     <li>SEMANTIC：运行语义分析 (变量声明与类型检查)，关闭时跳过整个阶段；</li>
+     *     <li>TAC：每个跳转目标标签都恰好定义一次。</li>
+     * </ul>
+     * 词法错误总是立即报告，LEX 与 ASSEMBLY 阶段没有额外的检查。
+     *
+     * @param phases 需要检查的阶段。
+     * @return this，便于链式调用。
+     */
+    public CompilerPipeline validate(Phase... phases) {
+        validated.clear();
+        validated.addAll(List.of(phases));
+        return this;
+    }
+
+    /**
+     * 开启或关闭三地址码优化 (常量折叠、代数化简与拷贝传播，见 {@link TACOptimizer})。
+     * 开启后 {@link Result#tac} 是优化后的三地址码，汇编代码也由它生成。
+     *
+     * @param enabled 是否优化。
+     * @return this，便于链式调用。
+     */
+    public CompilerPipeline optimize(boolean enabled) {
+        this.optimize = enabled;
+        return this;
+    }
+
+    /**
+     * 让语法分析使用显式栈 (见 {@link RecursiveDescentASTParser#useExplicitStack})，
+     * 代码块、while / if 语句与括号表达式的嵌套深度不再受 Java 调用栈的限制。默认关闭。
+     *
+     * @param enabled 是否使用显式栈。
+     * @return this，便于链式调用。
+     */
+    public CompilerPipeline explicitStack(boolean enabled) {
+        this.explicitStack = enabled;
+        return this;
+    }
+
+    /**
+     * 编译一段源程序。
+     *
+     * @param source 源代码。
+     * @return 编译产物与各阶段耗时。
+     * @throws RuntimeException 如果某个阶段发现错误 (词法、语法、语义错误或 TAC 检查失败)，
+     *                          或者程序嵌套过深，超出了某个递归阶段可用的调用栈。
+     */
+    public Result compile(CharSequence source) {
+        Phase[] phase = {Phase.LEX};
+        try {
+            return compile(source, phase);
+        } catch (StackOverflowError e) {
+            throw new RuntimeException("Compile Error: program nesting is too deep for the " + phase[0]
+                    + " phase (call stack overflow)");
+        }
+    }
+
+    /**
+     * 依次运行各个阶段，并在 phase[0] 中记录正在运行的阶段，以便报告调用栈溢出发生的位置。
+     */
+    private Result compile(CharSequence source, Phase[] phase) {
+        long[] nanos = new long[Phase.values().length];
+
+        long start = System.nanoTime();
+        TokenStream tokens = Lexer.tokenize(source);
+        nanos[Phase.LEX.ordinal()] = System.nanoTime() - start;
+
+        phase[0] = Phase.PARSE;
+        start = System.nanoTime();
+        List<String> parseSteps = List.of();
+        if (mode == Mode.EDUCATIONAL) {
+            SimplePrecedenceParser demo = new SimplePrecedenceParser(ParseTrace.Level.FULL);
+            demo.parse(tokens);
+            parseSteps = demo.getParseSteps();
+        }
+        FlatAST ast = new RecursiveDescentASTParser(tokens).useExplicitStack(explicitStack).reportWarningsTo(diagnostics)
+                .parseFlatProgram(validated.contains(Phase.PARSE));
+        nanos[Phase.PARSE.ordinal()] = System.nanoTime() - start;
+
+        phase[0] = Phase.SEMANTIC;
+        start = System.nanoTime();
+        if (validated.contains(Phase.SEMANTIC)) {
+            ast.accept(new SemanticAnalyzer(log));
+        }
+        nanos[Phase.SEMANTIC.ordinal()] = System.nanoTime() - start;
+
+        phase[0] = Phase.TAC;
+        start = System.nanoTime();
+        TACContext tacContext = new TACContext();
+        ast.generateTAC(tacContext);
+        if (validated.contains(Phase.TAC)) {
+            checkLabels(tacContext.code);
+        }
+        nanos[Phase.TAC.ordinal()] = System.nanoTime() - start;
+
+        phase[0] = Phase.OPTIMIZE;
+        start = System.nanoTime();
+        if (optimize) {
+            TACOptimizer.optimize(tacContext.code);
+        }
+        nanos[Phase.OPTIMIZE.ordinal()] = System.nanoTime() - start;
+
+        phase[0] = Phase.ASSEMBLY;
+        start = System.nanoTime();
+        List<String> assembly = new AssemblyGenerator(diagnostics).generate(tacContext.code);
+        nanos[Phase.ASSEMBLY.ordinal()] = System.nanoTime() - start;
+
+        return new Result(ast, tacContext.code, assembly, parseSteps, nanos);
+    }
+
+    /**
+     * 检查三地址码中的标签：每个标签只定义一次，每条跳转指令的目标都已定义。
+     */
+    private static void checkLabels(TACCode code) {
+        Set<Long> defined = new HashSet<>();
+        for (int i = 0; i < code.size(); i++) {
+            if (code.opcode(i) == TACCode.Opcode.LABEL && !defined.add(code.operand(i, 0))) {
+                throw new RuntimeException("TAC Error: label " + code.operandText(code.operand(i, 0)) + " is defined more than once");
+            }
+        }
+        for (int i = 0; i < code.size(); i++) {
+            long target;
+            if (code.opcode(i) == TACCode.Opcode.GOTO) {
+                target = code.operand(i, 0);
+            } else if (code.opcode(i) == TACCode.Opcode.IF_FALSE) {
+                target = code.operand(i, 1);
+            } else {
+                continue;
+            }
+            if (!defined.contains(target)) {
+                throw new RuntimeException("TAC Error: jump to undefined label in '" + code.text(i) + "'");
+            }
+        }
+    }
+}
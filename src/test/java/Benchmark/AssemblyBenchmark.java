@@ -0,0 +1,42 @@
+package Benchmark;
+
+import AST.RecursiveDescentASTParser;
+import AST.TACCode;
+import AST.TACContext;
+import AssemblyGenerator.AssemblyGenerator;
+import Lexer.Lexer;
+import java.util.List;
+
+/**
+ * AssemblyBenchmark 测量汇编生成的耗时随三地址码规模的变化：按操作码分派的结构化路径
+ * {@link AssemblyGenerator#generate(TACCode)} 与逐条正则匹配的文本路径 {@link AssemblyGenerator#generate(List)}。
+ * 两条路径生成的汇编代码必须相同；每条指令的平均耗时不随规模增长，即说明生成时间是线性的。
+ * <p>
+ * 运行方式：
+ * <pre>
+ * java -cp target/classes:target/test-classes Benchmark.AssemblyBenchmark [轮数]
+ * </pre>
+ * 使用约 2.5 万、5 万、10 万条三地址码的生成程序。
+ */
+public class AssemblyBenchmark {
+
+    private static final int[] GROUPS = {715, 1_430, 2_860};
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        for (int groups : GROUPS) {
+            TACContext tac = new TACContext();
+            new RecursiveDescentASTParser(Lexer.tokenize(BenchmarkSupport.generateProgram(groups))).parseProgram().generateTAC(tac);
+            TACCode code = tac.code;
+            List<String> text = tac.instructions();
+            if (!new AssemblyGenerator().generate(code).equals(new AssemblyGenerator().generate(text))) {
+                throw new IllegalStateException("IR and text paths produced different assembly");
+            }
+
+            long codeNanos = BenchmarkSupport.median(BenchmarkSupport.measure(rounds, () -> new AssemblyGenerator().generate(code)));
+            long textNanos = BenchmarkSupport.median(BenchmarkSupport.measure(rounds, () -> new AssemblyGenerator().generate(text)));
+            System.out.printf("%7d 条三地址码: 结构化 %8.3f ms (%6.1f ns/条), 文本 %8.3f ms (%6.1f ns/条)%n", code.size(),
+                    codeNanos / 1e6, (double) codeNanos / code.size(), textNanos / 1e6, (double) textNanos / code.size());
+        }
+    }
+}
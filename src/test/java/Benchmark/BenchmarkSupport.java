@@ -0,0 +1,111 @@
+package Benchmark;
+
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * BenchmarkSupport 提供各个基准测试共用的生成程序、计时与堆内存测量方法。
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    // ---------------------------------------------------------------- 生成程序
+
+    /**
+     * 生成基准测试用的源程序。每组使用一个新变量 a_i，包括声明、算术表达式赋值、
+     * 内含 if-else 的 while 循环 (嵌套 3 层) 与带 printf 的 if-else，共 9 条语句、35 条三地址码。
+     *
+     * @param groups 组数。
+     * @return 源程序。
+     */
+    static String generateProgram(int groups) {
+        StringBuilder sb = new StringBuilder(groups * 300);
+        sb.append("int main() {\n");
+        for (int i = 0; i < groups; i++) {
+            String v = "a_" + i;
+            sb.append("    int ").append(v).append(" = ").append(i % 1000).append(" * 3 + ").append(i % 17).append(";\n");
+            sb.append("    ").append(v).append(" = (").append(v).append(" + 3) * 2 - ").append(v).append(" % 7 + 11 / 5;\n");
+            sb.append("    while (").append(v).append(" > 100) {\n");
+            sb.append("        if (").append(v).append(" % 2 == 0) { ").append(v).append(" = ").append(v)
+                    .append(" - 9; } else { printf(\"%d\", ").append(v).append("); }\n");
+            sb.append("        ").append(v).append(" = ").append(v).append(" - 1;\n    }\n");
+            sb.append("    if (").append(v).append(" <= 50) { printf(\"small\"); } else { printf(\"%d\", ")
+                    .append(v).append(" * 2); }\n");
+        }
+        sb.append("    return 0;\n}\n");
+        return sb.toString();
+    }
+
+    // ---------------------------------------------------------------- 计时
+
+    /**
+     * 先做完整的垃圾回收，再预热 rounds 轮、测量 rounds 轮。
+     * 开始前的垃圾回收避免上一段测量留下的垃圾回收工作计入这一段。
+     *
+     * @return 每轮的耗时 (纳秒)。
+     */
+    static long[] measure(int rounds, Runnable pass) {
+        usedAfterGc();
+        long[] nanos = new long[rounds];
+        for (int i = -rounds; i < rounds; i++) { // 前 rounds 轮为预热
+            long begin = System.nanoTime();
+            pass.run();
+            if (i >= 0) {
+                nanos[i] = System.nanoTime() - begin;
+            }
+        }
+        return nanos;
+    }
+
+    static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    static long mean(long[] nanos) {
+        long total = 0;
+        for (long n : nanos) {
+            total += n;
+        }
+        return total / nanos.length;
+    }
+
+    /**
+     * 输出一组耗时的中位数、p90 与最小值。
+     *
+     * @return 中位数 (纳秒)。
+     */
+    static long report(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        long median = sorted[sorted.length / 2];
+        System.out.printf("%-12s 中位数 %8.3f ms, p90 %8.3f ms, 最小 %8.3f ms (%d 轮)%n", name,
+                median / 1e6, sorted[sorted.length * 9 / 10] / 1e6, sorted[0] / 1e6, sorted.length);
+        return median;
+    }
+
+    // ---------------------------------------------------------------- 堆内存
+
+    /**
+     * 测量 factory 创建的对象在垃圾回收之后仍占用的堆内存。
+     */
+    static long retainedBytes(Supplier<?> factory) {
+        long before = usedAfterGc();
+        Object kept = factory.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(kept); // 保证 kept 在测量结束前仍然可达
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,73 @@
+package Benchmark;
+
+import AST.FlatAST;
+import AST.ProgramNode;
+import AST.RecursiveDescentASTParser;
+import AST.TACContext;
+import Lexer.Lexer;
+import Lexer.SourceFile;
+import Lexer.TokenStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * FlatASTBenchmark 比较对象形式的 AST 与语法分析器直接生成的 {@link FlatAST} 的堆内存占用，以及两者的构建
+ * (语法分析) 与整棵树遍历 (三地址码生成与树形打印) 的耗时。两种表示生成的三地址码必须相同。
+ * <p>
+ * 运行方式 (建议加上 -Xmx2g 以便测量时不受堆大小影响)：
+ * <pre>
+ * java -cp target/classes:target/test-classes Benchmark.FlatASTBenchmark [源文件] [轮数]
+ * </pre>
+ * 不指定源文件时，使用一个约 3 万条语句的生成程序 (见 {@link BenchmarkSupport#generateProgram})。
+ */
+public class FlatASTBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        CharSequence source = args.length > 0 ? SourceFile.map(Path.of(args[0])) : BenchmarkSupport.generateProgram(3_500);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        TokenStream tokens = Lexer.tokenize(source);
+        long objectBytes = BenchmarkSupport.retainedBytes(() -> new RecursiveDescentASTParser(tokens).parseProgram());
+        long flatBytes = BenchmarkSupport.retainedBytes(() -> new RecursiveDescentASTParser(tokens).parseFlatProgram(false));
+
+        ProgramNode objects = new RecursiveDescentASTParser(tokens).parseProgram();
+        FlatAST flat = new RecursiveDescentASTParser(tokens).parseFlatProgram(false);
+        FlatAST converted = FlatAST.of(objects);
+        TACContext objectTac = new TACContext();
+        objects.generateTAC(objectTac);
+        TACContext flatTac = new TACContext();
+        flat.generateTAC(flatTac);
+        TACContext convertedTac = new TACContext();
+        converted.generateTAC(convertedTac);
+        if (!objectTac.instructions().equals(flatTac.instructions()) || !objects.printTree("", true).equals(flat.printTree())
+                || !objectTac.instructions().equals(convertedTac.instructions())) {
+            throw new IllegalStateException("FlatAST produced different output");
+        }
+
+        System.out.printf("源程序: %d 字符, %d 个 AST 节点, %d 条三地址码%n", source.length(), flat.size(), flatTac.code.size());
+        System.out.printf("堆占用: 对象 AST %.2f MB, FlatAST %.2f MB (%.1f%%)%n",
+                objectBytes / 1048576.0, flatBytes / 1048576.0, 100.0 * flatBytes / objectBytes);
+
+        compare("语法分析", rounds, () -> new RecursiveDescentASTParser(tokens).parseProgram(),
+                () -> new RecursiveDescentASTParser(tokens).parseFlatProgram(false));
+        compare("三地址码生成", rounds, () -> objects.generateTAC(new TACContext()), () -> flat.generateTAC(new TACContext()));
+        compare("树形打印", rounds, () -> objects.printTree("", true), flat::printTree);
+    }
+
+    /**
+     * 两种表示分别预热并运行 rounds 轮，每段开始前先做完整的垃圾回收，避免一方留下的垃圾回收工作计入另一方。
+     * 同时报告中位数与平均值：对象形式的 AST 在生成三地址码时把新的结果位置字符串写入老年代中的节点，
+     * 这部分代价主要体现在垃圾回收停顿中，只看中位数会忽略它。
+     */
+    private static void compare(String name, int rounds, Runnable objectPass, Runnable flatPass) {
+        long[] objectNanos = BenchmarkSupport.measure(rounds, objectPass);
+        long[] flatNanos = BenchmarkSupport.measure(rounds, flatPass);
+        report(name + " 中位数", BenchmarkSupport.median(objectNanos), BenchmarkSupport.median(flatNanos));
+        report(name + " 平均值", BenchmarkSupport.mean(objectNanos), BenchmarkSupport.mean(flatNanos));
+    }
+
+    private static void report(String name, long objectNanos, long flatNanos) {
+        System.out.printf("%-12s: 对象 AST %8.3f ms, FlatAST %8.3f ms (%.1f%%)%n", name,
+                objectNanos / 1e6, flatNanos / 1e6, 100.0 * flatNanos / objectNanos);
+    }
+}
@@ -0,0 +1,151 @@
+package Benchmark;
+
+import Lexer.IncrementalLexer;
+import Lexer.Lexer;
+import Lexer.TokenStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * IncrementalLexBenchmark 测量增量词法分析器处理单行编辑的延迟。
+ * 源程序约 5 万行，模拟两种编辑方式：在同一行中连续输入字符 (间隙缓冲区几乎不移动)，
+ * 以及在随机的行上修改表达式 (每次编辑都要把间隙移动到新的位置)。
+ * 结束时把增量维护的 Token 序列与整体重新扫描的结果逐个比较，确认两者一致。
+ * <p>
+ * 运行方式：
+ * <pre>
+ * java -cp target/classes:target/test-classes Benchmark.IncrementalLexBenchmark [行数] [编辑次数]
+ * </pre>
+ */
+public class IncrementalLexBenchmark {
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        StringBuilder text = generateSource(lines);
+        long start = System.nanoTime();
+        IncrementalLexer lexer = new IncrementalLexer(text);
+        System.out.printf("源程序: %d 行, %d 字符, %d 个 Token, 完整扫描 %.2f ms%n",
+                lines, text.length(), lexer.size(), (System.nanoTime() - start) / 1e6);
+
+        Random random = new Random(42);
+        // 预热
+        typeOnLine(text, lexer, lines / 2, edits, random);
+        editRandomLines(text, lexer, edits, random);
+
+        long[] typing = typeOnLine(text, lexer, lines / 3, edits, random);
+        report("同一行连续输入", typing);
+        long[] scattered = editRandomLines(text, lexer, edits, random);
+        report("随机行修改", scattered);
+
+        verify(text, lexer);
+    }
+
+    /**
+     * 在某一行的表达式末尾逐个输入字符，然后再逐个删除。
+     */
+    private static long[] typeOnLine(StringBuilder text, IncrementalLexer lexer, int line, int edits, Random random) {
+        long[] nanos = new long[edits];
+        int offset = lineOffset(text, line);
+        int anchor = text.indexOf(";", offset);
+        String typed = " + value_";
+        int typedLength = 0;
+        for (int i = 0; i < edits; i++) {
+            long begin;
+            if (typedLength < 20 && (typedLength == 0 || random.nextInt(4) != 0)) {
+                char c = typedLength < typed.length() ? typed.charAt(typedLength) : (char) ('0' + random.nextInt(10));
+                text.insert(anchor + typedLength, c);
+                begin = System.nanoTime();
+                lexer.edit(text, anchor + typedLength, 0, 1);
+                typedLength++;
+            } else {
+                typedLength--;
+                text.deleteCharAt(anchor + typedLength);
+                begin = System.nanoTime();
+                lexer.edit(text, anchor + typedLength, 1, 0);
+            }
+            nanos[i] = System.nanoTime() - begin;
+        }
+        text.delete(anchor, anchor + typedLength);
+        lexer.edit(text, anchor, typedLength, 0);
+        return nanos;
+    }
+
+    /**
+     * 在随机的行上把一个数字字面量替换为另一个表达式。
+     */
+    private static long[] editRandomLines(StringBuilder text, IncrementalLexer lexer, int edits, Random random) {
+        long[] nanos = new long[edits];
+        String[] replacements = {"42", "(a_1 * 7)", "counter", "1234567"};
+        for (int i = 0; i < edits; i++) {
+            int offset = random.nextInt(text.length());
+            int eq = text.indexOf("= ", offset);
+            if (eq < 0) {
+                eq = text.indexOf("= ");
+            }
+            int from = eq + 2;
+            int to = from;
+            while (Character.isLetterOrDigit(text.charAt(to)) || text.charAt(to) == '_'
+                    || text.charAt(to) == '(' || text.charAt(to) == ')' || text.charAt(to) == '*' || text.charAt(to) == ' ') {
+                to++;
+            }
+            String replacement = replacements[random.nextInt(replacements.length)];
+            text.replace(from, to, replacement);
+            long begin = System.nanoTime();
+            lexer.edit(text, from, to - from, replacement.length());
+            nanos[i] = System.nanoTime() - begin;
+        }
+        return nanos;
+    }
+
+    private static void verify(StringBuilder text, IncrementalLexer lexer) {
+        TokenStream expected = Lexer.tokenize(text);
+        TokenStream actual = lexer.snapshot();
+        if (expected.size() != actual.size()) {
+            throw new IllegalStateException("token count " + actual.size() + ", expected " + expected.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.kind(i) != actual.kind(i) || expected.start(i) != actual.start(i)
+                    || expected.end(i) != actual.end(i) || expected.intValue(i) != actual.intValue(i)) {
+                throw new IllegalStateException("token " + i + " differs from a full re-lex");
+            }
+        }
+        System.out.println("增量结果与完整重新扫描一致 (" + expected.size() + " 个 Token)");
+    }
+
+    private static void report(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-10s 中位数 %7.2f us, p99 %7.2f us, 最大 %8.2f us (%d 次编辑)%n", name,
+                sorted[sorted.length / 2] / 1e3, sorted[sorted.length * 99 / 100] / 1e3,
+                sorted[sorted.length - 1] / 1e3, sorted.length);
+    }
+
+    private static int lineOffset(StringBuilder text, int line) {
+        int offset = 0;
+        for (int i = 0; i < line; i++) {
+            offset = text.indexOf("\n", offset) + 1;
+        }
+        return offset;
+    }
+
+    /**
+     * 生成基准测试用的源程序：每行一条声明或赋值语句，夹杂注释与字符串。
+     */
+    private static StringBuilder generateSource(int lines) {
+        StringBuilder sb = new StringBuilder(lines * 40);
+        sb.append("int main() {\n");
+        for (int i = 0; i < lines; i++) {
+            switch (i % 5) {
+                case 0 -> sb.append("    int a_").append(i).append(" = ").append(i % 1000).append(";\n");
+                case 1 -> sb.append("    a_").append(i - 1).append(" = a_").append(i - 1).append(" * 3 + 1;\n");
+                case 2 -> sb.append("    // step ").append(i).append('\n');
+                case 3 -> sb.append("    printf(\"%d\\n\", a_").append(i - 3).append(");\n");
+                default -> sb.append("    /* block ").append(i).append(" */ a_").append(i - 4).append(" = 7;\n");
+            }
+        }
+        sb.append("    return 0;\n}\n");
+        return sb;
+    }
+}
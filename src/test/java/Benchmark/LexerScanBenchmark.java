@@ -0,0 +1,95 @@
+package Benchmark;
+
+import Lexer.ByteScanner;
+import Lexer.Lexer;
+import Lexer.SourceFile;
+import Lexer.TokenStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LexerScanBenchmark 比较词法分析器在纯 ASCII 源文件上使用不同 ByteScanner 实现时的吞吐量：
+ * 标量实现，以及 16 / 32 字节宽的 Vector API 实现。
+ * <p>
+ * 运行方式 (需要启用 Vector API 模块，否则只会测量标量实现)：
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes Benchmark.LexerScanBenchmark [源文件] [轮数]
+ * </pre>
+ * 不指定源文件时，生成一个以空白、长标识符和长数字为主的约 16MB 的程序。
+ */
+public class LexerScanBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Path path;
+        if (args.length > 0) {
+            path = Path.of(args[0]);
+        } else {
+            path = Files.createTempFile("lexer-bench", ".c");
+            path.toFile().deleteOnExit();
+            Files.writeString(path, generateSource(16 << 20));
+        }
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        CharSequence source = SourceFile.map(path);
+        if (!(source instanceof SourceFile.AsciiSource)) {
+            System.out.println("源文件包含非 ASCII 字符，ByteScanner 不会被使用。");
+        }
+
+        List<ByteScanner> scanners = new ArrayList<>();
+        scanners.add(ByteScanner.scalar());
+        if (ByteScanner.vectorAvailable()) {
+            scanners.add(ByteScanner.vector(16));
+            scanners.add(ByteScanner.vector(32));
+        } else {
+            System.out.println("jdk.incubator.vector 未启用，只测量标量实现 (使用 --add-modules jdk.incubator.vector 运行)。");
+        }
+
+        System.out.printf("源文件: %s, %d 字节, 每种实现 %d 轮%n", path, source.length(), rounds);
+        double scalarMillis = 0;
+        int expectedTokens = -1;
+        for (ByteScanner scanner : scanners) {
+            // 预热，让 JIT 编译扫描循环
+            for (int i = 0; i < 3; i++) {
+                Lexer.tokenize(source, scanner);
+            }
+            long best = Long.MAX_VALUE;
+            int tokens = 0;
+            for (int i = 0; i < rounds; i++) {
+                long start = System.nanoTime();
+                TokenStream stream = Lexer.tokenize(source, scanner);
+                best = Math.min(best, System.nanoTime() - start);
+                tokens = stream.size();
+            }
+            if (expectedTokens >= 0 && tokens != expectedTokens) {
+                throw new IllegalStateException(scanner.name() + " produced " + tokens + " tokens, expected " + expectedTokens);
+            }
+            expectedTokens = tokens;
+
+            double millis = best / 1e6;
+            if (scalarMillis == 0) {
+                scalarMillis = millis;
+            }
+            System.out.printf("%-10s %8.2f ms  %8.1f MB/s  x%.2f  (%d tokens)%n",
+                    scanner.name(), millis, source.length() / 1e3 / millis, scalarMillis / millis, tokens);
+        }
+    }
+
+    /**
+     * 生成基准测试用的源程序：大量缩进、长标识符和长数字字面量。
+     */
+    private static String generateSource(int targetSize) {
+        StringBuilder sb = new StringBuilder(targetSize + 256);
+        sb.append("int main() {\n");
+        for (int i = 0; sb.length() < targetSize; i++) {
+            sb.append("                int accumulated_value_number_").append(i)
+                    .append("    =    ").append(1000000000 + i % 1000000000)
+                    .append(" + intermediate_result_of_iteration_").append(i % 97)
+                    .append(" * 1234567;\n");
+        }
+        sb.append("    return 0;\n}\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package Benchmark;
+
+import AST.NodeFactory;
+import AST.ProgramNode;
+import AST.RecursiveDescentASTParser;
+import AST.TACContext;
+import Lexer.Lexer;
+import Lexer.SourceFile;
+import Lexer.TokenStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * NodeFactoryBenchmark 比较 {@link NodeFactory} 三种设置下 AST 的节点数、堆内存占用与语法分析时间：
+ * 不做驻留、只驻留叶子节点 (默认)、同时合并二元运算子树。三种设置生成的三地址码必须相同。
+ * <p>
+ * 运行方式 (建议加上 -Xmx2g 以便测量时不受堆大小影响)：
+ * <pre>
+ * java -cp target/classes:target/test-classes Benchmark.NodeFactoryBenchmark [源文件] [轮数]
+ * </pre>
+ * 不指定源文件时，使用一个约 3 万条语句、表达式大量重复的生成程序。
+ */
+public class NodeFactoryBenchmark {
+
+    private static final String[] NAMES = {"不驻留", "驻留叶子", "合并子树"};
+
+    public static void main(String[] args) throws IOException {
+        CharSequence source = args.length > 0 ? SourceFile.map(Path.of(args[0])) : generateSource(10_000);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        TokenStream tokens = Lexer.tokenize(source);
+        System.out.printf("源程序: %d 字符, %d 个 Token%n", source.length(), tokens.size());
+
+        TACContext expected = null;
+        for (int setting = 0; setting < NAMES.length; setting++) {
+            int current = setting;
+            NodeFactory factory = factory(setting);
+            ProgramNode program = new RecursiveDescentASTParser(tokens).useNodeFactory(factory).parseProgram();
+            TACContext tac = new TACContext();
+            program.generateTAC(tac);
+            if (expected == null) {
+                expected = tac;
+            } else if (!expected.instructions().equals(tac.instructions())) {
+                throw new IllegalStateException(NAMES[setting] + " produced different TAC");
+            }
+
+            long bytes = BenchmarkSupport.retainedBytes(() -> parse(tokens, current));
+            long median = BenchmarkSupport.median(BenchmarkSupport.measure(rounds, () -> parse(tokens, current)));
+            System.out.printf("%-6s 表达式节点 %7d / %7d, 堆占用 %7.2f MB, 分析中位数 %7.3f ms%n", NAMES[setting],
+                    factory.createdNodes(), factory.requestedNodes(), bytes / 1048576.0, median / 1e6);
+        }
+    }
+
+    private static NodeFactory factory(int setting) {
+        return new NodeFactory(setting > 0, setting > 1);
+    }
+
+    private static ProgramNode parse(TokenStream tokens, int setting) {
+        return new RecursiveDescentASTParser(tokens).useNodeFactory(factory(setting)).parseProgram();
+    }
+
+    /**
+     * 生成重复度高的源程序，类似代码生成器的输出：少量变量与常量反复出现在相同形状的表达式中。
+     */
+    private static String generateSource(int groups) {
+        StringBuilder sb = new StringBuilder(groups * 120);
+        sb.append("int main() {\n    int a = 1;\n    int b = 2;\n    int c = 3;\n");
+        for (int i = 0; i < groups; i++) {
+            String v = i % 3 == 0 ? "a" : i % 3 == 1 ? "b" : "c";
+            sb.append("    ").append(v).append(" = (a + b) * 2 - c % 7 + ").append(i % 16).append(";\n");
+            sb.append("    if (").append(v).append(" <= 500) { ").append(v).append(" = (a + b) * 2 + 1; }\n");
+            sb.append("    printf(\"%d\", ").append(v).append(" - 1);\n");
+        }
+        sb.append("    return 0;\n}\n");
+        return sb.toString();
+    }
+}
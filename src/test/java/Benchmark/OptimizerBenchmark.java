@@ -0,0 +1,88 @@
+package Benchmark;
+
+import AST.TACCode;
+import AssemblyGenerator.AssemblyGenerator;
+import Lexer.SourceFile;
+import Optimizer.ConstantFolder;
+import Optimizer.CopyPropagator;
+import Pipeline.CompilerPipeline;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OptimizerBenchmark 报告三地址码优化在示例程序上的效果：三地址码与汇编指令的静态条数，
+ * 以及解释执行时实际执行的三地址码条数与估算的 8086 时钟周期数 (见 {@link TACProfile})。
+ * 优化前后程序的输出必须相同。
+ * <p>
+ * 运行方式：
+ * <pre>
+ * java -cp target/classes:target/test-classes Benchmark.OptimizerBenchmark [源文件 ...]
+ * </pre>
+ * 不指定源文件时，使用仓库中的两个示例程序与一个常量表达式较多的内置程序。
+ */
+public class OptimizerBenchmark {
+
+    private static final String[] LEVELS = {"不优化", "常量折叠", "+拷贝传播"};
+
+    /** 含有常量子表达式、恒等式与常量链的程序。 */
+    private static final String CONSTANT_EXAMPLE = """
+            int main() {
+                int width = 4 * 8;
+                int area = 0;
+                int i = 0;
+                while (i <= 10 * 10) {
+                    area = area + width * 1 + 0;
+                    i = i + 1 + 1;
+                }
+                printf("%d", area);
+                if (2 * 3 == 6) {
+                    printf("Folded");
+                }
+                return 0;
+            }
+            """;
+
+    public static void main(String[] args) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<CharSequence> sources = new ArrayList<>();
+        if (args.length == 0) {
+            args = new String[]{"trueExample_checkNumber.txt", "trueExample_checkSize.txt"};
+            names.add("内置常量示例");
+            sources.add(CONSTANT_EXAMPLE);
+        }
+        for (String arg : args) {
+            names.add(arg);
+            sources.add(SourceFile.map(Path.of(arg)));
+        }
+
+        for (int p = 0; p < sources.size(); p++) {
+            System.out.println(names.get(p) + ":");
+            List<String> expected = null;
+            for (int level = 0; level < LEVELS.length; level++) {
+                TACCode code = new CompilerPipeline().compile(sources.get(p)).tac;
+                optimize(code, level);
+                List<String> assembly = new AssemblyGenerator().generate(code);
+                TACProfile profile = TACProfile.run(code);
+                if (expected == null) {
+                    expected = profile.output;
+                } else if (!expected.equals(profile.output)) {
+                    throw new IllegalStateException(LEVELS[level] + " changed the output of " + names.get(p));
+                }
+                System.out.printf("  %-8s 三地址码 %4d 条, 汇编 %4d 条; 执行三地址码 %7d 条, 约 %9d 个时钟周期%n", LEVELS[level],
+                        code.size(), TACProfile.instructionCount(assembly), profile.steps, profile.cycles(assembly));
+            }
+        }
+    }
+
+    private static void optimize(TACCode code, int level) {
+        if (level >= 1) {
+            ConstantFolder.fold(code);
+        }
+        if (level >= 2) {
+            CopyPropagator.propagate(code);
+            ConstantFolder.fold(code);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package Benchmark;
+
+import AST.ProgramNode;
+import AST.RecursiveDescentASTParser;
+import Lexer.Lexer;
+import Lexer.SourceFile;
+import Lexer.TokenStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * ParserModeBenchmark 比较 RecursiveDescentASTParser 的递归模式与显式栈模式。
+ * 在普通程序上测量两种模式的分析时间 (两者构建的 AST 必须相同)，
+ * 然后构造嵌套深度为数十万层的代码块与括号，确认显式栈模式可以完成分析，而递归模式会栈溢出。
+ * <p>
+ * 运行方式：
+ * <pre>
+ * java -cp target/classes:target/test-classes Benchmark.ParserModeBenchmark [源文件] [轮数]
+ * </pre>
+ * 不指定源文件时，使用一个约 2 万条语句、嵌套不超过 3 层的生成程序。
+ */
+public class ParserModeBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        CharSequence source = args.length > 0 ? SourceFile.map(Path.of(args[0])) : BenchmarkSupport.generateProgram(2000);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        TokenStream tokens = Lexer.tokenize(source);
+        String recursiveTree = parse(tokens, false).printTree("", true);
+        String explicitTree = parse(tokens, true).printTree("", true);
+        if (!recursiveTree.equals(explicitTree)) {
+            throw new IllegalStateException("explicit-stack mode built a different AST");
+        }
+        System.out.printf("源程序: %d 字符, %d 个 Token%n", source.length(), tokens.size());
+
+        long recursive = BenchmarkSupport.report("递归", BenchmarkSupport.measure(rounds, () -> parse(tokens, false)));
+        long explicit = BenchmarkSupport.report("显式栈", BenchmarkSupport.measure(rounds, () -> parse(tokens, true)));
+        System.out.printf("显式栈模式的中位时间是递归模式的 %.1f%%%n", 100.0 * explicit / recursive);
+
+        deepNesting(100_000);
+    }
+
+    private static ProgramNode parse(TokenStream tokens, boolean explicitStack) {
+        return new RecursiveDescentASTParser(tokens).useExplicitStack(explicitStack).parseProgram();
+    }
+
+    /**
+     * 分析 depth 层嵌套的 while / if-else 代码块，以及 depth 层嵌套的括号表达式。
+     */
+    private static void deepNesting(int depth) {
+        StringBuilder sb = new StringBuilder(depth * 24);
+        sb.append("int main() {\n    int x = 1;\n    x = ");
+        sb.append("(".repeat(depth)).append('1');
+        for (int i = 0; i < depth; i++) {
+            sb.append(" + 1)");
+        }
+        sb.append(";\n");
+        for (int i = 0; i < depth; i++) {
+            sb.append(i % 2 == 0 ? "while (x) { " : "if (x) { ");
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            sb.append(i % 2 == 0 ? "} " : "} else { } ");
+        }
+        sb.append("\n}\n");
+        TokenStream tokens = Lexer.tokenize(sb);
+
+        long begin = System.nanoTime();
+        parse(tokens, true);
+        System.out.printf("嵌套 %d 层: 显式栈模式 %.2f ms%n", depth, (System.nanoTime() - begin) / 1e6);
+        try {
+            parse(tokens, false);
+            System.out.println("嵌套 " + depth + " 层: 递归模式也完成了分析");
+        } catch (StackOverflowError e) {
+            System.out.println("嵌套 " + depth + " 层: 递归模式 StackOverflowError");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package Benchmark;
+
+import Lexer.SourceFile;
+import Pipeline.CompilerPipeline;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+/**
+ * PipelineBenchmark 比较 FAST 流水线与教学用的完整流水线 (EDUCATIONAL) 的端到端延迟。
+ * EDUCATIONAL 模式的日志写入一个丢弃输出的流，只计入生成日志的开销，不计入终端本身的输出速度。
+ * 两种模式生成的三地址码与汇编代码必须相同。
+ * <p>
+ * 运行方式：
+ * <pre>
+ * java -cp target/classes:target/test-classes Benchmark.PipelineBenchmark [源文件] [轮数]
+ * </pre>
+ * 不指定源文件时，使用一个约 2000 条语句的生成程序。
+ */
+public class PipelineBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        CharSequence source = args.length > 0 ? SourceFile.map(Path.of(args[0])) : BenchmarkSupport.generateProgram(220);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        CompilerPipeline fast = new CompilerPipeline();
+        CompilerPipeline educational = new CompilerPipeline(CompilerPipeline.Mode.EDUCATIONAL,
+                new PrintStream(OutputStream.nullOutputStream()));
+
+        CompilerPipeline.Result fastResult = fast.compile(source);
+        CompilerPipeline.Result educationalResult = educational.compile(source);
+        if (!fastResult.tac.toText().equals(educationalResult.tac.toText()) || !fastResult.assembly.equals(educationalResult.assembly)) {
+            throw new IllegalStateException("FAST and EDUCATIONAL pipelines produced different output");
+        }
+        System.out.printf("源程序: %d 字符, %d 条三地址码, %d 行汇编, 简单优先分析 %d 步%n", source.length(),
+                fastResult.tac.size(), fastResult.assembly.size(), educationalResult.parseSteps.size());
+
+        long fastMedian = BenchmarkSupport.report("FAST", BenchmarkSupport.measure(rounds, () -> fast.compile(source)));
+        long educationalMedian = BenchmarkSupport.report("EDUCATIONAL",
+                BenchmarkSupport.measure(rounds, () -> educational.compile(source)));
+        System.out.printf("FAST 的中位延迟是完整流程的 %.1f%% (%.1f 倍速)%n",
+                100.0 * fastMedian / educationalMedian, (double) educationalMedian / fastMedian);
+    }
+}
@@ -0,0 +1,254 @@
+package Benchmark;
+
+import AST.TACCode;
+import AST.TACCode.Opcode;
+import AST.TACCode.OperandKind;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TACProfile 按 16 位有符号语义解释执行三地址码，记录程序输出与每条指令的执行次数，
+ * 再结合 AssemblyGenerator 为每条指令生成的汇编代码估算 8086 的时钟周期数。
+ * 用于比较优化前后的程序：输出必须相同，执行的指令数与周期数越少越好。
+ * OptimizerBenchmark 用它报告优化效果，Optimizer.TACOptimizerTest 用它检查优化不改变程序的输出。
+ */
+public final class TACProfile {
+    private static final int STEP_LIMIT = 50_000_000;
+    private static final Set<String> REGISTERS = Set.of("AX", "BX", "CX", "DX", "SP", "BP", "SI", "DI",
+            "AL", "AH", "BL", "BH", "CL", "CH", "DL", "DH");
+
+    public final List<String> output = new ArrayList<>();
+    final long[] executed;  // 每条指令的执行次数
+    final long[] jumped;    // IF_FALSE 发生跳转的次数
+    public long steps;
+
+    private TACProfile(int size) {
+        executed = new long[size];
+        jumped = new long[size];
+    }
+
+    /**
+     * 从 START_PROGRAM 开始执行，直到 RETURN 或指令结束。
+     *
+     * @throws IllegalStateException 如果执行超过步数上限 (可能是死循环)。
+     * @throws ArithmeticException   如果除数为 0。
+     */
+    public static TACProfile run(TACCode code) {
+        TACProfile profile = new TACProfile(code.size());
+        Map<Integer, Integer> labels = new HashMap<>();
+        for (int i = 0; i < code.size(); i++) {
+            if (code.opcode(i) == Opcode.LABEL) {
+                labels.put(TACCode.value(code.operand(i, 0)), i);
+            }
+        }
+        Frame frame = new Frame();
+        int pc = 0;
+        while (pc < code.size()) {
+            if (++profile.steps > STEP_LIMIT) {
+                throw new IllegalStateException("step limit exceeded");
+            }
+            profile.executed[pc]++;
+            Opcode opcode = code.opcode(pc);
+            long first = code.operand(pc, 0);
+            int next = pc + 1;
+            switch (opcode) {
+                case COPY:
+                    frame.write(first, frame.read(code.operand(pc, 1)));
+                    break;
+                case IF_FALSE:
+                    if (frame.read(first) == 0) {
+                        profile.jumped[pc]++;
+                        next = labels.get(TACCode.value(code.operand(pc, 1)));
+                    }
+                    break;
+                case GOTO:
+                    next = labels.get(TACCode.value(first));
+                    break;
+                case PRINT:
+                    profile.output.add(String.valueOf(frame.read(first)));
+                    break;
+                case PRINT_STR:
+                    profile.output.add(code.operandText(first));
+                    break;
+                case PRINT_NEWLINE:
+                    profile.output.add("\n");
+                    break;
+                case RETURN:
+                    profile.output.add("return " + frame.read(first));
+                    return profile;
+                default:
+                    if (opcode.isBinary()) {
+                        frame.write(first, evaluate(opcode, frame.read(code.operand(pc, 1)), frame.read(code.operand(pc, 2))));
+                    }
+                    break;
+            }
+            pc = next;
+        }
+        return profile;
+    }
+
+    private static short evaluate(Opcode opcode, short a, short b) {
+        switch (opcode) {
+            case ADD: return (short) (a + b);
+            case SUB: return (short) (a - b);
+            case MUL: return (short) (a * b);
+            case DIV: return (short) (a / b);
+            case MOD: return (short) (a % b);
+            case GT: return (short) (a > b ? 1 : 0);
+            case LE: return (short) (a <= b ? 1 : 0);
+            case EQ: return (short) (a == b ? 1 : 0);
+            case LT: return (short) (a < b ? 1 : 0);
+            case GE: return (short) (a >= b ? 1 : 0);
+            default: return (short) (a != b ? 1 : 0);
+        }
+    }
+
+    /**
+     * 变量与临时变量的值，未赋值时为 0。
+     */
+    private static final class Frame {
+        private short[] variables = new short[64];
+        private short[] temps = new short[64];
+
+        short read(long operand) {
+            int value = TACCode.value(operand);
+            switch (TACCode.kind(operand)) {
+                case IMMEDIATE:
+                    return (short) value;
+                case VARIABLE:
+                    return value < variables.length ? variables[value] : 0;
+                case TEMP:
+                    return value < temps.length ? temps[value] : 0;
+                default:
+                    throw new IllegalStateException("cannot read operand of kind " + TACCode.kind(operand));
+            }
+        }
+
+        void write(long operand, short result) {
+            int value = TACCode.value(operand);
+            if (TACCode.kind(operand) == OperandKind.VARIABLE) {
+                variables = grow(variables, value);
+                variables[value] = result;
+            } else {
+                temps = grow(temps, value);
+                temps[value] = result;
+            }
+        }
+
+        private static short[] grow(short[] array, int index) {
+            return index < array.length ? array : Arrays.copyOf(array, Math.max(array.length * 2, index + 1));
+        }
+    }
+
+    // ---------------------------------------------------------------- 周期估算
+
+    /**
+     * 估算一次执行的 8086 时钟周期数：每条三地址码指令的执行次数乘以它对应的汇编代码的周期数。
+     * 条件跳转不跳转时按 4 个周期、跳转时按 16 个周期计算；CALL 只计调用指令本身，不计输出子过程的内部。
+     *
+     * @param assembly AssemblyGenerator 为同一份三地址码生成的汇编代码。
+     */
+    long cycles(List<String> assembly) {
+        long total = 0;
+        int index = -1;
+        for (String line : assembly) {
+            if (line.startsWith("    ; TAC: ")) {
+                index++;
+                continue;
+            }
+            if (line.equals("MAIN ENDP")) {
+                break;
+            }
+            if (index >= 0) {
+                String mnemonic = mnemonic(line);
+                total += executed[index] * lineCycles(line);
+                if (mnemonic.startsWith("J") && !mnemonic.equals("JMP")) {
+                    total += jumped[index] * 12;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return 汇编代码中 MAIN 过程内的指令条数 (不含标签、注释与空行)。
+     */
+    static int instructionCount(List<String> assembly) {
+        int count = 0;
+        boolean inMain = false;
+        for (String line : assembly) {
+            if (line.equals("MAIN PROC")) {
+                inMain = true;
+            } else if (line.equals("MAIN ENDP")) {
+                break;
+            } else if (inMain && !mnemonic(line).isEmpty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String mnemonic(String line) {
+        String text = stripComment(line);
+        if (text.isEmpty() || text.endsWith(":")) {
+            return "";
+        }
+        int space = text.indexOf(' ');
+        return space < 0 ? text : text.substring(0, space);
+    }
+
+    private static String stripComment(String line) {
+        int semicolon = line.indexOf(';');
+        return (semicolon < 0 ? line : line.substring(0, semicolon)).trim();
+    }
+
+    /**
+     * 一条汇编指令的周期数。内存操作数的有效地址计算 [BP+disp] 按 9 个周期、直接地址按 6 个周期。
+     */
+    private static int lineCycles(String line) {
+        String mnemonic = mnemonic(line);
+        if (mnemonic.isEmpty()) {
+            return 0;
+        }
+        String[] operands = stripComment(line).substring(mnemonic.length()).trim().split("\\s*,\\s*");
+        boolean destMemory = operands[0].contains("[");
+        boolean sourceMemory = operands.length > 1 && operands[1].contains("[");
+        boolean sourceImmediate = operands.length > 1 && !sourceMemory && !isRegister(operands[1]);
+        switch (mnemonic) {
+            case "MOV":
+                if (destMemory) return sourceImmediate ? 10 + 9 : 9 + 9;
+                if (sourceMemory) return 8 + 9;
+                return sourceImmediate ? 4 : 2;
+            case "ADD":
+            case "SUB":
+            case "CMP":
+                if (destMemory) return sourceImmediate ? 17 + 9 : 16 + 9;
+                if (sourceMemory) return 9 + 9;
+                return sourceImmediate ? 4 : 3;
+            case "IMUL":
+                return destMemory ? 134 + 9 : 134;
+            case "IDIV":
+                return destMemory ? 175 + 9 : 175;
+            case "CWD":
+                return 5;
+            case "JMP":
+                return 15;
+            case "CALL":
+                return 19;
+            case "LEA":
+                return 2 + 6;
+            case "INT":
+                return 51;
+            default:
+                return mnemonic.startsWith("J") ? 4 : 2;
+        }
+    }
+
+    private static boolean isRegister(String operand) {
+        return REGISTERS.contains(operand);
+    }
+}
@@ -0,0 +1,99 @@
+package Lexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 检查增量词法分析器在任意编辑之后得到的 Token 序列与整体重新扫描的结果相同。
+ * 编辑由固定种子随机生成：在随机位置删除若干字符并插入 Token 的片段，包括会把后面的内容
+ * 变成注释或字符串的 "//"、"/*"、单独的引号，以及会拆开或拼接关键字、数字的片段。
+ */
+class IncrementalLexerTest {
+
+    private static final String[] SNIPPETS = {
+            "x", "_a1", "12", "3000", "int", "wh", "ile", "while", "if", "else", "printf", "return",
+            " ", "\n", "\t", "(", ")", "{", "}", ";", ",", "&", "+", "-", "*", "/", "%", "=", "==", "<=", ">",
+            "//", "/*", "*/", "\"", "\"%d\"", "\"a\\\"b\"", "/* c */", "// c\n"
+    };
+
+    @Test
+    void examplesMatchFullRelexAfterRandomEdits() throws IOException {
+        long seed = 1;
+        for (String file : new String[]{"trueExample_checkNumber.txt", "trueExample_checkSize.txt"}) {
+            checkRandomEdits(SourceFile.read(Path.of(file)), seed++, 3000);
+        }
+    }
+
+    @Test
+    void generatedProgramMatchesFullRelexAfterRandomEdits() {
+        StringBuilder source = new StringBuilder("int main() {\n");
+        for (int i = 0; i < 400; i++) {
+            source.append("    int v_").append(i).append(" = ").append(i * 37).append(" + v_").append(i / 2)
+                    .append("; // line ").append(i).append('\n');
+            if (i % 10 == 0) {
+                source.append("    /* block\n       comment */ printf(\"%d \\\"q\\\"\", v_").append(i).append(");\n");
+            }
+        }
+        source.append("    return 0;\n}\n");
+        checkRandomEdits(source.toString(), 7, 5000);
+    }
+
+    /**
+     * 对文本进行一系列随机编辑，每次编辑之后比较增量结果与整体重新扫描的结果。
+     * 编辑产生非法的文本 (例如未闭合的字符串) 时，增量分析器必须进入无效状态；
+     * 此时撤销这次编辑并重新完整扫描，继续后面的编辑。
+     */
+    private static void checkRandomEdits(String source, long seed, int edits) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(source);
+        IncrementalLexer lexer = new IncrementalLexer(text);
+        int compared = 0;
+        for (int i = 0; i < edits; i++) {
+            int offset = random.nextInt(text.length() + 1);
+            int removed = Math.min(random.nextInt(4) == 0 ? random.nextInt(6) : 0, text.length() - offset);
+            String inserted = random.nextInt(5) == 0 ? "" : SNIPPETS[random.nextInt(SNIPPETS.length)];
+            String old = text.substring(offset, offset + removed);
+            text.replace(offset, offset + removed, inserted);
+
+            TokenStream expected;
+            try {
+                expected = Lexer.tokenize(text);
+            } catch (RuntimeException e) {
+                try {
+                    lexer.edit(text, offset, removed, inserted.length());
+                } catch (RuntimeException ignored) {
+                    // 增量分析器同样遇到了非法字符
+                }
+                assertFalse(lexer.isValid(), () -> "edit accepted text that a full lex rejects:\n" + text);
+                text.replace(offset, offset + inserted.length(), old);
+                lexer.reset(text);
+                continue;
+            }
+            lexer.edit(text, offset, removed, inserted.length());
+            assertTrue(lexer.isValid());
+            assertSameTokens(expected, lexer, text);
+            compared++;
+        }
+        assertTrue(compared > edits / 2, "only " + compared + " edits produced valid text");
+    }
+
+    private static void assertSameTokens(TokenStream expected, IncrementalLexer lexer, CharSequence text) {
+        TokenStream actual = lexer.snapshot();
+        assertEquals(expected.size(), actual.size(), () -> "token count differs for:\n" + text);
+        for (int i = 0; i < expected.size(); i++) {
+            int token = i;
+            Supplier<String> message = () -> "token " + token + " differs from a full re-lex of:\n" + text;
+            assertEquals(expected.kind(i), actual.kind(i), message);
+            assertEquals(expected.start(i), actual.start(i), message);
+            assertEquals(expected.end(i), actual.end(i), message);
+            assertEquals(expected.intValue(i), actual.intValue(i), message);
+        }
+    }
+}
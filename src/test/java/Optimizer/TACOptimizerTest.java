@@ -0,0 +1,133 @@
+package Optimizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import AST.TACCode;
+import Benchmark.TACProfile;
+import Lexer.SourceFile;
+import Pipeline.CompilerPipeline;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 检查三地址码优化不改变程序的行为：优化前后的三地址码由 {@link TACProfile} 解释执行，输出必须相同。
+ * 除仓库中的示例程序外，还检查一批由固定种子生成的随机程序，它们覆盖常量表达式、拷贝链、
+ * 16 位溢出、除法与取模、嵌套的循环与分支。
+ */
+class TACOptimizerTest {
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "%", "<=", "==", ">", "+", "*", "+", "-"};
+    private static final String[] VARIABLES = {"x", "y", "z"};
+
+    @Test
+    void examplesKeepTheirOutput() throws IOException {
+        for (String file : new String[]{"trueExample_checkNumber.txt", "trueExample_checkSize.txt"}) {
+            assertSameOutput(SourceFile.read(Path.of(file)));
+        }
+        assertSameOutput("""
+                int main() {
+                    int width = 4 * 8;
+                    int area = 0;
+                    int i = 0;
+                    while (i <= 10 * 10) {
+                        area = area + width * 1 + 0;
+                        i = i + 1 + 1;
+                    }
+                    printf("%d", area);
+                    if (2 * 3 == 6) {
+                        printf("Folded");
+                    }
+                    return 0;
+                }
+                """);
+    }
+
+    @Test
+    void randomProgramsKeepTheirOutput() {
+        Random random = new Random(20240601);
+        int checked = 0;
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder sb = new StringBuilder("int main() { int x = 3; int y = 5; int z = 7; if (1) ");
+            new Generator(random).block(3, sb);
+            sb.append("return x; }");
+            if (assertSameOutput(sb.toString())) {
+                checked++;
+            }
+        }
+        // 除数为 0 的程序被跳过，但大多数程序应当真正参与比较
+        assertTrue(checked > 500, "only " + checked + " random programs ran without a division by zero");
+    }
+
+    /**
+     * 分别编译不优化与优化的三地址码并解释执行，比较输出。
+     *
+     * @return 是否进行了比较；不优化的程序在执行时除以 0 时返回 false。
+     */
+    private static boolean assertSameOutput(String source) {
+        TACCode plain = new CompilerPipeline().compile(source).tac;
+        TACProfile expected;
+        try {
+            expected = TACProfile.run(plain);
+        } catch (ArithmeticException e) {
+            return false;
+        }
+        TACCode optimized = new CompilerPipeline().optimize(true).compile(source).tac;
+        assertEquals(expected.output, TACProfile.run(optimized).output, () -> "optimized program behaves differently:\n" + source);
+        return true;
+    }
+
+    /**
+     * 随机程序生成器。变量只有 x、y、z 与每个循环自己的计数器，循环次数有上限，因此程序总会结束。
+     */
+    private static final class Generator {
+        private final Random random;
+        private int loops;
+
+        Generator(Random random) {
+            this.random = random;
+        }
+
+        String expression(int depth) {
+            if (depth == 0 || random.nextInt(3) == 0) {
+                int k = random.nextInt(10);
+                return k < 4 ? VARIABLES[random.nextInt(3)] : k < 9 ? String.valueOf(random.nextInt(4)) : "30000";
+            }
+            String e = expression(depth - 1) + " " + OPERATORS[random.nextInt(OPERATORS.length)] + " " + expression(depth - 1);
+            return random.nextBoolean() ? "(" + e + ")" : e;
+        }
+
+        void block(int depth, StringBuilder sb) {
+            sb.append("{ ");
+            int statements = 1 + random.nextInt(4);
+            for (int i = 0; i < statements; i++) {
+                switch (random.nextInt(depth > 0 ? 7 : 4)) {
+                    case 0, 1 -> sb.append(VARIABLES[random.nextInt(3)]).append(" = ").append(expression(4)).append("; ");
+                    case 2 -> sb.append("printf(\"%d\", ").append(expression(3)).append("); ");
+                    case 3 -> sb.append("printf(\"s\"); ");
+                    case 4 -> {
+                        String counter = "c" + loops++;
+                        sb.append("int ").append(counter).append(" = 0; while (").append(counter).append(" <= ")
+                                .append(random.nextInt(5)).append(") { ").append(counter).append(" = ").append(counter)
+                                .append(" + 1; if (1) ");
+                        block(depth - 1, sb);
+                        sb.append("} ");
+                    }
+                    case 5 -> {
+                        sb.append("if (").append(expression(2)).append(") ");
+                        block(depth - 1, sb);
+                    }
+                    default -> {
+                        sb.append("if (").append(expression(2)).append(") ");
+                        block(depth - 1, sb);
+                        sb.append(" else ");
+                        block(depth - 1, sb);
+                    }
+                }
+            }
+            sb.append("} ");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package Pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 检查流水线的显式栈选项与嵌套过深时的错误报告。
+ */
+class CompilerPipelineTest {
+
+    /**
+     * 生成嵌套 blocks 层 while / if 代码块、表达式中嵌套 parens 层括号的程序。
+     */
+    private static String nestedProgram(int blocks, int parens) {
+        StringBuilder sb = new StringBuilder("int main() { int x = 1; x = ");
+        sb.append("(".repeat(parens)).append('1').append(" + 1)".repeat(parens)).append("; ");
+        for (int i = 0; i < blocks; i++) {
+            sb.append(i % 2 == 0 ? "while (x) { x = x - 1; " : "if (x) { ");
+        }
+        for (int i = blocks - 1; i >= 0; i--) {
+            sb.append(i % 2 == 0 ? "} " : "} else { printf(\"e\"); } ");
+        }
+        return sb.append("return x; }").toString();
+    }
+
+    @Test
+    void explicitStackProducesTheSameCode() {
+        String source = nestedProgram(200, 200);
+        CompilerPipeline.Result recursive = new CompilerPipeline().compile(source);
+        CompilerPipeline.Result explicit = new CompilerPipeline().explicitStack(true).compile(source);
+        assertEquals(recursive.tac.toText(), explicit.tac.toText());
+        assertEquals(recursive.assembly, explicit.assembly);
+    }
+
+    @Test
+    void tooDeepNestingIsReportedAsCompileError() {
+        String source = nestedProgram(200_000, 200_000);
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> new CompilerPipeline().explicitStack(true).compile(source));
+        assertTrue(error.getMessage().startsWith("Compile Error: program nesting is too deep"), error.getMessage());
+        // 显式栈模式下语法分析不会溢出，溢出发生在之后的递归阶段
+        assertFalse(error.getMessage().contains("PARSE"), error.getMessage());
+
+        error = assertThrows(RuntimeException.class, () -> new CompilerPipeline().compile(source));
+        assertTrue(error.getMessage().contains("for the PARSE phase"), error.getMessage());
+    }
+}